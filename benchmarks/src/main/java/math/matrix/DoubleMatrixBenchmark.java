@@ -0,0 +1,62 @@
+package math.matrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DoubleMatrix.multiplyとLUP分解のスループット。既定の並列化が逐次より遅くならないこと、
+ * MixedPrecisionLUPのfloatの分解がDoublePackedLUPより速いことを確かめる
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class DoubleMatrixBenchmark {
+
+    @Param({"256", "768"})
+    int size;
+
+    DoubleMatrix a;
+    DoubleMatrix b;
+
+    @Setup
+    public void setup() {
+        a = DoubleMatrix.from(Matrices.randomDouble(size, 1));
+        b = DoubleMatrix.from(Matrices.randomDouble(size, 2));
+    }
+
+    @Benchmark
+    public DoubleMatrix multiplySerial() {
+        return a.multiply(b, Parallelism.SERIAL);
+    }
+
+    @Benchmark
+    public DoubleMatrix multiplyDefault() {
+        return a.multiply(b, Parallelism.DEFAULT);
+    }
+
+    @Benchmark
+    public Optional<DoublePackedLUP> decomposeDouble() {
+        return DoublePackedLUP.decompose(a);
+    }
+
+    @Benchmark
+    public Optional<MixedPrecisionLUP> decomposeFloat() {
+        return MixedPrecisionLUP.decompose(a);
+    }
+
+}
@@ -0,0 +1,60 @@
+package math.matrix;
+
+import math.numbers.Rational;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/** LUP.lupDecompositionとLUP.calcDeterminantのスループット */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LUPBenchmark {
+
+    @Param({"8", "32", "128"})
+    int size;
+
+    Matrix<Double> doubleMatrix;
+    Matrix<Rational> rationalMatrix;
+
+    @Setup
+    public void setup() {
+        doubleMatrix = Matrices.randomDouble(size, 3);
+        rationalMatrix = Matrices.randomRational(size, 3);
+    }
+
+    @Benchmark
+    public Optional<LUP<Double>> lupDecompositionDouble() {
+        return LUP.lupDecomposition(doubleMatrix);
+    }
+
+    @Benchmark
+    public Optional<LUP<Rational>> lupDecompositionRational() {
+        return LUP.lupDecomposition(rationalMatrix);
+    }
+
+    @Benchmark
+    public Double calcDeterminantDouble() {
+        return LUP.calcDeterminant(doubleMatrix);
+    }
+
+    @Benchmark
+    public Rational calcDeterminantRational() {
+        return LUP.calcDeterminant(rationalMatrix);
+    }
+
+}
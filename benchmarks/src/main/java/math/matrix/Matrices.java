@@ -0,0 +1,36 @@
+package math.matrix;
+
+import math.numbers.DoubleInstances;
+import math.numbers.Rational;
+
+import java.util.Random;
+
+/** ベンチマークの入力。同じseedからは同じ行列を作る */
+final class Matrices {
+
+    private Matrices() {}
+
+    static Matrix<Double> randomDouble(int n, long seed) {
+        var random = new Random(seed);
+        var elems = new Double[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                elems[i][j] = random.nextDouble() * 2 - 1;
+            }
+        }
+        return new Matrix<>(elems, DoubleInstances.field, DoubleInstances.distance, DoubleInstances.comparator);
+    }
+
+    /** 分子が-9から9、分母が1から9の有理数を成分とする */
+    static Matrix<Rational> randomRational(int n, long seed) {
+        var random = new Random(seed);
+        var elems = new Rational[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                elems[i][j] = new Rational(random.nextInt(19) - 9, random.nextInt(9) + 1);
+            }
+        }
+        return new Matrix<>(elems, Rational.field, Rational.distance, Rational.comparator);
+    }
+
+}
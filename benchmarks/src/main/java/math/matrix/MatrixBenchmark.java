@@ -0,0 +1,63 @@
+package math.matrix;
+
+import math.numbers.Rational;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Matrix.multiplyとMatrix.addのスループット */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class MatrixBenchmark {
+
+    @Param({"8", "32", "128"})
+    int size;
+
+    Matrix<Double> doubleA;
+    Matrix<Double> doubleB;
+    Matrix<Rational> rationalA;
+    Matrix<Rational> rationalB;
+
+    @Setup
+    public void setup() {
+        doubleA = Matrices.randomDouble(size, 1);
+        doubleB = Matrices.randomDouble(size, 2);
+        rationalA = Matrices.randomRational(size, 1);
+        rationalB = Matrices.randomRational(size, 2);
+    }
+
+    @Benchmark
+    public Matrix<Double> multiplyDouble() {
+        return doubleA.multiply(doubleB);
+    }
+
+    @Benchmark
+    public Matrix<Rational> multiplyRational() {
+        return rationalA.multiply(rationalB);
+    }
+
+    @Benchmark
+    public Matrix<Double> addDouble() {
+        return doubleA.add(doubleB);
+    }
+
+    @Benchmark
+    public Matrix<Rational> addRational() {
+        return rationalA.add(rationalB);
+    }
+
+}
@@ -0,0 +1,49 @@
+package math.matrix;
+
+import math.numbers.Rational;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** 置換全体の和による行列式のスループット。計算量がn!のため小さな行列だけを測る */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PrimitiveDeterminantBenchmark {
+
+    @Param({"4", "6", "8"})
+    int size;
+
+    Matrix<Double> doubleMatrix;
+    Matrix<Rational> rationalMatrix;
+
+    @Setup
+    public void setup() {
+        doubleMatrix = Matrices.randomDouble(size, 4);
+        rationalMatrix = Matrices.randomRational(size, 4);
+    }
+
+    @Benchmark
+    public Double calcDeterminantDouble() {
+        return PrimitiveDeterminant.calcDeterminant(doubleMatrix);
+    }
+
+    @Benchmark
+    public Rational calcDeterminantRational() {
+        return PrimitiveDeterminant.calcDeterminant(rationalMatrix);
+    }
+
+}
@@ -0,0 +1,132 @@
+package math.matrix;
+
+import math.numbers.BigIntegerInstances;
+import math.numbers.IntegralDomain;
+import math.numbers.Rational;
+
+import java.math.BigInteger;
+
+/**
+ * Bareissの方法(分数を使わない消去法)による行列式。
+ * k段目の消去後の(i, j)成分は元の行列の(k+1)次の小行列式に等しく、その更新は
+ * a[i][j] = (a[i][j] * a[k][k] - a[i][k] * a[k][j]) / (前の段のピボット)
+ * の割り切れる除算(IntegralDomain.exactDiv)で行う。
+ * そのため整数の行列では途中の値が小行列式の大きさに抑えられ、分数も最大公約数の計算も現れない。
+ */
+final class Bareiss {
+
+    private Bareiss() {}
+
+    /** 整域上の行列式。elemsは書き換えない */
+    static <T> T calcDeterminant(T[][] elems, IntegralDomain<T> domain) {
+        var n = elems.length;
+        var a = (T[][]) new Object[n][];
+        for (var i = 0; i < n; i++) {
+            if (elems[i].length != n) {
+                throw new IllegalArgumentException("正方行列でない場合行列式は定義されません");
+            }
+            a[i] = elems[i].clone();
+        }
+        return calcDeterminantInPlace(a, domain);
+    }
+
+    /** Fieldの除算を割り切れる除算として用いる */
+    static <T> T calcDeterminant(Matrix<T> matrix) {
+        if (matrix.m != matrix.n) {
+            throw new IllegalArgumentException("正方行列でない場合行列式は定義されません");
+        }
+        return calcDeterminant(matrix.elems, matrix.field);
+    }
+
+    static BigInteger calcDeterminant(long[][] elems) {
+        var n = elems.length;
+        var a = new BigInteger[n][n];
+        for (var i = 0; i < n; i++) {
+            if (elems[i].length != n) {
+                throw new IllegalArgumentException("正方行列でない場合行列式は定義されません");
+            }
+            for (var j = 0; j < n; j++) {
+                a[i][j] = BigInteger.valueOf(elems[i][j]);
+            }
+        }
+        return calcDeterminantInPlace(a, BigIntegerInstances.domain);
+    }
+
+    /**
+     * Rationalの行列の行列式を正確に求める。
+     * 各行に分母の最小公倍数を掛けて整数の行列にしてからBareissの方法で計算し、最後に掛けた数の積で割る。
+     */
+    static Rational calcDeterminantExact(Matrix<Rational> matrix) {
+        if (matrix.m != matrix.n) {
+            throw new IllegalArgumentException("正方行列でない場合行列式は定義されません");
+        }
+        var n = matrix.n;
+        var a = new BigInteger[n][n];
+        var scale = BigInteger.ONE;
+        for (var i = 0; i < n; i++) {
+            var lcm = BigInteger.ONE;
+            for (var j = 0; j < n; j++) {
+                var d = matrix.get(i, j).denominator();
+                lcm = lcm.divide(lcm.gcd(d)).multiply(d);
+            }
+            for (var j = 0; j < n; j++) {
+                var r = matrix.get(i, j);
+                a[i][j] = r.numerator().multiply(lcm.divide(r.denominator()));
+            }
+            scale = scale.multiply(lcm);
+        }
+        var det = calcDeterminantInPlace(a, BigIntegerInstances.domain);
+        return new Rational(det, scale);
+    }
+
+    /** aを書き換えながら行列式を求める。0*0の行列の行列式は1とする */
+    static <T> T calcDeterminantInPlace(T[][] a, IntegralDomain<T> domain) {
+        var n = a.length;
+        if (n == 0) {
+            return domain.mulZero();
+        }
+        var zero = domain.addZero();
+        var sign = false; // 行を奇数回入れ替えたか
+        var previous = domain.mulZero();
+        for (var k = 0; k < n - 1; k++) {
+            if (isZero(domain, zero, a[k][k])) {
+                var _k = -1;
+                for (var i = k + 1; i < n; i++) {
+                    if (!isZero(domain, zero, a[i][k])) {
+                        _k = i;
+                        break;
+                    }
+                }
+                if (_k < 0) {
+                    return zero;
+                }
+                var t = a[k];
+                a[k] = a[_k];
+                a[_k] = t;
+                sign = !sign;
+            }
+            var pivot = a[k][k];
+            var rowK = a[k];
+            for (var i = k + 1; i < n; i++) {
+                var rowI = a[i];
+                var aik = rowI[k];
+                for (var j = k + 1; j < n; j++) {
+                    var numerator = domain.minus(domain.multiply(rowI[j], pivot), domain.multiply(aik, rowK[j]));
+                    rowI[j] = domain.exactDiv(numerator, previous);
+                }
+            }
+            previous = pivot;
+        }
+        var det = a[n - 1][n - 1];
+        return sign ? domain.addInverse(det) : det;
+    }
+
+    /**
+     * xが0かどうか。equalsだけでは、Doubleの-0.0が0.0と等しくならず0でないピボットとして選ばれるため、
+     * 符号を反転した値も比べる
+     */
+    private static <T> boolean isZero(IntegralDomain<T> domain, T zero, T x) {
+        return zero.equals(x) || zero.equals(domain.addInverse(x));
+    }
+
+}
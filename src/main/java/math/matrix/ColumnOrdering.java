@@ -0,0 +1,181 @@
+package math.matrix;
+
+import java.util.Arrays;
+
+/**
+ * 疎LU分解のフィルインを減らすための列の並べ替え。COLAMDと同様に A^T * A の最小次数順序を求める。
+ * A^T * A を作らず、Aの各行を「その行に現れる列の全体を互いに隣接させる要素」とする商グラフの上で消去を進める。
+ * 列qを消去すると、qを含む要素は全て1つの新しい要素に吸収される。
+ * 行の入れ替え方に関わらず、LとUの非零パターンは A^T * A のCholesky因子で抑えられるため、
+ * 数値分解でピボットを選んでもこの順序の効果は保たれる。
+ */
+final class ColumnOrdering {
+
+    private ColumnOrdering() {}
+
+    /** 成分の個数がこれを超える行は、ほぼ全ての列を隣接させてしまうため順序の計算では無視する。COLAMDと同じ基準 */
+    static int denseRowThreshold(int n) {
+        return Math.max(16, (int) (10 * Math.sqrt(n)));
+    }
+
+    /**
+     * m行n列のCSC形式の非零パターンから列の消去順序を求める。
+     * 戻り値のqについて、k番目に消去する列はq[k]である。
+     */
+    static int[] order(int m, int n, int[] colPtr, int[] rowIdx) {
+        var dense = denseRowThreshold(n);
+        // 要素 0..m-1 は行、m + q は列qを消去してできた要素
+        var elemVars = new int[m + n][];
+        var rowCounts = new int[m];
+        for (var p = 0; p < colPtr[n]; p++) {
+            rowCounts[rowIdx[p]]++;
+        }
+        for (var i = 0; i < m; i++) {
+            elemVars[i] = rowCounts[i] <= dense ? new int[rowCounts[i]] : null;
+            rowCounts[i] = 0;
+        }
+        var varElems = new int[n][];
+        var varElemLen = new int[n];
+        for (var j = 0; j < n; j++) {
+            var count = 0;
+            for (var p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                var i = rowIdx[p];
+                if (elemVars[i] != null) {
+                    elemVars[i][rowCounts[i]++] = j;
+                    count++;
+                }
+            }
+            varElems[j] = new int[count];
+            for (var p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                var i = rowIdx[p];
+                if (elemVars[i] != null) {
+                    varElems[j][varElemLen[j]++] = i;
+                }
+            }
+        }
+
+        var mark = new int[n];
+        var stamp = new int[] {0};
+        var eliminated = new boolean[n];
+        var degrees = new DegreeLists(n);
+        for (var j = 0; j < n; j++) {
+            degrees.insert(j, degree(j, elemVars, varElems[j], varElemLen[j], eliminated, mark, stamp));
+        }
+
+        var absorbed = new boolean[m + n];
+        var order = new int[n];
+        var members = new int[n];
+        for (var k = 0; k < n; k++) {
+            var q = degrees.removeMin();
+            order[k] = q;
+            eliminated[q] = true;
+
+            // qに隣接する列を集めて新しい要素にする
+            stamp[0]++;
+            var count = 0;
+            for (var t = 0; t < varElemLen[q]; t++) {
+                var e = varElems[q][t];
+                for (var v : elemVars[e]) {
+                    if (!eliminated[v] && mark[v] != stamp[0]) {
+                        mark[v] = stamp[0];
+                        members[count++] = v;
+                    }
+                }
+                absorbed[e] = true;
+                elemVars[e] = null;
+            }
+            var newElem = m + q;
+            elemVars[newElem] = Arrays.copyOf(members, count);
+            varElems[q] = null;
+
+            for (var t = 0; t < count; t++) {
+                var v = members[t];
+                var elems = varElems[v];
+                var len = 0;
+                for (var s = 0; s < varElemLen[v]; s++) {
+                    if (!absorbed[elems[s]]) {
+                        elems[len++] = elems[s];
+                    }
+                }
+                if (len == elems.length) {
+                    elems = varElems[v] = Arrays.copyOf(elems, len + 1);
+                }
+                elems[len++] = newElem;
+                varElemLen[v] = len;
+            }
+            for (var t = 0; t < count; t++) {
+                var v = members[t];
+                degrees.remove(v);
+                degrees.insert(v, degree(v, elemVars, varElems[v], varElemLen[v], eliminated, mark, stamp));
+            }
+        }
+        return order;
+    }
+
+    /** 列vの外部次数。vと要素を共有する、まだ消去していない列の個数 */
+    private static int degree(int v, int[][] elemVars, int[] elems, int len, boolean[] eliminated, int[] mark, int[] stamp) {
+        stamp[0]++;
+        mark[v] = stamp[0];
+        var degree = 0;
+        for (var t = 0; t < len; t++) {
+            for (var u : elemVars[elems[t]]) {
+                if (!eliminated[u] && mark[u] != stamp[0]) {
+                    mark[u] = stamp[0];
+                    degree++;
+                }
+            }
+        }
+        return degree;
+    }
+
+    /** 次数ごとの双方向連結リスト。最小の次数の列を取り出す */
+    private static final class DegreeLists {
+        private final int[] head; // 次数ごとの先頭の列。空なら-1
+        private final int[] next;
+        private final int[] prev;
+        private final int[] degree;
+        private int min;
+
+        DegreeLists(int n) {
+            head = new int[n];
+            next = new int[n];
+            prev = new int[n];
+            degree = new int[n];
+            Arrays.fill(head, -1);
+            min = n;
+        }
+
+        void insert(int v, int d) {
+            degree[v] = d;
+            prev[v] = -1;
+            next[v] = head[d];
+            if (head[d] >= 0) {
+                prev[head[d]] = v;
+            }
+            head[d] = v;
+            min = Math.min(min, d);
+        }
+
+        void remove(int v) {
+            var d = degree[v];
+            if (prev[v] < 0) {
+                head[d] = next[v];
+            } else {
+                next[prev[v]] = next[v];
+            }
+            if (next[v] >= 0) {
+                prev[next[v]] = prev[v];
+            }
+        }
+
+        int removeMin() {
+            while (head[min] < 0) {
+                min++;
+            }
+            var v = head[min];
+            remove(v);
+            return v;
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package math.matrix;
+
+import java.util.Arrays;
+
+/**
+ * 成分をdoubleで保持する疎行列。圧縮列格納(CSC)形式で、0でない成分だけを持つ。
+ * j列目の成分は colPtr[j] から colPtr[j + 1] の手前までの位置にあり、行番号がrowIdx、値がvaluesに入る。
+ * 各列の行番号は昇順で、重複しない。配列はj列目を行とみなせば転置行列のCSR形式と同じである。
+ */
+final class CscMatrix {
+
+    final int m; // 行数
+    final int n; // 列数
+    final int[] colPtr; // 長さn + 1
+    final int[] rowIdx;
+    final double[] values;
+
+    CscMatrix(int m, int n, int[] colPtr, int[] rowIdx, double[] values) {
+        if (m <= 0 || n <= 0) {
+            throw new IllegalArgumentException("行数と列数は1以上である必要があります。m: %d, n: %d".formatted(m, n));
+        }
+        if (colPtr.length != n + 1 || colPtr[0] != 0) {
+            throw new IllegalArgumentException("colPtrの長さは列数+1で、先頭は0である必要があります");
+        }
+        var nnz = colPtr[n];
+        if (rowIdx.length < nnz || values.length < nnz) {
+            throw new IllegalArgumentException("rowIdxとvaluesの長さが成分の個数%dに対して不足しています".formatted(nnz));
+        }
+        for (var j = 0; j < n; j++) {
+            if (colPtr[j] > colPtr[j + 1]) {
+                throw new IllegalArgumentException("colPtrが単調増加ではありません。%d列目".formatted(j));
+            }
+            for (var p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                var i = rowIdx[p];
+                if (i < 0 || i >= m || (p > colPtr[j] && rowIdx[p - 1] >= i)) {
+                    throw new IllegalArgumentException("%d列目の行番号が範囲外か、昇順ではありません".formatted(j));
+                }
+            }
+        }
+        this.m = m;
+        this.n = n;
+        this.colPtr = colPtr;
+        this.rowIdx = rowIdx;
+        this.values = values;
+    }
+
+    /** 密行列の0でない成分を取り出す */
+    public static CscMatrix of(DoubleMatrix matrix) {
+        var m = matrix.m;
+        var n = matrix.n;
+        var colPtr = new int[n + 1];
+        for (var j = 0; j < n; j++) {
+            var count = 0;
+            for (var i = 0; i < m; i++) {
+                if (matrix.get(i, j) != 0.0) {
+                    count++;
+                }
+            }
+            colPtr[j + 1] = colPtr[j] + count;
+        }
+        var rowIdx = new int[colPtr[n]];
+        var values = new double[colPtr[n]];
+        var p = 0;
+        for (var j = 0; j < n; j++) {
+            for (var i = 0; i < m; i++) {
+                var value = matrix.get(i, j);
+                if (value != 0.0) {
+                    rowIdx[p] = i;
+                    values[p++] = value;
+                }
+            }
+        }
+        return new CscMatrix(m, n, colPtr, rowIdx, values);
+    }
+
+    /** 0でない成分の個数 */
+    public int nonZeros() {
+        return colPtr[n];
+    }
+
+    /** 添字を0始まりとしてi行j列の要素を取得する */
+    public double get(int i, int j) {
+        var p = Arrays.binarySearch(rowIdx, colPtr[j], colPtr[j + 1], i);
+        return p >= 0 ? values[p] : 0.0;
+    }
+
+    public DoubleMatrix toDoubleMatrix() {
+        var result = new DoubleMatrix(m, n);
+        for (var j = 0; j < n; j++) {
+            for (var p = colPtr[j]; p < colPtr[j + 1]; p++) {
+                result.elems[rowIdx[p] * n + j] = values[p];
+            }
+        }
+        return result;
+    }
+
+    /** 同じ行列をCSR形式で表す */
+    public CsrMatrix toCsr() {
+        var rowPtr = new int[m + 1];
+        var colIdx = new int[nonZeros()];
+        var newValues = new double[nonZeros()];
+        Sparse.transpose(n, m, colPtr, rowIdx, values, rowPtr, colIdx, newValues);
+        return new CsrMatrix(m, n, rowPtr, colIdx, newValues);
+    }
+
+    /**
+     * 自身の右に密行列を掛ける。自身のk列目の成分 a(i, k) ごとに、thatのk行目をa(i, k)倍して出力のi行目に足し込む。
+     * 出力の行はどの列からも書き込まれうるため、並列に計算する場合は出力の列の方向にだけ分割する。
+     */
+    public DoubleMatrix multiply(DoubleMatrix that) {
+        return multiply(that, Parallelism.DEFAULT);
+    }
+
+    public DoubleMatrix multiply(DoubleMatrix that, Parallelism parallelism) {
+        if (n != that.m) {
+            throw new IllegalArgumentException("thisの列の個数とthatの行の個数が一致しません。this: %d*%d, that: %d*%d".formatted(m, n, that.m, that.n));
+        }
+        var result = new DoubleMatrix(m, that.n);
+        var c = result.elems;
+        parallelism.forEachBlock(1, that.n, nonZeros(), (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var k = 0; k < n; k++) {
+                var rowK = that.offset + k * that.stride + colFrom;
+                for (var p = colPtr[k]; p < colPtr[k + 1]; p++) {
+                    DoubleKernel.DEFAULT.axpy(colTo - colFrom, values[p], that.elems, rowK, c, rowIdx[p] * that.n + colFrom);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 自身の右に疎行列を掛ける。
+     * CSC形式の配列は転置行列のCSR形式であることを用いて、(A * B)^T = B^T * A^T をGustavsonの方法で求める。
+     */
+    public CscMatrix multiply(CscMatrix that) {
+        if (n != that.m) {
+            throw new IllegalArgumentException("thisの列の個数とthatの行の個数が一致しません。this: %d*%d, that: %d*%d".formatted(m, n, that.m, that.n));
+        }
+        var product = Sparse.multiply(that.n, m, that.colPtr, that.rowIdx, that.values, colPtr, rowIdx, values);
+        return new CscMatrix(m, that.n, product.ptr(), product.idx(), product.values());
+    }
+
+    @Override
+    public String toString() {
+        return "CscMatrix{" +
+                "m=" + m +
+                ", n=" + n +
+                ", nonZeros=" + nonZeros() +
+                '}';
+    }
+
+    /** 同じ成分を持つ場合に等しい。値はDouble.equalsの意味で比較する */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CscMatrix matrix = (CscMatrix) o;
+        return m == matrix.m && n == matrix.n && Sparse.sameEntries(n, colPtr, rowIdx, values, matrix.colPtr, matrix.rowIdx, matrix.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * m + n) + Sparse.hashEntries(n, colPtr, rowIdx, values);
+    }
+
+}
@@ -0,0 +1,162 @@
+package math.matrix;
+
+import java.util.Arrays;
+
+/**
+ * 成分をdoubleで保持する疎行列。圧縮行格納(CSR)形式で、0でない成分だけを持つ。
+ * i行目の成分は rowPtr[i] から rowPtr[i + 1] の手前までの位置にあり、列番号がcolIdx、値がvaluesに入る。
+ * 各行の列番号は昇順で、重複しない。
+ */
+final class CsrMatrix {
+
+    final int m; // 行数
+    final int n; // 列数
+    final int[] rowPtr; // 長さm + 1
+    final int[] colIdx;
+    final double[] values;
+
+    CsrMatrix(int m, int n, int[] rowPtr, int[] colIdx, double[] values) {
+        if (m <= 0 || n <= 0) {
+            throw new IllegalArgumentException("行数と列数は1以上である必要があります。m: %d, n: %d".formatted(m, n));
+        }
+        if (rowPtr.length != m + 1 || rowPtr[0] != 0) {
+            throw new IllegalArgumentException("rowPtrの長さは行数+1で、先頭は0である必要があります");
+        }
+        var nnz = rowPtr[m];
+        if (colIdx.length < nnz || values.length < nnz) {
+            throw new IllegalArgumentException("colIdxとvaluesの長さが成分の個数%dに対して不足しています".formatted(nnz));
+        }
+        for (var i = 0; i < m; i++) {
+            if (rowPtr[i] > rowPtr[i + 1]) {
+                throw new IllegalArgumentException("rowPtrが単調増加ではありません。%d行目".formatted(i));
+            }
+            for (var p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                var j = colIdx[p];
+                if (j < 0 || j >= n || (p > rowPtr[i] && colIdx[p - 1] >= j)) {
+                    throw new IllegalArgumentException("%d行目の列番号が範囲外か、昇順ではありません".formatted(i));
+                }
+            }
+        }
+        this.m = m;
+        this.n = n;
+        this.rowPtr = rowPtr;
+        this.colIdx = colIdx;
+        this.values = values;
+    }
+
+    /** 密行列の0でない成分を取り出す */
+    public static CsrMatrix of(DoubleMatrix matrix) {
+        var m = matrix.m;
+        var n = matrix.n;
+        var rowPtr = new int[m + 1];
+        for (var i = 0; i < m; i++) {
+            var count = 0;
+            for (var j = 0; j < n; j++) {
+                if (matrix.get(i, j) != 0.0) {
+                    count++;
+                }
+            }
+            rowPtr[i + 1] = rowPtr[i] + count;
+        }
+        var colIdx = new int[rowPtr[m]];
+        var values = new double[rowPtr[m]];
+        var p = 0;
+        for (var i = 0; i < m; i++) {
+            for (var j = 0; j < n; j++) {
+                var value = matrix.get(i, j);
+                if (value != 0.0) {
+                    colIdx[p] = j;
+                    values[p++] = value;
+                }
+            }
+        }
+        return new CsrMatrix(m, n, rowPtr, colIdx, values);
+    }
+
+    /** 0でない成分の個数 */
+    public int nonZeros() {
+        return rowPtr[m];
+    }
+
+    /** 添字を0始まりとしてi行j列の要素を取得する */
+    public double get(int i, int j) {
+        var p = Arrays.binarySearch(colIdx, rowPtr[i], rowPtr[i + 1], j);
+        return p >= 0 ? values[p] : 0.0;
+    }
+
+    public DoubleMatrix toDoubleMatrix() {
+        var result = new DoubleMatrix(m, n);
+        for (var i = 0; i < m; i++) {
+            for (var p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                result.elems[i * n + colIdx[p]] = values[p];
+            }
+        }
+        return result;
+    }
+
+    /** 同じ行列をCSC形式で表す。転置と同じく、列ごとの個数を数えてから振り分ける */
+    public CscMatrix toCsc() {
+        var colPtr = new int[n + 1];
+        var rowIdx = new int[nonZeros()];
+        var newValues = new double[nonZeros()];
+        Sparse.transpose(m, n, rowPtr, colIdx, values, colPtr, rowIdx, newValues);
+        return new CscMatrix(m, n, colPtr, rowIdx, newValues);
+    }
+
+    /** 自身の右に密行列を掛ける。出力の行ごとに、対応する行の成分でthatの行を足し込む */
+    public DoubleMatrix multiply(DoubleMatrix that) {
+        return multiply(that, Parallelism.DEFAULT);
+    }
+
+    public DoubleMatrix multiply(DoubleMatrix that, Parallelism parallelism) {
+        if (n != that.m) {
+            throw new IllegalArgumentException("thisの列の個数とthatの行の個数が一致しません。this: %d*%d, that: %d*%d".formatted(m, n, that.m, that.n));
+        }
+        var result = new DoubleMatrix(m, that.n);
+        var c = result.elems;
+        var costPerElement = Math.max(nonZeros() / m, 1);
+        parallelism.forEachBlock(m, that.n, costPerElement, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var i = rowFrom; i < rowTo; i++) {
+                for (var p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                    DoubleKernel.DEFAULT.axpy(colTo - colFrom, values[p],
+                            that.elems, that.offset + colIdx[p] * that.stride + colFrom,
+                            c, i * that.n + colFrom);
+                }
+            }
+        });
+        return result;
+    }
+
+    /** 自身の右に疎行列を掛ける。Gustavsonの方法で、出力の行ごとに成分を密な作業配列に集める */
+    public CsrMatrix multiply(CsrMatrix that) {
+        if (n != that.m) {
+            throw new IllegalArgumentException("thisの列の個数とthatの行の個数が一致しません。this: %d*%d, that: %d*%d".formatted(m, n, that.m, that.n));
+        }
+        var product = Sparse.multiply(m, that.n, rowPtr, colIdx, values, that.rowPtr, that.colIdx, that.values);
+        return new CsrMatrix(m, that.n, product.ptr(), product.idx(), product.values());
+    }
+
+    @Override
+    public String toString() {
+        return "CsrMatrix{" +
+                "m=" + m +
+                ", n=" + n +
+                ", nonZeros=" + nonZeros() +
+                '}';
+    }
+
+    /** 同じ成分を持つ場合に等しい。値はDouble.equalsの意味で比較する */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CsrMatrix matrix = (CsrMatrix) o;
+        return m == matrix.m && n == matrix.n && Sparse.sameEntries(m, rowPtr, colIdx, values, matrix.rowPtr, matrix.colIdx, matrix.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * m + n) + Sparse.hashEntries(m, rowPtr, colIdx, values);
+    }
+
+}
@@ -0,0 +1,130 @@
+package math.matrix;
+
+import math.numbers.Ring;
+
+/**
+ * 除算を使わない行列式。可換環(Ring)の加減乗算だけで計算するため、除算が定義されない型や除算が高価な型に使える。
+ * 小さな行列には列のビット集合で小行列式をメモ化したLaplace展開(O(n 2^n))を、
+ * それより大きな行列にはBerkowitzの方法(O(n^4))を用いる。
+ */
+final class DivisionFreeDeterminant {
+
+    private DivisionFreeDeterminant() {}
+
+    /** この大きさ以下の行列はLaplace展開で計算する。システムプロパティ math.matrix.determinant.bitmaskMax で上書きできる */
+    static final int BITMASK_MAX = Integer.getInteger("math.matrix.determinant.bitmaskMax", 10);
+
+    /** Laplace展開で扱える大きさの上限。メモに 2^n 個の値を保持する */
+    static final int BITMASK_LIMIT = 24;
+
+    static <T> T calcDeterminant(Matrix<T> matrix) {
+        if (matrix.m != matrix.n) {
+            throw new IllegalArgumentException("正方行列でない場合行列式は定義されません");
+        }
+        return calcDeterminant(matrix.elems, matrix.field);
+    }
+
+    static <T> T calcDeterminant(T[][] elems, Ring<T> ring) {
+        checkSquare(elems);
+        return elems.length <= Math.min(BITMASK_MAX, BITMASK_LIMIT)
+                ? calcDeterminantBitmask(elems, ring)
+                : calcDeterminantBerkowitz(elems, ring);
+    }
+
+    /**
+     * 最後の行に沿ったLaplace展開。
+     * memo[mask] は先頭の |mask| 行と mask に含まれる列からなる小行列式で、
+     * 行 |mask| - 1 の列cで展開したときの符号は mask のうちcより大きい列の個数で決まる。
+     */
+    static <T> T calcDeterminantBitmask(T[][] elems, Ring<T> ring) {
+        var n = checkSquare(elems);
+        if (n > BITMASK_LIMIT) {
+            throw new IllegalArgumentException("Laplace展開で扱える大きさは%d以下です。n: %d".formatted(BITMASK_LIMIT, n));
+        }
+        if (n == 0) {
+            return ring.mulZero();
+        }
+        var memo = (T[]) new Object[1 << n];
+        memo[0] = ring.mulZero();
+        // maskの昇順に計算すれば、1つ列を除いた小行列式は必ず計算済みである
+        for (var mask = 1; mask < 1 << n; mask++) {
+            var above = Integer.bitCount(mask); // 現在の列より大きいmaskの列の個数
+            var row = elems[above - 1];
+            var sum = ring.addZero();
+            for (var rest = mask; rest != 0; rest &= rest - 1) {
+                var c = Integer.numberOfTrailingZeros(rest);
+                above--;
+                var term = ring.multiply(row[c], memo[mask & ~(1 << c)]);
+                sum = (above & 1) == 0 ? ring.add(sum, term) : ring.minus(sum, term);
+            }
+            memo[mask] = sum;
+        }
+        return memo[(1 << n) - 1];
+    }
+
+    /**
+     * Berkowitzの方法。先頭のr行r列の小行列A_rの特性多項式 det(xI - A_r) の係数を、
+     * Toeplitz行列を掛けてr+1次の小行列のものへ順に更新する。
+     * A_{r+1} = [[A_r, S], [R, a]] のとき、Toeplitz行列の第1列は (1, -a, -RS, -RA_rS, ..., -RA_r^{r-1}S) である。
+     * 行列式は特性多項式の定数項の (-1)^n 倍である。
+     */
+    static <T> T calcDeterminantBerkowitz(T[][] elems, Ring<T> ring) {
+        var n = checkSquare(elems);
+        if (n == 0) {
+            return ring.mulZero();
+        }
+        var poly = (T[]) new Object[] {ring.mulZero(), ring.addInverse(elems[0][0])};
+        var v = (T[]) new Object[n];
+        var w = (T[]) new Object[n];
+        for (var r = 1; r < n; r++) {
+            var column = (T[]) new Object[r + 2];
+            column[0] = ring.mulZero();
+            column[1] = ring.addInverse(elems[r][r]);
+            // v = A_r^k S を順に求め、-R v を並べる
+            for (var i = 0; i < r; i++) {
+                v[i] = elems[i][r];
+            }
+            for (var k = 0; k < r; k++) {
+                var rv = ring.addZero();
+                for (var j = 0; j < r; j++) {
+                    rv = ring.add(rv, ring.multiply(elems[r][j], v[j]));
+                }
+                column[k + 2] = ring.addInverse(rv);
+                if (k + 1 < r) {
+                    for (var i = 0; i < r; i++) {
+                        var s = ring.addZero();
+                        for (var j = 0; j < r; j++) {
+                            s = ring.add(s, ring.multiply(elems[i][j], v[j]));
+                        }
+                        w[i] = s;
+                    }
+                    var t = v;
+                    v = w;
+                    w = t;
+                }
+            }
+            // 下三角のToeplitz行列 (r+2)*(r+1) を掛ける
+            var next = (T[]) new Object[r + 2];
+            for (var i = 0; i < r + 2; i++) {
+                var s = ring.addZero();
+                for (var j = 0; j <= Math.min(i, r); j++) {
+                    s = ring.add(s, ring.multiply(column[i - j], poly[j]));
+                }
+                next[i] = s;
+            }
+            poly = next;
+        }
+        return n % 2 == 0 ? poly[n] : ring.addInverse(poly[n]);
+    }
+
+    private static <T> int checkSquare(T[][] elems) {
+        var n = elems.length;
+        for (var row : elems) {
+            if (row.length != n) {
+                throw new IllegalArgumentException("正方行列でない場合行列式は定義されません");
+            }
+        }
+        return n;
+    }
+
+}
@@ -0,0 +1,193 @@
+package math.matrix;
+
+import java.util.Arrays;
+
+/**
+ * 同じ大きさの小さな正方行列を多数まとめてLUP分解する。3*3から8*8程度の行列を大量に扱う場合に、
+ * 行列ごとにDoubleMatrixやOptionalを作らずに、呼び出し元が用意した配列に結果を書き込む。
+ * count個の行列は成分ごとにまとめた配列(structure of arrays)で渡し、t番目の行列のi行j列を a[(i * n + j) * count + t] に置く。
+ * ベクトルも同様に、t番目のベクトルのi番目の成分を b[i * count + t] に置く。
+ * 同じ位置の成分が行列をまたいで連続するため、消去の各段階を行列の並びに沿ったベクトル演算(DoubleKernel)として計算する。
+ * 並びをCHUNK個ずつに分け、parallelismに従って並列に計算する。
+ * ピボットは行列ごとに部分ピボット選択で選ぶ。正則でない行列があっても途中で止めず、その行列は乗数を0として計算を続け、行列式を0とする。
+ */
+final class DoubleBatchLUP {
+
+    private DoubleBatchLUP() {}
+
+    /** 1つのタスクで計算する行列の個数。システムプロパティ math.matrix.batch.chunk で上書きできる */
+    static final int CHUNK = Integer.getInteger("math.matrix.batch.chunk", 256);
+
+    /** 並びを分割する単位の計算。from番目からtoの手前までの行列を計算する */
+    @FunctionalInterface
+    private interface ChunkBody {
+        void compute(int from, int to);
+    }
+
+    static void decomposeInPlace(int n, int count, double[] a, int[] pivot, double[] det) {
+        decomposeInPlace(n, count, a, pivot, det, Parallelism.DEFAULT);
+    }
+
+    /**
+     * aを上書きして分解する。分解後の各行列は、対角より下がLの成分(対角成分の1は省略する)、対角とそれより上がUの成分である。
+     * t番目の行列のk列目の消去でk行目と入れ替えた行の番号を pivot[k * count + t] に、行列式を det[t] に書き込む。
+     */
+    static void decomposeInPlace(int n, int count, double[] a, int[] pivot, double[] det, Parallelism parallelism) {
+        checkLength(a.length, n * n, count, "a");
+        checkLength(pivot.length, n, count, "pivot");
+        checkLength(det.length, 1, count, "det");
+        forEachChunk(n, count, parallelism, (from, to) -> factor(n, a, count, from, to - from, pivot, det, from));
+    }
+
+    static void determinants(int n, int count, double[] a, double[] det) {
+        determinants(n, count, a, det, Parallelism.DEFAULT);
+    }
+
+    /** 行列式だけを det[t] に書き込む。aは書き換えず、CHUNK個ずつ作業領域に複写してから分解する */
+    static void determinants(int n, int count, double[] a, double[] det, Parallelism parallelism) {
+        checkLength(a.length, n * n, count, "a");
+        checkLength(det.length, 1, count, "det");
+        forEachChunk(n, count, parallelism, (from, to) -> {
+            var len = to - from;
+            var work = new double[n * n * len];
+            for (var e = 0; e < n * n; e++) {
+                System.arraycopy(a, e * count + from, work, e * len, len);
+            }
+            factor(n, work, len, 0, len, new int[n * len], det, from);
+        });
+    }
+
+    static void solve(int n, int count, double[] lu, int[] pivot, double[] b, double[] x) {
+        solve(n, count, lu, pivot, b, x, Parallelism.DEFAULT);
+    }
+
+    /**
+     * decomposeInPlaceの結果を使って、各行列について Ax = b を解き、解をxに書き込む。bは書き換えない。bとxは同じ配列でもよい。
+     * 正則でない行列の解はNaNまたは無限大になる。
+     */
+    static void solve(int n, int count, double[] lu, int[] pivot, double[] b, double[] x, Parallelism parallelism) {
+        checkLength(lu.length, n * n, count, "lu");
+        checkLength(pivot.length, n, count, "pivot");
+        checkLength(b.length, n, count, "b");
+        checkLength(x.length, n, count, "x");
+        forEachChunk(n, count, parallelism, (from, to) -> {
+            var len = to - from;
+            if (b != x) {
+                for (var i = 0; i < n; i++) {
+                    System.arraycopy(b, i * count + from, x, i * count + from, len);
+                }
+            }
+            for (var k = 0; k < n; k++) {
+                var xk = k * count + from;
+                for (var t = 0; t < len; t++) {
+                    var r = pivot[xk + t];
+                    if (r != k) {
+                        var xr = r * count + from + t;
+                        var u = x[xk + t];
+                        x[xk + t] = x[xr];
+                        x[xr] = u;
+                    }
+                }
+            }
+            // Ly = Pb
+            for (var i = 1; i < n; i++) {
+                for (var j = 0; j < i; j++) {
+                    DoubleKernel.DEFAULT.subtractProduct(len, lu, (i * n + j) * count + from, x, j * count + from, x, i * count + from);
+                }
+            }
+            // Ux = y
+            for (var i = n - 1; i >= 0; i--) {
+                var xi = i * count + from;
+                for (var j = i + 1; j < n; j++) {
+                    DoubleKernel.DEFAULT.subtractProduct(len, lu, (i * n + j) * count + from, x, j * count + from, x, xi);
+                }
+                var ii = (i * n + i) * count + from;
+                for (var t = 0; t < len; t++) {
+                    x[xi + t] /= lu[ii + t];
+                }
+            }
+        });
+    }
+
+    /**
+     * lane0番目からlen個の行列を分解する。成分(i, j)は a[(i * n + j) * stride + lane0 + t]、
+     * 行の番号は pivot[k * stride + lane0 + t]、行列式は det[detOff + t] に置く。
+     */
+    private static void factor(int n, double[] a, int stride, int lane0, int len, int[] pivot, double[] det, int detOff) {
+        var max = new double[len];
+        var row = new int[len];
+        var sign = new double[len];
+        Arrays.fill(sign, 1.0);
+        for (var k = 0; k < n; k++) {
+            var kk = (k * n + k) * stride + lane0;
+            for (var t = 0; t < len; t++) {
+                max[t] = Math.abs(a[kk + t]);
+                row[t] = k;
+            }
+            for (var i = k + 1; i < n; i++) {
+                var ik = (i * n + k) * stride + lane0;
+                for (var t = 0; t < len; t++) {
+                    var abs = Math.abs(a[ik + t]);
+                    if (abs > max[t]) {
+                        max[t] = abs;
+                        row[t] = i;
+                    }
+                }
+            }
+            // 行の入れ替えは行列ごとに異なるため、行列ごとに行全体を入れ替える
+            var pk = k * stride + lane0;
+            for (var t = 0; t < len; t++) {
+                var r = row[t];
+                pivot[pk + t] = r;
+                if (r != k) {
+                    sign[t] = -sign[t];
+                    for (var j = 0; j < n; j++) {
+                        var p = (k * n + j) * stride + lane0 + t;
+                        var q = (r * n + j) * stride + lane0 + t;
+                        var u = a[p];
+                        a[p] = a[q];
+                        a[q] = u;
+                    }
+                }
+            }
+            // ピボットの逆数をmaxに入れる。ピボットが0の行列は乗数を0として、他の行列と同じ手順で計算を続ける
+            for (var t = 0; t < len; t++) {
+                var d = a[kk + t];
+                max[t] = d == 0.0 ? 0.0 : 1.0 / d;
+            }
+            for (var i = k + 1; i < n; i++) {
+                var ik = (i * n + k) * stride + lane0;
+                for (var t = 0; t < len; t++) {
+                    a[ik + t] *= max[t];
+                }
+                for (var j = k + 1; j < n; j++) {
+                    DoubleKernel.DEFAULT.subtractProduct(len, a, ik, a, (k * n + j) * stride + lane0, a, (i * n + j) * stride + lane0);
+                }
+            }
+        }
+        for (var k = 0; k < n; k++) {
+            var kk = (k * n + k) * stride + lane0;
+            for (var t = 0; t < len; t++) {
+                sign[t] *= a[kk + t];
+            }
+        }
+        System.arraycopy(sign, 0, det, detOff, len);
+    }
+
+    private static void forEachChunk(int n, int count, Parallelism parallelism, ChunkBody body) {
+        var chunks = (count + CHUNK - 1) / CHUNK;
+        parallelism.forEachBlock(1, chunks, (long) CHUNK * n * n * n, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var c = colFrom; c < colTo; c++) {
+                body.compute(c * CHUNK, Math.min(count, (c + 1) * CHUNK));
+            }
+        });
+    }
+
+    private static void checkLength(int length, int perMatrix, int count, String name) {
+        if ((long) perMatrix * count != length) {
+            throw new IllegalArgumentException("%sの要素数%dが%d個の行列に対して一致しません。必要な要素数: %d"
+                    .formatted(name, length, count, (long) perMatrix * count));
+        }
+    }
+
+}
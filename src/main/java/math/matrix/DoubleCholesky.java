@@ -0,0 +1,268 @@
+package math.matrix;
+
+import java.util.Optional;
+
+/**
+ * 対称正定値なDoubleMatrixのコレスキー分解 A = LL^T。
+ * 下三角の成分だけを読み、Lを同じ位置に書き込む。上三角の成分は読まず書き換えもしないため、下三角だけを埋めた行列も渡せる。
+ * ピボット選択が不要で、演算量はLUP分解の半分(n^3 / 3)である。
+ * 分解の途中で対角成分が正にならない(正定値でない)場合は空を返す。
+ */
+final class DoubleCholesky {
+
+    final DoubleMatrix l; // 対角とそれより下がLの成分。上三角は元の行列のまま
+
+    private DoubleCholesky(DoubleMatrix l) {
+        this.l = l;
+    }
+
+    /** 分解のブロックの列数。システムプロパティ math.matrix.cholesky.block で上書きできる */
+    static final int BLOCK = Integer.getInteger("math.matrix.cholesky.block", 64);
+
+    /** 行列が対称かどうか。成分を==で比較する */
+    static boolean isSymmetric(DoubleMatrix matrix) {
+        if (matrix.m != matrix.n) {
+            return false;
+        }
+        for (var i = 1; i < matrix.n; i++) {
+            for (var j = 0; j < i; j++) {
+                if (matrix.get(i, j) != matrix.get(j, i)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** 行列を複製してから分解する。正定値でない場合は空を返す */
+    static Optional<DoubleCholesky> decompose(DoubleMatrix matrix) {
+        return decomposeInPlace(matrix.clone());
+    }
+
+    static Optional<DoubleCholesky> decompose(DoubleMatrix matrix, Parallelism parallelism) {
+        return decomposeInPlace(matrix.clone(), BLOCK, parallelism);
+    }
+
+    /**
+     * 行列の下三角を上書きして分解する。正定値でない場合は空を返すが、その場合もmatrixは途中まで書き換えられている。
+     */
+    static Optional<DoubleCholesky> decomposeInPlace(DoubleMatrix matrix) {
+        return decomposeInPlace(matrix, BLOCK, Parallelism.DEFAULT);
+    }
+
+    /**
+     * 右方向(right-looking)のブロックコレスキー分解を行う。
+     * 幅blockの対角ブロックを分解し、その下のパネルを三角行列で解き(TRSM)、
+     * 残りの右下の部分行列の下三角をブロック列ごとに行列積で更新する(SYRK)。TRSMと行列積はparallelismに従って並列に計算する。
+     */
+    static Optional<DoubleCholesky> decomposeInPlace(DoubleMatrix matrix, int block, Parallelism parallelism) {
+        if (matrix.m != matrix.n) {
+            throw new IllegalArgumentException("正方行列でない場合コレスキー分解はできません");
+        }
+        if (block < 1) {
+            throw new IllegalArgumentException("blockは1以上である必要があります。block: %d".formatted(block));
+        }
+        var event = new KernelEvent();
+        event.begin();
+        var positiveDefinite = factor(matrix, block, parallelism);
+        var n = matrix.n;
+        event.commit("DoubleCholesky.decompose", "double", n, n, n, KernelEvent.choleskyFlops(n));
+        return positiveDefinite ? Optional.of(new DoubleCholesky(matrix)) : Optional.empty();
+    }
+
+    private static boolean factor(DoubleMatrix matrix, int block, Parallelism parallelism) {
+        var n = matrix.n;
+        var a = matrix.elems;
+        var offset = matrix.offset;
+        var stride = matrix.stride;
+        for (var j0 = 0; j0 < n; j0 += block) {
+            var j1 = Math.min(j0 + block, n);
+            if (!factorDiagonal(a, offset, stride, j0, j1)) {
+                return false;
+            }
+            if (j1 == n) {
+                break;
+            }
+            solvePanel(a, offset, stride, n, j0, j1, parallelism);
+            // A22 -= L21 * L21^T を下三角についてだけ計算する
+            for (var c0 = j1; c0 < n; c0 += block) {
+                var c1 = Math.min(c0 + block, n);
+                updateDiagonal(a, offset, stride, j0, j1, c0, c1);
+                if (c1 < n) {
+                    // L21^Tは行と列の間隔を入れ替えて複製せずに読む
+                    Gemm.multiply(n - c1, c1 - c0, j1 - j0, -1.0,
+                            a, offset + c1 * stride + j0, stride, 1,
+                            a, offset + c0 * stride + j0, 1, stride,
+                            a, offset + c1 * stride + c0, stride,
+                            Gemm.Blocking.DEFAULT, parallelism);
+                }
+            }
+        }
+        return true;
+    }
+
+    /** j0からj1の手前までの対角ブロックを分解する。対角成分が正にならない場合はfalseを返す */
+    private static boolean factorDiagonal(double[] a, int offset, int stride, int j0, int j1) {
+        for (var i = j0; i < j1; i++) {
+            var rowI = offset + i * stride;
+            for (var j = j0; j <= i; j++) {
+                var rowJ = offset + j * stride;
+                var s = a[rowI + j];
+                for (var p = j0; p < j; p++) {
+                    s -= a[rowI + p] * a[rowJ + p];
+                }
+                if (i == j) {
+                    // NaNも正定値でないものとして扱う
+                    if (!(s > 0.0)) {
+                        return false;
+                    }
+                    a[rowI + i] = Math.sqrt(s);
+                } else {
+                    a[rowI + j] = s / a[rowJ + j];
+                }
+            }
+        }
+        return true;
+    }
+
+    /** j1行より下の、j0列からj1列の手前までのパネルを解く: L21 = A21 * L11^-T */
+    private static void solvePanel(double[] a, int offset, int stride, int n, int j0, int j1, Parallelism parallelism) {
+        var cols = j1 - j0;
+        // 各行は独立に計算できるため、行の方向にだけ分割する
+        parallelism.forEachBlock(n - j1, 1, (long) cols * cols / 2, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var i = j1 + rowFrom; i < j1 + rowTo; i++) {
+                var rowI = offset + i * stride;
+                for (var j = j0; j < j1; j++) {
+                    var rowJ = offset + j * stride;
+                    var s = a[rowI + j];
+                    for (var p = j0; p < j; p++) {
+                        s -= a[rowI + p] * a[rowJ + p];
+                    }
+                    a[rowI + j] = s / a[rowJ + j];
+                }
+            }
+        });
+    }
+
+    /** c0からc1の手前までの対角ブロックの下三角を、j0列からj1列の手前までのLで更新する */
+    private static void updateDiagonal(double[] a, int offset, int stride, int j0, int j1, int c0, int c1) {
+        for (var i = c0; i < c1; i++) {
+            var rowI = offset + i * stride;
+            for (var j = c0; j <= i; j++) {
+                var rowJ = offset + j * stride;
+                var s = 0.0;
+                for (var p = j0; p < j1; p++) {
+                    s += a[rowI + p] * a[rowJ + p];
+                }
+                a[rowI + j] -= s;
+            }
+        }
+    }
+
+    int size() {
+        return l.n;
+    }
+
+    /** 下三角行列L */
+    DoubleMatrix l() {
+        var n = size();
+        var result = new DoubleMatrix(n, n);
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j <= i; j++) {
+                result.set(i, j, l.get(i, j));
+            }
+        }
+        return result;
+    }
+
+    /** Ax = b を解く。bは書き換えない */
+    double[] solve(double[] b) {
+        var n = size();
+        if (b.length != n) {
+            throw new IllegalArgumentException("bの要素数%dが行列の大きさ%dと一致しません".formatted(b.length, n));
+        }
+        var a = l.elems;
+        var x = b.clone();
+        // Ly = b
+        for (var i = 0; i < n; i++) {
+            var rowI = l.offset + i * l.stride;
+            var acc = x[i];
+            for (var p = 0; p < i; p++) {
+                acc -= a[rowI + p] * x[p];
+            }
+            x[i] = acc / a[rowI + i];
+        }
+        // L^T x = y。Lの行を連続して読むため、求めた成分をそれより前の成分から順に引いていく
+        for (var i = n - 1; i >= 0; i--) {
+            var rowI = l.offset + i * l.stride;
+            var xi = x[i] / a[rowI + i];
+            x[i] = xi;
+            for (var p = 0; p < i; p++) {
+                x[p] -= a[rowI + p] * xi;
+            }
+        }
+        return x;
+    }
+
+    /** AX = B を解く。Bの各列を右辺とする */
+    DoubleMatrix solve(DoubleMatrix b) {
+        return solve(b, Parallelism.DEFAULT);
+    }
+
+    /** AX = B を解く。Bの各列を右辺とし、列の方向に分割して並列に計算する */
+    DoubleMatrix solve(DoubleMatrix b, Parallelism parallelism) {
+        var n = size();
+        if (b.m != n) {
+            throw new IllegalArgumentException("bの行数%dが行列の大きさ%dと一致しません".formatted(b.m, n));
+        }
+        var r = b.n;
+        var x = new DoubleMatrix(n, r);
+        for (var i = 0; i < n; i++) {
+            System.arraycopy(b.elems, b.offset + i * b.stride, x.elems, i * r, r);
+        }
+        var a = l.elems;
+        var offset = l.offset;
+        var stride = l.stride;
+        var xs = x.elems;
+        parallelism.forEachBlock(1, r, (long) n * n, (rowFrom, rowTo, colFrom, colTo) -> {
+            var width = colTo - colFrom;
+            // LY = B
+            for (var i = 0; i < n; i++) {
+                var rowI = offset + i * stride;
+                for (var p = 0; p < i; p++) {
+                    DoubleKernel.DEFAULT.axpy(width, -a[rowI + p], xs, p * r + colFrom, xs, i * r + colFrom);
+                }
+                DoubleKernel.DEFAULT.scale(width, 1.0 / a[rowI + i], xs, i * r + colFrom, xs, i * r + colFrom);
+            }
+            // L^T X = Y
+            for (var i = n - 1; i >= 0; i--) {
+                var rowI = offset + i * stride;
+                DoubleKernel.DEFAULT.scale(width, 1.0 / a[rowI + i], xs, i * r + colFrom, xs, i * r + colFrom);
+                for (var p = 0; p < i; p++) {
+                    DoubleKernel.DEFAULT.axpy(width, -a[rowI + p], xs, i * r + colFrom, xs, p * r + colFrom);
+                }
+            }
+        });
+        return x;
+    }
+
+    /** 逆行列。単位行列を右辺として解く */
+    DoubleMatrix inverse() {
+        var n = size();
+        var identity = new DoubleMatrix(n, n);
+        for (var i = 0; i < n; i++) {
+            identity.set(i, i, 1.0);
+        }
+        return solve(identity);
+    }
+
+    /** Lの対角成分の積の2乗 */
+    double determinant() {
+        var lDet = 1.0;
+        for (var i = 0; i < size(); i++) {
+            lDet = lDet * l.get(i, i);
+        }
+        return lDet * lDet;
+    }
+
+}
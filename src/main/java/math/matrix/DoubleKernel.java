@@ -0,0 +1,68 @@
+package math.matrix;
+
+/**
+ * doubleの配列に対する基本的なループ。
+ * Vector API(jdk.incubator.vector)が使える場合はSIMD命令とFMAを用いる実装を、使えない場合はスカラーの実装を用いる。
+ */
+interface DoubleKernel {
+
+    /** スカラーの実装。常に利用できる */
+    DoubleKernel SCALAR = new ScalarDoubleKernel();
+
+    /**
+     * 既定の実装。
+     * 実行時に --add-modules jdk.incubator.vector が指定されていればVector API版を用いる。
+     * システムプロパティ math.matrix.vector=false で常にスカラー版を用いるようにできる。
+     */
+    DoubleKernel DEFAULT = select();
+
+    private static DoubleKernel select() {
+        if (!Boolean.parseBoolean(System.getProperty("math.matrix.vector", "true"))) {
+            return SCALAR;
+        }
+        return vector() != null ? vector() : SCALAR;
+    }
+
+    /** Vector API版の実装。モジュールが有効でない場合や、256bit以上のSIMD命令がない場合はnull */
+    static DoubleKernel vector() {
+        return VectorHolder.INSTANCE;
+    }
+
+    /** y[yOff + i] += alpha * x[xOff + i] */
+    void axpy(int length, double alpha, double[] x, int xOff, double[] y, int yOff);
+
+    /** z[zOff + i] = x[xOff + i] + y[yOff + i] */
+    void add(int length, double[] x, int xOff, double[] y, int yOff, double[] z, int zOff);
+
+    /** z[zOff + i] = alpha * x[xOff + i] */
+    void scale(int length, double alpha, double[] x, int xOff, double[] z, int zOff);
+
+    /** z[zOff + i] -= x[xOff + i] * y[yOff + i]。複数の小さな行列を並べた配列で、行列をまたいで計算するのに用いる */
+    void subtractProduct(int length, double[] x, int xOff, double[] y, int yOff, double[] z, int zOff);
+
+    /**
+     * Gemmのマイクロカーネル。詰め直したAのMR行のパネルとBのNR列のパネルの積をCのタイルに足し込む。
+     * 端のタイルでもMR*NRの全体を同じ方法で計算し、rows*colsの部分だけを書き戻す。
+     */
+    void microKernel(int kb, double[] a, int aIndex, double[] b, int bIndex,
+                     double[] c, int cOff, int ldc, int rows, int cols);
+
+    /** Vector API版のクラスはモジュールが存在する場合にのみ読み込む */
+    final class VectorHolder {
+        private VectorHolder() {}
+
+        static final DoubleKernel INSTANCE = load();
+
+        private static DoubleKernel load() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return null;
+            }
+            try {
+                return VectorDoubleKernel.isSupported() ? new VectorDoubleKernel() : null;
+            } catch (LinkageError e) {
+                return null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package math.matrix;
+
+import java.util.Optional;
+
+/**
+ * DoubleMatrixのLUP分解。LUPと同じ手順をプリミティブのdoubleで行う。
+ * @param l 下三角行列。対角成分は全て1とする
+ * @param u 上三角行列。対角成分は全て0ではない(正則)
+ * @param p 行の入れ替えを表す行列
+ * @param pSign pの行列式
+ * */
+public record DoubleLUP(DoubleMatrix l, DoubleMatrix u, DoubleMatrix p, double pSign) {
+
+    /**
+     * 行列式だけを求める場合はL, U, Pの行列を作らない。大きさがSmallMatrix.MAX以下の行列は閉じた式で求める。
+     * 対称行列はコレスキー分解(DoubleCholesky)で求め、正定値でなかった場合にLUP分解で求める。
+     */
+    public static double calcDeterminant(DoubleMatrix matrix) {
+        if (matrix.m == matrix.n && matrix.n <= SmallMatrix.MAX) {
+            return SmallMatrix.determinant(matrix.n, matrix.elems, matrix.offset, matrix.stride);
+        }
+        return calcDeterminant(matrix, DoubleCholesky.isSymmetric(matrix));
+    }
+
+    /** 行列が対称であることがわかっている場合はsymmetricをtrueとして、対称かどうかの検査を省く */
+    public static double calcDeterminant(DoubleMatrix matrix, boolean symmetric) {
+        if (symmetric) {
+            var cholesky = DoubleCholesky.decompose(matrix);
+            if (cholesky.isPresent()) {
+                return cholesky.get().determinant();
+            }
+        }
+        return DoublePackedLUP.decompose(matrix).map(DoublePackedLUP::determinant).orElse(0.0);
+    }
+
+    /**
+     * Ax = b を解く。正則でない場合は空を返す。calcDeterminantと同様に、大きさがSmallMatrix.MAX以下の行列は閉じた式で解き、
+     * 対称行列はコレスキー分解を先に試みる。
+     */
+    public static Optional<double[]> solve(DoubleMatrix matrix, double[] b) {
+        if (matrix.m == matrix.n && matrix.n >= 1 && matrix.n <= SmallMatrix.MAX) {
+            var x = new double[matrix.n];
+            // 行列式が0に丸められても、分解では解ける場合がある
+            if (SmallMatrix.solve(matrix.n, matrix.elems, matrix.offset, matrix.stride, b, x) != 0.0) {
+                return Optional.of(x);
+            }
+        }
+        return solve(matrix, b, DoubleCholesky.isSymmetric(matrix));
+    }
+
+    public static Optional<double[]> solve(DoubleMatrix matrix, double[] b, boolean symmetric) {
+        if (symmetric) {
+            var cholesky = DoubleCholesky.decompose(matrix);
+            if (cholesky.isPresent()) {
+                return Optional.of(cholesky.get().solve(b));
+            }
+        }
+        return DoublePackedLUP.decompose(matrix).map(lup -> lup.solve(b));
+    }
+
+    /**
+     * ビューの行列式を求める。大きさがSmallMatrix.MAX以下で行か列が連続していれば、複製せずに閉じた式で求める。
+     * 転置しても行列式は変わらないため、列が連続したビューは転置した行列として計算する。
+     */
+    public static double calcDeterminant(DoubleMatrixView view) {
+        if (view.m == view.n && view.n <= SmallMatrix.MAX) {
+            if (view.colStride == 1) {
+                return SmallMatrix.determinant(view.n, view.elems, view.offset, view.rowStride);
+            }
+            if (view.rowStride == 1) {
+                return SmallMatrix.determinant(view.n, view.elems, view.offset, view.colStride);
+            }
+        }
+        return DoublePackedLUP.decompose(view).map(DoublePackedLUP::determinant).orElse(0.0);
+    }
+
+    /** 分解はDoublePackedLUPで行い、L, U, Pの行列に展開して返す */
+    public static Optional<DoubleLUP> lupDecomposition(DoubleMatrix matrix) {
+        return DoublePackedLUP.decompose(matrix).map(DoublePackedLUP::toDoubleLUP);
+    }
+
+    public static Optional<DoubleLUP> lupDecomposition(DoubleMatrixView view) {
+        return DoublePackedLUP.decompose(view).map(DoublePackedLUP::toDoubleLUP);
+    }
+
+    public double determinant() {
+        var uDet = 1.0;
+        for (var i = 0; i < u.n; i++) {
+            uDet = uDet * u.get(i, i);
+        }
+        return pSign * uDet;
+    }
+
+}
@@ -0,0 +1,210 @@
+package math.matrix;
+
+import math.numbers.DoubleInstances;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * 成分をプリミティブのdoubleで保持する行列。
+ * 成分は1本のdouble[]に行優先で並べ、i行j列の成分は elems[offset + i * stride + j] に置く。
+ * 演算のループ内ではボクシングを行わない。
+ */
+final class DoubleMatrix implements Cloneable {
+
+    final int m; // 行数
+    final int n; // 列数
+    final double[] elems;
+    final int offset; // (0, 0)成分のelems上の位置
+    final int stride; // 隣り合う行の先頭同士の間隔
+
+    DoubleMatrix(int m, int n, double[] elems, int offset, int stride) {
+        if (m <= 0 || n <= 0) {
+            throw new IllegalArgumentException("行数と列数は1以上である必要があります。m: %d, n: %d".formatted(m, n));
+        }
+        if (stride < n) {
+            throw new IllegalArgumentException("strideが列数より小さいです。n: %d, stride: %d".formatted(n, stride));
+        }
+        if (offset < 0 || offset + (long) (m - 1) * stride + n > elems.length) {
+            throw new IllegalArgumentException("配列の長さ%dが行列のサイズ%d*%dに対して不足しています".formatted(elems.length, m, n));
+        }
+        this.m = m;
+        this.n = n;
+        this.elems = elems;
+        this.offset = offset;
+        this.stride = stride;
+    }
+
+    /** 全ての成分が0のm行n列の行列を作成する */
+    DoubleMatrix(int m, int n) {
+        this(m, n, new double[m * n], 0, n);
+    }
+
+    /** 行ベクトル(配列)の配列から行列を作成する */
+    public static DoubleMatrix of(double[][] elems) {
+        var m = elems.length;
+        var n = elems[0].length;
+        var result = new DoubleMatrix(m, n);
+        for (var i = 0; i < m; i++) {
+            if (elems[i].length != n) {
+                throw new IllegalArgumentException("%d行目の要素数%dが先頭の要素数%dと異なります".formatted(i, elems[i].length, n));
+            }
+            System.arraycopy(elems[i], 0, result.elems, i * n, n);
+        }
+        return result;
+    }
+
+    /** Matrix&lt;Double&gt;の成分をアンボクシングして行列を作成する */
+    public static DoubleMatrix from(Matrix<Double> matrix) {
+        var result = new DoubleMatrix(matrix.m, matrix.n);
+        for (var i = 0; i < matrix.m; i++) {
+            for (var j = 0; j < matrix.n; j++) {
+                result.elems[i * matrix.n + j] = matrix.get(i, j);
+            }
+        }
+        return result;
+    }
+
+    /** DoubleInstancesを用いるMatrix&lt;Double&gt;に変換する */
+    public Matrix<Double> toMatrix() {
+        var newElems = new Double[m][n];
+        for (var i = 0; i < m; i++) {
+            for (var j = 0; j < n; j++) {
+                newElems[i][j] = get(i, j);
+            }
+        }
+        return new Matrix<>(newElems, DoubleInstances.field, DoubleInstances.distance, DoubleInstances.comparator);
+    }
+
+    /** 成分の配列を共有するビュー。転置や部分行列を複製せずに作るのに用いる */
+    DoubleMatrixView view() {
+        return DoubleMatrixView.of(this);
+    }
+
+    /** 添字を0始まりとしてi行j列の要素を取得する */
+    public double get(int i, int j) {
+        return elems[offset + i * stride + j];
+    }
+
+    void set(int i, int j, double value) {
+        elems[offset + i * stride + j] = value;
+    }
+
+    public DoubleMatrix add(DoubleMatrix that) {
+        return add(that, Parallelism.DEFAULT);
+    }
+
+    public DoubleMatrix add(DoubleMatrix that, Parallelism parallelism) {
+        if (m != that.m || n != that.n) {
+            throw new IllegalArgumentException("行列のサイズが一致しません。this: %d*%d, that: %d*%d".formatted(m, n, that.m, that.n));
+        }
+        var result = new DoubleMatrix(m, n);
+        var c = result.elems;
+        parallelism.forEachBlock(m, n, 1, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var i = rowFrom; i < rowTo; i++) {
+                DoubleKernel.DEFAULT.add(colTo - colFrom,
+                        elems, offset + i * stride + colFrom,
+                        that.elems, that.offset + i * that.stride + colFrom,
+                        c, i * n + colFrom);
+            }
+        });
+        return result;
+    }
+
+    /** 自身の右に引数の行列を掛ける。自身の列の個数と引数の列の行数が一致する必要がある */
+    public DoubleMatrix multiply(DoubleMatrix that) {
+        return multiply(that, Parallelism.DEFAULT);
+    }
+
+    public DoubleMatrix multiply(DoubleMatrix that, Parallelism parallelism) {
+        if (n != that.m) {
+            throw new IllegalArgumentException("thisの列の個数とthatの行の個数が一致しません。this: %d*%d, that: %d*%d".formatted(m, n, that.m, that.n));
+        }
+        var event = new KernelEvent();
+        event.begin();
+        var result = new DoubleMatrix(m, that.n);
+        String kernel;
+        if (SmallMatrix.applies(m, that.n, n)) {
+            SmallMatrix.multiply(m, elems, offset, stride, that.elems, that.offset, that.stride, result.elems, 0, m);
+            kernel = "SmallMatrix.multiply";
+        } else {
+            Gemm.multiply(m, that.n, n, 1.0, elems, offset, stride, that.elems, that.offset, that.stride, result.elems, 0, that.n,
+                    Gemm.Blocking.DEFAULT, parallelism);
+            kernel = "Gemm.multiply";
+        }
+        event.commit(kernel, "double", m, that.n, n, KernelEvent.multiplyFlops(m, that.n, n));
+        return result;
+    }
+
+    public DoubleMatrix multiply(double a) {
+        return multiply(a, Parallelism.DEFAULT);
+    }
+
+    public DoubleMatrix multiply(double a, Parallelism parallelism) {
+        var result = new DoubleMatrix(m, n);
+        var c = result.elems;
+        parallelism.forEachBlock(m, n, 1, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var i = rowFrom; i < rowTo; i++) {
+                DoubleKernel.DEFAULT.scale(colTo - colFrom, a, elems, offset + i * stride + colFrom, c, i * n + colFrom);
+            }
+        });
+        return result;
+    }
+
+    public double determinant() {
+        return DoubleLUP.calcDeterminant(this);
+    }
+
+    @Override
+    public String toString() {
+        var a = new StringJoiner(", ");
+        var row = new double[n];
+        for (var i = 0; i < m; i++) {
+            System.arraycopy(elems, offset + i * stride, row, 0, n);
+            a.add(Arrays.toString(row));
+        }
+        return "DoubleMatrix{" +
+                "m=" + m +
+                ", n=" + n +
+                ", elems=" + a +
+                '}';
+    }
+
+    /** Matrix&lt;Double&gt;のequalsと同様に、各成分をDouble.equalsの意味で比較する */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DoubleMatrix matrix = (DoubleMatrix) o;
+        if (m != matrix.m || n != matrix.n) return false;
+        for (var i = 0; i < m; i++) {
+            for (var j = 0; j < n; j++) {
+                if (Double.doubleToLongBits(get(i, j)) != Double.doubleToLongBits(matrix.get(i, j))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        var result = 31 * m + n;
+        for (var i = 0; i < m; i++) {
+            for (var j = 0; j < n; j++) {
+                result = 31 * result + Double.hashCode(get(i, j));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected DoubleMatrix clone() {
+        // DoubleMatrixはfinalであるためsuper.clone()の呼び出しは不要
+        var result = new DoubleMatrix(m, n);
+        for (var i = 0; i < m; i++) {
+            System.arraycopy(elems, offset + i * stride, result.elems, i * n, n);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,173 @@
+package math.matrix;
+
+/**
+ * DoubleMatrixの成分の配列を共有するビュー。成分(i, j)は elems[offset + i * rowStride + j * colStride] にある。
+ * 転置は行と列の間隔を入れ替えるだけで、部分行列や行・列の切り出しはoffsetと大きさを変えるだけで作るため、いずれも成分を複製しない。
+ * 積(multiply)はGemmに間隔をそのまま渡し、転置した行列との積でも複製を作らない。
+ * 書き込みの扱いはAccessで決める。ビューから作ったビューは元のビューのAccessを引き継ぐ。
+ */
+final class DoubleMatrixView {
+
+    enum Access {
+        /** 書き込みは共有している配列に反映される */
+        SHARED,
+        /** 書き込みはUnsupportedOperationExceptionを投げる */
+        READ_ONLY,
+        /** 最初の書き込みの前にビューの範囲を新しい配列に複製し、以降はその配列に書き込む。共有していた配列は変わらない */
+        COPY_ON_WRITE
+    }
+
+    final int m; // 行数
+    final int n; // 列数
+    final Access access;
+    // COPY_ON_WRITEのビューは最初の書き込みで以下を複製した配列のものに置き換える
+    double[] elems;
+    int offset;
+    int rowStride;
+    int colStride;
+    private boolean copied;
+
+    private DoubleMatrixView(int m, int n, double[] elems, int offset, int rowStride, int colStride, Access access) {
+        this.m = m;
+        this.n = n;
+        this.elems = elems;
+        this.offset = offset;
+        this.rowStride = rowStride;
+        this.colStride = colStride;
+        this.access = access;
+    }
+
+    /** matrixの全体を表す、書き込みを共有するビュー */
+    static DoubleMatrixView of(DoubleMatrix matrix) {
+        return new DoubleMatrixView(matrix.m, matrix.n, matrix.elems, matrix.offset, matrix.stride, 1, Access.SHARED);
+    }
+
+    private DoubleMatrixView derive(int m, int n, int offset, int rowStride, int colStride) {
+        return new DoubleMatrixView(m, n, elems, offset, rowStride, colStride, access);
+    }
+
+    /** 転置行列 */
+    DoubleMatrixView transpose() {
+        return derive(n, m, offset, colStride, rowStride);
+    }
+
+    /** 行 rowFrom から rowTo の手前、列 colFrom から colTo の手前までの部分行列 */
+    DoubleMatrixView subMatrix(int rowFrom, int rowTo, int colFrom, int colTo) {
+        if (rowFrom < 0 || rowTo > m || rowFrom >= rowTo || colFrom < 0 || colTo > n || colFrom >= colTo) {
+            throw new IllegalArgumentException("部分行列の範囲が不正です。行: [%d, %d), 列: [%d, %d), 行列: %d*%d"
+                    .formatted(rowFrom, rowTo, colFrom, colTo, m, n));
+        }
+        return derive(rowTo - rowFrom, colTo - colFrom, offset + rowFrom * rowStride + colFrom * colStride, rowStride, colStride);
+    }
+
+    /** i行目の1*nの行列 */
+    DoubleMatrixView row(int i) {
+        return subMatrix(i, i + 1, 0, n);
+    }
+
+    /** j列目のm*1の行列 */
+    DoubleMatrixView column(int j) {
+        return subMatrix(0, m, j, j + 1);
+    }
+
+    /** 同じ範囲を表す、書き込めないビュー */
+    DoubleMatrixView readOnly() {
+        return new DoubleMatrixView(m, n, elems, offset, rowStride, colStride, Access.READ_ONLY);
+    }
+
+    /** 同じ範囲を表す、書き込み時に複製するビュー */
+    DoubleMatrixView copyOnWrite() {
+        return new DoubleMatrixView(m, n, elems, offset, rowStride, colStride, Access.COPY_ON_WRITE);
+    }
+
+    /** 添字を0始まりとしてi行j列の要素を取得する */
+    public double get(int i, int j) {
+        return elems[offset + i * rowStride + j * colStride];
+    }
+
+    void set(int i, int j, double value) {
+        ensureWritable();
+        elems[offset + i * rowStride + j * colStride] = value;
+    }
+
+    /** 書き込める状態にする。COPY_ON_WRITEのビューは最初の呼び出しでビューの範囲を行優先の新しい配列に複製する */
+    private void ensureWritable() {
+        switch (access) {
+            case SHARED -> {
+            }
+            case READ_ONLY -> throw new UnsupportedOperationException("読み取り専用のビューには書き込めません");
+            case COPY_ON_WRITE -> {
+                if (!copied) {
+                    elems = toDoubleMatrix().elems;
+                    offset = 0;
+                    rowStride = n;
+                    colStride = 1;
+                    copied = true;
+                }
+            }
+        }
+    }
+
+    /** 成分を行優先の新しい配列に複製する */
+    public DoubleMatrix toDoubleMatrix() {
+        var result = new DoubleMatrix(m, n);
+        for (var i = 0; i < m; i++) {
+            var row = offset + i * rowStride;
+            if (colStride == 1) {
+                System.arraycopy(elems, row, result.elems, i * n, n);
+            } else {
+                for (var j = 0; j < n; j++) {
+                    result.elems[i * n + j] = elems[row + j * colStride];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 配列を共有し、書き込みがこのビューに反映されるDoubleMatrixを返す。DoublePackedLUP.decomposeInPlaceなど、
+     * DoubleMatrixを上書きするカーネルにビューを直接渡すのに用いる。
+     * 各行が連続している(colStrideが1の)書き込めるビューである必要がある。COPY_ON_WRITEのビューはここで複製する。
+     */
+    DoubleMatrix shared() {
+        ensureWritable();
+        if (colStride != 1) {
+            throw new IllegalArgumentException("行が連続していないビューはDoubleMatrixとして共有できません。colStride: %d".formatted(colStride));
+        }
+        return new DoubleMatrix(m, n, elems, offset, rowStride);
+    }
+
+    public DoubleMatrix multiply(DoubleMatrixView that) {
+        return multiply(that, Parallelism.DEFAULT);
+    }
+
+    /** 自身の右に引数の行列を掛ける。どちらのビューも複製せず、間隔に従って読み込む */
+    public DoubleMatrix multiply(DoubleMatrixView that, Parallelism parallelism) {
+        if (n != that.m) {
+            throw new IllegalArgumentException("thisの列の個数とthatの行の個数が一致しません。this: %d*%d, that: %d*%d".formatted(m, n, that.m, that.n));
+        }
+        var event = new KernelEvent();
+        event.begin();
+        var result = new DoubleMatrix(m, that.n);
+        Gemm.multiply(m, that.n, n, 1.0,
+                elems, offset, rowStride, colStride,
+                that.elems, that.offset, that.rowStride, that.colStride,
+                result.elems, 0, that.n,
+                Gemm.Blocking.DEFAULT, parallelism);
+        event.commit("Gemm.multiply", "double", m, that.n, n, KernelEvent.multiplyFlops(m, that.n, n));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "DoubleMatrixView{" +
+                "m=" + m +
+                ", n=" + n +
+                ", access=" + access +
+                ", offset=" + offset +
+                ", rowStride=" + rowStride +
+                ", colStride=" + colStride +
+                '}';
+    }
+
+}
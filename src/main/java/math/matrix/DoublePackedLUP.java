@@ -0,0 +1,329 @@
+package math.matrix;
+
+import java.util.Optional;
+
+/**
+ * DoubleMatrixのLUP分解を、LとUをまとめた1つの行列と置換ベクトルで保持する。
+ * luの対角より下がLの成分(対角成分の1は省略する)、対角とそれより上がUの成分である。
+ */
+final class DoublePackedLUP {
+
+    final DoubleMatrix lu;
+    final int[] pivot; // 分解後のi行目は元の行列のpivot[i]行目
+    final double pSign; // Pの行列式
+
+    private DoublePackedLUP(DoubleMatrix lu, int[] pivot, double pSign) {
+        this.lu = lu;
+        this.pivot = pivot;
+        this.pSign = pSign;
+    }
+
+    /** 分解のブロックの列数。システムプロパティ math.matrix.lu.block で上書きできる */
+    static final int BLOCK = Integer.getInteger("math.matrix.lu.block", 64);
+
+    /** 行列を複製してから分解する。正則でない場合は空を返す */
+    static Optional<DoublePackedLUP> decompose(DoubleMatrix matrix) {
+        return decomposeInPlace(matrix.clone());
+    }
+
+    static Optional<DoublePackedLUP> decompose(DoubleMatrix matrix, Parallelism parallelism) {
+        return decomposeInPlace(matrix.clone(), BLOCK, parallelism);
+    }
+
+    /** ビューの成分を行優先の配列に1回だけ複製して分解する。転置したビューもそのまま渡せる */
+    static Optional<DoublePackedLUP> decompose(DoubleMatrixView view) {
+        return decomposeInPlace(view.toDoubleMatrix());
+    }
+
+    /**
+     * ビューが共有する配列を上書きして分解する。ブロックアルゴリズムで部分行列をその場で分解するのに用いる。
+     * ビューは各行が連続した書き込めるものである必要があり、COPY_ON_WRITEのビューは分解の前に複製される。
+     */
+    static Optional<DoublePackedLUP> decomposeInPlace(DoubleMatrixView view) {
+        return decomposeInPlace(view.shared());
+    }
+
+    /**
+     * 行列の成分の配列を上書きして分解する。複製を作らない代わりに、呼び出し後のmatrixは元の行列を表さない。
+     * 正則でない場合は空を返すが、その場合もmatrixは途中まで書き換えられている。
+     */
+    static Optional<DoublePackedLUP> decomposeInPlace(DoubleMatrix matrix) {
+        return decomposeInPlace(matrix, BLOCK, Parallelism.DEFAULT);
+    }
+
+    /**
+     * 右方向(right-looking)のブロックLU分解を行う。
+     * 幅blockの列のパネルを部分ピボット選択付きで分解し、その右側の行ブロックを三角行列で解き(TRSM)、
+     * 残りの右下の部分行列を行列積で更新する(GEMM)。TRSMとGEMMはparallelismに従って並列に計算する。
+     * 行列の大きさがblock以下であれば、ブロック化しない分解と同じ順序で計算する。
+     */
+    static Optional<DoublePackedLUP> decomposeInPlace(DoubleMatrix matrix, int block, Parallelism parallelism) {
+        if (matrix.m != matrix.n) {
+            throw new IllegalArgumentException("正方行列でない場合LUP分解はできません");
+        }
+        if (block < 1) {
+            throw new IllegalArgumentException("blockは1以上である必要があります。block: %d".formatted(block));
+        }
+        var event = new KernelEvent();
+        event.begin();
+        var result = factor(matrix, block, parallelism);
+        var n = matrix.n;
+        event.commit("DoublePackedLUP.decompose", "double", n, n, n, KernelEvent.luFlops(n));
+        return result;
+    }
+
+    private static Optional<DoublePackedLUP> factor(DoubleMatrix matrix, int block, Parallelism parallelism) {
+        var n = matrix.n;
+        var pivot = new int[n];
+        for (var i = 0; i < n; i++) {
+            pivot[i] = i;
+        }
+
+        var a = matrix.elems;
+        var offset = matrix.offset;
+        var stride = matrix.stride;
+        var pSign = 1.0;
+        for (var j0 = 0; j0 < n; j0 += block) {
+            var j1 = Math.min(j0 + block, n);
+            var swaps = factorPanel(a, offset, stride, n, j0, j1, pivot);
+            if (swaps < 0) {
+                return Optional.empty();
+            }
+            if (swaps % 2 == 1) {
+                pSign = -pSign;
+            }
+            if (j1 == n) {
+                break;
+            }
+            solveRowBlock(a, offset, stride, n, j0, j1, parallelism);
+            // A22 -= L21 * U12
+            var rest = n - j1;
+            Gemm.multiply(rest, rest, j1 - j0, -1.0,
+                    a, offset + j1 * stride + j0, stride,
+                    a, offset + j0 * stride + j1, stride,
+                    a, offset + j1 * stride + j1, stride,
+                    Gemm.Blocking.DEFAULT, parallelism);
+        }
+        return Optional.of(new DoublePackedLUP(matrix, pivot, pSign));
+    }
+
+    /**
+     * j0列からj1列の手前までのパネルを、部分ピボット選択付きで分解する。行の入れ替えは行全体に対して行う。
+     * 行の入れ替えの回数を返す。ピボットが見つからない(正則でない)場合は-1を返す。
+     */
+    private static int factorPanel(double[] a, int offset, int stride, int n, int j0, int j1, int[] pivot) {
+        var swaps = 0;
+        for (var k = j0; k < j1; k++) {
+            var rowK = offset + k * stride;
+            var p = 0.0;
+            var _k = -1;
+            for (var i = k; i < n; i++) {
+                var abs = Math.abs(a[offset + i * stride + k]);
+                if (abs > p) {
+                    p = abs;
+                    _k = i;
+                }
+            }
+            if (_k < 0) {
+                return -1;
+            }
+            if (k != _k) {
+                swap(pivot, k, _k);
+                swapRows(a, rowK, offset + _k * stride, n);
+                swaps++;
+            }
+            // LUPと同じ結果になるよう、Field.divと同様に逆数を掛ける
+            var inverse = 1.0 / a[rowK + k];
+            for (var i = k + 1; i < n; i++) {
+                var rowI = offset + i * stride;
+                var lik = a[rowI + k] * inverse;
+                a[rowI + k] = lik;
+                DoubleKernel.DEFAULT.axpy(j1 - k - 1, -lik, a, rowK + k + 1, a, rowI + k + 1);
+            }
+        }
+        return swaps;
+    }
+
+    /** j0行からj1行の手前までの、j1列より右の部分を、対角成分を1とする下三角行列L11で解く: U12 = L11^-1 * A12 */
+    private static void solveRowBlock(double[] a, int offset, int stride, int n, int j0, int j1, Parallelism parallelism) {
+        var rows = j1 - j0;
+        // 各列は独立に計算できるため、列の方向にだけ分割する
+        parallelism.forEachBlock(1, n - j1, (long) rows * rows / 2, (rowFrom, rowTo, colFrom, colTo) -> {
+            var width = colTo - colFrom;
+            for (var i = j0 + 1; i < j1; i++) {
+                var rowI = offset + i * stride;
+                for (var p = j0; p < i; p++) {
+                    DoubleKernel.DEFAULT.axpy(width, -a[rowI + p], a, offset + p * stride + j1 + colFrom, a, rowI + j1 + colFrom);
+                }
+            }
+        });
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        var t = array[i];
+        array[i] = array[j];
+        array[j] = t;
+    }
+
+    private static void swapRows(double[] a, int rowI, int rowJ, int n) {
+        for (var k = 0; k < n; k++) {
+            var t = a[rowI + k];
+            a[rowI + k] = a[rowJ + k];
+            a[rowJ + k] = t;
+        }
+    }
+
+    int size() {
+        return lu.n;
+    }
+
+    /** 下三角行列。対角成分は全て1とする */
+    DoubleMatrix l() {
+        var n = size();
+        var l = new DoubleMatrix(n, n);
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < i; j++) {
+                l.set(i, j, lu.get(i, j));
+            }
+            l.set(i, i, 1.0);
+        }
+        return l;
+    }
+
+    /** 上三角行列 */
+    DoubleMatrix u() {
+        var n = size();
+        var u = new DoubleMatrix(n, n);
+        for (var i = 0; i < n; i++) {
+            for (var j = i; j < n; j++) {
+                u.set(i, j, lu.get(i, j));
+            }
+        }
+        return u;
+    }
+
+    /** 行の入れ替えを表す行列 */
+    DoubleMatrix p() {
+        var n = size();
+        var p = new DoubleMatrix(n, n);
+        for (var i = 0; i < n; i++) {
+            p.set(i, pivot[i], 1.0);
+        }
+        return p;
+    }
+
+    DoubleLUP toDoubleLUP() {
+        return new DoubleLUP(l(), u(), p(), pSign);
+    }
+
+    /** Ax = b を解く。bは書き換えない */
+    double[] solve(double[] b) {
+        var n = size();
+        if (b.length != n) {
+            throw new IllegalArgumentException("bの要素数%dが行列の大きさ%dと一致しません".formatted(b.length, n));
+        }
+        var a = lu.elems;
+        var x = new double[n];
+        for (var i = 0; i < n; i++) {
+            x[i] = b[pivot[i]];
+        }
+        // Ly = Pb
+        for (var i = 1; i < n; i++) {
+            var rowI = lu.offset + i * lu.stride;
+            var acc = x[i];
+            for (var p = 0; p < i; p++) {
+                acc -= a[rowI + p] * x[p];
+            }
+            x[i] = acc;
+        }
+        // Ux = y
+        for (var i = n - 1; i >= 0; i--) {
+            var rowI = lu.offset + i * lu.stride;
+            var acc = x[i];
+            for (var p = i + 1; p < n; p++) {
+                acc -= a[rowI + p] * x[p];
+            }
+            x[i] = acc / a[rowI + i];
+        }
+        return x;
+    }
+
+    /** AX = B を解く。Bの各列を右辺とする */
+    DoubleMatrix solve(DoubleMatrix b) {
+        return solve(b, Parallelism.DEFAULT);
+    }
+
+    /**
+     * AX = B を解く。Bの各列を右辺とする。
+     * 前進代入と後退代入をBLOCK行ずつ行い、対角ブロックを解いた後の残りの行の更新を行列積で行う。
+     */
+    DoubleMatrix solve(DoubleMatrix b, Parallelism parallelism) {
+        var n = size();
+        if (b.m != n) {
+            throw new IllegalArgumentException("bの行数%dが行列の大きさ%dと一致しません".formatted(b.m, n));
+        }
+        var r = b.n;
+        var x = new DoubleMatrix(n, r);
+        for (var i = 0; i < n; i++) {
+            System.arraycopy(b.elems, b.offset + pivot[i] * b.stride, x.elems, i * r, r);
+        }
+        var a = lu.elems;
+        var offset = lu.offset;
+        var stride = lu.stride;
+        var xs = x.elems;
+        // LY = PB
+        for (var j0 = 0; j0 < n; j0 += BLOCK) {
+            var j1 = Math.min(j0 + BLOCK, n);
+            for (var i = j0 + 1; i < j1; i++) {
+                for (var p = j0; p < i; p++) {
+                    DoubleKernel.DEFAULT.axpy(r, -a[offset + i * stride + p], xs, p * r, xs, i * r);
+                }
+            }
+            if (j1 < n) {
+                Gemm.multiply(n - j1, r, j1 - j0, -1.0,
+                        a, offset + j1 * stride + j0, stride,
+                        xs, j0 * r, r,
+                        xs, j1 * r, r,
+                        Gemm.Blocking.DEFAULT, parallelism);
+            }
+        }
+        // UX = Y
+        for (var j1 = n; j1 > 0; j1 -= BLOCK) {
+            var j0 = Math.max(j1 - BLOCK, 0);
+            for (var i = j1 - 1; i >= j0; i--) {
+                var rowI = offset + i * stride;
+                for (var p = i + 1; p < j1; p++) {
+                    DoubleKernel.DEFAULT.axpy(r, -a[rowI + p], xs, p * r, xs, i * r);
+                }
+                DoubleKernel.DEFAULT.scale(r, 1.0 / a[rowI + i], xs, i * r, xs, i * r);
+            }
+            if (j0 > 0) {
+                Gemm.multiply(j0, r, j1 - j0, -1.0,
+                        a, offset + j0, stride,
+                        xs, j0 * r, r,
+                        xs, 0, r,
+                        Gemm.Blocking.DEFAULT, parallelism);
+            }
+        }
+        return x;
+    }
+
+    /** 逆行列。単位行列を右辺として解く */
+    DoubleMatrix inverse() {
+        var n = size();
+        var identity = new DoubleMatrix(n, n);
+        for (var i = 0; i < n; i++) {
+            identity.set(i, i, 1.0);
+        }
+        return solve(identity);
+    }
+
+    double determinant() {
+        var uDet = 1.0;
+        for (var i = 0; i < size(); i++) {
+            uDet = uDet * lu.get(i, i);
+        }
+        return pSign * uDet;
+    }
+
+}
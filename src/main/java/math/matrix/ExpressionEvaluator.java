@@ -0,0 +1,154 @@
+package math.matrix;
+
+import math.numbers.Field;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MatrixExpressionを評価する。
+ * 式を「係数 * 行列」と「係数 * 行列 * 行列」の項の和に展開し、出力のブロックごとに全ての項を順に足し込む。
+ * 積の項はGemmのField版のブロック化したループで出力に足し込み、各成分をGemmと同じ順序(addZeroから始めてkの昇順)で計算するため、
+ * スカラー倍と加算が1つずつの式の結果は、Matrixの演算を順に呼んだ場合と一致する。
+ * 複数のスカラー倍は先に係数どうしを掛けてまとめ、積の両辺のスカラー倍は積の外に出す。
+ * 2回以上参照される部分式と積の両辺の式は、1回だけ計算して行列にする。
+ * Matrix.multiplyでStrassen-Winogradの方法を用いる積(Strassen.applies)は、同じ方法で先に計算し、
+ * 先頭の項であればその結果の配列をそのまま出力に用いる。
+ */
+final class ExpressionEvaluator<T> {
+
+    /**
+     * 展開した項。coefficientがnullの場合は係数を1とし、乗算を行わない。
+     * rightがnullの場合はleftのスカラー倍、そうでない場合はleftとrightの積のスカラー倍を表す。
+     * ownedは、leftが評価中に作った行列で、出力として上書きしてよいかどうか。
+     */
+    private record Term<T>(T coefficient, Matrix<T> left, Matrix<T> right, boolean owned) {}
+
+    private final Field<T> field;
+    private final Parallelism parallelism;
+    private final Map<MatrixExpression<T>, Integer> references = new IdentityHashMap<>();
+    private final Map<MatrixExpression<T>, Matrix<T>> evaluated = new IdentityHashMap<>();
+
+    ExpressionEvaluator(Field<T> field, Parallelism parallelism) {
+        this.field = field;
+        this.parallelism = parallelism;
+    }
+
+    Matrix<T> evaluate(MatrixExpression<T> expression) {
+        countReferences(expression);
+        return materialize(expression);
+    }
+
+    /** 各部分式を参照している箇所の数を数える。共有された部分式の下は1回だけたどる */
+    private void countReferences(MatrixExpression<T> expression) {
+        if (references.merge(expression, 1, Integer::sum) > 1) {
+            return;
+        }
+        if (expression instanceof MatrixExpression.Sum<T> sum) {
+            countReferences(sum.left());
+            countReferences(sum.right());
+        } else if (expression instanceof MatrixExpression.Scale<T> scale) {
+            countReferences(scale.operand());
+        } else if (expression instanceof MatrixExpression.Product<T> product) {
+            countReferences(product.left());
+            countReferences(product.right());
+        }
+    }
+
+    /** 部分式を1つの行列に計算する。計算済みの部分式は再計算しない */
+    private Matrix<T> materialize(MatrixExpression<T> expression) {
+        if (expression instanceof MatrixExpression.Leaf<T> leaf) {
+            return leaf.matrix();
+        }
+        var result = evaluated.get(expression);
+        if (result == null) {
+            var terms = new ArrayList<Term<T>>();
+            expandChildren(expression, null, terms);
+            result = combine(expression, terms);
+            evaluated.put(expression, result);
+        }
+        return result;
+    }
+
+    private T times(T coefficient, T scalar) {
+        return coefficient == null ? scalar : field.multiply(coefficient, scalar);
+    }
+
+    /** 部分式をcoefficient倍した項をtermsに加える。共有された部分式は行列にしてから1つの項とする */
+    private void expand(MatrixExpression<T> expression, T coefficient, List<Term<T>> terms) {
+        if (expression instanceof MatrixExpression.Leaf<T> leaf) {
+            terms.add(new Term<>(coefficient, leaf.matrix(), null, false));
+        } else if (references.get(expression) > 1) {
+            terms.add(new Term<>(coefficient, materialize(expression), null, false));
+        } else {
+            expandChildren(expression, coefficient, terms);
+        }
+    }
+
+    private void expandChildren(MatrixExpression<T> expression, T coefficient, List<Term<T>> terms) {
+        if (expression instanceof MatrixExpression.Sum<T> sum) {
+            expand(sum.left(), coefficient, terms);
+            expand(sum.right(), coefficient, terms);
+        } else if (expression instanceof MatrixExpression.Scale<T> scale) {
+            expand(scale.operand(), times(coefficient, scale.scalar()), terms);
+        } else if (expression instanceof MatrixExpression.Product<T> product) {
+            var left = product.left();
+            while (left instanceof MatrixExpression.Scale<T> scale && references.get(left) == 1) {
+                coefficient = times(coefficient, scale.scalar());
+                left = scale.operand();
+            }
+            var right = product.right();
+            while (right instanceof MatrixExpression.Scale<T> scale && references.get(right) == 1) {
+                coefficient = times(coefficient, scale.scalar());
+                right = scale.operand();
+            }
+            var a = materialize(left);
+            var b = materialize(right);
+            if (Strassen.applies(field, a.m, b.n, a.n)) {
+                var c = new Matrix<>(Strassen.multiply(field, a.elems, b.elems, parallelism), field, a.distance, a.comparator);
+                terms.add(new Term<>(coefficient, c, null, true));
+            } else {
+                terms.add(new Term<>(coefficient, a, b, false));
+            }
+        } else {
+            expand(expression, coefficient, terms);
+        }
+    }
+
+    /** 項の和を計算する。先頭の項が評価中に作った行列であれば、その配列に上書きする */
+    private Matrix<T> combine(MatrixExpression<T> expression, List<Term<T>> terms) {
+        var m = expression.rows();
+        var n = expression.cols();
+        var origin = expression.origin();
+        var first = terms.get(0);
+        var out = first.right() == null && first.owned() ? first.left().elems : (T[][]) new Object[m][n];
+        var cost = 0L;
+        for (var term : terms) {
+            cost += term.right() == null ? 1 : term.left().n;
+        }
+        var one = field.mulZero();
+        parallelism.forEachBlock(m, n, cost, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var t = 0; t < terms.size(); t++) {
+                var term = terms.get(t);
+                var coefficient = term.coefficient();
+                if (term.right() != null) {
+                    Gemm.multiply(field, coefficient, term.left().elems, term.right().elems, t == 0 ? null : one, out,
+                            rowFrom, rowTo, colFrom, colTo, Gemm.FIELD_BLOCK);
+                    continue;
+                }
+                for (var i = rowFrom; i < rowTo; i++) {
+                    var row = term.left().elems[i];
+                    var outI = out[i];
+                    for (var j = colFrom; j < colTo; j++) {
+                        var x = coefficient == null ? row[j] : field.multiply(row[j], coefficient);
+                        outI[j] = t == 0 ? x : field.add(outI[j], x);
+                    }
+                }
+            }
+        });
+        return new Matrix<>(out, field, origin.distance, origin.comparator);
+    }
+
+}
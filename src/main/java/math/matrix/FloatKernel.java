@@ -0,0 +1,56 @@
+package math.matrix;
+
+/**
+ * floatの配列に対する基本的なループ。MixedPrecisionLUPの分解に用いる。
+ * DoubleKernelと同様に、Vector APIが使える場合はSIMD命令とFMAを用いる実装を、使えない場合はスカラーの実装を用いる。
+ * 1本のベクトルに入る成分の数がdoubleの倍になるため、マイクロカーネルのタイルの列数はGemm.FLOAT_NRである。
+ */
+interface FloatKernel {
+
+    /** スカラーの実装。常に利用できる */
+    FloatKernel SCALAR = new ScalarFloatKernel();
+
+    /** 既定の実装。選び方はDoubleKernel.DEFAULTと同じで、システムプロパティ math.matrix.vector に従う */
+    FloatKernel DEFAULT = select();
+
+    private static FloatKernel select() {
+        if (!Boolean.parseBoolean(System.getProperty("math.matrix.vector", "true"))) {
+            return SCALAR;
+        }
+        return vector() != null ? vector() : SCALAR;
+    }
+
+    /** Vector API版の実装。モジュールが有効でない場合や、256bit以上のSIMD命令がない場合はnull */
+    static FloatKernel vector() {
+        return VectorHolder.INSTANCE;
+    }
+
+    /** y[yOff + i] += alpha * x[xOff + i] */
+    void axpy(int length, float alpha, float[] x, int xOff, float[] y, int yOff);
+
+    /**
+     * Gemmのマイクロカーネル。詰め直したAのMR行のパネルとBのFLOAT_NR列のパネルの積をCのタイルに足し込む。
+     * rows*colsの部分だけを書き戻す。
+     */
+    void microKernel(int kb, float[] a, int aIndex, float[] b, int bIndex,
+                     float[] c, int cOff, int ldc, int rows, int cols);
+
+    /** Vector API版のクラスはモジュールが存在する場合にのみ読み込む */
+    final class VectorHolder {
+        private VectorHolder() {}
+
+        static final FloatKernel INSTANCE = load();
+
+        private static FloatKernel load() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return null;
+            }
+            try {
+                return VectorFloatKernel.isSupported() ? new VectorFloatKernel() : null;
+            } catch (LinkageError e) {
+                return null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,375 @@
+package math.matrix;
+
+import math.numbers.Field;
+
+import java.util.Arrays;
+
+/**
+ * 行列積 C += alpha * A * B の計算カーネル。
+ * double版はAとBをキャッシュに収まるブロックに詰め直し(パッキング)、MR*NRのレジスタタイルごとに積を取る。
+ * タイルの積はDoubleKernelのマイクロカーネルで計算する。
+ * float版も同じ構成で、タイルの積はFloatKernelのマイクロカーネルで計算する。
+ * Field版は参照の配列に対してループをブロック化する。
+ */
+final class Gemm {
+
+    private Gemm() {}
+
+    /** マイクロカーネルが一度に計算するCの行数 */
+    static final int MR = 4;
+    /** マイクロカーネルが一度に計算するCの列数 */
+    static final int NR = 4;
+    /** floatのマイクロカーネルが一度に計算するCの列数。1本のベクトルにdoubleの倍の成分が入る */
+    static final int FLOAT_NR = 8;
+
+    private static final DoubleKernel KERNEL = DoubleKernel.DEFAULT;
+    private static final FloatKernel FLOAT_KERNEL = FloatKernel.DEFAULT;
+
+    /** この値以下の乗算回数であればパッキングを行わず素直なループで計算する */
+    private static final long SMALL = 32 * 32 * 32;
+
+    /**
+     * ブロックの大きさ。
+     * @param mc Aのパネルの行数。mc*kcのAのブロックがL2キャッシュに収まるようにする
+     * @param kc 共通の次元の幅。kc*NRのBのパネルがL1キャッシュに収まるようにする
+     * @param nc Bのパネルの列数。kc*ncのBのブロックがL3キャッシュに収まるようにする
+     */
+    record Blocking(int mc, int kc, int nc) {
+
+        /** システムプロパティ math.matrix.gemm.mc, kc, nc で上書きできる既定値 */
+        static final Blocking DEFAULT = new Blocking(
+                Integer.getInteger("math.matrix.gemm.mc", 128),
+                Integer.getInteger("math.matrix.gemm.kc", 256),
+                Integer.getInteger("math.matrix.gemm.nc", 2048));
+
+        Blocking {
+            if (mc <= 0 || kc <= 0 || nc <= 0) {
+                throw new IllegalArgumentException("ブロックの大きさは1以上である必要があります。mc: %d, kc: %d, nc: %d".formatted(mc, kc, nc));
+            }
+            // パネルの途中でレジスタタイルが切れないように切り上げる
+            mc = (mc + MR - 1) / MR * MR;
+            nc = (nc + NR - 1) / NR * NR;
+        }
+    }
+
+    /**
+     * C += alpha * A * B を計算する。Aはm*k、Bはk*n、Cはm*nで、いずれも行優先でオフセットと行の間隔を持つ。
+     */
+    static void multiply(int m, int n, int k, double alpha,
+                         double[] a, int aOff, int lda,
+                         double[] b, int bOff, int ldb,
+                         double[] c, int cOff, int ldc) {
+        multiply(m, n, k, alpha, a, aOff, lda, b, bOff, ldb, c, cOff, ldc, Blocking.DEFAULT, Parallelism.SERIAL);
+    }
+
+    static void multiply(int m, int n, int k, double alpha,
+                         double[] a, int aOff, int lda,
+                         double[] b, int bOff, int ldb,
+                         double[] c, int cOff, int ldc,
+                         Blocking blocking) {
+        multiply(m, n, k, alpha, a, aOff, lda, b, bOff, ldb, c, cOff, ldc, blocking, Parallelism.SERIAL);
+    }
+
+    /**
+     * Cを並列に計算する。並列化はmultiplyPackedの中でマクロタイルの単位で行う。
+     * どのカーネルを使うかは全体の大きさで決めるため、各成分の演算順序は逐次の場合と一致する。
+     */
+    static void multiply(int m, int n, int k, double alpha,
+                         double[] a, int aOff, int lda,
+                         double[] b, int bOff, int ldb,
+                         double[] c, int cOff, int ldc,
+                         Blocking blocking, Parallelism parallelism) {
+        multiply(m, n, k, alpha, a, aOff, lda, 1, b, bOff, ldb, 1, c, cOff, ldc, blocking, parallelism);
+    }
+
+    /**
+     * AとBの成分の位置を行の間隔と列の間隔で指定する。A(i, p)は a[aOff + i * aRow + p * aCol] にある。
+     * 転置した行列は行と列の間隔を入れ替えて渡せばよく、複製を作らない。
+     * AとBはパッキングの際に間隔に従って読み込むため、演算の順序は行優先の場合と同じである。
+     */
+    static void multiply(int m, int n, int k, double alpha,
+                         double[] a, int aOff, int aRow, int aCol,
+                         double[] b, int bOff, int bRow, int bCol,
+                         double[] c, int cOff, int ldc,
+                         Blocking blocking, Parallelism parallelism) {
+        if (m == 0 || n == 0 || k == 0) {
+            return;
+        }
+        // 小さな積のループはBの行が連続していることを前提とする。分割しても速くならないため、呼び出し元のスレッドで計算する
+        if ((long) m * n * k <= SMALL && bCol == 1) {
+            multiplySmall(m, n, k, alpha, a, aOff, aRow, aCol, b, bOff, bRow, c, cOff, ldc);
+        } else {
+            multiplyPacked(m, n, k, alpha, a, aOff, aRow, aCol, b, bOff, bRow, bCol, c, cOff, ldc, blocking, parallelism);
+        }
+    }
+
+    /**
+     * jcとpcのループは逐次に回し、詰めたBのブロックを全てのタスクで共有する。
+     * その内側で、icのマクロタイルとBのmc列ごとの範囲の組をparallelismに従って分割し、各タスクは受け持つ行のAのブロックだけを詰める。
+     * Aを詰める費用とタスクの費用に見合うよう、1つのタスクにはmc*kc*nc回以上の乗算を受け持たせる。
+     */
+    private static void multiplyPacked(int m, int n, int k, double alpha,
+                                       double[] a, int aOff, int aRow, int aCol,
+                                       double[] b, int bOff, int bRow, int bCol,
+                                       double[] c, int cOff, int ldc,
+                                       Blocking blocking, Parallelism parallelism) {
+        var mc = Math.min(blocking.mc(), roundUp(m, MR));
+        var kc = Math.min(blocking.kc(), k);
+        var nc = Math.min(blocking.nc(), roundUp(n, NR));
+        var packedB = new double[kc * nc];
+        var icBlocks = (m + mc - 1) / mc;
+        // 列はmc列ごとに分け、タスクがなるべく正方形に近いCのタイルを受け持つようにする
+        var width = roundUp(mc, NR);
+        var tiles = parallelism.withMinimumCost((long) mc * kc * nc);
+        for (var jc = 0; jc < n; jc += nc) {
+            var nb = Math.min(nc, n - jc);
+            var cPanel = cOff + jc;
+            for (var pc = 0; pc < k; pc += kc) {
+                var kb = Math.min(kc, k - pc);
+                var aPanel = aOff + pc * aCol;
+                packB(kb, nb, b, bOff + pc * bRow + jc * bCol, bRow, bCol, packedB);
+                tiles.forEachBlock(icBlocks, (nb + width - 1) / width, (long) mc * width * kb, (icFrom, icTo, jFrom, jTo) -> {
+                    var packedA = new double[mc * kb];
+                    var colFrom = jFrom * width;
+                    var cols = Math.min(jTo * width, nb) - colFrom;
+                    for (var ib = icFrom; ib < icTo; ib++) {
+                        var ic = ib * mc;
+                        var mb = Math.min(mc, m - ic);
+                        packA(mb, kb, alpha, a, aPanel + ic * aRow, aRow, aCol, packedA);
+                        macroKernel(mb, cols, kb, packedA, packedB, colFrom * kb, c, cPanel + ic * ldc + colFrom, ldc);
+                    }
+                });
+            }
+        }
+    }
+
+    private static int roundUp(int x, int unit) {
+        return (x + unit - 1) / unit * unit;
+    }
+
+    private static void multiplySmall(int m, int n, int k, double alpha,
+                                      double[] a, int aOff, int aRow, int aCol,
+                                      double[] b, int bOff, int ldb,
+                                      double[] c, int cOff, int ldc) {
+        for (var i = 0; i < m; i++) {
+            var ci = cOff + i * ldc;
+            for (var p = 0; p < k; p++) {
+                KERNEL.axpy(n, alpha * a[aOff + i * aRow + p * aCol], b, bOff + p * ldb, c, ci);
+            }
+        }
+    }
+
+    /** Aのmb*kbのブロックを、MR行ごとのパネルについて列優先に詰める。足りない行は0で埋める */
+    private static void packA(int mb, int kb, double alpha, double[] a, int aOff, int aRow, int aCol, double[] packed) {
+        var index = 0;
+        for (var ir = 0; ir < mb; ir += MR) {
+            var rows = Math.min(MR, mb - ir);
+            for (var p = 0; p < kb; p++) {
+                for (var r = 0; r < rows; r++) {
+                    packed[index++] = alpha * a[aOff + (ir + r) * aRow + p * aCol];
+                }
+                for (var r = rows; r < MR; r++) {
+                    packed[index++] = 0.0;
+                }
+            }
+        }
+    }
+
+    /** Bのkb*nbのブロックを、NR列ごとのパネルについて行優先に詰める。足りない列は0で埋める */
+    private static void packB(int kb, int nb, double[] b, int bOff, int bRow, int bCol, double[] packed) {
+        var index = 0;
+        for (var jr = 0; jr < nb; jr += NR) {
+            var cols = Math.min(NR, nb - jr);
+            for (var p = 0; p < kb; p++) {
+                var bp = bOff + p * bRow + jr * bCol;
+                for (var c = 0; c < cols; c++) {
+                    packed[index++] = b[bp + c * bCol];
+                }
+                for (var c = cols; c < NR; c++) {
+                    packed[index++] = 0.0;
+                }
+            }
+        }
+    }
+
+    /** packedBのbStartからのnb列について計算する。bStartはNR列のパネルの先頭の位置である */
+    private static void macroKernel(int mb, int nb, int kb, double[] packedA, double[] packedB, int bStart,
+                                    double[] c, int cOff, int ldc) {
+        for (var jr = 0; jr < nb; jr += NR) {
+            var cols = Math.min(NR, nb - jr);
+            var bIndex = bStart + jr * kb;
+            for (var ir = 0; ir < mb; ir += MR) {
+                var rows = Math.min(MR, mb - ir);
+                var aIndex = ir * kb;
+                KERNEL.microKernel(kb, packedA, aIndex, packedB, bIndex, c, cOff + ir * ldc + jr, ldc, rows, cols);
+            }
+        }
+    }
+
+    /**
+     * float版の C += alpha * A * B。Aはm*k、Bはk*n、Cはm*nで、いずれも行優先でオフセットと行の間隔を持つ。
+     * ブロックの大きさと並列化の方法はdouble版と同じで、ncはFLOAT_NRの倍数に切り上げる。
+     */
+    static void multiply(int m, int n, int k, float alpha,
+                         float[] a, int aOff, int lda,
+                         float[] b, int bOff, int ldb,
+                         float[] c, int cOff, int ldc,
+                         Blocking blocking, Parallelism parallelism) {
+        if (m == 0 || n == 0 || k == 0) {
+            return;
+        }
+        if ((long) m * n * k <= SMALL) {
+            for (var i = 0; i < m; i++) {
+                for (var p = 0; p < k; p++) {
+                    FLOAT_KERNEL.axpy(n, alpha * a[aOff + i * lda + p], b, bOff + p * ldb, c, cOff + i * ldc);
+                }
+            }
+            return;
+        }
+        var mc = Math.min(blocking.mc(), roundUp(m, MR));
+        var kc = Math.min(blocking.kc(), k);
+        var nc = Math.min(roundUp(blocking.nc(), FLOAT_NR), roundUp(n, FLOAT_NR));
+        var packedB = new float[kc * nc];
+        var icBlocks = (m + mc - 1) / mc;
+        var width = roundUp(mc, FLOAT_NR);
+        var tiles = parallelism.withMinimumCost((long) mc * kc * nc);
+        for (var jc = 0; jc < n; jc += nc) {
+            var nb = Math.min(nc, n - jc);
+            var cPanel = cOff + jc;
+            for (var pc = 0; pc < k; pc += kc) {
+                var kb = Math.min(kc, k - pc);
+                var aPanel = aOff + pc;
+                packB(kb, nb, b, bOff + pc * ldb + jc, ldb, packedB);
+                tiles.forEachBlock(icBlocks, (nb + width - 1) / width, (long) mc * width * kb, (icFrom, icTo, jFrom, jTo) -> {
+                    var packedA = new float[mc * kb];
+                    var colFrom = jFrom * width;
+                    var cols = Math.min(jTo * width, nb) - colFrom;
+                    for (var ib = icFrom; ib < icTo; ib++) {
+                        var ic = ib * mc;
+                        var mb = Math.min(mc, m - ic);
+                        packA(mb, kb, alpha, a, aPanel + ic * lda, lda, packedA);
+                        macroKernel(mb, cols, kb, packedA, packedB, colFrom * kb, c, cPanel + ic * ldc + colFrom, ldc);
+                    }
+                });
+            }
+        }
+    }
+
+    /** Aのmb*kbのブロックを、MR行ごとのパネルについて列優先に詰める。足りない行は0で埋める */
+    private static void packA(int mb, int kb, float alpha, float[] a, int aOff, int lda, float[] packed) {
+        var index = 0;
+        for (var ir = 0; ir < mb; ir += MR) {
+            var rows = Math.min(MR, mb - ir);
+            for (var p = 0; p < kb; p++) {
+                for (var r = 0; r < rows; r++) {
+                    packed[index++] = alpha * a[aOff + (ir + r) * lda + p];
+                }
+                for (var r = rows; r < MR; r++) {
+                    packed[index++] = 0.0f;
+                }
+            }
+        }
+    }
+
+    /** Bのkb*nbのブロックを、FLOAT_NR列ごとのパネルについて行優先に詰める。足りない列は0で埋める */
+    private static void packB(int kb, int nb, float[] b, int bOff, int ldb, float[] packed) {
+        var index = 0;
+        for (var jr = 0; jr < nb; jr += FLOAT_NR) {
+            var cols = Math.min(FLOAT_NR, nb - jr);
+            for (var p = 0; p < kb; p++) {
+                System.arraycopy(b, bOff + p * ldb + jr, packed, index, cols);
+                index += cols;
+                for (var c = cols; c < FLOAT_NR; c++) {
+                    packed[index++] = 0.0f;
+                }
+            }
+        }
+    }
+
+    private static void macroKernel(int mb, int nb, int kb, float[] packedA, float[] packedB, int bStart,
+                                    float[] c, int cOff, int ldc) {
+        for (var jr = 0; jr < nb; jr += FLOAT_NR) {
+            var cols = Math.min(FLOAT_NR, nb - jr);
+            var bIndex = bStart + jr * kb;
+            for (var ir = 0; ir < mb; ir += MR) {
+                var rows = Math.min(MR, mb - ir);
+                FLOAT_KERNEL.microKernel(kb, packedA, ir * kb, packedB, bIndex, c, cOff + ir * ldc + jr, ldc, rows, cols);
+            }
+        }
+    }
+
+    /** Field版でのループのブロックの大きさ。システムプロパティ math.matrix.gemm.fieldBlock で上書きできる */
+    static final int FIELD_BLOCK = Integer.getInteger("math.matrix.gemm.fieldBlock", 64);
+
+    /**
+     * Field上の行列積 C = A * B を計算する。Cの各成分は addZero から始めて k の昇順に足し込むため、
+     * ブロック化しない三重ループと同じ順序で演算が行われる。
+     */
+    static <T> void multiply(Field<T> field, T[][] a, T[][] b, T[][] c) {
+        multiply(field, a, b, c, Parallelism.SERIAL);
+    }
+
+    static <T> void multiply(Field<T> field, T[][] a, T[][] b, T[][] c, Parallelism parallelism) {
+        parallelism.forEachBlock(a.length, b[0].length, b.length, (rowFrom, rowTo, colFrom, colTo) ->
+                multiply(field, a, b, c, rowFrom, rowTo, colFrom, colTo, FIELD_BLOCK));
+    }
+
+    /** Cの行 rowFrom から rowTo の手前、列 colFrom から colTo の手前までを計算する */
+    static <T> void multiply(Field<T> field, T[][] a, T[][] b, T[][] c,
+                             int rowFrom, int rowTo, int colFrom, int colTo, int block) {
+        multiply(field, null, a, b, null, c, rowFrom, rowTo, colFrom, colTo, block);
+    }
+
+    /**
+     * C = alpha * A * B + beta * C を、Cの行 rowFrom から rowTo の手前、列 colFrom から colTo の手前について計算する。
+     * alphaがnullの場合は1として乗算を行わない。betaがnullの場合はCを読まずに上書きし、mulZeroと等しい場合は乗算を行わずに足し込む。
+     * 各成分は A * B を addZero から k の昇順に足し込み、alpha倍してからbeta倍したCに加える。
+     * そのため結果は、Matrixの積、スカラー倍、加算を順に呼んだ場合と一致する。
+     */
+    static <T> void multiply(Field<T> field, T alpha, T[][] a, T[][] b, T beta, T[][] c,
+                             int rowFrom, int rowTo, int colFrom, int colTo, int block) {
+        var k = b.length;
+        var zero = field.addZero();
+        var one = field.mulZero();
+        // Cを上書きする場合はCに直接足し込み、そうでない場合は列のブロックごとの作業領域に積を求める
+        var work = beta == null ? c : (T[][]) new Object[rowTo - rowFrom][Math.min(block, colTo - colFrom)];
+        var rowOff = beta == null ? 0 : rowFrom;
+        for (var jj = colFrom; jj < colTo; jj += block) {
+            var jEnd = Math.min(jj + block, colTo);
+            var colOff = beta == null ? 0 : jj;
+            for (var i = rowFrom; i < rowTo; i++) {
+                Arrays.fill(work[i - rowOff], jj - colOff, jEnd - colOff, zero);
+            }
+            for (var kk = 0; kk < k; kk += block) {
+                var kEnd = Math.min(kk + block, k);
+                for (var i = rowFrom; i < rowTo; i++) {
+                    var ai = a[i];
+                    var wi = work[i - rowOff];
+                    for (var p = kk; p < kEnd; p++) {
+                        var aip = ai[p];
+                        var bp = b[p];
+                        for (var j = jj; j < jEnd; j++) {
+                            wi[j - colOff] = field.add(wi[j - colOff], field.multiply(aip, bp[j]));
+                        }
+                    }
+                }
+            }
+            if (alpha == null && beta == null) {
+                continue;
+            }
+            for (var i = rowFrom; i < rowTo; i++) {
+                var wi = work[i - rowOff];
+                var ci = c[i];
+                for (var j = jj; j < jEnd; j++) {
+                    var x = alpha == null ? wi[j - colOff] : field.multiply(wi[j - colOff], alpha);
+                    if (beta == null) {
+                        ci[j] = x;
+                    } else {
+                        ci[j] = field.add(one.equals(beta) ? ci[j] : field.multiply(ci[j], beta), x);
+                    }
+                }
+            }
+        }
+    }
+
+}
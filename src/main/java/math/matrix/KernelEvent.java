@@ -0,0 +1,75 @@
+package math.matrix;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 行列の積や分解の1回の呼び出しを表すJFRのイベント。経過時間はbeginからcommitまでの時間として記録される。
+ * JFRで記録していない間はshouldCommitがfalseを返し、フィールドへの代入も行わない。
+ * 記録する場合は jdk.jfr の設定で math.matrix.Kernel を有効にする。
+ */
+@Name(KernelEvent.NAME)
+@Label("Matrix Kernel")
+@Category({"Math", "Matrix"})
+@Description("行列の積や分解の1回の呼び出し")
+final class KernelEvent extends Event {
+
+    static final String NAME = "math.matrix.Kernel";
+
+    @Label("Kernel")
+    String kernel;
+
+    @Label("Element Type")
+    String elementType;
+
+    @Label("Rows")
+    int m;
+
+    @Label("Columns")
+    int n;
+
+    @Label("Inner Dimension")
+    @Description("積の場合は左の行列の列数、分解の場合は行列の大きさ")
+    int k;
+
+    @Label("Floating Point Operations")
+    @Description("演算の回数の理論値。体の演算では加算と乗算を1回ずつ数える")
+    long flops;
+
+    /** 記録が有効な場合だけ値を設定してcommitする */
+    void commit(String kernel, String elementType, int m, int n, int k, long flops) {
+        if (shouldCommit()) {
+            this.kernel = kernel;
+            this.elementType = elementType;
+            this.m = m;
+            this.n = n;
+            this.k = k;
+            this.flops = flops;
+            commit();
+        }
+    }
+
+    /** m*k と k*n の行列の積の演算回数 */
+    static long multiplyFlops(int m, int n, int k) {
+        return 2L * m * n * k;
+    }
+
+    /** n*n の行列のLU分解の演算回数 */
+    static long luFlops(int n) {
+        return 2L * n * n * n / 3;
+    }
+
+    /** n*n の対称行列のコレスキー分解(LDL^T分解)の演算回数 */
+    static long choleskyFlops(int n) {
+        return (long) n * n * n / 3;
+    }
+
+    /** 成分の型の名前。体の行列では最初の成分のクラスから求める */
+    static String elementType(Object[][] elems) {
+        return elems.length == 0 || elems[0].length == 0 || elems[0][0] == null ? "" : elems[0][0].getClass().getSimpleName();
+    }
+
+}
@@ -1,5 +1,6 @@
 package math.matrix;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -10,87 +11,56 @@ import java.util.Optional;
  * */
 public record LUP<T>(Matrix<T> l, Matrix<T> u, Matrix<T> p, T pSign) {
 
+    /**
+     * 行列式だけを求める場合はL, U, Pの行列を作らない。大きさがSmallMatrix.MAX以下の行列は閉じた式で求める。
+     * 対称行列はLDL^T分解(PackedLDL)で求め、正定値でなかった場合にLUP分解で求める。
+     */
     public static <T> T calcDeterminant(Matrix<T> matrix) {
-        return lupDecomposition(matrix).map(LUP::determinant).orElse(matrix.field.addZero());
+        if (matrix.m == matrix.n && matrix.n <= SmallMatrix.MAX) {
+            return SmallMatrix.determinant(matrix.field, matrix.elems);
+        }
+        return calcDeterminant(matrix, PackedLDL.isSymmetric(matrix));
     }
 
-    public static <T> Optional<LUP<T>> lupDecomposition(Matrix<T> matrix) {
-        var field = matrix.field;
-        var distance = matrix.distance;
-        var comparator = matrix.comparator;
-
-        if (matrix.m != matrix.n) {
-            throw new IllegalArgumentException("正方行列でない場合LUP分解はできません");
-        }
-        var permutate = new Integer[matrix.n];
-        for (var i = 0; i < matrix.n; i++) {
-            permutate[i] = i;
+    /** 行列が対称であることがわかっている場合はsymmetricをtrueとして、対称かどうかの検査を省く */
+    public static <T> T calcDeterminant(Matrix<T> matrix, boolean symmetric) {
+        if (symmetric) {
+            var ldl = PackedLDL.decompose(matrix);
+            if (ldl.isPresent()) {
+                return ldl.get().determinant();
+            }
         }
+        return PackedLUP.decompose(matrix).map(PackedLUP::determinant).orElse(matrix.field.addZero());
+    }
 
-        try {
-            T[][] elems = matrix.clone().elems;
-            T pSign = field.mulZero();
-            for (var k = 0; k < matrix.n; k++) {
-                var p = field.addZero();
-                var _k = 0;
-                for (var i = k; i < matrix.n; i++) {
-                    var abs = distance.calc(field.addZero(), elems[i][k]);
-                    if (comparator.compare(abs, p) > 0) {
-                        p = abs;
-                        _k = i;
-                    }
-                }
-                if (p == field.addZero()) {
-                    throw new SingularMatrixException();
-                }
-                swap(permutate, k, _k);
-                swap(elems, k, _k);
-                if (k != _k) {
-                    pSign = field.addInverse(pSign);
-                }
-                for (var i = k + 1; i < matrix.n; i++) {
-                    elems[i][k] = field.div(elems[i][k], elems[k][k]);
-                    for (var j = k + 1; j < matrix.n; j++) {
-                        elems[i][j] = field.minus(elems[i][j], field.multiply(elems[i][k], elems[k][j]));
-                    }
-                }
+    /**
+     * Ax = b を解く。正則でない場合は空を返す。calcDeterminantと同様に、大きさがSmallMatrix.MAX以下の行列は閉じた式で解き、
+     * 対称行列はLDL^T分解を先に試みる。
+     */
+    public static <T> Optional<List<T>> solve(Matrix<T> matrix, List<T> b) {
+        if (matrix.m == matrix.n && matrix.n >= 1 && matrix.n <= SmallMatrix.MAX) {
+            var x = SmallMatrix.solve(matrix.field, matrix.elems, b);
+            // 丸めのある体では、行列式が0に丸められても分解では解ける場合がある
+            if (x.isPresent() || matrix.field.isExact()) {
+                return x;
             }
+        }
+        return solve(matrix, b, PackedLDL.isSymmetric(matrix));
+    }
 
-            var l = (T[][]) new Object[matrix.n][matrix.n];
-            var u = (T[][]) new Object[matrix.n][matrix.n];
-            var p = (T[][]) new Object[matrix.n][matrix.n];
-            for (var i = 0; i < matrix.n; i++) {
-                for (var j = 0; j < matrix.n; j++) {
-                    if (i > j) {
-                        l[i][j] = elems[i][j];
-                        u[i][j] = field.addZero();
-                    } else if (i == j) {
-                        l[i][j] = field.mulZero();
-                        u[i][j] = elems[i][j];
-                    } else {
-                        l[i][j] = field.addZero();
-                        u[i][j] = elems[i][j];
-                    }
-                    p[i][j] = field.addZero();
-                }
-                p[i][permutate[i]] = field.mulZero();
+    public static <T> Optional<List<T>> solve(Matrix<T> matrix, List<T> b, boolean symmetric) {
+        if (symmetric) {
+            var ldl = PackedLDL.decompose(matrix);
+            if (ldl.isPresent()) {
+                return Optional.of(ldl.get().solve(b));
             }
-            return Optional.of(new LUP<>(
-                    new Matrix<>(l, field, distance, comparator),
-                    new Matrix<>(u, field, distance, comparator),
-                    new Matrix<>(p, field, distance, comparator),
-                    pSign));
-        } catch (SingularMatrixException e) {
-            return Optional.empty();
         }
+        return PackedLUP.decompose(matrix).map(lup -> lup.solve(b));
     }
 
-    private static class SingularMatrixException extends RuntimeException {}
-
-    private static <T> void swap(T[] array, int i, int j) {
-        var t = array[i];
-        array[i] = array[j];
-        array[j] = t;
+    /** 分解はPackedLUPで行い、L, U, Pの行列に展開して返す */
+    public static <T> Optional<LUP<T>> lupDecomposition(Matrix<T> matrix) {
+        return PackedLUP.decompose(matrix).map(PackedLUP::toLUP);
     }
 
     public T determinant() {
@@ -0,0 +1,225 @@
+package math.matrix;
+
+import java.util.Optional;
+
+/**
+ * MappedDoubleMatrixのLUP分解。DoublePackedLUPと同じく、LとUをまとめて元の行列のファイルに上書きする。
+ * 分解はタイルの列を1本ずつ進める右方向のブロックLU分解で、ブロックの幅はタイルの大きさとする。
+ * ヒープに置くのは、分解中のタイルの列(パネル)と、その右側のUのタイルの行だけであり、
+ * 残りの部分行列の更新では、タイルを1枚ずつ読み込んで書き戻す。
+ */
+final class MappedDoubleLUP {
+
+    final MappedDoubleMatrix lu;
+    final int[] pivot; // 分解後のi行目は元の行列のpivot[i]行目
+    final double pSign; // Pの行列式
+
+    private MappedDoubleLUP(MappedDoubleMatrix lu, int[] pivot, double pSign) {
+        this.lu = lu;
+        this.pivot = pivot;
+        this.pSign = pSign;
+    }
+
+    static Optional<MappedDoubleLUP> decomposeInPlace(MappedDoubleMatrix matrix) {
+        return decomposeInPlace(matrix, Parallelism.DEFAULT);
+    }
+
+    /**
+     * 行列のファイルを上書きして分解する。呼び出し後のmatrixは元の行列を表さない。
+     * 正則でない場合は空を返すが、その場合もmatrixは途中まで書き換えられている。
+     * パネルの分解と行の入れ替えは逐次に、Uのタイルの行の計算と残りの部分行列の更新はparallelismに従って並列に行う。
+     */
+    static Optional<MappedDoubleLUP> decomposeInPlace(MappedDoubleMatrix matrix, Parallelism parallelism) {
+        if (matrix.m != matrix.n) {
+            throw new IllegalArgumentException("正方行列でない場合LUP分解はできません");
+        }
+        var n = matrix.n;
+        var tile = matrix.tile;
+        var tiles = matrix.tileCols;
+        var pivot = new int[n];
+        for (var i = 0; i < n; i++) {
+            pivot[i] = i;
+        }
+        var work = new double[2 * tile];
+        var pSign = 1.0;
+        for (var kb = 0; kb < tiles; kb++) {
+            var k0 = kb * tile;
+            var w = matrix.colsOf(kb);
+            var rows = n - k0;
+
+            // パネル: k0行目以降のタイルの列kb。rows*w
+            var panel = new double[rows * w];
+            for (var bi = kb; bi < tiles; bi++) {
+                matrix.readTile(bi, kb, panel, (bi - kb) * tile * w, w);
+            }
+            var swaps = factorPanel(panel, rows, w, pivot, k0);
+            if (swaps == null) {
+                return Optional.empty();
+            }
+            for (var bi = kb; bi < tiles; bi++) {
+                matrix.writeTile(bi, kb, panel, (bi - kb) * tile * w, w);
+            }
+            // パネルで行った行の入れ替えを、左側のLと右側の未分解の部分にも行う
+            for (var k = 0; k < w; k++) {
+                if (swaps[k] != k) {
+                    pSign = -pSign;
+                    for (var bj = 0; bj < tiles; bj++) {
+                        if (bj != kb) {
+                            matrix.swapRows(bj, k0 + k, k0 + swaps[k], work);
+                        }
+                    }
+                }
+            }
+            if (kb == tiles - 1) {
+                break;
+            }
+
+            // Uのタイルの行: U12 = L11^-1 * A12。w*rest
+            var k1 = k0 + w;
+            var rest = n - k1;
+            var stripe = new double[w * rest];
+            for (var bj = kb + 1; bj < tiles; bj++) {
+                matrix.readTile(kb, bj, stripe, (bj - kb - 1) * tile, rest);
+            }
+            parallelism.forEachBlock(1, rest, (long) w * w / 2, (rowFrom, rowTo, colFrom, colTo) -> {
+                for (var i = 1; i < w; i++) {
+                    for (var p = 0; p < i; p++) {
+                        DoubleKernel.DEFAULT.axpy(colTo - colFrom, -panel[i * w + p], stripe, p * rest + colFrom, stripe, i * rest + colFrom);
+                    }
+                }
+            });
+            for (var bj = kb + 1; bj < tiles; bj++) {
+                matrix.writeTile(kb, bj, stripe, (bj - kb - 1) * tile, rest);
+            }
+
+            // A22 -= L21 * U12 をタイルごとに計算する
+            var next = kb + 1;
+            var tileCost = (long) tile * tile * w;
+            parallelism.forEachBlock(tiles - next, tiles - next, tileCost, (rowFrom, rowTo, colFrom, colTo) -> {
+                var c = new double[tile * tile];
+                for (var bi = next + rowFrom; bi < next + rowTo; bi++) {
+                    for (var bj = next + colFrom; bj < next + colTo; bj++) {
+                        matrix.readTile(bi, bj, c, 0, tile);
+                        Gemm.multiply(matrix.rowsOf(bi), matrix.colsOf(bj), w, -1.0,
+                                panel, (bi - next + 1) * tile * w, w,
+                                stripe, (bj - next) * tile, rest,
+                                c, 0, tile);
+                        matrix.writeTile(bi, bj, c, 0, tile);
+                    }
+                }
+            });
+        }
+        return Optional.of(new MappedDoubleLUP(matrix, pivot, pSign));
+    }
+
+    /**
+     * rows*wのパネルを部分ピボット選択付きで分解する。
+     * k列目で入れ替えたパネルの行をswaps[k]に入れて返す。ピボットが見つからない(正則でない)場合はnullを返す。
+     */
+    private static int[] factorPanel(double[] panel, int rows, int w, int[] pivot, int k0) {
+        var swaps = new int[w];
+        for (var k = 0; k < w; k++) {
+            var p = 0.0;
+            var _k = -1;
+            for (var i = k; i < rows; i++) {
+                var abs = Math.abs(panel[i * w + k]);
+                if (abs > p) {
+                    p = abs;
+                    _k = i;
+                }
+            }
+            if (_k < 0) {
+                return null;
+            }
+            swaps[k] = _k;
+            if (k != _k) {
+                var t = pivot[k0 + k];
+                pivot[k0 + k] = pivot[k0 + _k];
+                pivot[k0 + _k] = t;
+                for (var j = 0; j < w; j++) {
+                    var u = panel[k * w + j];
+                    panel[k * w + j] = panel[_k * w + j];
+                    panel[_k * w + j] = u;
+                }
+            }
+            var inverse = 1.0 / panel[k * w + k];
+            for (var i = k + 1; i < rows; i++) {
+                var lik = panel[i * w + k] * inverse;
+                panel[i * w + k] = lik;
+                DoubleKernel.DEFAULT.axpy(w - k - 1, -lik, panel, k * w + k + 1, panel, i * w + k + 1);
+            }
+        }
+        return swaps;
+    }
+
+    int size() {
+        return lu.n;
+    }
+
+    /** Ax = b を解く。bは書き換えない。LとUのタイルを1枚ずつ読み込んで代入を行う */
+    double[] solve(double[] b) {
+        var n = size();
+        if (b.length != n) {
+            throw new IllegalArgumentException("bの要素数%dが行列の大きさ%dと一致しません".formatted(b.length, n));
+        }
+        var tile = lu.tile;
+        var tiles = lu.tileCols;
+        var x = new double[n];
+        for (var i = 0; i < n; i++) {
+            x[i] = b[pivot[i]];
+        }
+        var t = new double[tile * tile];
+        // Ly = Pb
+        for (var bi = 0; bi < tiles; bi++) {
+            var i0 = bi * tile;
+            var rows = lu.rowsOf(bi);
+            for (var bj = 0; bj <= bi; bj++) {
+                lu.readTile(bi, bj, t, 0, tile);
+                var j0 = bj * tile;
+                for (var r = 0; r < rows; r++) {
+                    var end = bj == bi ? r : lu.colsOf(bj);
+                    var acc = x[i0 + r];
+                    for (var c = 0; c < end; c++) {
+                        acc -= t[r * tile + c] * x[j0 + c];
+                    }
+                    x[i0 + r] = acc;
+                }
+            }
+        }
+        // Ux = y
+        for (var bi = tiles - 1; bi >= 0; bi--) {
+            var i0 = bi * tile;
+            var rows = lu.rowsOf(bi);
+            for (var bj = tiles - 1; bj > bi; bj--) {
+                lu.readTile(bi, bj, t, 0, tile);
+                var j0 = bj * tile;
+                var cols = lu.colsOf(bj);
+                for (var r = 0; r < rows; r++) {
+                    var acc = x[i0 + r];
+                    for (var c = 0; c < cols; c++) {
+                        acc -= t[r * tile + c] * x[j0 + c];
+                    }
+                    x[i0 + r] = acc;
+                }
+            }
+            lu.readTile(bi, bi, t, 0, tile);
+            for (var r = rows - 1; r >= 0; r--) {
+                var acc = x[i0 + r];
+                for (var c = r + 1; c < rows; c++) {
+                    acc -= t[r * tile + c] * x[i0 + c];
+                }
+                x[i0 + r] = acc / t[r * tile + r];
+            }
+        }
+        return x;
+    }
+
+    double determinant() {
+        var uDet = 1.0;
+        for (var i = 0; i < size(); i++) {
+            uDet = uDet * lu.get(i, i);
+        }
+        return pSign * uDet;
+    }
+
+}
@@ -0,0 +1,254 @@
+package math.matrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 成分をファイルに置くdoubleの密行列。ヒープに収まらない大きさの行列を扱う。
+ * 行列をtile*tileのタイルに分け、タイルを行優先の順にファイルに並べる。各タイルの中も行優先である。
+ * 端のタイルもtile*tileの大きさで格納し、行列の外側の部分は0とする。値はリトルエンディアンで格納する。
+ * 連続するタイルをREGIONバイト以下の領域にまとめてFileChannel.mapで対応付け、各タイルは領域をsliceで切り出して参照する。
+ * タイルごとに対応付けると、大きな行列では対応付けの数がOSの上限(Linuxのvm.max_map_count)を超える。
+ * 1つの対応付けは2GB未満である必要があるため、1つのタイルも2GB未満である必要がある。
+ * 成分はページキャッシュを通して読み書きされ、ヒープには置かれない。
+ */
+final class MappedDoubleMatrix implements Closeable {
+
+    /** 1つの対応付けの大きさの上限のバイト数。システムプロパティ math.matrix.mapped.region で上書きできる */
+    static final int REGION = Integer.getInteger("math.matrix.mapped.region", 1 << 30);
+
+    final int m; // 行数
+    final int n; // 列数
+    final int tile; // タイルの1辺の長さ
+    final int tileRows; // タイルの行数
+    final int tileCols; // タイルの列数
+    private final FileChannel channel;
+    private final MappedByteBuffer[] mapped; // 対応付けた領域。閉じた後はnull
+    private final DoubleBuffer[] tiles; // タイル(bi, bj)は tiles[bi * tileCols + bj]。領域の一部を参照する
+
+    private MappedDoubleMatrix(int m, int n, int tile, FileChannel channel, long base, int region) throws IOException {
+        if (m <= 0 || n <= 0) {
+            throw new IllegalArgumentException("行数と列数は1以上である必要があります。m: %d, n: %d".formatted(m, n));
+        }
+        if (tile <= 0 || (long) tile * tile * Double.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("タイルの大きさが範囲外です。tile: %d".formatted(tile));
+        }
+        this.m = m;
+        this.n = n;
+        this.tile = tile;
+        this.tileRows = (m + tile - 1) / tile;
+        this.tileCols = (n + tile - 1) / tile;
+        this.channel = channel;
+        this.tiles = new DoubleBuffer[tileRows * tileCols];
+        // 1つの領域には、regionバイトに収まる数のタイルを入れる。タイルが1枚で収まらない場合は1枚ずつ対応付ける
+        var tileBytes = tile * tile * Double.BYTES;
+        var tilesPerRegion = Math.min(tiles.length, Math.max(1, region / tileBytes));
+        this.mapped = new MappedByteBuffer[(tiles.length + tilesPerRegion - 1) / tilesPerRegion];
+        // 対応付けは仮想メモリを予約するだけで、実際に読み込まれるのは触れたページだけである
+        for (var r = 0; r < mapped.length; r++) {
+            var first = r * tilesPerRegion;
+            var count = Math.min(tilesPerRegion, tiles.length - first);
+            mapped[r] = channel.map(FileChannel.MapMode.READ_WRITE, base + (long) first * tileBytes, (long) count * tileBytes);
+            for (var t = 0; t < count; t++) {
+                // sliceはバイト順を引き継がないため、切り出した後に指定する
+                tiles[first + t] = mapped[r].slice(t * tileBytes, tileBytes).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            }
+        }
+    }
+
+    /** 全ての成分が0の行列をファイルに作成する。ファイルが既にあれば上書きする */
+    static MappedDoubleMatrix create(Path path, int m, int n, int tile) throws IOException {
+        return create(path, m, n, tile, REGION);
+    }
+
+    /** 1つの対応付けの大きさの上限をregionバイトとして作成する */
+    static MappedDoubleMatrix create(Path path, int m, int n, int tile, int region) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new MappedDoubleMatrix(m, n, tile, channel, 0, region);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** createで作成したファイルを開く */
+    static MappedDoubleMatrix open(Path path, int m, int n, int tile) throws IOException {
+        return open(path, m, n, tile, 0);
+    }
+
+    /** ファイルのbaseバイト目から始まるタイルの並びを開く。MatrixFileのヘッダーの後に置かれたタイルに用いる */
+    static MappedDoubleMatrix open(Path path, int m, int n, int tile, long base) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            var expected = base + bytes(m, n, tile);
+            if (channel.size() < expected) {
+                throw new IllegalArgumentException("ファイルの大きさ%dが行列のサイズ%d*%dに対して不足しています".formatted(channel.size(), m, n));
+            }
+            return new MappedDoubleMatrix(m, n, tile, channel, base, REGION);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** ヒープ上の行列をファイルに書き出す */
+    static MappedDoubleMatrix of(Path path, DoubleMatrix matrix, int tile) throws IOException {
+        var result = create(path, matrix.m, matrix.n, tile);
+        for (var bi = 0; bi < result.tileRows; bi++) {
+            for (var bj = 0; bj < result.tileCols; bj++) {
+                result.writeTile(bi, bj, matrix.elems, matrix.offset + bi * tile * matrix.stride + bj * tile, matrix.stride);
+            }
+        }
+        return result;
+    }
+
+    /** m行n列の行列をtile*tileのタイルに分けて格納するのに必要なバイト数 */
+    static long bytes(int m, int n, int tile) {
+        var tileRows = (m + (long) tile - 1) / tile;
+        var tileCols = (n + (long) tile - 1) / tile;
+        return tileRows * tileCols * tile * tile * Double.BYTES;
+    }
+
+    /** bi番目のタイルの行のうち、行列の内側にある行の数 */
+    int rowsOf(int bi) {
+        return Math.min(tile, m - bi * tile);
+    }
+
+    /** bj番目のタイルの列のうち、行列の内側にある列の数 */
+    int colsOf(int bj) {
+        return Math.min(tile, n - bj * tile);
+    }
+
+    /** 添字を0始まりとしてi行j列の要素を取得する */
+    public double get(int i, int j) {
+        return tiles[i / tile * tileCols + j / tile].get(i % tile * tile + j % tile);
+    }
+
+    void set(int i, int j, double value) {
+        tiles[i / tile * tileCols + j / tile].put(i % tile * tile + j % tile, value);
+    }
+
+    /** タイル(bi, bj)の行列の内側の部分を dst[off + r * ld + c] に読み込む */
+    void readTile(int bi, int bj, double[] dst, int off, int ld) {
+        var buffer = tiles[bi * tileCols + bj];
+        var cols = colsOf(bj);
+        for (var r = 0; r < rowsOf(bi); r++) {
+            buffer.get(r * tile, dst, off + r * ld, cols);
+        }
+    }
+
+    /** タイル(bi, bj)の行列の内側の部分を src[off + r * ld + c] で上書きする */
+    void writeTile(int bi, int bj, double[] src, int off, int ld) {
+        var buffer = tiles[bi * tileCols + bj];
+        var cols = colsOf(bj);
+        for (var r = 0; r < rowsOf(bi); r++) {
+            buffer.put(r * tile, src, off + r * ld, cols);
+        }
+    }
+
+    /** タイルの列bjの中で、i1行目とi2行目を入れ替える */
+    void swapRows(int bj, int i1, int i2, double[] work) {
+        var cols = colsOf(bj);
+        var buffer1 = tiles[i1 / tile * tileCols + bj];
+        var buffer2 = tiles[i2 / tile * tileCols + bj];
+        var index1 = i1 % tile * tile;
+        var index2 = i2 % tile * tile;
+        buffer1.get(index1, work, 0, cols);
+        buffer2.get(index2, work, cols, cols);
+        buffer1.put(index1, work, cols, cols);
+        buffer2.put(index2, work, 0, cols);
+    }
+
+    /** ヒープ上の行列に読み込む。行列がヒープに収まる場合にだけ使う */
+    public DoubleMatrix toDoubleMatrix() {
+        var result = new DoubleMatrix(m, n);
+        for (var bi = 0; bi < tileRows; bi++) {
+            for (var bj = 0; bj < tileCols; bj++) {
+                readTile(bi, bj, result.elems, bi * tile * n + bj * tile, n);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 自身の右に引数の行列を掛け、結果をpathのファイルに書き出す。2つの行列のタイルの大きさは同じである必要がある。
+     * 出力のタイルごとに、Aのタイルの行とBのタイルの列を1枚ずつヒープの作業領域に読み込んで積を足し込む。
+     * 同時にヒープに置くのは、計算中のタスクごとに3枚のタイルだけである。
+     */
+    public MappedDoubleMatrix multiply(MappedDoubleMatrix that, Path path) throws IOException {
+        return multiply(that, path, Parallelism.DEFAULT);
+    }
+
+    public MappedDoubleMatrix multiply(MappedDoubleMatrix that, Path path, Parallelism parallelism) throws IOException {
+        if (n != that.m) {
+            throw new IllegalArgumentException("thisの列の個数とthatの行の個数が一致しません。this: %d*%d, that: %d*%d".formatted(m, n, that.m, that.n));
+        }
+        if (tile != that.tile) {
+            throw new IllegalArgumentException("タイルの大きさが一致しません。this: %d, that: %d".formatted(tile, that.tile));
+        }
+        var result = create(path, m, that.n, tile);
+        var tileCost = (long) tile * tile * n;
+        parallelism.forEachBlock(result.tileRows, result.tileCols, tileCost, (rowFrom, rowTo, colFrom, colTo) -> {
+            var a = new double[tile * tile];
+            var b = new double[tile * tile];
+            var c = new double[tile * tile];
+            for (var bi = rowFrom; bi < rowTo; bi++) {
+                for (var bj = colFrom; bj < colTo; bj++) {
+                    Arrays.fill(c, 0.0);
+                    for (var bk = 0; bk < tileCols; bk++) {
+                        readTile(bi, bk, a, 0, tile);
+                        that.readTile(bk, bj, b, 0, tile);
+                        Gemm.multiply(rowsOf(bi), that.colsOf(bj), colsOf(bk), 1.0, a, 0, tile, b, 0, tile, c, 0, tile);
+                    }
+                    result.writeTile(bi, bj, c, 0, tile);
+                }
+            }
+        });
+        return result;
+    }
+
+    /** 対応付けた領域の数 */
+    int regions() {
+        return mapped.length;
+    }
+
+    /** 書き込んだ内容をファイルに反映させる */
+    void force() {
+        for (var buffer : mapped) {
+            if (buffer != null) {
+                buffer.force();
+            }
+        }
+    }
+
+    /**
+     * ファイルを閉じる。対応付けた領域はJavaからは解除できないため、領域とタイルへの参照を捨て、GCによって解除されるようにする。
+     * 閉じた後は成分を読み書きできない。
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        Arrays.fill(mapped, null);
+        Arrays.fill(tiles, null);
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "MappedDoubleMatrix{" +
+                "m=" + m +
+                ", n=" + n +
+                ", tile=" + tile +
+                '}';
+    }
+
+}
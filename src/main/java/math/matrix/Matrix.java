@@ -56,46 +56,79 @@ final class Matrix<T> implements Cloneable {
     }
 
     public Matrix<T> add(Matrix<T> that) {
+        return add(that, Parallelism.DEFAULT);
+    }
+
+    public Matrix<T> add(Matrix<T> that, Parallelism parallelism) {
         if (m != that.m || n != that.n) {
             throw new IllegalArgumentException("行列のサイズが一致しません。this: %d*%d, that: %d*%d".formatted(m, n, that.m, that.n));
         }
         var newElems = (T[][]) new Object[m][n];
-        for (var i = 0; i < m; i++) {
-            for (var j = 0; j < n; j++) {
-                newElems[i][j] = field.add(get(i, j), that.get(i, j));
+        parallelism.forEachBlock(m, n, 1, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var i = rowFrom; i < rowTo; i++) {
+                for (var j = colFrom; j < colTo; j++) {
+                    newElems[i][j] = field.add(get(i, j), that.get(i, j));
+                }
             }
-        }
+        });
         return new Matrix<>(newElems, field, distance, comparator);
     }
 
-    /** 自身の右に引数の行列を掛ける。自身の列の個数と引数の列の行数が一致する必要がある */
+    /**
+     * 自身の右に引数の行列を掛ける。自身の列の個数と引数の列の行数が一致する必要がある。
+     * 大きさがStrassen.CROSSOVERを超える正方行列同士の積には、fieldの演算が正確(Field.isExact)な場合に限りStrassen-Winogradの方法を用いる。
+     * 浮動小数点数では演算の順序が変わって誤差の上界が大きくなるため、Matrix&lt;Double&gt;には用いない。
+     * 大きさがSmallMatrix.MAX以下の正方行列同士の積はSmallMatrixで計算する
+     */
     public Matrix<T> multiply(Matrix<T> that) {
+        return multiply(that, Parallelism.DEFAULT);
+    }
+
+    public Matrix<T> multiply(Matrix<T> that, Parallelism parallelism) {
         if (n != that.m) {
             throw new IllegalArgumentException("thisの列の個数とthatの行の個数が一致しません。this: %d*%d, that: %d*%d".formatted(m, n, that.m, that.n));
         }
-        var newElems = (T[][]) new Object[m][n];
-        for (var i = 0; i < m; i++) {
-            for (var j = 0; j < that.n; j++) {
-                var acc = field.addZero();
-                for (var k = 0; k < n; k++) {
-                    acc = field.add(acc, field.multiply(get(i, k) ,that.get(k, j)));
-                }
-                newElems[i][j] = acc;
-            }
+        var event = new KernelEvent();
+        event.begin();
+        T[][] newElems;
+        String kernel;
+        if (SmallMatrix.applies(m, that.n, n)) {
+            newElems = (T[][]) new Object[m][m];
+            SmallMatrix.multiply(field, elems, that.elems, newElems);
+            kernel = "SmallMatrix.multiply";
+        } else if (Strassen.applies(field, m, that.n, n)) {
+            newElems = Strassen.multiply(field, elems, that.elems, parallelism);
+            kernel = "Strassen.multiply";
+        } else {
+            newElems = (T[][]) new Object[m][that.n];
+            Gemm.multiply(field, elems, that.elems, newElems, parallelism);
+            kernel = "Gemm.multiply";
         }
+        event.commit(kernel, KernelEvent.elementType(elems), m, that.n, n, KernelEvent.multiplyFlops(m, that.n, n));
         return new Matrix<>(newElems, field, distance, comparator);
     }
 
     public Matrix<T> multiply(T a) {
+        return multiply(a, Parallelism.DEFAULT);
+    }
+
+    public Matrix<T> multiply(T a, Parallelism parallelism) {
         var newElems = (T[][]) new Object[m][n];
-        for (var i = 0; i < m; i++) {
-            for (var j = 0; j < n; j++) {
-                newElems[i][j] = field.multiply(get(i, j), a);
+        parallelism.forEachBlock(m, n, 1, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var i = rowFrom; i < rowTo; i++) {
+                for (var j = colFrom; j < colTo; j++) {
+                    newElems[i][j] = field.multiply(get(i, j), a);
+                }
             }
-        }
+        });
         return new Matrix<>(newElems, field, distance, comparator);
     }
 
+    /** この行列を葉とする遅延評価の式を作る。式の演算はevaluateを呼ぶまで計算しない */
+    public MatrixExpression<T> lazy() {
+        return new MatrixExpression.Leaf<>(this);
+    }
+
     @Override
     public String toString() {
         var a = Stream.of(elems).map(Arrays::toString).collect(Collectors.joining(", "));
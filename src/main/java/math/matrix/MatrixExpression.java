@@ -0,0 +1,132 @@
+package math.matrix;
+
+/**
+ * Matrixの演算を遅延して表す式。Matrix.lazyから作り、evaluateを呼ぶまで計算しない。
+ * 同じ部分式を複数の箇所から参照でき、式全体は有向非巡回グラフになる。
+ * 評価ではスカラー倍と加算を行列積の出力を書き込むループの中で行い(alpha * A * B + beta * C)、
+ * 中間の行列を作らずに出力の行列を1つだけ確保する。評価の方法はExpressionEvaluatorを参照。
+ */
+sealed interface MatrixExpression<T> permits MatrixExpression.Leaf, MatrixExpression.Sum,
+        MatrixExpression.Scale, MatrixExpression.Product {
+
+    int rows();
+
+    int cols();
+
+    /** 式に含まれる行列の1つ。結果の行列のfield, distance, comparatorはこの行列のものを用いる */
+    Matrix<T> origin();
+
+    /** 計算済みの行列 */
+    record Leaf<T>(Matrix<T> matrix) implements MatrixExpression<T> {
+        @Override
+        public int rows() {
+            return matrix.m;
+        }
+
+        @Override
+        public int cols() {
+            return matrix.n;
+        }
+
+        @Override
+        public Matrix<T> origin() {
+            return matrix;
+        }
+    }
+
+    record Sum<T>(MatrixExpression<T> left, MatrixExpression<T> right) implements MatrixExpression<T> {
+        public Sum {
+            if (left.rows() != right.rows() || left.cols() != right.cols()) {
+                throw new IllegalArgumentException("行列のサイズが一致しません。this: %d*%d, that: %d*%d"
+                        .formatted(left.rows(), left.cols(), right.rows(), right.cols()));
+            }
+        }
+
+        @Override
+        public int rows() {
+            return left.rows();
+        }
+
+        @Override
+        public int cols() {
+            return left.cols();
+        }
+
+        @Override
+        public Matrix<T> origin() {
+            return left.origin();
+        }
+    }
+
+    /** 各成分に右からscalarを掛ける */
+    record Scale<T>(MatrixExpression<T> operand, T scalar) implements MatrixExpression<T> {
+        @Override
+        public int rows() {
+            return operand.rows();
+        }
+
+        @Override
+        public int cols() {
+            return operand.cols();
+        }
+
+        @Override
+        public Matrix<T> origin() {
+            return operand.origin();
+        }
+    }
+
+    record Product<T>(MatrixExpression<T> left, MatrixExpression<T> right) implements MatrixExpression<T> {
+        public Product {
+            if (left.cols() != right.rows()) {
+                throw new IllegalArgumentException("thisの列の個数とthatの行の個数が一致しません。this: %d*%d, that: %d*%d"
+                        .formatted(left.rows(), left.cols(), right.rows(), right.cols()));
+            }
+        }
+
+        @Override
+        public int rows() {
+            return left.rows();
+        }
+
+        @Override
+        public int cols() {
+            return right.cols();
+        }
+
+        @Override
+        public Matrix<T> origin() {
+            return left.origin();
+        }
+    }
+
+    default MatrixExpression<T> add(MatrixExpression<T> that) {
+        return new Sum<>(this, that);
+    }
+
+    default MatrixExpression<T> add(Matrix<T> that) {
+        return add(that.lazy());
+    }
+
+    default MatrixExpression<T> multiply(MatrixExpression<T> that) {
+        return new Product<>(this, that);
+    }
+
+    default MatrixExpression<T> multiply(Matrix<T> that) {
+        return multiply(that.lazy());
+    }
+
+    default MatrixExpression<T> multiply(T a) {
+        return new Scale<>(this, a);
+    }
+
+    default Matrix<T> evaluate() {
+        return evaluate(Parallelism.DEFAULT);
+    }
+
+    /** 式を計算する。式が1つの行列だけの場合はその行列をそのまま返す */
+    default Matrix<T> evaluate(Parallelism parallelism) {
+        return new ExpressionEvaluator<T>(origin().field, parallelism).evaluate(this);
+    }
+
+}
@@ -0,0 +1,396 @@
+package math.matrix;
+
+import math.numbers.Rational;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * 行列のバイナリ形式のファイル。64バイトのヘッダーの後に成分の並び(ペイロード)を置く。数値は全てリトルエンディアンである。
+ * <pre>
+ *  0  int32  マジックナンバー "MATX"
+ *  4  int16  形式の版(VERSION)
+ *  6  int8   成分の型(ElementType)
+ *  7  int8   並び方(Layout)
+ *  8  int32  行数
+ * 12  int32  列数
+ * 16  int32  タイルの1辺の長さ。ROW_MAJORでは0
+ * 24  int64  ペイロードのバイト数
+ * 32  int32  ペイロードのCRC32C
+ * 60  int32  ヘッダーの0から59バイト目までのCRC32C
+ * </pre>
+ * 読み込みはファイルを対応付けるだけで、doubles()やlongs()はその上のビューを返す。
+ * ペイロードのチェックサムは全体を読むことになるため、開いた時には確かめず、verify()で確かめる。
+ * 1つのビューは2GB未満である必要がある。それを超える行列はTILEDで書き、openTiledでタイルごとに対応付ける。
+ */
+final class MatrixFile implements Closeable {
+
+    static final int MAGIC = 'M' | 'A' << 8 | 'T' << 16 | 'X' << 24;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+
+    /** 成分の型。bytesは1成分のバイト数で、可変長の場合は-1 */
+    enum ElementType {
+        DOUBLE(1, Double.BYTES),
+        LONG(2, Long.BYTES),
+        /** 分子と分母のlongの組 */
+        RATIONAL(3, 2 * Long.BYTES),
+        /** 分子と分母を、それぞれint32のバイト数に続くBigInteger.toByteArrayのバイト列で表す */
+        BIG_RATIONAL(4, -1);
+
+        final int code;
+        final int bytes;
+
+        ElementType(int code, int bytes) {
+            this.code = code;
+            this.bytes = bytes;
+        }
+
+        static ElementType of(int code) {
+            for (var type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("未知の成分の型です。code: %d".formatted(code));
+        }
+    }
+
+    /** 成分の並び方 */
+    enum Layout {
+        /** 行優先 */
+        ROW_MAJOR(1),
+        /** MappedDoubleMatrixと同じタイルの並び */
+        TILED(2);
+
+        final int code;
+
+        Layout(int code) {
+            this.code = code;
+        }
+
+        static Layout of(int code) {
+            for (var layout : values()) {
+                if (layout.code == code) {
+                    return layout;
+                }
+            }
+            throw new IllegalArgumentException("未知の並び方です。code: %d".formatted(code));
+        }
+    }
+
+    record Header(ElementType type, Layout layout, int m, int n, int tile, long payloadBytes, int checksum) {
+
+        private ByteBuffer encode() {
+            var buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(4, (short) VERSION);
+            buffer.put(6, (byte) type.code);
+            buffer.put(7, (byte) layout.code);
+            buffer.putInt(8, m);
+            buffer.putInt(12, n);
+            buffer.putInt(16, tile);
+            buffer.putLong(24, payloadBytes);
+            buffer.putInt(32, checksum);
+            buffer.putInt(60, crc(buffer, 0, 60));
+            return buffer;
+        }
+
+        private static Header decode(ByteBuffer buffer) {
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("行列のファイルではありません");
+            }
+            var version = buffer.getShort(4);
+            if (version != VERSION) {
+                throw new IllegalArgumentException("対応していない版です。version: %d".formatted(version));
+            }
+            if (buffer.getInt(60) != crc(buffer, 0, 60)) {
+                throw new IllegalArgumentException("ヘッダーのチェックサムが一致しません");
+            }
+            return new Header(ElementType.of(buffer.get(6)), Layout.of(buffer.get(7)),
+                    buffer.getInt(8), buffer.getInt(12), buffer.getInt(16), buffer.getLong(24), buffer.getInt(32));
+        }
+    }
+
+    final Header header;
+    private final FileChannel channel;
+    private final MappedByteBuffer payload;
+
+    private MatrixFile(Header header, FileChannel channel, MappedByteBuffer payload) {
+        this.header = header;
+        this.channel = channel;
+        this.payload = payload;
+    }
+
+    private static int crc(ByteBuffer buffer, int from, int to) {
+        var crc = new CRC32C();
+        crc.update(buffer.duplicate().position(from).limit(to));
+        return (int) crc.getValue();
+    }
+
+    /** ヘッダーを確かめ、ペイロードを読み込み専用で対応付ける */
+    static MatrixFile open(Path path) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            var header = readHeader(channel);
+            if (header.payloadBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("ペイロードが2GBを超えるため1つのビューにできません。bytes: %d".formatted(header.payloadBytes));
+            }
+            var payload = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, header.payloadBytes);
+            payload.order(ByteOrder.LITTLE_ENDIAN);
+            return new MatrixFile(header, channel, payload);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static Header readHeader(FileChannel channel) throws IOException {
+        var buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                throw new IllegalArgumentException("ヘッダーが途中で終わっています");
+            }
+        }
+        var header = Header.decode(buffer);
+        if (channel.size() < HEADER_BYTES + header.payloadBytes) {
+            throw new IllegalArgumentException("ペイロードが途中で終わっています");
+        }
+        return header;
+    }
+
+    /**
+     * TILEDで書いたdoubleの行列を、ファイルの上でそのままMappedDoubleMatrixとして開く。
+     * 書き込みもファイルに反映されるが、ヘッダーのチェックサムは更新しない。
+     */
+    static MappedDoubleMatrix openTiled(Path path) throws IOException {
+        Header header;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            header = readHeader(channel);
+        }
+        if (header.type != ElementType.DOUBLE || header.layout != Layout.TILED) {
+            throw new IllegalArgumentException("タイルに並べたdoubleの行列ではありません。type: %s, layout: %s".formatted(header.type, header.layout));
+        }
+        return MappedDoubleMatrix.open(path, header.m, header.n, header.tile, HEADER_BYTES);
+    }
+
+    /** ペイロードのチェックサムを確かめる */
+    boolean verify() {
+        return crc(payload, 0, payload.limit()) == header.checksum;
+    }
+
+    /** doubleの行優先のペイロードのビュー */
+    DoubleBuffer doubles() {
+        requireType(ElementType.DOUBLE);
+        return payload.duplicate().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    /** longのペイロード、またはRATIONALの分子と分母を交互に並べたペイロードのビュー */
+    LongBuffer longs() {
+        if (header.type != ElementType.LONG && header.type != ElementType.RATIONAL) {
+            throw new IllegalStateException("成分の型がlongではありません。type: %s".formatted(header.type));
+        }
+        return payload.duplicate().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    }
+
+    private void requireType(ElementType type) {
+        if (header.type != type) {
+            throw new IllegalStateException("成分の型が%sではありません。type: %s".formatted(type, header.type));
+        }
+    }
+
+    /** ヒープ上の行列に読み込む。TILEDの場合はタイルの並びを行優先に直す */
+    DoubleMatrix toDoubleMatrix() {
+        var doubles = doubles();
+        var result = new DoubleMatrix(header.m, header.n);
+        if (header.layout == Layout.ROW_MAJOR) {
+            doubles.get(0, result.elems);
+            return result;
+        }
+        var tile = header.tile;
+        var tileCols = (header.n + tile - 1) / tile;
+        for (var i = 0; i < header.m; i++) {
+            for (var bj = 0; bj < tileCols; bj++) {
+                var index = ((i / tile * tileCols + bj) * tile + i % tile) * tile;
+                doubles.get(index, result.elems, i * header.n + bj * tile, Math.min(tile, header.n - bj * tile));
+            }
+        }
+        return result;
+    }
+
+    long[][] toLongs() {
+        requireType(ElementType.LONG);
+        var longs = longs();
+        var result = new long[header.m][header.n];
+        for (var i = 0; i < header.m; i++) {
+            longs.get(i * header.n, result[i]);
+        }
+        return result;
+    }
+
+    Matrix<Rational> toRationalMatrix() {
+        var result = new Rational[header.m][header.n];
+        if (header.type == ElementType.RATIONAL) {
+            var longs = longs();
+            for (var i = 0; i < header.m; i++) {
+                for (var j = 0; j < header.n; j++) {
+                    var index = 2 * (i * header.n + j);
+                    result[i][j] = new Rational(longs.get(index), longs.get(index + 1));
+                }
+            }
+        } else {
+            requireType(ElementType.BIG_RATIONAL);
+            var buffer = payload.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            for (var i = 0; i < header.m; i++) {
+                for (var j = 0; j < header.n; j++) {
+                    result[i][j] = new Rational(readBigInteger(buffer), readBigInteger(buffer));
+                }
+            }
+        }
+        return new Matrix<>(result, Rational.field, Rational.distance, Rational.comparator);
+    }
+
+    private static BigInteger readBigInteger(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new BigInteger(bytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static void write(Path path, DoubleMatrix matrix) throws IOException {
+        var payloadBytes = (long) matrix.m * matrix.n * Double.BYTES;
+        write(path, ElementType.DOUBLE, Layout.ROW_MAJOR, matrix.m, matrix.n, 0, payloadBytes, buffer -> {
+            var doubles = buffer.asDoubleBuffer();
+            for (var i = 0; i < matrix.m; i++) {
+                doubles.put(matrix.elems, matrix.offset + i * matrix.stride, matrix.n);
+            }
+        });
+    }
+
+    /** MappedDoubleMatrixのタイルの並びをそのまま書き出す */
+    static void write(Path path, MappedDoubleMatrix matrix) throws IOException {
+        var tile = matrix.tile;
+        var payloadBytes = MappedDoubleMatrix.bytes(matrix.m, matrix.n, tile);
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var crc = new CRC32C();
+            var values = new double[tile * tile];
+            var buffer = ByteBuffer.allocate(tile * tile * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            var position = (long) HEADER_BYTES;
+            for (var bi = 0; bi < matrix.tileRows; bi++) {
+                for (var bj = 0; bj < matrix.tileCols; bj++) {
+                    // readTileは行列の内側しか上書きしないため、端のタイルでは前のタイルの値が残らないように0で埋める
+                    if (matrix.rowsOf(bi) < tile || matrix.colsOf(bj) < tile) {
+                        Arrays.fill(values, 0.0);
+                    }
+                    matrix.readTile(bi, bj, values, 0, tile);
+                    buffer.clear();
+                    buffer.asDoubleBuffer().put(values);
+                    crc.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                }
+            }
+            writeHeader(channel, new Header(ElementType.DOUBLE, Layout.TILED, matrix.m, matrix.n, tile, payloadBytes, (int) crc.getValue()));
+        }
+    }
+
+    static void write(Path path, long[][] elems) throws IOException {
+        var m = elems.length;
+        var n = elems[0].length;
+        for (var i = 0; i < m; i++) {
+            if (elems[i].length != n) {
+                throw new IllegalArgumentException("%d行目の要素数%dが先頭の要素数%dと異なります".formatted(i, elems[i].length, n));
+            }
+        }
+        write(path, ElementType.LONG, Layout.ROW_MAJOR, m, n, 0, (long) m * n * Long.BYTES, buffer -> {
+            var longs = buffer.asLongBuffer();
+            for (var row : elems) {
+                longs.put(row);
+            }
+        });
+    }
+
+    /** 全ての成分がlongで保持されていればRATIONALで、そうでなければBIG_RATIONALで書き出す */
+    static void write(Path path, Matrix<Rational> matrix) throws IOException {
+        var big = false;
+        var bigBytes = 0L;
+        for (var row : matrix.elems) {
+            for (var value : row) {
+                big |= value.isBig();
+                bigBytes += 2 * Integer.BYTES + value.numerator().bitLength() / 8 + 1 + value.denominator().bitLength() / 8 + 1;
+            }
+        }
+        if (!big) {
+            write(path, ElementType.RATIONAL, Layout.ROW_MAJOR, matrix.m, matrix.n, 0, (long) matrix.m * matrix.n * 2 * Long.BYTES, buffer -> {
+                var longs = buffer.asLongBuffer();
+                for (var row : matrix.elems) {
+                    for (var value : row) {
+                        longs.put(value.longNumerator());
+                        longs.put(value.longDenominator());
+                    }
+                }
+            });
+        } else {
+            write(path, ElementType.BIG_RATIONAL, Layout.ROW_MAJOR, matrix.m, matrix.n, 0, bigBytes, buffer -> {
+                for (var row : matrix.elems) {
+                    for (var value : row) {
+                        writeBigInteger(buffer, value.numerator());
+                        writeBigInteger(buffer, value.denominator());
+                    }
+                }
+            });
+        }
+    }
+
+    private static void writeBigInteger(ByteBuffer buffer, BigInteger value) {
+        var bytes = value.toByteArray();
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    @FunctionalInterface
+    private interface PayloadWriter {
+        void write(ByteBuffer buffer);
+    }
+
+    /** ファイル全体を対応付けてペイロードを書き込み、最後にチェックサムを入れたヘッダーを書く */
+    private static void write(Path path, ElementType type, Layout layout, int m, int n, int tile,
+                              long payloadBytes, PayloadWriter writer) throws IOException {
+        if (payloadBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("ペイロードが2GBを超えます。TILEDで書き出してください。bytes: %d".formatted(payloadBytes));
+        }
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var payload = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES, payloadBytes);
+            payload.order(ByteOrder.LITTLE_ENDIAN);
+            writer.write(payload);
+            payload.force();
+            writeHeader(channel, new Header(type, layout, m, n, tile, payloadBytes, crc(payload, 0, payload.capacity())));
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, Header header) throws IOException {
+        var buffer = header.encode();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+    }
+
+}
@@ -0,0 +1,665 @@
+package math.matrix;
+
+import math.numbers.Rational;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * CSVとMatrix Market(.mtx)のテキストファイルを読み込む。
+ * ファイルを対応付けたバイト列を行の境界でチャンクに分け、チャンクごとに並列に解析する。
+ * まず各チャンクのデータ行の数を数え、その累積和から各チャンクの先頭の行番号を決めてから、
+ * 2回目の走査で値を出力の配列に直接書き込む。
+ * 数値はバイト列から直接読み、トークンごとのStringは作らない。
+ * ただし有効数字が16桁以上の小数やNaNなど、高速な変換で正確に丸められない値だけはStringを経由する。
+ * 1つのファイルは2GB未満である必要がある。
+ */
+final class MatrixReader {
+
+    private MatrixReader() {}
+
+    /** チャンクのバイト数の目安。システムプロパティ math.matrix.reader.chunk で上書きできる */
+    static final int CHUNK = Integer.getInteger("math.matrix.reader.chunk", 1 << 20);
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    /** 行ごとの処理。データ行のrow番目(チャンクをまたいだ通し番号)の行を、scannerの位置から読む */
+    @FunctionalInterface
+    private interface LineBody {
+        void parse(Scanner scanner, long row);
+    }
+
+    // CSV
+
+    /** 各行を行列の行とするCSVを読み込む。空行は読み飛ばす */
+    static DoubleMatrix readCsv(Path path) throws IOException {
+        return readCsv(path, Parallelism.DEFAULT);
+    }
+
+    static DoubleMatrix readCsv(Path path, Parallelism parallelism) throws IOException {
+        var buffer = map(path);
+        var n = csvColumns(buffer);
+        var chunks = chunks(buffer, 0);
+        var starts = countLines(buffer, chunks, false, parallelism);
+        var result = new DoubleMatrix(toRows(starts), n);
+        var elems = result.elems;
+        forEachLine(buffer, chunks, starts, false, parallelism, (scanner, row) -> {
+            var offset = (int) row * n;
+            for (var j = 0; j < n; j++) {
+                if (j > 0) {
+                    scanner.expect(',', row);
+                }
+                elems[offset + j] = scanner.parseDouble();
+            }
+            scanner.expectLineEnd(row);
+        });
+        return result;
+    }
+
+    /** 成分が整数または p/q の形の有理数であるCSVを読み込む */
+    static Matrix<Rational> readCsvRational(Path path) throws IOException {
+        return readCsvRational(path, Parallelism.DEFAULT);
+    }
+
+    static Matrix<Rational> readCsvRational(Path path, Parallelism parallelism) throws IOException {
+        var buffer = map(path);
+        var n = csvColumns(buffer);
+        var chunks = chunks(buffer, 0);
+        var starts = countLines(buffer, chunks, false, parallelism);
+        var elems = new Rational[toRows(starts)][n];
+        forEachLine(buffer, chunks, starts, false, parallelism, (scanner, row) -> {
+            var elemsRow = elems[(int) row];
+            for (var j = 0; j < n; j++) {
+                if (j > 0) {
+                    scanner.expect(',', row);
+                }
+                elemsRow[j] = scanner.parseRational();
+            }
+            scanner.expectLineEnd(row);
+        });
+        return new Matrix<>(elems, Rational.field, Rational.distance, Rational.comparator);
+    }
+
+    /** 最初のデータ行のカンマの数から列数を決める */
+    private static int csvColumns(ByteBuffer buffer) {
+        var scanner = new Scanner(buffer, 0, buffer.limit());
+        while (!scanner.atEnd() && scanner.isSkippedLine(false)) {
+            scanner.nextLine();
+        }
+        if (scanner.atEnd()) {
+            throw new IllegalArgumentException("データ行がありません");
+        }
+        var n = 1;
+        while (!scanner.atLineEnd()) {
+            if (buffer.get(scanner.pos++) == ',') {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    // Matrix Market
+
+    /** Matrix Marketのバナー行と大きさの行 */
+    private record MatrixMarketHeader(boolean coordinate, String field, String symmetry, int m, int n, long entries, int dataStart) {
+
+        boolean symmetric() {
+            return !symmetry.equals("general");
+        }
+
+        /** array形式でj列目に並ぶ最初の行。対称な場合は対角から、歪対称な場合は対角の1つ下から並ぶ */
+        int firstRow(int j) {
+            return switch (symmetry) {
+                case "symmetric" -> j;
+                case "skew-symmetric" -> j + 1;
+                default -> 0;
+            };
+        }
+
+        /** skew-symmetricでは対角の反対側の成分の符号を反転する */
+        double mirrorSign() {
+            return symmetry.equals("skew-symmetric") ? -1.0 : 1.0;
+        }
+    }
+
+    private static MatrixMarketHeader readMatrixMarketHeader(ByteBuffer buffer) {
+        var scanner = new Scanner(buffer, 0, buffer.limit());
+        var banner = scanner.line().trim().toLowerCase(Locale.ROOT).split("\\s+");
+        if (banner.length != 5 || !banner[0].equals("%%matrixmarket") || !banner[1].equals("matrix")) {
+            throw new IllegalArgumentException("Matrix Marketのバナー行がありません");
+        }
+        var coordinate = switch (banner[2]) {
+            case "coordinate" -> true;
+            case "array" -> false;
+            default -> throw new IllegalArgumentException("未知の形式です。format: %s".formatted(banner[2]));
+        };
+        var field = banner[3];
+        if (!field.equals("real") && !field.equals("integer") && !field.equals("pattern")) {
+            throw new IllegalArgumentException("対応していない成分の型です。field: %s".formatted(field));
+        }
+        var symmetry = banner[4];
+        if (!symmetry.equals("general") && !symmetry.equals("symmetric") && !symmetry.equals("skew-symmetric")) {
+            throw new IllegalArgumentException("対応していない対称性です。symmetry: %s".formatted(symmetry));
+        }
+        while (!scanner.atEnd() && scanner.isSkippedLine(true)) {
+            scanner.nextLine();
+        }
+        var m = (int) scanner.parseLong();
+        var n = (int) scanner.parseLong();
+        var entries = coordinate ? scanner.parseLong() : (long) m * n;
+        scanner.nextLine();
+        return new MatrixMarketHeader(coordinate, field, symmetry, m, n, entries, scanner.pos);
+    }
+
+    /** Matrix Marketのファイルを密行列として読み込む。coordinate形式とarray形式のどちらも読める */
+    static DoubleMatrix readMatrixMarket(Path path) throws IOException {
+        return readMatrixMarket(path, Parallelism.DEFAULT);
+    }
+
+    static DoubleMatrix readMatrixMarket(Path path, Parallelism parallelism) throws IOException {
+        var buffer = map(path);
+        var header = readMatrixMarketHeader(buffer);
+        var m = header.m;
+        var n = header.n;
+        var result = new DoubleMatrix(m, n);
+        var elems = result.elems;
+        var pattern = header.field.equals("pattern");
+        var chunks = chunks(buffer, header.dataStart);
+        var starts = countLines(buffer, chunks, true, parallelism);
+        checkEntries(header, starts);
+        if (!header.coordinate) {
+            // array形式は列優先で、対称な場合は下三角の部分だけが並ぶ
+            var columnStarts = arrayColumnStarts(header);
+            forEachLine(buffer, chunks, starts, true, parallelism, (scanner, row) -> {
+                var j = columnOf(columnStarts, row);
+                var i = (int) (row - columnStarts[j]) + header.firstRow(j);
+                var value = scanner.parseDouble();
+                elems[i * n + j] = value;
+                if (header.symmetric() && i != j) {
+                    elems[j * n + i] = header.mirrorSign() * value;
+                }
+                scanner.expectLineEnd(row);
+            });
+            return result;
+        }
+        forEachLine(buffer, chunks, starts, true, parallelism, (scanner, row) -> {
+            var i = (int) scanner.parseLong() - 1;
+            var j = (int) scanner.parseLong() - 1;
+            checkIndex(i, j, m, n, row);
+            var value = pattern ? 1.0 : scanner.parseDouble();
+            elems[i * n + j] = value;
+            if (header.symmetric() && i != j) {
+                elems[j * n + i] = header.mirrorSign() * value;
+            }
+            scanner.expectLineEnd(row);
+        });
+        return result;
+    }
+
+    /**
+     * coordinate形式のMatrix Marketのファイルを疎行列として読み込む。
+     * 成分の組を配列に並べてから、行ごとの個数を数えて振り分け、転置してCSC形式にする。同じ位置の成分は足し合わせる。
+     */
+    static CscMatrix readMatrixMarketSparse(Path path) throws IOException {
+        return readMatrixMarketSparse(path, Parallelism.DEFAULT);
+    }
+
+    static CscMatrix readMatrixMarketSparse(Path path, Parallelism parallelism) throws IOException {
+        var buffer = map(path);
+        var header = readMatrixMarketHeader(buffer);
+        if (!header.coordinate) {
+            throw new IllegalArgumentException("疎行列として読めるのはcoordinate形式だけです");
+        }
+        var m = header.m;
+        var n = header.n;
+        var pattern = header.field.equals("pattern");
+        var chunks = chunks(buffer, header.dataStart);
+        var starts = countLines(buffer, chunks, true, parallelism);
+        checkEntries(header, starts);
+        var entries = (int) header.entries;
+        // 対称な場合、r番目の成分の反対側をentries + r番目に置く。対角成分の反対側は-1のままにする
+        var slots = header.symmetric() ? 2 * entries : entries;
+        var rows = new int[slots];
+        var cols = new int[slots];
+        var values = new double[slots];
+        Arrays.fill(rows, entries, slots, -1);
+        forEachLine(buffer, chunks, starts, true, parallelism, (scanner, row) -> {
+            var i = (int) scanner.parseLong() - 1;
+            var j = (int) scanner.parseLong() - 1;
+            checkIndex(i, j, m, n, row);
+            var value = pattern ? 1.0 : scanner.parseDouble();
+            var r = (int) row;
+            rows[r] = i;
+            cols[r] = j;
+            values[r] = value;
+            if (header.symmetric() && i != j) {
+                rows[entries + r] = j;
+                cols[entries + r] = i;
+                values[entries + r] = header.mirrorSign() * value;
+            }
+            scanner.expectLineEnd(row);
+        });
+
+        // CSR形式に振り分ける。各行の中の列番号はまだ整列していない
+        var rowPtr = new int[m + 1];
+        for (var r = 0; r < slots; r++) {
+            if (rows[r] >= 0) {
+                rowPtr[rows[r] + 1]++;
+            }
+        }
+        for (var i = 0; i < m; i++) {
+            rowPtr[i + 1] += rowPtr[i];
+        }
+        var nnz = rowPtr[m];
+        var colIdx = new int[nnz];
+        var csrValues = new double[nnz];
+        var next = Arrays.copyOf(rowPtr, m);
+        for (var r = 0; r < slots; r++) {
+            if (rows[r] >= 0) {
+                var p = next[rows[r]]++;
+                colIdx[p] = cols[r];
+                csrValues[p] = values[r];
+            }
+        }
+        // 転置すると各列の行番号は昇順になり、同じ位置の成分は隣り合う
+        var colPtr = new int[n + 1];
+        var rowIdx = new int[nnz];
+        var cscValues = new double[nnz];
+        Sparse.transpose(m, n, rowPtr, colIdx, csrValues, colPtr, rowIdx, cscValues);
+        var p = 0;
+        for (var j = 0; j < n; j++) {
+            var start = colPtr[j];
+            colPtr[j] = p;
+            for (var q = start; q < colPtr[j + 1]; q++) {
+                if (p > colPtr[j] && rowIdx[p - 1] == rowIdx[q]) {
+                    cscValues[p - 1] += cscValues[q];
+                } else {
+                    rowIdx[p] = rowIdx[q];
+                    cscValues[p++] = cscValues[q];
+                }
+            }
+        }
+        colPtr[n] = p;
+        return new CscMatrix(m, n, colPtr, rowIdx, cscValues);
+    }
+
+    /** array形式でj列目の値が始まる通し番号 */
+    private static long[] arrayColumnStarts(MatrixMarketHeader header) {
+        var starts = new long[header.n + 1];
+        for (var j = 0; j < header.n; j++) {
+            starts[j + 1] = starts[j] + Math.max(header.m - header.firstRow(j), 0);
+        }
+        return starts;
+    }
+
+    private static int columnOf(long[] starts, long row) {
+        var j = Arrays.binarySearch(starts, row);
+        return j >= 0 ? j : -j - 2;
+    }
+
+    private static void checkEntries(MatrixMarketHeader header, long[] counts) {
+        var total = counts[counts.length - 1];
+        var expected = header.coordinate ? header.entries : arrayColumnStarts(header)[header.n];
+        if (total != expected) {
+            throw new IllegalArgumentException("成分の数%dが大きさの行の%dと一致しません".formatted(total, expected));
+        }
+    }
+
+    private static void checkIndex(int i, int j, int m, int n, long row) {
+        if (i < 0 || i >= m || j < 0 || j >= n) {
+            throw new IllegalArgumentException("%d番目の成分の位置(%d, %d)が範囲外です".formatted(row + 1, i + 1, j + 1));
+        }
+    }
+
+    // チャンクの分割と走査
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("2GB以上のファイルは読み込めません。bytes: %d".formatted(channel.size()));
+            }
+            // 対応付けはチャンネルを閉じた後も有効である
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /** from以降をおよそCHUNKバイトずつに分ける。各境界は行の先頭に揃える。戻り値の最後の要素はバッファの末尾 */
+    private static int[] chunks(ByteBuffer buffer, int from) {
+        var size = buffer.limit() - from;
+        var count = Math.max(1, (int) ((size + (long) CHUNK - 1) / CHUNK));
+        var bounds = new int[count + 1];
+        bounds[0] = from;
+        for (var c = 1; c < count; c++) {
+            var p = Math.max(bounds[c - 1], from + (int) ((long) size * c / count));
+            while (p < buffer.limit() && p > from && buffer.get(p - 1) != '\n') {
+                p++;
+            }
+            bounds[c] = p;
+        }
+        bounds[count] = buffer.limit();
+        return bounds;
+    }
+
+    /** 各チャンクのデータ行の数を数え、累積和を返す。戻り値のc番目はc番目のチャンクの先頭の行番号 */
+    private static long[] countLines(ByteBuffer buffer, int[] chunks, boolean comments, Parallelism parallelism) {
+        var count = chunks.length - 1;
+        var lines = new long[count + 1];
+        parallelism.forEachBlock(1, count, CHUNK, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var c = colFrom; c < colTo; c++) {
+                var scanner = new Scanner(buffer, chunks[c], chunks[c + 1]);
+                var lineCount = 0L;
+                while (!scanner.atEnd()) {
+                    if (!scanner.isSkippedLine(comments)) {
+                        lineCount++;
+                    }
+                    scanner.nextLine();
+                }
+                lines[c + 1] = lineCount;
+            }
+        });
+        for (var c = 0; c < count; c++) {
+            lines[c + 1] += lines[c];
+        }
+        return lines;
+    }
+
+    private static int toRows(long[] counts) {
+        var total = counts[counts.length - 1];
+        if (total == 0) {
+            throw new IllegalArgumentException("データ行がありません");
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("行数%dが大きすぎます".formatted(total));
+        }
+        return (int) total;
+    }
+
+    /** startsはcountLinesの戻り値 */
+    private static void forEachLine(ByteBuffer buffer, int[] chunks, long[] starts, boolean comments, Parallelism parallelism, LineBody body) {
+        parallelism.forEachBlock(1, chunks.length - 1, CHUNK, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var c = colFrom; c < colTo; c++) {
+                var scanner = new Scanner(buffer, chunks[c], chunks[c + 1]);
+                var row = starts[c];
+                while (!scanner.atEnd()) {
+                    if (!scanner.isSkippedLine(comments)) {
+                        body.parse(scanner, row++);
+                    }
+                    scanner.nextLine();
+                }
+            }
+        });
+    }
+
+    /** バッファのpos以降、endの手前までを読む。位置は絶対位置で扱い、バッファ自体の位置は変えない */
+    private static final class Scanner {
+        private final ByteBuffer buffer;
+        private final int end;
+        int pos;
+
+        Scanner(ByteBuffer buffer, int pos, int end) {
+            this.buffer = buffer;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        boolean atEnd() {
+            return pos >= end;
+        }
+
+        boolean atLineEnd() {
+            if (pos >= end) {
+                return true;
+            }
+            var b = buffer.get(pos);
+            return b == '\n' || b == '\r';
+        }
+
+        /** 次の行の先頭まで進める */
+        void nextLine() {
+            while (pos < end && buffer.get(pos) != '\n') {
+                pos++;
+            }
+            if (pos < end) {
+                pos++;
+            }
+        }
+
+        /** 現在の行が空白だけの行か、commentsがtrueで'%'から始まる行か。位置は変えない */
+        boolean isSkippedLine(boolean comments) {
+            var p = pos;
+            while (p < end) {
+                var b = buffer.get(p);
+                if (b == '\n' || b == '\r') {
+                    return true;
+                }
+                if (b != ' ' && b != '\t') {
+                    return comments && b == '%';
+                }
+                p++;
+            }
+            return true;
+        }
+
+        /** 現在の行の残りを文字列として返し、次の行に進める。ヘッダーの解析にだけ使う */
+        String line() {
+            var start = pos;
+            while (!atLineEnd()) {
+                pos++;
+            }
+            var result = string(start, pos);
+            nextLine();
+            return result;
+        }
+
+        private String string(int from, int to) {
+            var bytes = new byte[to - from];
+            buffer.get(from, bytes);
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        private void skipBlanks() {
+            while (pos < end) {
+                var b = buffer.get(pos);
+                if (b != ' ' && b != '\t') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        void expect(char c, long row) {
+            skipBlanks();
+            if (pos >= end || buffer.get(pos) != c) {
+                throw new IllegalArgumentException("%d行目に'%c'がありません".formatted(row + 1, c));
+            }
+            pos++;
+        }
+
+        void expectLineEnd(long row) {
+            skipBlanks();
+            if (!atLineEnd()) {
+                throw new IllegalArgumentException("%d行目の値の数が多すぎます".formatted(row + 1));
+            }
+        }
+
+        private boolean isSeparator(byte b) {
+            return b == ' ' || b == '\t' || b == ',' || b == '\n' || b == '\r' || b == '/';
+        }
+
+        /** トークンの末尾まで進め、その位置を返す */
+        private int tokenEnd(int from) {
+            var p = from;
+            while (p < end && !isSeparator(buffer.get(p))) {
+                p++;
+            }
+            if (p == from) {
+                throw new IllegalArgumentException("値がありません。位置: %d".formatted(from));
+            }
+            return p;
+        }
+
+        /**
+         * 小数を読む。有効数字が15桁以下で10の指数の絶対値が22以下であれば、
+         * 仮数と10の累乗はどちらもdoubleで正確に表せるため、1回の乗算か除算で正しく丸めた値になる。
+         * それ以外はDouble.parseDoubleに任せる。
+         */
+        double parseDouble() {
+            skipBlanks();
+            var start = pos;
+            var p = pos;
+            var negative = false;
+            if (p < end && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+                negative = buffer.get(p) == '-';
+                p++;
+            }
+            var mantissa = 0L;
+            var digits = 0; // 仮数に取り込んだ有効数字の桁数
+            var exponent = 0;
+            var any = false;
+            var fast = true;
+            var dot = false;
+            while (p < end) {
+                var b = buffer.get(p);
+                if (b >= '0' && b <= '9') {
+                    any = true;
+                    if (mantissa != 0 || b != '0') {
+                        if (digits < 18) {
+                            mantissa = mantissa * 10 + (b - '0');
+                            digits++;
+                        } else {
+                            fast = false;
+                        }
+                    }
+                    if (dot) {
+                        exponent--;
+                    }
+                } else if (b == '.' && !dot) {
+                    dot = true;
+                } else {
+                    break;
+                }
+                p++;
+            }
+            if (any && p < end && (buffer.get(p) == 'e' || buffer.get(p) == 'E')) {
+                p++;
+                var expNegative = false;
+                if (p < end && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+                    expNegative = buffer.get(p) == '-';
+                    p++;
+                }
+                var e = 0;
+                var expDigits = false;
+                while (p < end && buffer.get(p) >= '0' && buffer.get(p) <= '9') {
+                    e = Math.min(e * 10 + (buffer.get(p) - '0'), 100000);
+                    expDigits = true;
+                    p++;
+                }
+                if (!expDigits) {
+                    any = false;
+                }
+                exponent += expNegative ? -e : e;
+            }
+            if (!any || (p < end && !isSeparator(buffer.get(p)))) {
+                // NaN, Infinity, 16進表記などの場合と、不正な値の場合
+                pos = tokenEnd(start);
+                try {
+                    return Double.parseDouble(string(start, pos));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("数値として読めません: %s".formatted(string(start, pos)));
+                }
+            }
+            pos = p;
+            if (fast && digits <= 15 && Math.abs(exponent) <= 22) {
+                var value = exponent >= 0 ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+                return negative ? -value : value;
+            }
+            return Double.parseDouble(string(start, p));
+        }
+
+        /** 符号付きの整数を読む */
+        long parseLong() {
+            skipBlanks();
+            var start = pos;
+            var to = tokenEnd(start);
+            var value = parseLong(start, to);
+            if (!valid) {
+                throw new IllegalArgumentException("整数として読めません: %s".formatted(string(start, to)));
+            }
+            pos = to;
+            return value;
+        }
+
+        private boolean valid; // 直前のparseLong(from, to)で値を読めたか
+
+        /** fromからtoの手前までを整数として読む。longに収まらない場合や整数でない場合はvalidをfalseにする */
+        private long parseLong(int from, int to) {
+            valid = false;
+            var p = from;
+            var negative = buffer.get(p) == '-';
+            if (negative || buffer.get(p) == '+') {
+                p++;
+            }
+            if (p == to) {
+                return 0;
+            }
+            var value = 0L;
+            for (; p < to; p++) {
+                var b = buffer.get(p);
+                if (b < '0' || b > '9') {
+                    return 0;
+                }
+                // 負の方向に溜めるとLong.MIN_VALUEも読める
+                if (value < (Long.MIN_VALUE + (b - '0')) / 10) {
+                    return 0;
+                }
+                value = value * 10 - (b - '0');
+            }
+            if (!negative && value == Long.MIN_VALUE) {
+                return 0;
+            }
+            valid = true;
+            return negative ? value : -value;
+        }
+
+        private BigInteger parseBigInteger(int from, int to) {
+            try {
+                return new BigInteger(string(from, to));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("整数として読めません: %s".formatted(string(from, to)));
+            }
+        }
+
+        /** 整数、または p/q の形の有理数を読む。longに収まらない場合はBigIntegerで読む */
+        Rational parseRational() {
+            skipBlanks();
+            var start = pos;
+            var numerEnd = tokenEnd(start);
+            var denomStart = -1;
+            var denomEnd = -1;
+            if (numerEnd < end && buffer.get(numerEnd) == '/') {
+                denomStart = numerEnd + 1;
+                denomEnd = tokenEnd(denomStart);
+            }
+            pos = denomStart < 0 ? numerEnd : denomEnd;
+            var numer = parseLong(start, numerEnd);
+            var numerValid = valid;
+            var denom = denomStart < 0 ? 1 : parseLong(denomStart, denomEnd);
+            if (numerValid && (denomStart < 0 || valid)) {
+                return new Rational(numer, denom);
+            }
+            return new Rational(parseBigInteger(start, numerEnd),
+                    denomStart < 0 ? BigInteger.ONE : parseBigInteger(denomStart, denomEnd));
+        }
+    }
+
+}
@@ -0,0 +1,364 @@
+package math.matrix;
+
+import math.numbers.Rational;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Optional;
+
+/**
+ * 係数行列をfloatでLUP分解し、反復改良で倍精度の解を求める。
+ * floatの分解はdoubleの半分のメモリで済み、ベクトル演算では1回に倍の個数の成分を計算できる。
+ * 分解はDoublePackedLUPと同じブロック化した部分ピボット選択付きの手順で、行列積の更新にはfloatのGemmとFloatKernelを用いる。
+ * 反復改良では残差 r = b - Ax をdouble(Residual.RATIONAL を指定した場合はRationalで厳密に)計算し、
+ * floatの分解で Ad = r を解いて x に d を加える。
+ * 残差が ||r|| <= ||x|| * ||A|| * eps * sqrt(n) (ノルムは最大値ノルム、epsはdoubleの丸めの単位)を満たせば収束とする。
+ * floatの分解ができない(ピボットが0、成分がfloatの範囲を超える)場合や、残差が前回の半分以下に減らない(停滞)場合、
+ * MAX_ITERATIONS回で収束しない場合は、DoublePackedLUPで分解し直して解く。
+ */
+final class MixedPrecisionLUP {
+
+    /** 残差を計算する精度 */
+    enum Residual {
+        DOUBLE,
+        /** 成分を厳密にRationalに変換して計算し、最後にdoubleに丸める */
+        RATIONAL
+    }
+
+    /**
+     * 解。iterationsは反復改良の回数、fallbackはdoubleの分解で解き直したかどうか。
+     */
+    record Solution(double[] x, int iterations, boolean fallback) {}
+
+    /** 反復改良の最大回数。システムプロパティ math.matrix.refine.iterations で上書きできる */
+    static final int MAX_ITERATIONS = Integer.getInteger("math.matrix.refine.iterations", 30);
+
+    private static final double EPSILON = Math.ulp(1.0) / 2;
+
+    final int n;
+    final float[] lu; // 行優先。対角より下がLの成分(対角成分の1は省略する)、対角とそれより上がUの成分
+    final int[] pivot; // 分解後のi行目は元の行列のpivot[i]行目
+
+    private MixedPrecisionLUP(int n, float[] lu, int[] pivot) {
+        this.n = n;
+        this.lu = lu;
+        this.pivot = pivot;
+    }
+
+    /** 行列をfloatに丸めて分解する。正則でない場合、floatの範囲を超える成分がある場合、分解の途中で無限大が現れた場合は空を返す */
+    static Optional<MixedPrecisionLUP> decompose(DoubleMatrix matrix) {
+        return decompose(matrix, DoublePackedLUP.BLOCK, Parallelism.DEFAULT);
+    }
+
+    /**
+     * DoublePackedLUPと同じ右方向(right-looking)のブロックLU分解をfloatで行う。
+     * 幅blockのパネルを部分ピボット選択付きで分解し、右側の行ブロックをTRSMで解き、右下の部分行列をfloatのGemmで更新する。
+     */
+    static Optional<MixedPrecisionLUP> decompose(DoubleMatrix matrix, int block, Parallelism parallelism) {
+        if (matrix.m != matrix.n) {
+            throw new IllegalArgumentException("正方行列でない場合LUP分解はできません");
+        }
+        if (block < 1) {
+            throw new IllegalArgumentException("blockは1以上である必要があります。block: %d".formatted(block));
+        }
+        var n = matrix.n;
+        var a = new float[n * n];
+        for (var i = 0; i < n; i++) {
+            var row = matrix.offset + i * matrix.stride;
+            for (var j = 0; j < n; j++) {
+                var x = (float) matrix.elems[row + j];
+                if (!Float.isFinite(x)) {
+                    return Optional.empty();
+                }
+                a[i * n + j] = x;
+            }
+        }
+        var event = new KernelEvent();
+        event.begin();
+        var pivot = factor(a, n, block, parallelism);
+        event.commit("MixedPrecisionLUP.decompose", "float", n, n, n, KernelEvent.luFlops(n));
+        return Optional.ofNullable(pivot).map(p -> new MixedPrecisionLUP(n, a, p));
+    }
+
+    /** 分解した行の番号を返す。ピボットが見つからない場合や無限大が現れた場合はnullを返す */
+    private static int[] factor(float[] a, int n, int block, Parallelism parallelism) {
+        var pivot = new int[n];
+        for (var i = 0; i < n; i++) {
+            pivot[i] = i;
+        }
+        for (var j0 = 0; j0 < n; j0 += block) {
+            var j1 = Math.min(j0 + block, n);
+            if (!factorPanel(a, n, j0, j1, pivot)) {
+                return null;
+            }
+            if (j1 == n) {
+                break;
+            }
+            solveRowBlock(a, n, j0, j1, parallelism);
+            // A22 -= L21 * U12
+            var rest = n - j1;
+            Gemm.multiply(rest, rest, j1 - j0, -1.0f,
+                    a, j1 * n + j0, n,
+                    a, j0 * n + j1, n,
+                    a, j1 * n + j1, n,
+                    Gemm.Blocking.DEFAULT, parallelism);
+        }
+        return pivot;
+    }
+
+    /** j0列からj1列の手前までのパネルを、部分ピボット選択付きで分解する。行の入れ替えは行全体に対して行う */
+    private static boolean factorPanel(float[] a, int n, int j0, int j1, int[] pivot) {
+        for (var k = j0; k < j1; k++) {
+            var rowK = k * n;
+            var p = 0.0f;
+            var _k = -1;
+            for (var i = k; i < n; i++) {
+                var abs = Math.abs(a[i * n + k]);
+                if (abs > p) {
+                    p = abs;
+                    _k = i;
+                }
+            }
+            if (_k < 0 || !Float.isFinite(p)) {
+                return false;
+            }
+            if (k != _k) {
+                var t = pivot[k];
+                pivot[k] = pivot[_k];
+                pivot[_k] = t;
+                for (var j = 0; j < n; j++) {
+                    var u = a[rowK + j];
+                    a[rowK + j] = a[_k * n + j];
+                    a[_k * n + j] = u;
+                }
+            }
+            var inverse = 1.0f / a[rowK + k];
+            for (var i = k + 1; i < n; i++) {
+                var rowI = i * n;
+                var lik = a[rowI + k] * inverse;
+                a[rowI + k] = lik;
+                FloatKernel.DEFAULT.axpy(j1 - k - 1, -lik, a, rowK + k + 1, a, rowI + k + 1);
+            }
+        }
+        return true;
+    }
+
+    /** j0行からj1行の手前までの、j1列より右の部分を、対角成分を1とする下三角行列L11で解く: U12 = L11^-1 * A12 */
+    private static void solveRowBlock(float[] a, int n, int j0, int j1, Parallelism parallelism) {
+        var rows = j1 - j0;
+        // 各列は独立に計算できるため、列の方向にだけ分割する
+        parallelism.forEachBlock(1, n - j1, (long) rows * rows / 2, (rowFrom, rowTo, colFrom, colTo) -> {
+            var width = colTo - colFrom;
+            for (var i = j0 + 1; i < j1; i++) {
+                var rowI = i * n;
+                for (var p = j0; p < i; p++) {
+                    FloatKernel.DEFAULT.axpy(width, -a[rowI + p], a, p * n + j1 + colFrom, a, rowI + j1 + colFrom);
+                }
+            }
+        });
+    }
+
+    /** floatの分解で Ax = b を解く。bはfloatに丸めてから解く */
+    private double[] solveFloat(double[] b) {
+        var x = new float[n];
+        for (var i = 0; i < n; i++) {
+            x[i] = (float) b[pivot[i]];
+        }
+        // Ly = Pb
+        for (var i = 1; i < n; i++) {
+            var rowI = i * n;
+            var acc = x[i];
+            for (var p = 0; p < i; p++) {
+                acc -= lu[rowI + p] * x[p];
+            }
+            x[i] = acc;
+        }
+        // Ux = y
+        for (var i = n - 1; i >= 0; i--) {
+            var rowI = i * n;
+            var acc = x[i];
+            for (var p = i + 1; p < n; p++) {
+                acc -= lu[rowI + p] * x[p];
+            }
+            x[i] = acc / lu[rowI + i];
+        }
+        var result = new double[n];
+        for (var i = 0; i < n; i++) {
+            result[i] = x[i];
+        }
+        return result;
+    }
+
+    static Optional<Solution> solve(DoubleMatrix a, double[] b) {
+        return solve(a, b, Residual.DOUBLE);
+    }
+
+    /** Ax = b を解く。aとbは書き換えない。aが正則でない場合は空を返す */
+    static Optional<Solution> solve(DoubleMatrix a, double[] b, Residual residual) {
+        if (a.m != a.n) {
+            throw new IllegalArgumentException("正方行列でない場合LUP分解はできません");
+        }
+        if (b.length != a.n) {
+            throw new IllegalArgumentException("bの要素数%dが行列の大きさ%dと一致しません".formatted(b.length, a.n));
+        }
+        var factored = decompose(a);
+        if (factored.isEmpty()) {
+            return fallback(a, b, 0);
+        }
+        var lu = factored.get();
+        var tolerance = normInf(a) * EPSILON * Math.sqrt(a.n);
+        // 厳密な残差では、反復のたびに変わらないAとbを最初に1回だけRationalに変換しておく
+        var exact = residual == Residual.RATIONAL ? toRational(a) : null;
+        var exactB = residual == Residual.RATIONAL ? toRational(b) : null;
+        var x = lu.solveFloat(b);
+        var previous = Double.POSITIVE_INFINITY;
+        for (var iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            var r = exact != null ? exactResidual(exact, exactB, x) : residual(a, b, x);
+            var rNorm = max(r);
+            if (rNorm <= max(x) * tolerance) {
+                return Optional.of(new Solution(x, iteration, false));
+            }
+            if (!(rNorm <= previous / 2)) {
+                // 停滞または発散(NaNを含む)
+                return fallback(a, b, iteration);
+            }
+            previous = rNorm;
+            var d = lu.solveFloat(r);
+            for (var i = 0; i < x.length; i++) {
+                x[i] += d[i];
+            }
+        }
+        return fallback(a, b, MAX_ITERATIONS);
+    }
+
+    private static Optional<Solution> fallback(DoubleMatrix a, double[] b, int iterations) {
+        return DoublePackedLUP.decompose(a).map(lu -> new Solution(lu.solve(b), iterations, true));
+    }
+
+    /** r = b - Ax をdoubleで計算する */
+    private static double[] residual(DoubleMatrix a, double[] b, double[] x) {
+        var n = a.n;
+        var r = new double[n];
+        for (var i = 0; i < n; i++) {
+            var row = a.offset + i * a.stride;
+            var acc = b[i];
+            for (var j = 0; j < n; j++) {
+                acc -= a.elems[row + j] * x[j];
+            }
+            r[i] = acc;
+        }
+        return r;
+    }
+
+    /** r = b - Ax をRationalで厳密に計算し、最後に各成分をdoubleに丸める。aは行優先のn*nの成分である */
+    private static double[] exactResidual(Rational[] a, Rational[] b, double[] x) {
+        var n = b.length;
+        var field = Rational.field;
+        var xs = toRational(x);
+        var r = new double[n];
+        for (var i = 0; i < n; i++) {
+            var acc = b[i];
+            for (var j = 0; j < n; j++) {
+                acc = field.minus(acc, field.multiply(a[i * n + j], xs[j]));
+            }
+            r[i] = toDouble(acc);
+        }
+        return r;
+    }
+
+    /** 行列の成分を行優先に並べてRationalに変換する */
+    private static Rational[] toRational(DoubleMatrix a) {
+        var result = new Rational[a.m * a.n];
+        for (var i = 0; i < a.m; i++) {
+            var row = a.offset + i * a.stride;
+            for (var j = 0; j < a.n; j++) {
+                result[i * a.n + j] = toRational(a.elems[row + j]);
+            }
+        }
+        return result;
+    }
+
+    private static Rational[] toRational(double[] v) {
+        var result = new Rational[v.length];
+        for (var i = 0; i < v.length; i++) {
+            result[i] = toRational(v[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 有限のdoubleを等しい値のRationalにする。doubleの値は 仮数 * 2^指数 なので、分母が2の冪の有理数として誤差なく変換できる。
+     * 仮数の末尾の0を指数に移しておくことで、分子と分母は既約になる。
+     */
+    static Rational toRational(double value) {
+        if (!Double.isFinite(value)) {
+            throw new ArithmeticException("%sは有理数に変換できません".formatted(value));
+        }
+        if (value == 0.0) {
+            return new Rational(0, 1);
+        }
+        var bits = Double.doubleToRawLongBits(value);
+        var mantissa = bits & (1L << 52) - 1;
+        int exponent;
+        if (Math.getExponent(value) < Double.MIN_EXPONENT) {
+            // 非正規化数
+            exponent = Double.MIN_EXPONENT - 52;
+        } else {
+            mantissa |= 1L << 52;
+            exponent = Math.getExponent(value) - 52;
+        }
+        var zeros = Long.numberOfTrailingZeros(mantissa);
+        mantissa >>= zeros;
+        exponent += zeros;
+        if (value < 0) {
+            mantissa = -mantissa;
+        }
+        if (exponent >= 0) {
+            if (exponent < Long.numberOfLeadingZeros(Math.abs(mantissa)) - 1) {
+                return new Rational(mantissa << exponent, 1);
+            }
+            return new Rational(BigInteger.valueOf(mantissa).shiftLeft(exponent), BigInteger.ONE);
+        }
+        if (-exponent < Long.SIZE - 1) {
+            return new Rational(mantissa, 1L << -exponent);
+        }
+        return new Rational(BigInteger.valueOf(mantissa), BigInteger.ONE.shiftLeft(-exponent));
+    }
+
+    /** doubleに丸める。longに収まらない値はdecimal128の精度で割り算をしてから丸める */
+    static double toDouble(Rational value) {
+        if (!value.isBig()) {
+            var numer = value.longNumerator();
+            var denom = value.longDenominator();
+            // 53ビットに収まる整数どうしの割り算は正しく丸められる
+            if (Math.abs(numer) < 1L << 53 && denom < 1L << 53) {
+                return (double) numer / denom;
+            }
+        }
+        return new BigDecimal(value.numerator()).divide(new BigDecimal(value.denominator()), MathContext.DECIMAL128).doubleValue();
+    }
+
+    /** 行の絶対値の和の最大値 */
+    private static double normInf(DoubleMatrix a) {
+        var norm = 0.0;
+        for (var i = 0; i < a.m; i++) {
+            var row = a.offset + i * a.stride;
+            var sum = 0.0;
+            for (var j = 0; j < a.n; j++) {
+                sum += Math.abs(a.elems[row + j]);
+            }
+            norm = Math.max(norm, sum);
+        }
+        return norm;
+    }
+
+    private static double max(double[] v) {
+        var max = 0.0;
+        for (var x : v) {
+            max = Math.max(max, Math.abs(x));
+        }
+        return max;
+    }
+
+}
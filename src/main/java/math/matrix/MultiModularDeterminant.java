@@ -0,0 +1,163 @@
+package math.matrix;
+
+import math.numbers.ModularField;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 整数行列の行列式を、複数の素数を法とする行列式から中国剰余定理で復元する。
+ * 各素数についての消去はModularFieldのMontgomery表現のlongで行い、素数ごとに並列に計算する。
+ * 使う素数の個数はHadamardの不等式 |det A| &lt;= Π ||a_i|| から決める。
+ */
+final class MultiModularDeterminant {
+
+    private MultiModularDeterminant() {}
+
+    private static final List<ModularField> primes = new ArrayList<>();
+
+    /** 2^62未満の素数を大きい方からi+1個目まで */
+    static synchronized ModularField prime(int i) {
+        var candidate = primes.isEmpty() ? (1L << 62) - 1 : primes.get(primes.size() - 1).p - 2;
+        while (primes.size() <= i) {
+            if (BigInteger.valueOf(candidate).isProbablePrime(64)) {
+                primes.add(new ModularField(candidate));
+            }
+            candidate -= 2;
+        }
+        return primes.get(i);
+    }
+
+    static BigInteger calcDeterminant(long[][] elems) {
+        return calcDeterminant(toBigInteger(elems), Parallelism.DEFAULT);
+    }
+
+    static BigInteger calcDeterminant(BigInteger[][] elems) {
+        return calcDeterminant(elems, Parallelism.DEFAULT);
+    }
+
+    static BigInteger calcDeterminant(BigInteger[][] elems, Parallelism parallelism) {
+        var n = elems.length;
+        for (var row : elems) {
+            if (row.length != n) {
+                throw new IllegalArgumentException("正方行列でない場合行列式は定義されません");
+            }
+        }
+        // 復元する値は -H 以上 H 以下なので、法の積が 2H を超えるまで素数を使う
+        var bits = hadamardBits(elems);
+        if (bits < 0) {
+            return BigInteger.ZERO;
+        }
+        var count = 0;
+        var modulusBits = 0;
+        while (modulusBits <= bits + 1) {
+            modulusBits += 63 - Long.numberOfLeadingZeros(prime(count).p); // floor(log2 p)
+            count++;
+        }
+        var fields = new ModularField[count];
+        for (var i = 0; i < count; i++) {
+            fields[i] = prime(i);
+        }
+
+        var residues = new long[count];
+        parallelism.forEachBlock(1, count, (long) n * n * n, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var i = colFrom; i < colTo; i++) {
+                residues[i] = calcDeterminant(elems, fields[i]);
+            }
+        });
+        return reconstruct(residues, fields);
+    }
+
+    /** Hadamardの上界の2を底とする対数の切り上げ。0の行があれば行列式は0なので-1を返す */
+    static int hadamardBits(BigInteger[][] elems) {
+        var bits = 0;
+        for (var row : elems) {
+            var sumOfSquares = BigInteger.ZERO;
+            for (var x : row) {
+                sumOfSquares = sumOfSquares.add(x.multiply(x));
+            }
+            if (sumOfSquares.signum() == 0) {
+                return -1;
+            }
+            // ||a_i|| = sqrt(sumOfSquares) < 2^ceil(bitLength / 2)
+            bits += (sumOfSquares.bitLength() + 1) / 2;
+        }
+        return bits;
+    }
+
+    /** pを法とする行列式。LUPと同様に消去するが、ピボットは0でない最初の成分を選ぶ */
+    static long calcDeterminant(BigInteger[][] elems, ModularField field) {
+        var n = elems.length;
+        var a = new long[n * n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                a[i * n + j] = field.toMontgomery(field.reduce(elems[i][j]));
+            }
+        }
+        var det = field.montgomeryOne();
+        var negate = false;
+        for (var k = 0; k < n; k++) {
+            var _k = k;
+            while (_k < n && a[_k * n + k] == 0) {
+                _k++;
+            }
+            if (_k == n) {
+                return 0;
+            }
+            if (_k != k) {
+                for (var j = k; j < n; j++) {
+                    var t = a[k * n + j];
+                    a[k * n + j] = a[_k * n + j];
+                    a[_k * n + j] = t;
+                }
+                negate = !negate;
+            }
+            var pivot = a[k * n + k];
+            det = field.montMul(det, pivot);
+            var inverse = field.montInverse(pivot);
+            for (var i = k + 1; i < n; i++) {
+                var aik = a[i * n + k];
+                if (aik == 0) {
+                    continue;
+                }
+                var lik = field.montMul(aik, inverse);
+                for (var j = k + 1; j < n; j++) {
+                    a[i * n + j] = field.subMod(a[i * n + j], field.montMul(lik, a[k * n + j]));
+                }
+            }
+        }
+        det = field.fromMontgomery(det);
+        return negate ? field.negMod(det) : det;
+    }
+
+    /** Garnerの方法で剰余から復元し、法の積の半分より大きければ負の数とみなす */
+    static BigInteger reconstruct(long[] residues, ModularField[] fields) {
+        var x = BigInteger.valueOf(residues[0]);
+        var modulus = BigInteger.valueOf(fields[0].p);
+        for (var i = 1; i < residues.length; i++) {
+            var field = fields[i];
+            var xModP = field.reduce(x);
+            var mModP = field.reduce(modulus);
+            var t = field.mulMod(field.subMod(residues[i], xModP), field.inverseMod(mModP));
+            x = x.add(modulus.multiply(BigInteger.valueOf(t)));
+            modulus = modulus.multiply(BigInteger.valueOf(field.p));
+        }
+        if (x.compareTo(modulus.shiftRight(1)) > 0) {
+            x = x.subtract(modulus);
+        }
+        return x;
+    }
+
+    private static BigInteger[][] toBigInteger(long[][] elems) {
+        var result = new BigInteger[elems.length][];
+        for (var i = 0; i < elems.length; i++) {
+            result[i] = new BigInteger[elems[i].length];
+            for (var j = 0; j < elems[i].length; j++) {
+                result[i][j] = BigInteger.valueOf(elems[i][j]);
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,209 @@
+package math.matrix;
+
+import math.numbers.Distance;
+import math.numbers.Field;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 対称正定値行列のLDL^T分解。平方根を使わないため、任意のFieldで計算できる。
+ * 下三角だけを保持し、ldのi行目は長さi+1で、対角より下がLの成分(対角成分の1は省略する)、対角がDの成分である。
+ * ピボット選択が不要で、乗算の回数はLUP分解の半分である。
+ * Dの成分がcomparatorで0より大きくならない(正定値でない)場合は空を返す。
+ */
+final class PackedLDL<T> {
+
+    final T[][] ld;
+    final Field<T> field;
+    final Distance<T> distance;
+    final Comparator<T> comparator;
+
+    private PackedLDL(T[][] ld, Field<T> field, Distance<T> distance, Comparator<T> comparator) {
+        this.ld = ld;
+        this.field = field;
+        this.distance = distance;
+        this.comparator = comparator;
+    }
+
+    /** 行列が対称かどうか。成分をequalsで比較する */
+    static <T> boolean isSymmetric(Matrix<T> matrix) {
+        if (matrix.m != matrix.n) {
+            return false;
+        }
+        for (var i = 1; i < matrix.n; i++) {
+            for (var j = 0; j < i; j++) {
+                if (!matrix.elems[i][j].equals(matrix.elems[j][i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    static <T> Optional<PackedLDL<T>> decompose(Matrix<T> matrix) {
+        return decompose(matrix, Parallelism.DEFAULT);
+    }
+
+    /**
+     * 行列の下三角を複製して分解する。上三角は読まない。
+     * 右方向(right-looking)に1列ずつ消去し、各段階で残りの行の更新をparallelismに従って並列に計算する。
+     */
+    static <T> Optional<PackedLDL<T>> decompose(Matrix<T> matrix, Parallelism parallelism) {
+        if (matrix.m != matrix.n) {
+            throw new IllegalArgumentException("正方行列でない場合LDL分解はできません");
+        }
+        var n = matrix.n;
+        var ld = (T[][]) new Object[n][];
+        for (var i = 0; i < n; i++) {
+            ld[i] = Arrays.copyOf(matrix.elems[i], i + 1);
+        }
+        var event = new KernelEvent();
+        event.begin();
+        var elementType = KernelEvent.elementType(matrix.elems);
+        var positiveDefinite = factor(ld, matrix.field, matrix.comparator, parallelism);
+        event.commit("PackedLDL.decompose", elementType, n, n, n, KernelEvent.choleskyFlops(n));
+        return positiveDefinite ? Optional.of(new PackedLDL<>(ld, matrix.field, matrix.distance, matrix.comparator)) : Optional.empty();
+    }
+
+    private static <T> boolean factor(T[][] ld, Field<T> field, Comparator<T> comparator, Parallelism parallelism) {
+        var n = ld.length;
+        var zero = field.addZero();
+        // k列目の消去の前の値。更新中の行が他の行のk列目を読まないように、先に取り出しておく
+        var column = (T[]) new Object[n];
+        for (var k = 0; k < n; k++) {
+            var d = ld[k][k];
+            if (comparator.compare(d, zero) <= 0) {
+                return false;
+            }
+            for (var i = k + 1; i < n; i++) {
+                column[i] = ld[i][k];
+            }
+            var _k = k;
+            // 各行は独立に計算できるため、行の方向にだけ分割する
+            parallelism.forEachBlock(n - k - 1, 1, n - k, (rowFrom, rowTo, colFrom, colTo) -> {
+                for (var i = _k + 1 + rowFrom; i < _k + 1 + rowTo; i++) {
+                    var rowI = ld[i];
+                    var lik = field.div(column[i], d);
+                    rowI[_k] = lik;
+                    for (var j = _k + 1; j <= i; j++) {
+                        rowI[j] = field.minus(rowI[j], field.multiply(lik, column[j]));
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    int size() {
+        return ld.length;
+    }
+
+    /** 下三角行列。対角成分は全て1とする */
+    Matrix<T> l() {
+        var n = size();
+        var l = (T[][]) new Object[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                l[i][j] = i > j ? ld[i][j] : i == j ? field.mulZero() : field.addZero();
+            }
+        }
+        return new Matrix<>(l, field, distance, comparator);
+    }
+
+    /** 対角行列 */
+    Matrix<T> d() {
+        var n = size();
+        var d = (T[][]) new Object[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                d[i][j] = i == j ? ld[i][i] : field.addZero();
+            }
+        }
+        return new Matrix<>(d, field, distance, comparator);
+    }
+
+    /** Ax = b を解く */
+    List<T> solve(List<T> b) {
+        var n = size();
+        if (b.size() != n) {
+            throw new IllegalArgumentException("bの要素数%dが行列の大きさ%dと一致しません".formatted(b.size(), n));
+        }
+        var x = (T[]) b.toArray();
+        // Ly = b
+        for (var i = 1; i < n; i++) {
+            var acc = x[i];
+            for (var p = 0; p < i; p++) {
+                acc = field.minus(acc, field.multiply(ld[i][p], x[p]));
+            }
+            x[i] = acc;
+        }
+        // Dz = y
+        for (var i = 0; i < n; i++) {
+            x[i] = field.div(x[i], ld[i][i]);
+        }
+        // L^T x = z。Lの行を順に読むため、求めた成分をそれより前の成分から引いていく
+        for (var i = n - 1; i > 0; i--) {
+            var xi = x[i];
+            for (var p = 0; p < i; p++) {
+                x[p] = field.minus(x[p], field.multiply(ld[i][p], xi));
+            }
+        }
+        return Arrays.asList(x);
+    }
+
+    /** AX = B を解く。Bの各列を右辺とし、代入の各段階でXの行全体をまとめて更新する */
+    Matrix<T> solve(Matrix<T> b) {
+        var n = size();
+        if (b.m != n) {
+            throw new IllegalArgumentException("bの行数%dが行列の大きさ%dと一致しません".formatted(b.m, n));
+        }
+        var r = b.n;
+        var x = (T[][]) new Object[n][];
+        for (var i = 0; i < n; i++) {
+            x[i] = b.elems[i].clone();
+        }
+        // LY = B
+        for (var i = 1; i < n; i++) {
+            var xi = x[i];
+            for (var p = 0; p < i; p++) {
+                var lip = ld[i][p];
+                var xp = x[p];
+                for (var j = 0; j < r; j++) {
+                    xi[j] = field.minus(xi[j], field.multiply(lip, xp[j]));
+                }
+            }
+        }
+        // DZ = Y
+        for (var i = 0; i < n; i++) {
+            var xi = x[i];
+            for (var j = 0; j < r; j++) {
+                xi[j] = field.div(xi[j], ld[i][i]);
+            }
+        }
+        // L^T X = Z
+        for (var i = n - 1; i > 0; i--) {
+            var xi = x[i];
+            for (var p = 0; p < i; p++) {
+                var lip = ld[i][p];
+                var xp = x[p];
+                for (var j = 0; j < r; j++) {
+                    xp[j] = field.minus(xp[j], field.multiply(lip, xi[j]));
+                }
+            }
+        }
+        return new Matrix<>(x, field, distance, comparator);
+    }
+
+    /** Dの対角成分の積 */
+    T determinant() {
+        var det = field.mulZero();
+        for (var i = 0; i < size(); i++) {
+            det = field.multiply(det, ld[i][i]);
+        }
+        return det;
+    }
+
+}
@@ -0,0 +1,247 @@
+package math.matrix;
+
+import math.numbers.Distance;
+import math.numbers.Field;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * LとUを1つの行列にまとめて保持するLUP分解。
+ * luの対角より下がLの成分(対角成分の1は省略する)、対角とそれより上がUの成分である。
+ * 行の入れ替えは置換ベクトルpivotで表し、L, U, Pの行列は必要になった時に作成する。
+ */
+final class PackedLUP<T> {
+
+    final T[][] lu;
+    final int[] pivot; // 分解後のi行目は元の行列のpivot[i]行目
+    final T pSign; // Pの行列式
+    final Field<T> field;
+    final Distance<T> distance;
+    final Comparator<T> comparator;
+
+    private PackedLUP(T[][] lu, int[] pivot, T pSign, Field<T> field, Distance<T> distance, Comparator<T> comparator) {
+        this.lu = lu;
+        this.pivot = pivot;
+        this.pSign = pSign;
+        this.field = field;
+        this.distance = distance;
+        this.comparator = comparator;
+    }
+
+    /** 行列を複製してから分解する。正則でない場合は空を返す */
+    static <T> Optional<PackedLUP<T>> decompose(Matrix<T> matrix) {
+        return decomposeInPlace(matrix.clone());
+    }
+
+    /**
+     * 行列の成分の配列を上書きして分解する。複製を作らない代わりに、呼び出し後のmatrixは元の行列を表さない。
+     * 正則でない場合は空を返すが、その場合もmatrixは途中まで書き換えられている。
+     */
+    static <T> Optional<PackedLUP<T>> decomposeInPlace(Matrix<T> matrix) {
+        if (matrix.m != matrix.n) {
+            throw new IllegalArgumentException("正方行列でない場合LUP分解はできません");
+        }
+        var event = new KernelEvent();
+        event.begin();
+        var elementType = KernelEvent.elementType(matrix.elems);
+        var result = factor(matrix);
+        var n = matrix.n;
+        event.commit("PackedLUP.decompose", elementType, n, n, n, KernelEvent.luFlops(n));
+        return result;
+    }
+
+    private static <T> Optional<PackedLUP<T>> factor(Matrix<T> matrix) {
+        var field = matrix.field;
+        var distance = matrix.distance;
+        var comparator = matrix.comparator;
+        var n = matrix.n;
+        var pivot = new int[n];
+        for (var i = 0; i < n; i++) {
+            pivot[i] = i;
+        }
+
+        T[][] elems = matrix.elems;
+        var zero = field.addZero();
+        T pSign = field.mulZero();
+        for (var k = 0; k < n; k++) {
+            var p = zero;
+            var _k = -1;
+            for (var i = k; i < n; i++) {
+                var abs = distance.calc(zero, elems[i][k]);
+                if (comparator.compare(abs, p) > 0) {
+                    p = abs;
+                    _k = i;
+                }
+            }
+            if (_k < 0) {
+                return Optional.empty();
+            }
+            if (k != _k) {
+                swap(pivot, k, _k);
+                swap(elems, k, _k);
+                pSign = field.addInverse(pSign);
+            }
+            var rowK = elems[k];
+            for (var i = k + 1; i < n; i++) {
+                var rowI = elems[i];
+                rowI[k] = field.div(rowI[k], rowK[k]);
+                for (var j = k + 1; j < n; j++) {
+                    rowI[j] = field.minus(rowI[j], field.multiply(rowI[k], rowK[j]));
+                }
+            }
+        }
+        return Optional.of(new PackedLUP<>(elems, pivot, pSign, field, distance, comparator));
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        var t = array[i];
+        array[i] = array[j];
+        array[j] = t;
+    }
+
+    private static <T> void swap(T[] array, int i, int j) {
+        var t = array[i];
+        array[i] = array[j];
+        array[j] = t;
+    }
+
+    int size() {
+        return lu.length;
+    }
+
+    /** 下三角行列。対角成分は全て1とする */
+    Matrix<T> l() {
+        var n = size();
+        var l = (T[][]) new Object[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                l[i][j] = i > j ? lu[i][j] : i == j ? field.mulZero() : field.addZero();
+            }
+        }
+        return new Matrix<>(l, field, distance, comparator);
+    }
+
+    /** 上三角行列 */
+    Matrix<T> u() {
+        var n = size();
+        var u = (T[][]) new Object[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                u[i][j] = i > j ? field.addZero() : lu[i][j];
+            }
+        }
+        return new Matrix<>(u, field, distance, comparator);
+    }
+
+    /** 行の入れ替えを表す行列 */
+    Matrix<T> p() {
+        var n = size();
+        var p = (T[][]) new Object[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                p[i][j] = field.addZero();
+            }
+            p[i][pivot[i]] = field.mulZero();
+        }
+        return new Matrix<>(p, field, distance, comparator);
+    }
+
+    LUP<T> toLUP() {
+        return new LUP<>(l(), u(), p(), pSign);
+    }
+
+    /** Ax = b を解く */
+    List<T> solve(List<T> b) {
+        var n = size();
+        if (b.size() != n) {
+            throw new IllegalArgumentException("bの要素数%dが行列の大きさ%dと一致しません".formatted(b.size(), n));
+        }
+        var x = (T[]) new Object[n];
+        for (var i = 0; i < n; i++) {
+            x[i] = b.get(pivot[i]);
+        }
+        // Ly = Pb
+        for (var i = 1; i < n; i++) {
+            var acc = x[i];
+            for (var p = 0; p < i; p++) {
+                acc = field.minus(acc, field.multiply(lu[i][p], x[p]));
+            }
+            x[i] = acc;
+        }
+        // Ux = y
+        for (var i = n - 1; i >= 0; i--) {
+            var acc = x[i];
+            for (var p = i + 1; p < n; p++) {
+                acc = field.minus(acc, field.multiply(lu[i][p], x[p]));
+            }
+            x[i] = field.div(acc, lu[i][i]);
+        }
+        return Arrays.asList(x);
+    }
+
+    /**
+     * AX = B を解く。Bの各列を右辺とする。
+     * 右辺を1本ずつ解くのではなく、代入の各段階でXの行全体をまとめて更新する。
+     */
+    Matrix<T> solve(Matrix<T> b) {
+        var n = size();
+        if (b.m != n) {
+            throw new IllegalArgumentException("bの行数%dが行列の大きさ%dと一致しません".formatted(b.m, n));
+        }
+        var r = b.n;
+        var x = (T[][]) new Object[n][];
+        for (var i = 0; i < n; i++) {
+            x[i] = b.elems[pivot[i]].clone();
+        }
+        // LY = PB
+        for (var i = 1; i < n; i++) {
+            var xi = x[i];
+            for (var p = 0; p < i; p++) {
+                var lip = lu[i][p];
+                var xp = x[p];
+                for (var j = 0; j < r; j++) {
+                    xi[j] = field.minus(xi[j], field.multiply(lip, xp[j]));
+                }
+            }
+        }
+        // UX = Y
+        for (var i = n - 1; i >= 0; i--) {
+            var xi = x[i];
+            for (var p = i + 1; p < n; p++) {
+                var uip = lu[i][p];
+                var xp = x[p];
+                for (var j = 0; j < r; j++) {
+                    xi[j] = field.minus(xi[j], field.multiply(uip, xp[j]));
+                }
+            }
+            for (var j = 0; j < r; j++) {
+                xi[j] = field.div(xi[j], lu[i][i]);
+            }
+        }
+        return new Matrix<>(x, field, distance, comparator);
+    }
+
+    /** 逆行列。単位行列を右辺として解く */
+    Matrix<T> inverse() {
+        var n = size();
+        var identity = (T[][]) new Object[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                identity[i][j] = i == j ? field.mulZero() : field.addZero();
+            }
+        }
+        return solve(new Matrix<>(identity, field, distance, comparator));
+    }
+
+    T determinant() {
+        var uDet = field.mulZero();
+        for (var i = 0; i < size(); i++) {
+            uDet = field.multiply(uDet, lu[i][i]);
+        }
+        return field.multiply(pSign, uDet);
+    }
+
+}
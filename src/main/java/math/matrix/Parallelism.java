@@ -0,0 +1,100 @@
+package math.matrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 行列演算を並列に実行する際の設定。
+ * 出力をブロックに再帰的に分割してForkJoinPoolで処理する。各出力成分の計算順序は逐次の場合と変わらないため、結果はビット単位で一致する。
+ */
+final class Parallelism {
+
+    /** 出力を分割する単位の計算。出力の行 rowFrom から rowTo の手前、列 colFrom から colTo の手前までを計算する */
+    @FunctionalInterface
+    interface BlockBody {
+        void compute(int rowFrom, int rowTo, int colFrom, int colTo);
+    }
+
+    /** 常に呼び出し元のスレッドで計算する */
+    static final Parallelism SERIAL = new Parallelism(null, Long.MAX_VALUE);
+
+    /** 共通プールを使う既定の設定。分割を止める演算量はシステムプロパティ math.matrix.parallel.cutoff で上書きできる */
+    static final Parallelism DEFAULT = new Parallelism(
+            ForkJoinPool.commonPool(),
+            Long.getLong("math.matrix.parallel.cutoff", 1L << 16));
+
+    final ForkJoinPool pool;
+    final long cutoff; // 1つのタスクが受け持つ演算量の上限。これ以下の計算は分割しない
+
+    private Parallelism(ForkJoinPool pool, long cutoff) {
+        this.pool = pool;
+        this.cutoff = cutoff;
+    }
+
+    static Parallelism of(ForkJoinPool pool, long cutoff) {
+        if (cutoff <= 0) {
+            throw new IllegalArgumentException("cutoffは1以上である必要があります。cutoff: %d".formatted(cutoff));
+        }
+        return new Parallelism(pool, cutoff);
+    }
+
+    /**
+     * 分割を止める演算量を少なくともminimumにした設定。1つのタスクの準備に固定の費用がかかる計算
+     * (Gemmのパッキングなど)で、タスクが細かくなりすぎないようにする
+     */
+    Parallelism withMinimumCost(long minimum) {
+        return cutoff >= minimum ? this : new Parallelism(pool, minimum);
+    }
+
+    /**
+     * m行n列の出力をブロックに分割してbodyで計算する。
+     * 演算量の合計がcutoff以下の場合と、プールの並列度が1の場合は分割せず呼び出し元のスレッドで計算する。
+     * @param costPerElement 出力1成分あたりの演算量
+     */
+    void forEachBlock(int m, int n, long costPerElement, BlockBody body) {
+        var cost = Math.max(costPerElement, 1);
+        if (pool == null || pool.getParallelism() <= 1 || (long) m * n * cost <= cutoff) {
+            body.compute(0, m, 0, n);
+        } else {
+            pool.invoke(new BlockTask(body, cost, 0, m, 0, n));
+        }
+    }
+
+    /** 行と列のうち長い方を半分に分けていく */
+    @SuppressWarnings("serial") // タスクを直列化することはない
+    private final class BlockTask extends RecursiveAction {
+        private final BlockBody body;
+        private final long costPerElement;
+        private final int rowFrom;
+        private final int rowTo;
+        private final int colFrom;
+        private final int colTo;
+
+        BlockTask(BlockBody body, long costPerElement, int rowFrom, int rowTo, int colFrom, int colTo) {
+            this.body = body;
+            this.costPerElement = costPerElement;
+            this.rowFrom = rowFrom;
+            this.rowTo = rowTo;
+            this.colFrom = colFrom;
+            this.colTo = colTo;
+        }
+
+        @Override
+        protected void compute() {
+            var rows = rowTo - rowFrom;
+            var cols = colTo - colFrom;
+            if ((long) rows * cols * costPerElement <= cutoff || (rows == 1 && cols == 1)) {
+                body.compute(rowFrom, rowTo, colFrom, colTo);
+            } else if (rows >= cols) {
+                var mid = rowFrom + rows / 2;
+                invokeAll(new BlockTask(body, costPerElement, rowFrom, mid, colFrom, colTo),
+                        new BlockTask(body, costPerElement, mid, rowTo, colFrom, colTo));
+            } else {
+                var mid = colFrom + cols / 2;
+                invokeAll(new BlockTask(body, costPerElement, rowFrom, rowTo, colFrom, mid),
+                        new BlockTask(body, costPerElement, rowFrom, rowTo, mid, colTo));
+            }
+        }
+    }
+
+}
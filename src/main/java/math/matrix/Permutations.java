@@ -0,0 +1,167 @@
+package math.matrix;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * n文字の置換を辞書順に列挙するSpliterator。
+ * 1つのint[]を次の置換に書き換えながら進め、符号も書き換えた互換の個数から差分で求めるため、列挙中に割り当てを行わない。
+ * 順位(0始まりの辞書順の番号)から置換を階乗進法で直接求められるので、順位の範囲を半分に分けて分割できる。
+ * 渡されるCursorは次の要素に進むと書き換わるため、消費する側は保持してはならない。
+ */
+final class Permutations implements Spliterator<Permutations.Cursor> {
+
+    /** 列挙中の置換。i番目の要素が get(i) の置換を表す */
+    static final class Cursor {
+        private final int[] perm;
+        private boolean odd; // 奇置換か
+
+        private Cursor(int n) {
+            this.perm = new int[n];
+        }
+
+        int size() {
+            return perm.length;
+        }
+
+        int get(int i) {
+            return perm[i];
+        }
+
+        boolean isOdd() {
+            return odd;
+        }
+
+        int[] toArray() {
+            return perm.clone();
+        }
+    }
+
+    /** n! がlongに収まるnの上限 */
+    static final int MAX_SIZE = 20;
+
+    private final int n;
+    private long rank; // 次に渡す置換の順位
+    private long to; // 渡す置換の順位の上限(含まない)
+    private Cursor cursor; // 最後に渡した置換。まだ渡していない場合はnull
+
+    Permutations(int n) {
+        this(n, 0, factorial(n));
+    }
+
+    private Permutations(int n, long from, long to) {
+        this.n = n;
+        this.rank = from;
+        this.to = to;
+    }
+
+    static long factorial(int n) {
+        if (n < 0 || n > MAX_SIZE) {
+            throw new IllegalArgumentException("置換の文字数は0以上%d以下である必要があります。n: %d".formatted(MAX_SIZE, n));
+        }
+        var result = 1L;
+        for (var i = 2; i <= n; i++) {
+            result *= i;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Cursor> action) {
+        if (rank >= to) {
+            return false;
+        }
+        if (cursor == null) {
+            cursor = unrank(n, rank);
+        } else {
+            next(cursor);
+        }
+        rank++;
+        action.accept(cursor);
+        return true;
+    }
+
+    @Override
+    public Spliterator<Cursor> trySplit() {
+        var remaining = to - rank;
+        if (remaining < 2) {
+            return null;
+        }
+        // 前半を新しいSpliteratorに渡し、自身は後半の先頭から置換を求め直す
+        var mid = rank + remaining / 2;
+        var prefix = new Permutations(n, rank, mid);
+        rank = mid;
+        cursor = null;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return to - rank;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL;
+    }
+
+    /** 辞書順でrank番目の置換。階乗進法の各桁が残りの文字の何番目を選ぶかを表し、桁の和が転倒数になる */
+    static Cursor unrank(int n, long rank) {
+        var cursor = new Cursor(n);
+        var used = 0L; // 既に使った文字のビット集合
+        var inversions = 0L;
+        var f = factorial(n);
+        for (var i = 0; i < n; i++) {
+            f /= n - i;
+            var digit = (int) (rank / f);
+            rank %= f;
+            inversions += digit;
+            // 使っていない文字のうちdigit番目
+            var c = 0;
+            for (var k = digit; ; c++) {
+                if ((used & 1L << c) == 0 && k-- == 0) {
+                    break;
+                }
+            }
+            used |= 1L << c;
+            cursor.perm[i] = c;
+        }
+        cursor.odd = (inversions & 1) == 1;
+        return cursor;
+    }
+
+    /**
+     * cursorを辞書順で次の置換に書き換える。
+     * 増やす位置の要素の入れ替えで互換1つ、長さLの末尾の反転で floor(L / 2) 個の互換を施すので、その分だけ符号を反転する。
+     */
+    static void next(Cursor cursor) {
+        var a = cursor.perm;
+        var k = a.length - 2;
+        while (k >= 0 && a[k] > a[k + 1]) {
+            k--;
+        }
+        if (k < 0) {
+            throw new IllegalStateException("最後の置換です");
+        }
+        var l = a.length - 1;
+        while (a[l] < a[k]) {
+            l--;
+        }
+        swap(a, k, l);
+        var swaps = 1;
+        for (int i = k + 1, j = a.length - 1; i < j; i++, j--) {
+            swap(a, i, j);
+            swaps++;
+        }
+        if ((swaps & 1) == 1) {
+            cursor.odd = !cursor.odd;
+        }
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        var t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+}
@@ -1,10 +1,12 @@
 package math.matrix;
 
 import math.numbers.Field;
+import math.numbers.Ring;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 public class PrimitiveDeterminant {
 
@@ -18,43 +20,43 @@ public class PrimitiveDeterminant {
         }
     }
 
-    private static <T> List<Permutation<T>> recGeneratePermutations(Permutation<T> perm, Field<T> field) {
-        if (perm.list.size() <= 1) {
-            return List.of(perm);
-        } else {
-            var acc = new LinkedList<Permutation<T>>();
-            var sgn = perm.sgn;
-            for (var i = 0; i < perm.list.size(); i++) {
-                var cloneList = new LinkedList<>(perm.list);
-                var target = cloneList.remove(i);
-
-                var perms = recGeneratePermutations(new Permutation<>(sgn, cloneList), field);
-                perms.forEach(p -> p.list.addFirst(target));
-                perms.forEach(acc::addLast);
-                sgn = field.addInverse(sgn);
-            }
-            return acc;
-        }
-    }
-
-    // n文字の置換全体を返す。符号も含まれる。
+    // n文字の置換全体を辞書順に返す。符号も含まれる。全ての置換を保持するため、小さなnでのみ用いる
     static <T> List<Permutation<T>> generatePermutations(int n, Field<T> field) {
-        var sgn = field.mulZero();
-        var list = new LinkedList<>(IntStream.range(0, n).boxed().toList());
-        return recGeneratePermutations(new Permutation<>(sgn, list), field);
+        var one = field.mulZero();
+        var minusOne = field.addInverse(one);
+        return StreamSupport.stream(new Permutations(n), false)
+                .map(c -> new Permutation<>(c.isOdd() ? minusOne : one,
+                        new LinkedList<>(Arrays.stream(c.toArray()).boxed().toList())))
+                .toList();
     }
 
+    /**
+     * 置換全体の和として行列式を求める。置換はPermutationsで遅延して列挙し、並列に足し合わせる。
+     * 各ワーカーが保持するのは置換1つ分の配列だけである。
+     */
     public static <T> T calcDeterminant(Matrix<T> matrix) {
-        var field = matrix.field;
-        var permutations = generatePermutations(matrix.n, field);
+        if (matrix.m != matrix.n) {
+            throw new IllegalArgumentException("正方行列でない場合行列式は定義されません");
+        }
+        return calcDeterminant(matrix.elems, matrix.field);
+    }
+
+    /** 除算を使わないため可換環上でも計算できる。より速い方法はDivisionFreeDeterminantを参照 */
+    static <T> T calcDeterminant(T[][] elems, Ring<T> ring) {
+        var n = elems.length;
+        for (var row : elems) {
+            if (row.length != n) {
+                throw new IllegalArgumentException("正方行列でない場合行列式は定義されません");
+            }
+        }
 
-        return permutations.stream().map(perm -> {
-            var product = field.mulZero();
-            for (var i = 0; i < matrix.n; i++) {
-                product = field.multiply(product, matrix.get(i, perm.map(i)));
+        return StreamSupport.stream(new Permutations(n), true).map(perm -> {
+            var product = ring.mulZero();
+            for (var i = 0; i < n; i++) {
+                product = ring.multiply(product, elems[i][perm.get(i)]);
             }
-            return field.multiply(perm.sgn, product);
-        }).reduce(field.addZero(), field::add);
+            return perm.isOdd() ? ring.addInverse(product) : product;
+        }).reduce(ring.addZero(), ring::add);
     }
 
 }
@@ -0,0 +1,98 @@
+package math.matrix;
+
+import static math.matrix.Gemm.MR;
+import static math.matrix.Gemm.NR;
+
+final class ScalarDoubleKernel implements DoubleKernel {
+
+    @Override
+    public void axpy(int length, double alpha, double[] x, int xOff, double[] y, int yOff) {
+        for (var i = 0; i < length; i++) {
+            y[yOff + i] += alpha * x[xOff + i];
+        }
+    }
+
+    @Override
+    public void add(int length, double[] x, int xOff, double[] y, int yOff, double[] z, int zOff) {
+        for (var i = 0; i < length; i++) {
+            z[zOff + i] = x[xOff + i] + y[yOff + i];
+        }
+    }
+
+    @Override
+    public void scale(int length, double alpha, double[] x, int xOff, double[] z, int zOff) {
+        for (var i = 0; i < length; i++) {
+            z[zOff + i] = x[xOff + i] * alpha;
+        }
+    }
+
+    @Override
+    public void subtractProduct(int length, double[] x, int xOff, double[] y, int yOff, double[] z, int zOff) {
+        for (var i = 0; i < length; i++) {
+            z[zOff + i] -= x[xOff + i] * y[yOff + i];
+        }
+    }
+
+    /** MR*NRのCのタイルをレジスタ上の16個の変数に蓄積してから書き戻す */
+    @Override
+    public void microKernel(int kb, double[] a, int aIndex, double[] b, int bIndex,
+                            double[] c, int cOff, int ldc, int rows, int cols) {
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        for (var p = 0; p < kb; p++) {
+            var a0 = a[aIndex];
+            var a1 = a[aIndex + 1];
+            var a2 = a[aIndex + 2];
+            var a3 = a[aIndex + 3];
+            var b0 = b[bIndex];
+            var b1 = b[bIndex + 1];
+            var b2 = b[bIndex + 2];
+            var b3 = b[bIndex + 3];
+            c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+            c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+            c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+            c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+            aIndex += MR;
+            bIndex += NR;
+        }
+        if (rows == MR && cols == NR) {
+            var c0 = cOff;
+            c[c0] += c00; c[c0 + 1] += c01; c[c0 + 2] += c02; c[c0 + 3] += c03;
+            var c1 = c0 + ldc;
+            c[c1] += c10; c[c1 + 1] += c11; c[c1 + 2] += c12; c[c1 + 3] += c13;
+            var c2 = c1 + ldc;
+            c[c2] += c20; c[c2 + 1] += c21; c[c2 + 2] += c22; c[c2 + 3] += c23;
+            var c3 = c2 + ldc;
+            c[c3] += c30; c[c3 + 1] += c31; c[c3 + 2] += c32; c[c3 + 3] += c33;
+        } else {
+            // 端のタイルは有効な部分だけを書き戻す。作業用の配列は作らない
+            addRow(c, cOff, cols, c00, c01, c02, c03);
+            if (rows > 1) {
+                addRow(c, cOff + ldc, cols, c10, c11, c12, c13);
+            }
+            if (rows > 2) {
+                addRow(c, cOff + 2 * ldc, cols, c20, c21, c22, c23);
+            }
+            if (rows > 3) {
+                addRow(c, cOff + 3 * ldc, cols, c30, c31, c32, c33);
+            }
+        }
+    }
+
+    /** タイルの1行のうち先頭のcols個をCに足し込む */
+    private static void addRow(double[] c, int off, int cols, double v0, double v1, double v2, double v3) {
+        c[off] += v0;
+        if (cols > 1) {
+            c[off + 1] += v1;
+        }
+        if (cols > 2) {
+            c[off + 2] += v2;
+        }
+        if (cols > 3) {
+            c[off + 3] += v3;
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package math.matrix;
+
+import static math.matrix.Gemm.FLOAT_NR;
+import static math.matrix.Gemm.MR;
+
+final class ScalarFloatKernel implements FloatKernel {
+
+    @Override
+    public void axpy(int length, float alpha, float[] x, int xOff, float[] y, int yOff) {
+        for (var i = 0; i < length; i++) {
+            y[yOff + i] += alpha * x[xOff + i];
+        }
+    }
+
+    /** タイルの1行ずつ、FLOAT_NR個の変数に蓄積してから書き戻す */
+    @Override
+    public void microKernel(int kb, float[] a, int aIndex, float[] b, int bIndex,
+                            float[] c, int cOff, int ldc, int rows, int cols) {
+        for (var r = 0; r < rows; r++) {
+            float c0 = 0, c1 = 0, c2 = 0, c3 = 0, c4 = 0, c5 = 0, c6 = 0, c7 = 0;
+            var ai = aIndex + r;
+            var bi = bIndex;
+            for (var p = 0; p < kb; p++) {
+                var ar = a[ai];
+                c0 += ar * b[bi]; c1 += ar * b[bi + 1]; c2 += ar * b[bi + 2]; c3 += ar * b[bi + 3];
+                c4 += ar * b[bi + 4]; c5 += ar * b[bi + 5]; c6 += ar * b[bi + 6]; c7 += ar * b[bi + 7];
+                ai += MR;
+                bi += FLOAT_NR;
+            }
+            var off = cOff + r * ldc;
+            if (cols == FLOAT_NR) {
+                c[off] += c0; c[off + 1] += c1; c[off + 2] += c2; c[off + 3] += c3;
+                c[off + 4] += c4; c[off + 5] += c5; c[off + 6] += c6; c[off + 7] += c7;
+            } else {
+                // 端のタイルは有効な列だけを書き戻す。作業用の配列は作らない
+                addRow(c, off, cols, c0, c1, c2, c3);
+                if (cols > 4) {
+                    addRow(c, off + 4, cols - 4, c4, c5, c6, c7);
+                }
+            }
+        }
+    }
+
+    /** 4個の値のうち先頭のcols個をCに足し込む */
+    private static void addRow(float[] c, int off, int cols, float v0, float v1, float v2, float v3) {
+        c[off] += v0;
+        if (cols > 1) {
+            c[off + 1] += v1;
+        }
+        if (cols > 2) {
+            c[off + 2] += v2;
+        }
+        if (cols > 3) {
+            c[off + 3] += v3;
+        }
+    }
+
+}
@@ -0,0 +1,521 @@
+package math.matrix;
+
+import math.numbers.Field;
+import math.numbers.Ring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 大きさがMAX以下の正方行列に対する、ループを展開した閉じた式による計算。
+ * 行列式は余因子展開で、逆行列は余因子行列を行列式で割って求めるため、ピボットの探索も分岐もない。
+ * 成分はいったん局所変数に読み込んでから計算する。
+ * doubleの行列は a[off + i * ld + j] の形で、Field上の行列は行の配列で受け取る。
+ * 部分ピボット選択を行わないため、doubleでは条件の悪い行列に対してLUP分解より誤差が大きくなりうる。
+ * LUP.calcDeterminant, LUP.solve, DoubleLUP.calcDeterminant, DoubleLUP.solve, Matrix.multiply, DoubleMatrix.multiplyは、
+ * 大きさがMAX以下の場合にこのクラスを用いる。分解を再利用するPackedLUP, DoublePackedLUPは常に分解から解く。
+ */
+final class SmallMatrix {
+
+    private SmallMatrix() {}
+
+    /** 閉じた式で計算する行列の大きさの上限 */
+    static final int MAX = 4;
+
+    /** m*k と k*n の行列の積をこのクラスで計算するかどうか。大きさがMAX以下の正方行列同士の場合に限る */
+    static boolean applies(int m, int n, int k) {
+        return m == n && n == k && n <= MAX;
+    }
+
+    private static void checkSize(int n) {
+        if (n < 1 || n > MAX) {
+            throw new IllegalArgumentException("行列の大きさは1以上%d以下である必要があります。n: %d".formatted(MAX, n));
+        }
+    }
+
+    static double determinant(int n, double[] a, int off, int ld) {
+        checkSize(n);
+        return switch (n) {
+            case 1 -> a[off];
+            case 2 -> a[off] * a[off + ld + 1] - a[off + 1] * a[off + ld];
+            case 3 -> determinant3(a, off, ld);
+            default -> determinant4(a, off, ld);
+        };
+    }
+
+    private static double determinant3(double[] a, int off, int ld) {
+        var r1 = off + ld;
+        var r2 = r1 + ld;
+        double a00 = a[off], a01 = a[off + 1], a02 = a[off + 2];
+        double a10 = a[r1], a11 = a[r1 + 1], a12 = a[r1 + 2];
+        double a20 = a[r2], a21 = a[r2 + 1], a22 = a[r2 + 2];
+        return a00 * (a11 * a22 - a12 * a21) - a01 * (a10 * a22 - a12 * a20) + a02 * (a10 * a21 - a11 * a20);
+    }
+
+    /** 上の2行と下の2行の2*2の小行列式の積の和(Laplace展開)で求める */
+    private static double determinant4(double[] a, int off, int ld) {
+        var r1 = off + ld;
+        var r2 = r1 + ld;
+        var r3 = r2 + ld;
+        double a00 = a[off], a01 = a[off + 1], a02 = a[off + 2], a03 = a[off + 3];
+        double a10 = a[r1], a11 = a[r1 + 1], a12 = a[r1 + 2], a13 = a[r1 + 3];
+        double a20 = a[r2], a21 = a[r2 + 1], a22 = a[r2 + 2], a23 = a[r2 + 3];
+        double a30 = a[r3], a31 = a[r3 + 1], a32 = a[r3 + 2], a33 = a[r3 + 3];
+        var s0 = a00 * a11 - a10 * a01;
+        var s1 = a00 * a12 - a10 * a02;
+        var s2 = a00 * a13 - a10 * a03;
+        var s3 = a01 * a12 - a11 * a02;
+        var s4 = a01 * a13 - a11 * a03;
+        var s5 = a02 * a13 - a12 * a03;
+        var c5 = a22 * a33 - a32 * a23;
+        var c4 = a21 * a33 - a31 * a23;
+        var c3 = a21 * a32 - a31 * a22;
+        var c2 = a20 * a33 - a30 * a23;
+        var c1 = a20 * a32 - a30 * a22;
+        var c0 = a20 * a31 - a30 * a21;
+        return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+    }
+
+    /**
+     * 逆行列を c[cOff + i * ldc + j] に書き込み、行列式を返す。
+     * 正則でない場合も分岐せずに計算するため、cには無限大やNaNが入る。呼び出し元が戻り値で判定する。
+     */
+    static double inverse(int n, double[] a, int off, int ld, double[] c, int cOff, int ldc) {
+        checkSize(n);
+        return switch (n) {
+            case 1 -> {
+                c[cOff] = 1.0 / a[off];
+                yield a[off];
+            }
+            case 2 -> inverse2(a, off, ld, c, cOff, ldc);
+            case 3 -> inverse3(a, off, ld, c, cOff, ldc);
+            default -> inverse4(a, off, ld, c, cOff, ldc);
+        };
+    }
+
+    private static double inverse2(double[] a, int off, int ld, double[] c, int cOff, int ldc) {
+        double a00 = a[off], a01 = a[off + 1];
+        double a10 = a[off + ld], a11 = a[off + ld + 1];
+        var det = a00 * a11 - a01 * a10;
+        var r = 1.0 / det;
+        c[cOff] = a11 * r;
+        c[cOff + 1] = -a01 * r;
+        c[cOff + ldc] = -a10 * r;
+        c[cOff + ldc + 1] = a00 * r;
+        return det;
+    }
+
+    private static double inverse3(double[] a, int off, int ld, double[] c, int cOff, int ldc) {
+        var r1 = off + ld;
+        var r2 = r1 + ld;
+        double a00 = a[off], a01 = a[off + 1], a02 = a[off + 2];
+        double a10 = a[r1], a11 = a[r1 + 1], a12 = a[r1 + 2];
+        double a20 = a[r2], a21 = a[r2 + 1], a22 = a[r2 + 2];
+        // 余因子
+        var c00 = a11 * a22 - a12 * a21;
+        var c01 = a12 * a20 - a10 * a22;
+        var c02 = a10 * a21 - a11 * a20;
+        var det = a00 * c00 + a01 * c01 + a02 * c02;
+        var r = 1.0 / det;
+        var d1 = cOff + ldc;
+        var d2 = d1 + ldc;
+        c[cOff] = c00 * r;
+        c[cOff + 1] = (a02 * a21 - a01 * a22) * r;
+        c[cOff + 2] = (a01 * a12 - a02 * a11) * r;
+        c[d1] = c01 * r;
+        c[d1 + 1] = (a00 * a22 - a02 * a20) * r;
+        c[d1 + 2] = (a02 * a10 - a00 * a12) * r;
+        c[d2] = c02 * r;
+        c[d2 + 1] = (a01 * a20 - a00 * a21) * r;
+        c[d2 + 2] = (a00 * a11 - a01 * a10) * r;
+        return det;
+    }
+
+    private static double inverse4(double[] a, int off, int ld, double[] c, int cOff, int ldc) {
+        var r1 = off + ld;
+        var r2 = r1 + ld;
+        var r3 = r2 + ld;
+        double a00 = a[off], a01 = a[off + 1], a02 = a[off + 2], a03 = a[off + 3];
+        double a10 = a[r1], a11 = a[r1 + 1], a12 = a[r1 + 2], a13 = a[r1 + 3];
+        double a20 = a[r2], a21 = a[r2 + 1], a22 = a[r2 + 2], a23 = a[r2 + 3];
+        double a30 = a[r3], a31 = a[r3 + 1], a32 = a[r3 + 2], a33 = a[r3 + 3];
+        // 上の2行の小行列式sと下の2行の小行列式cから余因子を作る
+        var s0 = a00 * a11 - a10 * a01;
+        var s1 = a00 * a12 - a10 * a02;
+        var s2 = a00 * a13 - a10 * a03;
+        var s3 = a01 * a12 - a11 * a02;
+        var s4 = a01 * a13 - a11 * a03;
+        var s5 = a02 * a13 - a12 * a03;
+        var c5 = a22 * a33 - a32 * a23;
+        var c4 = a21 * a33 - a31 * a23;
+        var c3 = a21 * a32 - a31 * a22;
+        var c2 = a20 * a33 - a30 * a23;
+        var c1 = a20 * a32 - a30 * a22;
+        var c0 = a20 * a31 - a30 * a21;
+        var det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        var r = 1.0 / det;
+        var d1 = cOff + ldc;
+        var d2 = d1 + ldc;
+        var d3 = d2 + ldc;
+        c[cOff] = (a11 * c5 - a12 * c4 + a13 * c3) * r;
+        c[cOff + 1] = (-a01 * c5 + a02 * c4 - a03 * c3) * r;
+        c[cOff + 2] = (a31 * s5 - a32 * s4 + a33 * s3) * r;
+        c[cOff + 3] = (-a21 * s5 + a22 * s4 - a23 * s3) * r;
+        c[d1] = (-a10 * c5 + a12 * c2 - a13 * c1) * r;
+        c[d1 + 1] = (a00 * c5 - a02 * c2 + a03 * c1) * r;
+        c[d1 + 2] = (-a30 * s5 + a32 * s2 - a33 * s1) * r;
+        c[d1 + 3] = (a20 * s5 - a22 * s2 + a23 * s1) * r;
+        c[d2] = (a10 * c4 - a11 * c2 + a13 * c0) * r;
+        c[d2 + 1] = (-a00 * c4 + a01 * c2 - a03 * c0) * r;
+        c[d2 + 2] = (a30 * s4 - a31 * s2 + a33 * s0) * r;
+        c[d2 + 3] = (-a20 * s4 + a21 * s2 - a23 * s0) * r;
+        c[d3] = (-a10 * c3 + a11 * c1 - a12 * c0) * r;
+        c[d3 + 1] = (a00 * c3 - a01 * c1 + a02 * c0) * r;
+        c[d3 + 2] = (-a30 * s3 + a31 * s1 - a32 * s0) * r;
+        c[d3 + 3] = (a20 * s3 - a21 * s1 + a22 * s0) * r;
+        return det;
+    }
+
+    /**
+     * Ax = b を余因子行列との積で解き、行列式を返す。正則でない場合、xには無限大やNaNが入る。
+     * 成分と右辺を局所変数に読み込んでから計算するため、作業用の配列を作らず、bとxは同じ配列でもよい。
+     */
+    static double solve(int n, double[] a, int off, int ld, double[] b, double[] x) {
+        checkSize(n);
+        if (b.length != n || x.length != n) {
+            throw new IllegalArgumentException("bとxの要素数が行列の大きさ%dと一致しません。b: %d, x: %d".formatted(n, b.length, x.length));
+        }
+        return switch (n) {
+            case 1 -> {
+                x[0] = b[0] / a[off];
+                yield a[off];
+            }
+            case 2 -> solve2(a, off, ld, b, x);
+            case 3 -> solve3(a, off, ld, b, x);
+            default -> solve4(a, off, ld, b, x);
+        };
+    }
+
+    private static double solve2(double[] a, int off, int ld, double[] b, double[] x) {
+        double a00 = a[off], a01 = a[off + 1];
+        double a10 = a[off + ld], a11 = a[off + ld + 1];
+        double b0 = b[0], b1 = b[1];
+        var det = a00 * a11 - a01 * a10;
+        var r = 1.0 / det;
+        x[0] = (a11 * b0 - a01 * b1) * r;
+        x[1] = (a00 * b1 - a10 * b0) * r;
+        return det;
+    }
+
+    /** inverse3の余因子行列の各行とbの内積を取る */
+    private static double solve3(double[] a, int off, int ld, double[] b, double[] x) {
+        var r1 = off + ld;
+        var r2 = r1 + ld;
+        double a00 = a[off], a01 = a[off + 1], a02 = a[off + 2];
+        double a10 = a[r1], a11 = a[r1 + 1], a12 = a[r1 + 2];
+        double a20 = a[r2], a21 = a[r2 + 1], a22 = a[r2 + 2];
+        double b0 = b[0], b1 = b[1], b2 = b[2];
+        var c00 = a11 * a22 - a12 * a21;
+        var c01 = a12 * a20 - a10 * a22;
+        var c02 = a10 * a21 - a11 * a20;
+        var det = a00 * c00 + a01 * c01 + a02 * c02;
+        var r = 1.0 / det;
+        x[0] = (c00 * b0 + (a02 * a21 - a01 * a22) * b1 + (a01 * a12 - a02 * a11) * b2) * r;
+        x[1] = (c01 * b0 + (a00 * a22 - a02 * a20) * b1 + (a02 * a10 - a00 * a12) * b2) * r;
+        x[2] = (c02 * b0 + (a01 * a20 - a00 * a21) * b1 + (a00 * a11 - a01 * a10) * b2) * r;
+        return det;
+    }
+
+    /** inverse4の余因子行列の各行とbの内積を取る */
+    private static double solve4(double[] a, int off, int ld, double[] b, double[] x) {
+        var r1 = off + ld;
+        var r2 = r1 + ld;
+        var r3 = r2 + ld;
+        double a00 = a[off], a01 = a[off + 1], a02 = a[off + 2], a03 = a[off + 3];
+        double a10 = a[r1], a11 = a[r1 + 1], a12 = a[r1 + 2], a13 = a[r1 + 3];
+        double a20 = a[r2], a21 = a[r2 + 1], a22 = a[r2 + 2], a23 = a[r2 + 3];
+        double a30 = a[r3], a31 = a[r3 + 1], a32 = a[r3 + 2], a33 = a[r3 + 3];
+        double b0 = b[0], b1 = b[1], b2 = b[2], b3 = b[3];
+        var s0 = a00 * a11 - a10 * a01;
+        var s1 = a00 * a12 - a10 * a02;
+        var s2 = a00 * a13 - a10 * a03;
+        var s3 = a01 * a12 - a11 * a02;
+        var s4 = a01 * a13 - a11 * a03;
+        var s5 = a02 * a13 - a12 * a03;
+        var c5 = a22 * a33 - a32 * a23;
+        var c4 = a21 * a33 - a31 * a23;
+        var c3 = a21 * a32 - a31 * a22;
+        var c2 = a20 * a33 - a30 * a23;
+        var c1 = a20 * a32 - a30 * a22;
+        var c0 = a20 * a31 - a30 * a21;
+        var det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        var r = 1.0 / det;
+        x[0] = ((a11 * c5 - a12 * c4 + a13 * c3) * b0 + (-a01 * c5 + a02 * c4 - a03 * c3) * b1
+                + (a31 * s5 - a32 * s4 + a33 * s3) * b2 + (-a21 * s5 + a22 * s4 - a23 * s3) * b3) * r;
+        x[1] = ((-a10 * c5 + a12 * c2 - a13 * c1) * b0 + (a00 * c5 - a02 * c2 + a03 * c1) * b1
+                + (-a30 * s5 + a32 * s2 - a33 * s1) * b2 + (a20 * s5 - a22 * s2 + a23 * s1) * b3) * r;
+        x[2] = ((a10 * c4 - a11 * c2 + a13 * c0) * b0 + (-a00 * c4 + a01 * c2 - a03 * c0) * b1
+                + (a30 * s4 - a31 * s2 + a33 * s0) * b2 + (-a20 * s4 + a21 * s2 - a23 * s0) * b3) * r;
+        x[3] = ((-a10 * c3 + a11 * c1 - a12 * c0) * b0 + (a00 * c3 - a01 * c1 + a02 * c0) * b1
+                + (-a30 * s3 + a31 * s1 - a32 * s0) * b2 + (a20 * s3 - a21 * s1 + a22 * s0) * b3) * r;
+        return det;
+    }
+
+    /** n*nの行列の積 C = A * B。Cの各成分はkの昇順に足し込む */
+    static void multiply(int n, double[] a, int aOff, int lda, double[] b, int bOff, int ldb, double[] c, int cOff, int ldc) {
+        checkSize(n);
+        switch (n) {
+            case 1 -> c[cOff] = a[aOff] * b[bOff];
+            case 2 -> multiply2(a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+            case 3 -> multiply3(a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+            default -> multiply4(a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+        }
+    }
+
+    private static void multiply2(double[] a, int aOff, int lda, double[] b, int bOff, int ldb, double[] c, int cOff, int ldc) {
+        double b00 = b[bOff], b01 = b[bOff + 1];
+        double b10 = b[bOff + ldb], b11 = b[bOff + ldb + 1];
+        for (var i = 0; i < 2; i++) {
+            var ai = aOff + i * lda;
+            var ci = cOff + i * ldc;
+            double ai0 = a[ai], ai1 = a[ai + 1];
+            c[ci] = ai0 * b00 + ai1 * b10;
+            c[ci + 1] = ai0 * b01 + ai1 * b11;
+        }
+    }
+
+    private static void multiply3(double[] a, int aOff, int lda, double[] b, int bOff, int ldb, double[] c, int cOff, int ldc) {
+        var b1 = bOff + ldb;
+        var b2 = b1 + ldb;
+        double b00 = b[bOff], b01 = b[bOff + 1], b02 = b[bOff + 2];
+        double b10 = b[b1], b11 = b[b1 + 1], b12 = b[b1 + 2];
+        double b20 = b[b2], b21 = b[b2 + 1], b22 = b[b2 + 2];
+        for (var i = 0; i < 3; i++) {
+            var ai = aOff + i * lda;
+            var ci = cOff + i * ldc;
+            double ai0 = a[ai], ai1 = a[ai + 1], ai2 = a[ai + 2];
+            c[ci] = ai0 * b00 + ai1 * b10 + ai2 * b20;
+            c[ci + 1] = ai0 * b01 + ai1 * b11 + ai2 * b21;
+            c[ci + 2] = ai0 * b02 + ai1 * b12 + ai2 * b22;
+        }
+    }
+
+    private static void multiply4(double[] a, int aOff, int lda, double[] b, int bOff, int ldb, double[] c, int cOff, int ldc) {
+        var b1 = bOff + ldb;
+        var b2 = b1 + ldb;
+        var b3 = b2 + ldb;
+        double b00 = b[bOff], b01 = b[bOff + 1], b02 = b[bOff + 2], b03 = b[bOff + 3];
+        double b10 = b[b1], b11 = b[b1 + 1], b12 = b[b1 + 2], b13 = b[b1 + 3];
+        double b20 = b[b2], b21 = b[b2 + 1], b22 = b[b2 + 2], b23 = b[b2 + 3];
+        double b30 = b[b3], b31 = b[b3 + 1], b32 = b[b3 + 2], b33 = b[b3 + 3];
+        for (var i = 0; i < 4; i++) {
+            var ai = aOff + i * lda;
+            var ci = cOff + i * ldc;
+            double ai0 = a[ai], ai1 = a[ai + 1], ai2 = a[ai + 2], ai3 = a[ai + 3];
+            c[ci] = ai0 * b00 + ai1 * b10 + ai2 * b20 + ai3 * b30;
+            c[ci + 1] = ai0 * b01 + ai1 * b11 + ai2 * b21 + ai3 * b31;
+            c[ci + 2] = ai0 * b02 + ai1 * b12 + ai2 * b22 + ai3 * b32;
+            c[ci + 3] = ai0 * b03 + ai1 * b13 + ai2 * b23 + ai3 * b33;
+        }
+    }
+
+    /** a * b - c * d */
+    private static <T> T cross(Ring<T> ring, T a, T b, T c, T d) {
+        return ring.minus(ring.multiply(a, b), ring.multiply(c, d));
+    }
+
+    /** x * p - y * q + z * s */
+    private static <T> T alternate(Ring<T> ring, T x, T p, T y, T q, T z, T s) {
+        return ring.add(ring.minus(ring.multiply(x, p), ring.multiply(y, q)), ring.multiply(z, s));
+    }
+
+    private static void checkSquare(Object[][] elems) {
+        var n = elems.length;
+        checkSize(n);
+        for (var row : elems) {
+            if (row.length != n) {
+                throw new IllegalArgumentException("正方行列でない場合行列式は定義されません");
+            }
+        }
+    }
+
+    /** 除算を使わないため可換環上でも計算できる */
+    static <T> T determinant(Ring<T> ring, T[][] a) {
+        checkSquare(a);
+        return switch (a.length) {
+            case 1 -> a[0][0];
+            case 2 -> cross(ring, a[0][0], a[1][1], a[0][1], a[1][0]);
+            case 3 -> {
+                T[] a0 = a[0], a1 = a[1], a2 = a[2];
+                yield alternate(ring,
+                        a0[0], cross(ring, a1[1], a2[2], a1[2], a2[1]),
+                        a0[1], cross(ring, a1[0], a2[2], a1[2], a2[0]),
+                        a0[2], cross(ring, a1[0], a2[1], a1[1], a2[0]));
+            }
+            default -> {
+                var m = minors4(ring, a);
+                yield ring.add(alternate(ring, m[0], m[11], m[1], m[10], m[2], m[9]),
+                        alternate(ring, m[3], m[8], m[4], m[7], m[5], m[6]));
+            }
+        };
+    }
+
+    /** 4*4の行列の上の2行の小行列式 s0..s5 と下の2行の小行列式 c0..c5 を [s0, ..., s5, c0, ..., c5] の順に返す */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] minors4(Ring<T> ring, T[][] a) {
+        T[] a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3];
+        return (T[]) new Object[] {
+                cross(ring, a0[0], a1[1], a1[0], a0[1]),
+                cross(ring, a0[0], a1[2], a1[0], a0[2]),
+                cross(ring, a0[0], a1[3], a1[0], a0[3]),
+                cross(ring, a0[1], a1[2], a1[1], a0[2]),
+                cross(ring, a0[1], a1[3], a1[1], a0[3]),
+                cross(ring, a0[2], a1[3], a1[2], a0[3]),
+                cross(ring, a2[0], a3[1], a3[0], a2[1]),
+                cross(ring, a2[0], a3[2], a3[0], a2[2]),
+                cross(ring, a2[0], a3[3], a3[0], a2[3]),
+                cross(ring, a2[1], a3[2], a3[1], a2[2]),
+                cross(ring, a2[1], a3[3], a3[1], a2[3]),
+                cross(ring, a2[2], a3[3], a3[2], a2[3]),
+        };
+    }
+
+    /** xがaddZeroと等しいかどうか。doubleの-0.0も0として扱う */
+    static <T> boolean isZero(Ring<T> ring, T x) {
+        var zero = ring.addZero();
+        return zero.equals(x) || zero.equals(ring.addInverse(x));
+    }
+
+    /**
+     * 余因子行列(随伴行列)をcに書き込み、行列式を返す。cはaと異なる配列である必要がある。
+     * 除算を使わないため可換環上でも計算できる。行列式が0でなければ、cを行列式で割ったものが逆行列である。
+     */
+    static <T> T adjugate(Ring<T> ring, T[][] a, T[][] c) {
+        checkSquare(a);
+        var n = a.length;
+        T det;
+        switch (n) {
+            case 1 -> {
+                det = a[0][0];
+                c[0][0] = ring.mulZero();
+            }
+            case 2 -> {
+                det = cross(ring, a[0][0], a[1][1], a[0][1], a[1][0]);
+                c[0][0] = a[1][1];
+                c[0][1] = ring.addInverse(a[0][1]);
+                c[1][0] = ring.addInverse(a[1][0]);
+                c[1][1] = a[0][0];
+            }
+            case 3 -> {
+                T[] a0 = a[0], a1 = a[1], a2 = a[2];
+                var c00 = cross(ring, a1[1], a2[2], a1[2], a2[1]);
+                var c01 = cross(ring, a1[2], a2[0], a1[0], a2[2]);
+                var c02 = cross(ring, a1[0], a2[1], a1[1], a2[0]);
+                det = ring.add(ring.add(ring.multiply(a0[0], c00), ring.multiply(a0[1], c01)), ring.multiply(a0[2], c02));
+                c[0][0] = c00;
+                c[0][1] = cross(ring, a0[2], a2[1], a0[1], a2[2]);
+                c[0][2] = cross(ring, a0[1], a1[2], a0[2], a1[1]);
+                c[1][0] = c01;
+                c[1][1] = cross(ring, a0[0], a2[2], a0[2], a2[0]);
+                c[1][2] = cross(ring, a0[2], a1[0], a0[0], a1[2]);
+                c[2][0] = c02;
+                c[2][1] = cross(ring, a0[1], a2[0], a0[0], a2[1]);
+                c[2][2] = cross(ring, a0[0], a1[1], a0[1], a1[0]);
+            }
+            default -> {
+                T[] a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3];
+                var m = minors4(ring, a);
+                T s0 = m[0], s1 = m[1], s2 = m[2], s3 = m[3], s4 = m[4], s5 = m[5];
+                T c0 = m[6], c1 = m[7], c2 = m[8], c3 = m[9], c4 = m[10], c5 = m[11];
+                det = ring.add(alternate(ring, s0, c5, s1, c4, s2, c3), alternate(ring, s3, c2, s4, c1, s5, c0));
+                c[0][0] = alternate(ring, a1[1], c5, a1[2], c4, a1[3], c3);
+                c[0][1] = ring.addInverse(alternate(ring, a0[1], c5, a0[2], c4, a0[3], c3));
+                c[0][2] = alternate(ring, a3[1], s5, a3[2], s4, a3[3], s3);
+                c[0][3] = ring.addInverse(alternate(ring, a2[1], s5, a2[2], s4, a2[3], s3));
+                c[1][0] = ring.addInverse(alternate(ring, a1[0], c5, a1[2], c2, a1[3], c1));
+                c[1][1] = alternate(ring, a0[0], c5, a0[2], c2, a0[3], c1);
+                c[1][2] = ring.addInverse(alternate(ring, a3[0], s5, a3[2], s2, a3[3], s1));
+                c[1][3] = alternate(ring, a2[0], s5, a2[2], s2, a2[3], s1);
+                c[2][0] = alternate(ring, a1[0], c4, a1[1], c2, a1[3], c0);
+                c[2][1] = ring.addInverse(alternate(ring, a0[0], c4, a0[1], c2, a0[3], c0));
+                c[2][2] = alternate(ring, a3[0], s4, a3[1], s2, a3[3], s0);
+                c[2][3] = ring.addInverse(alternate(ring, a2[0], s4, a2[1], s2, a2[3], s0));
+                c[3][0] = ring.addInverse(alternate(ring, a1[0], c3, a1[1], c1, a1[2], c0));
+                c[3][1] = alternate(ring, a0[0], c3, a0[1], c1, a0[2], c0);
+                c[3][2] = ring.addInverse(alternate(ring, a3[0], s3, a3[1], s1, a3[2], s0));
+                c[3][3] = alternate(ring, a2[0], s3, a2[1], s1, a2[2], s0);
+            }
+        }
+        return det;
+    }
+
+    /**
+     * 余因子行列を行列式で割って逆行列を求め、cに書き込む。cはaと異なる配列である必要がある。
+     * 正則でない場合の結果はfield.mulInverseに従う(Rationalでは例外を投げ、doubleでは無限大やNaNになる)。
+     */
+    static <T> void inverse(Field<T> field, T[][] a, T[][] c) {
+        var n = a.length;
+        var r = field.mulInverse(adjugate(field, a, c));
+        for (var row : c) {
+            for (var j = 0; j < n; j++) {
+                row[j] = field.multiply(row[j], r);
+            }
+        }
+    }
+
+    /** Ax = b を余因子行列との積で解く。bは書き換えない。正則でない(行列式が0)場合は空を返す */
+    static <T> Optional<List<T>> solve(Field<T> field, T[][] a, List<T> b) {
+        var n = a.length;
+        if (b.size() != n) {
+            throw new IllegalArgumentException("bの要素数%dが行列の大きさ%dと一致しません".formatted(b.size(), n));
+        }
+        @SuppressWarnings("unchecked")
+        var adjugate = (T[][]) new Object[n][n];
+        var det = adjugate(field, a, adjugate);
+        if (isZero(field, det)) {
+            return Optional.empty();
+        }
+        var r = field.mulInverse(det);
+        var x = new ArrayList<T>(n);
+        for (var row : adjugate) {
+            var acc = field.multiply(row[0], b.get(0));
+            for (var j = 1; j < n; j++) {
+                acc = field.add(acc, field.multiply(row[j], b.get(j)));
+            }
+            x.add(field.multiply(acc, r));
+        }
+        return Optional.of(x);
+    }
+
+    /**
+     * n*nの行列の積 C = A * B。Cの各成分はGemmと同じくaddZeroから始めてkの昇順に足し込むため、結果はGemmと一致する。
+     * ループの回数が定数になるよう、大きさごとに分けて計算する。
+     */
+    static <T> void multiply(Ring<T> ring, T[][] a, T[][] b, T[][] c) {
+        var n = a.length;
+        checkSize(n);
+        switch (n) {
+            case 1 -> multiply(ring, a, b, c, 1);
+            case 2 -> multiply(ring, a, b, c, 2);
+            case 3 -> multiply(ring, a, b, c, 3);
+            default -> multiply(ring, a, b, c, 4);
+        }
+    }
+
+    private static <T> void multiply(Ring<T> ring, T[][] a, T[][] b, T[][] c, int n) {
+        var zero = ring.addZero();
+        for (var i = 0; i < n; i++) {
+            var ai = a[i];
+            var ci = c[i];
+            for (var j = 0; j < n; j++) {
+                var acc = zero;
+                for (var p = 0; p < n; p++) {
+                    acc = ring.add(acc, ring.multiply(ai[p], b[p][j]));
+                }
+                ci[j] = acc;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package math.matrix;
+
+import java.util.Arrays;
+
+/**
+ * CSR形式とCSC形式に共通する処理。
+ * CSC形式のm行n列の行列は、CSR形式のn行m列の転置行列と同じ配列で表されるため、
+ * 処理は全て「ptrで区切られた行ごとに、idxとvaluesが並ぶ」圧縮形式に対して書く。
+ */
+final class Sparse {
+
+    private Sparse() {}
+
+    /** ptr, idx, valuesの組 */
+    record Compressed(int[] ptr, int[] idx, double[] values) {}
+
+    /**
+     * rows行cols列の圧縮形式の行列を転置し、cols行rows列の圧縮形式で書き込む。
+     * 出力の各行の添字は昇順になる。
+     */
+    static void transpose(int rows, int cols, int[] ptr, int[] idx, double[] values,
+                          int[] tPtr, int[] tIdx, double[] tValues) {
+        var nnz = ptr[rows];
+        for (var p = 0; p < nnz; p++) {
+            tPtr[idx[p] + 1]++;
+        }
+        for (var j = 0; j < cols; j++) {
+            tPtr[j + 1] += tPtr[j];
+        }
+        var next = Arrays.copyOf(tPtr, cols);
+        for (var i = 0; i < rows; i++) {
+            for (var p = ptr[i]; p < ptr[i + 1]; p++) {
+                var q = next[idx[p]]++;
+                tIdx[q] = i;
+                tValues[q] = values[p];
+            }
+        }
+    }
+
+    /**
+     * 圧縮形式の行列の積 A * B をGustavsonの方法で求める。Aはrows行、Bはcols列とする。
+     * 出力の行ごとに、Aの行の成分でBの行を密な作業配列xに足し込み、現れた添字を昇順に並べてから取り出す。
+     * 途中で打ち消し合って0になった成分も格納する。
+     */
+    static Compressed multiply(int rows, int cols,
+                               int[] aPtr, int[] aIdx, double[] aValues,
+                               int[] bPtr, int[] bIdx, double[] bValues) {
+        var ptr = new int[rows + 1];
+        var idx = new int[Math.max(aPtr[rows], 1)];
+        var out = new double[idx.length];
+        var x = new double[cols];
+        var mark = new int[cols];
+        Arrays.fill(mark, -1);
+        var nnz = 0;
+        for (var i = 0; i < rows; i++) {
+            var rowStart = nnz;
+            for (var p = aPtr[i]; p < aPtr[i + 1]; p++) {
+                var k = aIdx[p];
+                var a = aValues[p];
+                for (var q = bPtr[k]; q < bPtr[k + 1]; q++) {
+                    var j = bIdx[q];
+                    if (mark[j] != i) {
+                        mark[j] = i;
+                        x[j] = a * bValues[q];
+                        if (nnz == idx.length) {
+                            idx = Arrays.copyOf(idx, nnz * 2);
+                        }
+                        idx[nnz++] = j;
+                    } else {
+                        x[j] += a * bValues[q];
+                    }
+                }
+            }
+            Arrays.sort(idx, rowStart, nnz);
+            if (out.length < idx.length) {
+                out = Arrays.copyOf(out, idx.length);
+            }
+            for (var p = rowStart; p < nnz; p++) {
+                out[p] = x[idx[p]];
+            }
+            ptr[i + 1] = nnz;
+        }
+        return new Compressed(ptr, Arrays.copyOf(idx, nnz), Arrays.copyOf(out, nnz));
+    }
+
+    static boolean sameEntries(int rows, int[] ptr, int[] idx, double[] values,
+                               int[] thatPtr, int[] thatIdx, double[] thatValues) {
+        if (!Arrays.equals(ptr, 0, rows + 1, thatPtr, 0, rows + 1)) {
+            return false;
+        }
+        var nnz = ptr[rows];
+        for (var p = 0; p < nnz; p++) {
+            if (idx[p] != thatIdx[p] || Double.doubleToLongBits(values[p]) != Double.doubleToLongBits(thatValues[p])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int hashEntries(int rows, int[] ptr, int[] idx, double[] values) {
+        var result = 1;
+        for (var i = 0; i < rows; i++) {
+            for (var p = ptr[i]; p < ptr[i + 1]; p++) {
+                result = 31 * result + i;
+                result = 31 * result + idx[p];
+                result = 31 * result + Double.hashCode(values[p]);
+            }
+        }
+        return result;
+    }
+
+}
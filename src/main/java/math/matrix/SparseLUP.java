@@ -0,0 +1,311 @@
+package math.matrix;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * 正方のCscMatrixのLU分解 PAQ = LU。
+ * 記号分解(analyze)でフィルインを減らす列の順序Qを決め、数値分解(factor)で部分ピボット選択により行の順序Pを決める。
+ * 記号分解は非零パターンだけに依存するため、パターンが同じ行列を繰り返し分解する場合は使い回せる。
+ * 数値分解はGilbert-Peierlsの左方向(left-looking)の方法で、列ごとに疎な三角方程式 Lx = A(:, q[k]) を解く。
+ * 解くのに必要な列は深さ優先探索で求め、触れる成分の個数に比例する手間で計算する。
+ */
+final class SparseLUP {
+
+    /**
+     * 記号分解の結果。列の順序と、分解後の非零成分の個数の見積もりを持つ。
+     * 非零パターンを比較するため、分解した行列のcolPtrとrowIdxを参照する。
+     */
+    static final class Symbolic {
+        final int n;
+        final int[] colPtr;
+        final int[] rowIdx;
+        final int[] q; // k番目に分解する列は元の行列のq[k]列目
+        final int lnz; // Lの非零成分の個数の見積もり
+        final int unz; // Uの非零成分の個数の見積もり
+
+        private Symbolic(int n, int[] colPtr, int[] rowIdx, int[] q, int lnz, int unz) {
+            this.n = n;
+            this.colPtr = colPtr;
+            this.rowIdx = rowIdx;
+            this.q = q;
+            this.lnz = lnz;
+            this.unz = unz;
+        }
+
+        /** matrixの非零パターンがこの記号分解を行った行列と同じかどうか */
+        boolean matches(CscMatrix matrix) {
+            var nnz = colPtr[n];
+            return matrix.m == n && matrix.n == n
+                    && Arrays.equals(colPtr, 0, n + 1, matrix.colPtr, 0, n + 1)
+                    && Arrays.equals(rowIdx, 0, nnz, matrix.rowIdx, 0, nnz);
+        }
+    }
+
+    final int n;
+    final int[] pinv; // 元の行列のi行目は分解後のpinv[i]行目
+    final int[] q;
+    // Lは対角成分の1を各列の先頭に、Uは対角成分を各列の末尾に置く。行番号は分解後の行の番号
+    final int[] lp;
+    final int[] li;
+    final double[] lx;
+    final int[] up;
+    final int[] ui;
+    final double[] ux;
+
+    private SparseLUP(int n, int[] pinv, int[] q, int[] lp, int[] li, double[] lx, int[] up, int[] ui, double[] ux) {
+        this.n = n;
+        this.pinv = pinv;
+        this.q = q;
+        this.lp = lp;
+        this.li = li;
+        this.lx = lx;
+        this.up = up;
+        this.ui = ui;
+        this.ux = ux;
+    }
+
+    /** 列の順序を求める。非零成分の個数は、フィルインを含めてAの4倍と対角成分を見込む */
+    static Symbolic analyze(CscMatrix matrix) {
+        if (matrix.m != matrix.n) {
+            throw new IllegalArgumentException("正方行列でない場合LUP分解はできません");
+        }
+        var n = matrix.n;
+        var q = ColumnOrdering.order(n, n, matrix.colPtr, matrix.rowIdx);
+        var estimate = (int) Math.min(4L * matrix.nonZeros() + n, Integer.MAX_VALUE - 8);
+        return new Symbolic(n, matrix.colPtr, matrix.rowIdx, q, estimate, estimate);
+    }
+
+    /** 記号分解と数値分解を続けて行う。正則でない場合は空を返す */
+    static Optional<SparseLUP> decompose(CscMatrix matrix) {
+        return factor(analyze(matrix), matrix);
+    }
+
+    /**
+     * 記号分解の結果を使って数値分解を行う。matrixの非零パターンは記号分解を行った行列と同じである必要がある。
+     * ピボットは各列で絶対値が最大の成分とする。正則でない場合は空を返す。
+     */
+    static Optional<SparseLUP> factor(Symbolic symbolic, CscMatrix matrix) {
+        if (!symbolic.matches(matrix)) {
+            throw new IllegalArgumentException("行列の非零パターンが記号分解を行った行列と一致しません");
+        }
+        var n = symbolic.n;
+        var q = symbolic.q;
+        var lp = new int[n + 1];
+        var up = new int[n + 1];
+        var li = new int[symbolic.lnz];
+        var lx = new double[symbolic.lnz];
+        var ui = new int[symbolic.unz];
+        var ux = new double[symbolic.unz];
+        var pinv = new int[n];
+        Arrays.fill(pinv, -1);
+
+        var x = new double[n]; // 密な作業配列。解いている列の値を元の行の番号で持つ
+        var xi = new int[n]; // 非零になる行の番号。xi[top..n) を位相順に使う
+        var stack = new int[n];
+        var positions = new int[n];
+        var mark = new int[n];
+        var lnz = 0;
+        var unz = 0;
+        for (var k = 0; k < n; k++) {
+            lp[k] = lnz;
+            up[k] = unz;
+            if (lnz + n > li.length) {
+                li = Arrays.copyOf(li, 2 * li.length + n);
+                lx = Arrays.copyOf(lx, li.length);
+            }
+            if (unz + n > ui.length) {
+                ui = Arrays.copyOf(ui, 2 * ui.length + n);
+                ux = Arrays.copyOf(ux, ui.length);
+            }
+            var col = q[k];
+            var top = reach(matrix, col, lp, li, pinv, xi, stack, positions, mark, k + 1);
+            for (var p = top; p < n; p++) {
+                x[xi[p]] = 0.0;
+            }
+            for (var p = matrix.colPtr[col]; p < matrix.colPtr[col + 1]; p++) {
+                x[matrix.rowIdx[p]] = matrix.values[p];
+            }
+            // Lx = A(:, col) を位相順に解く。Lの行番号はこの時点では元の行の番号
+            for (var p = top; p < n; p++) {
+                var j = xi[p];
+                var jj = pinv[j];
+                if (jj < 0) {
+                    continue;
+                }
+                var xj = x[j];
+                for (var r = lp[jj] + 1; r < lp[jj + 1]; r++) {
+                    x[li[r]] -= lx[r] * xj;
+                }
+            }
+
+            var ipiv = -1;
+            var max = 0.0;
+            for (var p = top; p < n; p++) {
+                var i = xi[p];
+                if (pinv[i] < 0) {
+                    var abs = Math.abs(x[i]);
+                    if (abs > max) {
+                        max = abs;
+                        ipiv = i;
+                    }
+                } else {
+                    ui[unz] = pinv[i];
+                    ux[unz++] = x[i];
+                }
+            }
+            if (ipiv < 0) {
+                return Optional.empty();
+            }
+            var pivot = x[ipiv];
+            ui[unz] = k;
+            ux[unz++] = pivot;
+            pinv[ipiv] = k;
+            li[lnz] = ipiv;
+            lx[lnz++] = 1.0;
+            for (var p = top; p < n; p++) {
+                var i = xi[p];
+                if (pinv[i] < 0) {
+                    li[lnz] = i;
+                    lx[lnz++] = x[i] / pivot;
+                }
+            }
+        }
+        lp[n] = lnz;
+        up[n] = unz;
+        for (var p = 0; p < lnz; p++) {
+            li[p] = pinv[li[p]];
+        }
+        return Optional.of(new SparseLUP(n, pinv, q,
+                lp, Arrays.copyOf(li, lnz), Arrays.copyOf(lx, lnz),
+                up, Arrays.copyOf(ui, unz), Arrays.copyOf(ux, unz)));
+    }
+
+    /**
+     * A(:, col) の非零成分の行から、分解済みのLの列をたどって到達できる行を深さ優先探索で求める。
+     * 到達できる行を位相順に xi[top..n) に書き込み、topを返す。markがstampの行は訪問済みとする。
+     */
+    private static int reach(CscMatrix matrix, int col, int[] lp, int[] li, int[] pinv,
+                             int[] xi, int[] stack, int[] positions, int[] mark, int stamp) {
+        var n = xi.length;
+        var top = n;
+        for (var p = matrix.colPtr[col]; p < matrix.colPtr[col + 1]; p++) {
+            var start = matrix.rowIdx[p];
+            if (mark[start] == stamp) {
+                continue;
+            }
+            var head = 0;
+            stack[0] = start;
+            while (head >= 0) {
+                var j = stack[head];
+                var jj = pinv[j];
+                if (mark[j] != stamp) {
+                    mark[j] = stamp;
+                    positions[head] = jj < 0 ? 0 : lp[jj] + 1;
+                }
+                var end = jj < 0 ? 0 : lp[jj + 1];
+                var done = true;
+                for (var r = positions[head]; r < end; r++) {
+                    var i = li[r];
+                    if (mark[i] != stamp) {
+                        positions[head] = r + 1;
+                        stack[++head] = i;
+                        done = false;
+                        break;
+                    }
+                }
+                if (done) {
+                    head--;
+                    xi[--top] = j;
+                }
+            }
+        }
+        return top;
+    }
+
+    int size() {
+        return n;
+    }
+
+    /** 下三角行列。対角成分は全て1とする */
+    CscMatrix l() {
+        return sorted(lp, li, lx);
+    }
+
+    /** 上三角行列 */
+    CscMatrix u() {
+        return sorted(up, ui, ux);
+    }
+
+    /** 分解中に位相順で並んだ各列の行番号を昇順に並べ直す */
+    private CscMatrix sorted(int[] ptr, int[] idx, double[] values) {
+        // 2回転置すると各列の行番号が昇順になる
+        var t = new Sparse.Compressed(new int[n + 1], new int[idx.length], new double[idx.length]);
+        Sparse.transpose(n, n, ptr, idx, values, t.ptr(), t.idx(), t.values());
+        var s = new Sparse.Compressed(new int[n + 1], new int[idx.length], new double[idx.length]);
+        Sparse.transpose(n, n, t.ptr(), t.idx(), t.values(), s.ptr(), s.idx(), s.values());
+        return new CscMatrix(n, n, s.ptr(), s.idx(), s.values());
+    }
+
+    /** Ax = b を解く。bは書き換えない */
+    double[] solve(double[] b) {
+        if (b.length != n) {
+            throw new IllegalArgumentException("bの要素数%dが行列の大きさ%dと一致しません".formatted(b.length, n));
+        }
+        var y = new double[n];
+        for (var i = 0; i < n; i++) {
+            y[pinv[i]] = b[i];
+        }
+        // Lz = Pb
+        for (var j = 0; j < n; j++) {
+            var yj = y[j];
+            for (var p = lp[j] + 1; p < lp[j + 1]; p++) {
+                y[li[p]] -= lx[p] * yj;
+            }
+        }
+        // Uw = z
+        for (var j = n - 1; j >= 0; j--) {
+            var diagonal = up[j + 1] - 1;
+            var yj = y[j] / ux[diagonal];
+            y[j] = yj;
+            for (var p = up[j]; p < diagonal; p++) {
+                y[ui[p]] -= ux[p] * yj;
+            }
+        }
+        // x = Qw
+        var x = new double[n];
+        for (var k = 0; k < n; k++) {
+            x[q[k]] = y[k];
+        }
+        return x;
+    }
+
+    double determinant() {
+        var det = sign(pinv) * sign(q);
+        for (var j = 0; j < n; j++) {
+            det *= ux[up[j + 1] - 1];
+        }
+        return det;
+    }
+
+    /** 置換の符号。巡回置換に分解して、偶数の長さの巡回の個数から求める */
+    private static double sign(int[] permutation) {
+        var visited = new boolean[permutation.length];
+        var sign = 1.0;
+        for (var i = 0; i < permutation.length; i++) {
+            if (visited[i]) {
+                continue;
+            }
+            var length = 0;
+            for (var j = i; !visited[j]; j = permutation[j]) {
+                visited[j] = true;
+                length++;
+            }
+            if (length % 2 == 0) {
+                sign = -sign;
+            }
+        }
+        return sign;
+    }
+
+}
@@ -0,0 +1,173 @@
+package math.matrix;
+
+import math.numbers.Field;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Strassen-Winogradの方法による正方行列の積。
+ * 7回の積と15回の和で2*2のブロック行列の積を求め、crossover以下の大きさになったらGemmのブロック化した積に切り替える。
+ * 加減乗算しか用いないため、RationalのようにFieldの演算が正確であれば結果も正確である。
+ */
+final class Strassen {
+
+    private Strassen() {}
+
+    /** この大きさ以下の行列はGemmで計算する。システムプロパティ math.matrix.strassen.crossover で上書きできる */
+    static final int CROSSOVER = Integer.getInteger("math.matrix.strassen.crossover", 128);
+
+    /** m*kとk*nの行列の積にStrassenの方法を用いるか */
+    static boolean applies(int m, int n, int k, int crossover) {
+        return m == n && n == k && n > crossover;
+    }
+
+    /**
+     * Matrix.multiplyで自動的にStrassenの方法を選ぶか。演算の順序が変わるため、fieldの演算が正確な場合に限る。
+     * 浮動小数点数の誤差の上界はGemmより大きくなるため、用いる場合はmultiplyを直接呼ぶ。
+     */
+    static boolean applies(Field<?> field, int m, int n, int k) {
+        return field.isExact() && applies(m, n, k, CROSSOVER);
+    }
+
+    static <T> T[][] multiply(Field<T> field, T[][] a, T[][] b, Parallelism parallelism) {
+        return multiply(field, a, b, CROSSOVER, parallelism);
+    }
+
+    static <T> T[][] multiply(Field<T> field, T[][] a, T[][] b, int crossover, Parallelism parallelism) {
+        if (a.length != a[0].length || b.length != b[0].length || a.length != b.length) {
+            throw new IllegalArgumentException("Strassenの方法は同じ大きさの正方行列にのみ適用できます");
+        }
+        if (crossover < 1) {
+            throw new IllegalArgumentException("crossoverは1以上である必要があります。crossover: %d".formatted(crossover));
+        }
+        var task = new Product<>(field, a, b, crossover, parallelism);
+        if (parallelism.pool == null) {
+            return task.compute();
+        }
+        return parallelism.pool.invoke(task);
+    }
+
+    @SuppressWarnings("serial") // タスクを直列化することはない
+    private static final class Product<T> extends RecursiveTask<T[][]> {
+        private final Field<T> field;
+        private final T[][] a;
+        private final T[][] b;
+        private final int crossover;
+        private final Parallelism parallelism;
+
+        Product(Field<T> field, T[][] a, T[][] b, int crossover, Parallelism parallelism) {
+            this.field = field;
+            this.a = a;
+            this.b = b;
+            this.crossover = crossover;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        protected T[][] compute() {
+            var n = a.length;
+            if (n <= crossover) {
+                var c = (T[][]) new Object[n][n];
+                Gemm.multiply(field, a, b, c);
+                return c;
+            }
+            // 奇数の場合は0を補って半分の大きさに切り上げる
+            var h = (n + 1) / 2;
+            var a11 = block(a, 0, 0, h);
+            var a12 = block(a, 0, h, h);
+            var a21 = block(a, h, 0, h);
+            var a22 = block(a, h, h, h);
+            var b11 = block(b, 0, 0, h);
+            var b12 = block(b, 0, h, h);
+            var b21 = block(b, h, 0, h);
+            var b22 = block(b, h, h, h);
+
+            var s1 = add(a21, a22);
+            var s2 = minus(s1, a11);
+            var s3 = minus(a11, a21);
+            var s4 = minus(a12, s2);
+            var t1 = minus(b12, b11);
+            var t2 = minus(b22, t1);
+            var t3 = minus(b22, b12);
+            var t4 = minus(t2, b21);
+
+            var products = List.of(
+                    new Product<>(field, a11, b11, crossover, parallelism),
+                    new Product<>(field, a12, b21, crossover, parallelism),
+                    new Product<>(field, s4, b22, crossover, parallelism),
+                    new Product<>(field, a22, t4, crossover, parallelism),
+                    new Product<>(field, s1, t1, crossover, parallelism),
+                    new Product<>(field, s2, t2, crossover, parallelism),
+                    new Product<>(field, s3, t3, crossover, parallelism));
+            // 小さな積は分割せず、このスレッドで順に計算する
+            var parallel = parallelism.pool != null && (long) h * h * h > parallelism.cutoff;
+            if (parallel) {
+                ForkJoinTask.invokeAll(products);
+            }
+            var m = products.stream().map(p -> parallel ? p.join() : p.compute()).toList();
+
+            var u1 = add(m.get(0), m.get(1));
+            var u2 = add(m.get(0), m.get(5));
+            var u3 = add(u2, m.get(6));
+            var u4 = add(u2, m.get(4));
+            var u5 = add(u4, m.get(2));
+            var u6 = minus(u3, m.get(3));
+            var u7 = add(u3, m.get(4));
+
+            var c = (T[][]) new Object[n][n];
+            put(c, u1, 0, 0);
+            put(c, u5, 0, h);
+            put(c, u6, h, 0);
+            put(c, u7, h, h);
+            return c;
+        }
+
+        /** (row, col)から始まるh*hのブロックを取り出す。はみ出した部分は0とする */
+        private T[][] block(T[][] x, int row, int col, int h) {
+            var n = x.length;
+            var zero = field.addZero();
+            var result = (T[][]) new Object[h][h];
+            for (var i = 0; i < h; i++) {
+                for (var j = 0; j < h; j++) {
+                    result[i][j] = row + i < n && col + j < n ? x[row + i][col + j] : zero;
+                }
+            }
+            return result;
+        }
+
+        /** ブロックxを(row, col)の位置に書き込む。はみ出した部分は捨てる */
+        private static <T> void put(T[][] c, T[][] x, int row, int col) {
+            var n = c.length;
+            for (var i = 0; i < x.length && row + i < n; i++) {
+                for (var j = 0; j < x.length && col + j < n; j++) {
+                    c[row + i][col + j] = x[i][j];
+                }
+            }
+        }
+
+        private T[][] add(T[][] x, T[][] y) {
+            var h = x.length;
+            var result = (T[][]) new Object[h][h];
+            for (var i = 0; i < h; i++) {
+                for (var j = 0; j < h; j++) {
+                    result[i][j] = field.add(x[i][j], y[i][j]);
+                }
+            }
+            return result;
+        }
+
+        private T[][] minus(T[][] x, T[][] y) {
+            var h = x.length;
+            var result = (T[][]) new Object[h][h];
+            for (var i = 0; i < h; i++) {
+                for (var j = 0; j < h; j++) {
+                    result[i][j] = field.minus(x[i][j], y[i][j]);
+                }
+            }
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package math.matrix;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import static math.matrix.Gemm.MR;
+import static math.matrix.Gemm.NR;
+
+/**
+ * Vector APIを用いた実装。積和はFMAで計算するため、スカラー版とは丸め誤差の分だけ結果が異なる。
+ * 端数の要素もMath.fmaで計算し、配列上の位置によって丸め方が変わらないようにする。
+ */
+final class VectorDoubleKernel implements DoubleKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /** マイクロカーネルではBのパネルの1行(NR個)を1本のベクトルとして扱う */
+    private static final VectorSpecies<Double> TILE = DoubleVector.SPECIES_256;
+
+    /** 256bit以上のSIMD命令がなければ、Vector APIはスカラー版より遅くなる */
+    static boolean isSupported() {
+        return SPECIES.vectorBitSize() >= 256 && TILE.length() == NR;
+    }
+
+    @Override
+    public void axpy(int length, double alpha, double[] x, int xOff, double[] y, int yOff) {
+        var i = 0;
+        var bound = SPECIES.loopBound(length);
+        var alphaVector = DoubleVector.broadcast(SPECIES, alpha);
+        for (; i < bound; i += SPECIES.length()) {
+            var xv = DoubleVector.fromArray(SPECIES, x, xOff + i);
+            var yv = DoubleVector.fromArray(SPECIES, y, yOff + i);
+            xv.fma(alphaVector, yv).intoArray(y, yOff + i);
+        }
+        for (; i < length; i++) {
+            y[yOff + i] = Math.fma(x[xOff + i], alpha, y[yOff + i]);
+        }
+    }
+
+    @Override
+    public void add(int length, double[] x, int xOff, double[] y, int yOff, double[] z, int zOff) {
+        var i = 0;
+        var bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            var xv = DoubleVector.fromArray(SPECIES, x, xOff + i);
+            var yv = DoubleVector.fromArray(SPECIES, y, yOff + i);
+            xv.add(yv).intoArray(z, zOff + i);
+        }
+        for (; i < length; i++) {
+            z[zOff + i] = x[xOff + i] + y[yOff + i];
+        }
+    }
+
+    @Override
+    public void scale(int length, double alpha, double[] x, int xOff, double[] z, int zOff) {
+        var i = 0;
+        var bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, x, xOff + i).mul(alpha).intoArray(z, zOff + i);
+        }
+        for (; i < length; i++) {
+            z[zOff + i] = x[xOff + i] * alpha;
+        }
+    }
+
+    @Override
+    public void subtractProduct(int length, double[] x, int xOff, double[] y, int yOff, double[] z, int zOff) {
+        var i = 0;
+        var bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            var xv = DoubleVector.fromArray(SPECIES, x, xOff + i);
+            var yv = DoubleVector.fromArray(SPECIES, y, yOff + i);
+            var zv = DoubleVector.fromArray(SPECIES, z, zOff + i);
+            xv.neg().fma(yv, zv).intoArray(z, zOff + i);
+        }
+        for (; i < length; i++) {
+            z[zOff + i] = Math.fma(-x[xOff + i], y[yOff + i], z[zOff + i]);
+        }
+    }
+
+    /** Cのタイルの各行を1本のベクトルに蓄積し、Aの成分をブロードキャストしてFMAで足し込む */
+    @Override
+    public void microKernel(int kb, double[] a, int aIndex, double[] b, int bIndex,
+                            double[] c, int cOff, int ldc, int rows, int cols) {
+        var c0 = DoubleVector.zero(TILE);
+        var c1 = DoubleVector.zero(TILE);
+        var c2 = DoubleVector.zero(TILE);
+        var c3 = DoubleVector.zero(TILE);
+        for (var p = 0; p < kb; p++) {
+            var bv = DoubleVector.fromArray(TILE, b, bIndex);
+            c0 = DoubleVector.broadcast(TILE, a[aIndex]).fma(bv, c0);
+            c1 = DoubleVector.broadcast(TILE, a[aIndex + 1]).fma(bv, c1);
+            c2 = DoubleVector.broadcast(TILE, a[aIndex + 2]).fma(bv, c2);
+            c3 = DoubleVector.broadcast(TILE, a[aIndex + 3]).fma(bv, c3);
+            aIndex += MR;
+            bIndex += NR;
+        }
+        if (rows == MR && cols == NR) {
+            var r = cOff;
+            c0.add(DoubleVector.fromArray(TILE, c, r)).intoArray(c, r);
+            r += ldc;
+            c1.add(DoubleVector.fromArray(TILE, c, r)).intoArray(c, r);
+            r += ldc;
+            c2.add(DoubleVector.fromArray(TILE, c, r)).intoArray(c, r);
+            r += ldc;
+            c3.add(DoubleVector.fromArray(TILE, c, r)).intoArray(c, r);
+        } else {
+            // 端のタイルは有効な列だけをマスクして、有効な行だけを書き戻す。作業用の配列は作らない
+            var mask = TILE.indexInRange(0, cols);
+            var r = cOff;
+            c0.add(DoubleVector.fromArray(TILE, c, r, mask)).intoArray(c, r, mask);
+            if (rows > 1) {
+                r += ldc;
+                c1.add(DoubleVector.fromArray(TILE, c, r, mask)).intoArray(c, r, mask);
+            }
+            if (rows > 2) {
+                r += ldc;
+                c2.add(DoubleVector.fromArray(TILE, c, r, mask)).intoArray(c, r, mask);
+            }
+            if (rows > 3) {
+                r += ldc;
+                c3.add(DoubleVector.fromArray(TILE, c, r, mask)).intoArray(c, r, mask);
+            }
+        }
+    }
+
+}
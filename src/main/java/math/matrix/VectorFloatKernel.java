@@ -0,0 +1,84 @@
+package math.matrix;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import static math.matrix.Gemm.FLOAT_NR;
+import static math.matrix.Gemm.MR;
+
+/**
+ * Vector APIを用いた実装。VectorDoubleKernelと同じく積和はFMAで計算し、端数の要素もMath.fmaで計算する。
+ */
+final class VectorFloatKernel implements FloatKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    /** マイクロカーネルではBのパネルの1行(FLOAT_NR個)を1本のベクトルとして扱う */
+    private static final VectorSpecies<Float> TILE = FloatVector.SPECIES_256;
+
+    /** 256bit以上のSIMD命令がなければ、Vector APIはスカラー版より遅くなる */
+    static boolean isSupported() {
+        return SPECIES.vectorBitSize() >= 256 && TILE.length() == FLOAT_NR;
+    }
+
+    @Override
+    public void axpy(int length, float alpha, float[] x, int xOff, float[] y, int yOff) {
+        var i = 0;
+        var bound = SPECIES.loopBound(length);
+        var alphaVector = FloatVector.broadcast(SPECIES, alpha);
+        for (; i < bound; i += SPECIES.length()) {
+            var xv = FloatVector.fromArray(SPECIES, x, xOff + i);
+            var yv = FloatVector.fromArray(SPECIES, y, yOff + i);
+            xv.fma(alphaVector, yv).intoArray(y, yOff + i);
+        }
+        for (; i < length; i++) {
+            y[yOff + i] = Math.fma(x[xOff + i], alpha, y[yOff + i]);
+        }
+    }
+
+    /** Cのタイルの各行を1本のベクトルに蓄積し、Aの成分をブロードキャストしてFMAで足し込む */
+    @Override
+    public void microKernel(int kb, float[] a, int aIndex, float[] b, int bIndex,
+                            float[] c, int cOff, int ldc, int rows, int cols) {
+        var c0 = FloatVector.zero(TILE);
+        var c1 = FloatVector.zero(TILE);
+        var c2 = FloatVector.zero(TILE);
+        var c3 = FloatVector.zero(TILE);
+        for (var p = 0; p < kb; p++) {
+            var bv = FloatVector.fromArray(TILE, b, bIndex);
+            c0 = FloatVector.broadcast(TILE, a[aIndex]).fma(bv, c0);
+            c1 = FloatVector.broadcast(TILE, a[aIndex + 1]).fma(bv, c1);
+            c2 = FloatVector.broadcast(TILE, a[aIndex + 2]).fma(bv, c2);
+            c3 = FloatVector.broadcast(TILE, a[aIndex + 3]).fma(bv, c3);
+            aIndex += MR;
+            bIndex += FLOAT_NR;
+        }
+        if (rows == MR && cols == FLOAT_NR) {
+            var r = cOff;
+            c0.add(FloatVector.fromArray(TILE, c, r)).intoArray(c, r);
+            r += ldc;
+            c1.add(FloatVector.fromArray(TILE, c, r)).intoArray(c, r);
+            r += ldc;
+            c2.add(FloatVector.fromArray(TILE, c, r)).intoArray(c, r);
+            r += ldc;
+            c3.add(FloatVector.fromArray(TILE, c, r)).intoArray(c, r);
+        } else {
+            // 端のタイルは有効な列だけをマスクして、有効な行だけを書き戻す
+            var mask = TILE.indexInRange(0, cols);
+            var r = cOff;
+            c0.add(FloatVector.fromArray(TILE, c, r, mask)).intoArray(c, r, mask);
+            if (rows > 1) {
+                r += ldc;
+                c1.add(FloatVector.fromArray(TILE, c, r, mask)).intoArray(c, r, mask);
+            }
+            if (rows > 2) {
+                r += ldc;
+                c2.add(FloatVector.fromArray(TILE, c, r, mask)).intoArray(c, r, mask);
+            }
+            if (rows > 3) {
+                r += ldc;
+                c3.add(FloatVector.fromArray(TILE, c, r, mask)).intoArray(c, r, mask);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package math.numbers;
+
+import java.math.BigInteger;
+import java.util.Comparator;
+
+public class BigIntegerInstances {
+
+    public static IntegralDomain<BigInteger> domain = new IntegralDomain<>() {
+        @Override
+        public BigInteger addZero() {
+            return BigInteger.ZERO;
+        }
+
+        @Override
+        public BigInteger mulZero() {
+            return BigInteger.ONE;
+        }
+
+        @Override
+        public boolean isExact() {
+            return true;
+        }
+
+        @Override
+        public BigInteger add(BigInteger a, BigInteger b) {
+            return a.add(b);
+        }
+
+        @Override
+        public BigInteger multiply(BigInteger a, BigInteger b) {
+            return a.multiply(b);
+        }
+
+        @Override
+        public BigInteger addInverse(BigInteger a) {
+            return a.negate();
+        }
+
+        @Override
+        public BigInteger minus(BigInteger a, BigInteger b) {
+            return a.subtract(b);
+        }
+
+        @Override
+        public BigInteger exactDiv(BigInteger a, BigInteger b) throws ArithmeticException {
+            return a.divide(b);
+        }
+    };
+
+    public static Distance<BigInteger> distance = new Distance<>() {
+        @Override
+        public BigInteger calc(BigInteger a, BigInteger b) {
+            return a.subtract(b).abs();
+        }
+    };
+
+    public static Comparator<BigInteger> comparator = new Comparator<BigInteger>() {
+        @Override
+        public int compare(BigInteger o1, BigInteger o2) {
+            return o1.compareTo(o2);
+        }
+    };
+
+}
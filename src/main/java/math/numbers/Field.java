@@ -1,22 +1,16 @@
 package math.numbers;
 
-public interface Field<T> {
+public interface Field<T> extends IntegralDomain<T> {
 
-    T addZero();
-    T mulZero();
-
-    T add(T a, T b);
-    T multiply(T a, T b);
-
-    T addInverse(T a);
     T mulInverse(T a) throws ArithmeticException;
 
-    default T minus(T a, T b) {
-        return add(a, addInverse(b));
-    }
-
     default T div(T a, T b) {
         return multiply(a, mulInverse(b));
     }
 
+    @Override
+    default T exactDiv(T a, T b) {
+        return div(a, b);
+    }
+
 }
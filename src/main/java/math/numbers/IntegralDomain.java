@@ -0,0 +1,9 @@
+package math.numbers;
+
+/** 整域。割り切れることがわかっている場合の除算を持つ */
+public interface IntegralDomain<T> extends Ring<T> {
+
+    /** aがbで割り切れる場合に a / b を返す。割り切れない場合の結果は定めない */
+    T exactDiv(T a, T b) throws ArithmeticException;
+
+}
@@ -0,0 +1,159 @@
+package math.numbers;
+
+import java.math.BigInteger;
+
+/**
+ * 素数pを法とする剰余体 Z/pZ。pは 2 < p < 2^62 の奇素数とする。
+ * Field&lt;Long&gt;としての演算のほかに、ボクシングしないlongの演算を持つ。
+ * longの演算は引数が0以上p未満であることを前提とし、確かめない。
+ * Field&lt;Long&gt;の演算は任意のLongを受け取り、範囲外の値(負の値やp以上の値)はpで簡約してから計算する。結果は常に0以上p未満である。
+ * 乗算はMontgomery乗算(R = 2^64)で行い、除算命令を使わない。
+ */
+public final class ModularField implements Field<Long> {
+
+    public final long p;
+    private final long pInv; // -p^-1 mod 2^64
+    private final long r2; // R^2 mod p
+    private final long one; // Montgomery表現の1 (R mod p)
+
+    public ModularField(long p) {
+        if (p <= 2 || p >= 1L << 62 || (p & 1) == 0) {
+            throw new IllegalArgumentException("法は 2 < p < 2^62 の奇素数である必要があります。p: %d".formatted(p));
+        }
+        this.p = p;
+        // Newton法で p^-1 mod 2^64 を求める。p * p ≡ 1 (mod 8) なので初期値 p は下位3bitで正しい
+        var inv = p;
+        for (var i = 0; i < 5; i++) {
+            inv *= 2 - p * inv;
+        }
+        this.pInv = -inv;
+        var bigP = BigInteger.valueOf(p);
+        this.r2 = BigInteger.ONE.shiftLeft(128).mod(bigP).longValueExact();
+        this.one = BigInteger.ONE.shiftLeft(64).mod(bigP).longValueExact();
+    }
+
+    /** 0 &lt;= a, b &lt; p に対して a + b mod p */
+    public long addMod(long a, long b) {
+        var s = a + b;
+        return s >= p ? s - p : s;
+    }
+
+    /** 0 &lt;= a, b &lt; p に対して a - b mod p */
+    public long subMod(long a, long b) {
+        var s = a - b;
+        return s < 0 ? s + p : s;
+    }
+
+    /** 0 &lt;= a &lt; p に対して -a mod p */
+    public long negMod(long a) {
+        return a == 0 ? 0 : p - a;
+    }
+
+    /** Montgomery乗算 a * b * R^-1 mod p。0 &lt;= a, b &lt; p とする */
+    public long montMul(long a, long b) {
+        var lo = a * b;
+        var hi = Math.multiplyHigh(a, b);
+        var m = lo * pInv;
+        // (a * b + m * p) / 2^64。下位64bitの和は0になるため、loが0でなければ繰り上がりが1つある
+        var mpHi = Math.multiplyHigh(m, p) + ((m >> 63) & p);
+        var t = hi + mpHi + (lo != 0 ? 1 : 0);
+        return t >= p ? t - p : t;
+    }
+
+    /** 通常の表現からMontgomery表現 a * R mod p に変換する */
+    public long toMontgomery(long a) {
+        return montMul(a, r2);
+    }
+
+    /** Montgomery表現から通常の表現に戻す */
+    public long fromMontgomery(long a) {
+        return montMul(a, 1);
+    }
+
+    /** Montgomery表現の1 */
+    public long montgomeryOne() {
+        return one;
+    }
+
+    /** 通常の表現どうしの a * b mod p */
+    public long mulMod(long a, long b) {
+        return montMul(montMul(a, b), r2);
+    }
+
+    /** 任意のlongを 0 以上 p 未満に簡約する */
+    public long reduce(long a) {
+        var r = a % p;
+        return r < 0 ? r + p : r;
+    }
+
+    public long reduce(BigInteger a) {
+        return a.mod(BigInteger.valueOf(p)).longValue();
+    }
+
+    /** Montgomery表現のaの逆元をMontgomery表現で返す。フェルマーの小定理 a^(p-2) による */
+    public long montInverse(long a) {
+        if (a == 0) {
+            throw new ArithmeticException("0の逆元はありません");
+        }
+        var result = one;
+        var base = a;
+        for (var e = p - 2; e > 0; e >>= 1) {
+            if ((e & 1) == 1) {
+                result = montMul(result, base);
+            }
+            base = montMul(base, base);
+        }
+        return result;
+    }
+
+    /** 0以上p未満の値はそのまま返し、それ以外の値だけを簡約する */
+    private long canonical(long a) {
+        return a >= 0 && a < p ? a : reduce(a);
+    }
+
+    /** 通常の表現の逆元 */
+    public long inverseMod(long a) {
+        return fromMontgomery(montInverse(toMontgomery(a)));
+    }
+
+    @Override
+    public Long addZero() {
+        return 0L;
+    }
+
+    @Override
+    public Long mulZero() {
+        return 1L;
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+
+    @Override
+    public Long add(Long a, Long b) {
+        return addMod(canonical(a), canonical(b));
+    }
+
+    @Override
+    public Long multiply(Long a, Long b) {
+        return mulMod(canonical(a), canonical(b));
+    }
+
+    @Override
+    public Long addInverse(Long a) {
+        return negMod(canonical(a));
+    }
+
+    @Override
+    public Long mulInverse(Long a) throws ArithmeticException {
+        return inverseMod(canonical(a));
+    }
+
+    @Override
+    public Long minus(Long a, Long b) {
+        return subMod(canonical(a), canonical(b));
+    }
+
+}
@@ -0,0 +1,202 @@
+package math.numbers;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Field, Distance, Comparatorの演算の呼び出し回数を種類ごとに数える。
+ * field, distance, comparatorで包んだ実装を行列に渡すと、各演算を元の実装に委譲し、回数をLongAdderに加える。
+ * LongAdderはスレッドごとに別のセルへ加算するため、並列に計算する場合も競合しにくい。
+ * timedで作成した場合は、演算ごとの経過時間もSystem.nanoTimeで測る。
+ * 包まない実装には手を加えないため、計測しない場合の負荷はない。
+ * addZeroとmulZeroは定数を返すだけなので数えない。
+ */
+public final class OperationCounts {
+
+    public enum Operation {
+        ADD, MINUS, MULTIPLY, ADD_INVERSE, MUL_INVERSE, DIV, EXACT_DIV, DISTANCE, COMPARE
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final LongAdder[] counts;
+    private final LongAdder[] nanos; // 時間を測らない場合はnull
+
+    /** 回数だけを数える */
+    public OperationCounts() {
+        this(false);
+    }
+
+    private OperationCounts(boolean timed) {
+        this.counts = adders();
+        this.nanos = timed ? adders() : null;
+    }
+
+    /** 回数に加えて経過時間も測る。1回の演算ごとにSystem.nanoTimeを2回呼ぶため、軽い演算では時間が大きめに出る */
+    public static OperationCounts timed() {
+        return new OperationCounts(true);
+    }
+
+    private static LongAdder[] adders() {
+        var adders = new LongAdder[OPERATIONS.length];
+        for (var i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private long start() {
+        return nanos == null ? 0 : System.nanoTime();
+    }
+
+    private void record(Operation operation, long start) {
+        counts[operation.ordinal()].increment();
+        if (nanos != null) {
+            nanos[operation.ordinal()].add(System.nanoTime() - start);
+        }
+    }
+
+    /** fieldの演算を数える実装を返す。div, minus, exactDivはfieldの実装に委譲し、内部で呼ばれる演算は数えない */
+    public <T> Field<T> field(Field<T> field) {
+        return new Field<T>() {
+            @Override
+            public T addZero() {
+                return field.addZero();
+            }
+
+            @Override
+            public T mulZero() {
+                return field.mulZero();
+            }
+
+            @Override
+            public boolean isExact() {
+                return field.isExact();
+            }
+
+            @Override
+            public T add(T a, T b) {
+                var start = start();
+                var result = field.add(a, b);
+                record(Operation.ADD, start);
+                return result;
+            }
+
+            @Override
+            public T multiply(T a, T b) {
+                var start = start();
+                var result = field.multiply(a, b);
+                record(Operation.MULTIPLY, start);
+                return result;
+            }
+
+            @Override
+            public T addInverse(T a) {
+                var start = start();
+                var result = field.addInverse(a);
+                record(Operation.ADD_INVERSE, start);
+                return result;
+            }
+
+            @Override
+            public T minus(T a, T b) {
+                var start = start();
+                var result = field.minus(a, b);
+                record(Operation.MINUS, start);
+                return result;
+            }
+
+            @Override
+            public T mulInverse(T a) throws ArithmeticException {
+                var start = start();
+                var result = field.mulInverse(a);
+                record(Operation.MUL_INVERSE, start);
+                return result;
+            }
+
+            @Override
+            public T div(T a, T b) {
+                var start = start();
+                var result = field.div(a, b);
+                record(Operation.DIV, start);
+                return result;
+            }
+
+            @Override
+            public T exactDiv(T a, T b) {
+                var start = start();
+                var result = field.exactDiv(a, b);
+                record(Operation.EXACT_DIV, start);
+                return result;
+            }
+        };
+    }
+
+    public <T> Distance<T> distance(Distance<T> distance) {
+        return new Distance<T>() {
+            @Override
+            public T calc(T a, T b) {
+                var start = start();
+                var result = distance.calc(a, b);
+                record(Operation.DISTANCE, start);
+                return result;
+            }
+        };
+    }
+
+    public <T> Comparator<T> comparator(Comparator<T> comparator) {
+        return new Comparator<T>() {
+            @Override
+            public int compare(T o1, T o2) {
+                var start = start();
+                var result = comparator.compare(o1, o2);
+                record(Operation.COMPARE, start);
+                return result;
+            }
+        };
+    }
+
+    public long count(Operation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    /** operationにかかった時間の合計(ナノ秒)。timedで作成していない場合は0 */
+    public long nanos(Operation operation) {
+        return nanos == null ? 0 : nanos[operation.ordinal()].sum();
+    }
+
+    /** 全ての種類の回数の合計 */
+    public long total() {
+        var total = 0L;
+        for (var count : counts) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /** 現在の回数を種類ごとに返す。並列に計算している途中で呼んだ場合、各種類の値は同じ時点のものとは限らない */
+    public Map<Operation, Long> snapshot() {
+        var snapshot = new EnumMap<Operation, Long>(Operation.class);
+        for (var operation : OPERATIONS) {
+            snapshot.put(operation, count(operation));
+        }
+        return snapshot;
+    }
+
+    public void reset() {
+        for (var i = 0; i < counts.length; i++) {
+            counts[i].reset();
+            if (nanos != null) {
+                nanos[i].reset();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OperationCounts" + snapshot();
+    }
+
+}
@@ -1,59 +1,216 @@
 package math.numbers;
 
+import java.math.BigInteger;
 import java.util.Comparator;
 import java.util.Objects;
 
+/**
+ * 有理数。常に既約で分母が正の形で保持する。
+ * 分子と分母がlongに収まる間はlongで計算し、演算が桁あふれする場合にだけBigIntegerで計算する。
+ * どちらの表現になるかは値だけで決まる(longに収まる値は必ずlongで保持する)ため、equalsは表現によらない。
+ */
 public class Rational {
 
-    public final long numer;
-    public final long denom;
+    // bigNumerがnullの場合はnumerとdenomが値を表す。そうでない場合はbigNumerとbigDenomが値を表す
+    private final long numer;
+    private final long denom;
+    private final BigInteger bigNumer;
+    private final BigInteger bigDenom;
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
 
     public Rational(long n, long d) {
         if (d == 0) {
             throw new ArithmeticException("denom %d cannot be zero. (%d/%d)".formatted(d, n, d));
         }
-        var g = gcd(Math.abs(n), Math.abs(d));
-        numer = n / g;
-        denom = d / g;
+        if (n == Long.MIN_VALUE || d == Long.MIN_VALUE) {
+            // 絶対値や符号の反転がlongに収まらない
+            var r = new Rational(BigInteger.valueOf(n), BigInteger.valueOf(d));
+            this.numer = r.numer;
+            this.denom = r.denom;
+            this.bigNumer = r.bigNumer;
+            this.bigDenom = r.bigDenom;
+            return;
+        }
+        if (d < 0) {
+            n = -n;
+            d = -d;
+        }
+        var g = gcd(Math.abs(n), d);
+        this.numer = n / g;
+        this.denom = d / g;
+        this.bigNumer = null;
+        this.bigDenom = null;
+    }
+
+    public Rational(BigInteger n, BigInteger d) {
+        if (d.signum() == 0) {
+            throw new ArithmeticException("denom %s cannot be zero. (%s/%s)".formatted(d, n, d));
+        }
+        if (d.signum() < 0) {
+            n = n.negate();
+            d = d.negate();
+        }
+        var g = n.gcd(d);
+        if (!g.equals(BigInteger.ONE)) {
+            n = n.divide(g);
+            d = d.divide(g);
+        }
+        if (fitsLong(n) && fitsLong(d)) {
+            this.numer = n.longValue();
+            this.denom = d.longValue();
+            this.bigNumer = null;
+            this.bigDenom = null;
+        } else {
+            this.numer = 0;
+            this.denom = 1;
+            this.bigNumer = n;
+            this.bigDenom = d;
+        }
+    }
+
+    /** 既約で分母が正であることがわかっているlongの分子と分母から作成する */
+    private Rational(long n, long d, boolean reduced) {
+        this.numer = n;
+        this.denom = d;
+        this.bigNumer = null;
+        this.bigDenom = null;
+    }
+
+    /** Long.MIN_VALUEは符号を反転できないため、longの表現では使わない */
+    private static boolean fitsLong(BigInteger x) {
+        return x.bitLength() < Long.SIZE && !x.equals(LONG_MIN);
     }
 
-    private static Long gcd(long a, long b) {
+    /** 0以上のlongの最大公約数(二進ユークリッド互除法)。両方が0の場合は0を返す */
+    static long gcd(long a, long b) {
+        if (a == 0) {
+            return b;
+        }
         if (b == 0) {
             return a;
-        } else {
-            return gcd(b, a % b);
         }
+        var shift = Long.numberOfTrailingZeros(a | b);
+        a >>= Long.numberOfTrailingZeros(a);
+        do {
+            b >>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                var t = a;
+                a = b;
+                b = t;
+            }
+            b -= a;
+        } while (b != 0);
+        return a << shift;
+    }
+
+    /** 値がBigIntegerで保持されているか */
+    public boolean isBig() {
+        return bigNumer != null;
+    }
+
+    public BigInteger numerator() {
+        return isBig() ? bigNumer : BigInteger.valueOf(numer);
+    }
+
+    /** 常に正 */
+    public BigInteger denominator() {
+        return isBig() ? bigDenom : BigInteger.valueOf(denom);
+    }
+
+    /** longで保持されている分子。isBig()がtrueの場合は例外を投げる */
+    public long longNumerator() {
+        if (isBig()) {
+            throw new ArithmeticException("numerator %s does not fit in long".formatted(bigNumer));
+        }
+        return numer;
+    }
+
+    /** longで保持されている分母。isBig()がtrueの場合は例外を投げる */
+    public long longDenominator() {
+        if (isBig()) {
+            throw new ArithmeticException("denominator %s does not fit in long".formatted(bigDenom));
+        }
+        return denom;
+    }
+
+    public int signum() {
+        return isBig() ? bigNumer.signum() : Long.signum(numer);
     }
 
     public static Field<Rational> field = new Field<>() {
+        private final Rational zero = new Rational(0, 1, true);
+        private final Rational one = new Rational(1, 1, true);
+
         @Override
         public Rational addZero() {
-            return new Rational(0, 1);
+            return zero;
         }
 
         @Override
         public Rational mulZero() {
-            return new Rational(1, 1);
+            return one;
+        }
+
+        @Override
+        public boolean isExact() {
+            return true;
         }
 
         @Override
         public Rational add(Rational a, Rational b) {
-            return new Rational((a.numer * b.denom) + (b.numer * a.denom), a.denom * b.denom);
+            if (!a.isBig() && !b.isBig()) {
+                try {
+                    if (a.denom == b.denom) {
+                        return new Rational(Math.addExact(a.numer, b.numer), a.denom);
+                    }
+                    var n = Math.addExact(Math.multiplyExact(a.numer, b.denom), Math.multiplyExact(b.numer, a.denom));
+                    return new Rational(n, Math.multiplyExact(a.denom, b.denom));
+                } catch (ArithmeticException e) {
+                    // 桁あふれした場合はBigIntegerで計算し直す
+                }
+            }
+            return new Rational(
+                    a.numerator().multiply(b.denominator()).add(b.numerator().multiply(a.denominator())),
+                    a.denominator().multiply(b.denominator()));
         }
 
         @Override
         public Rational multiply(Rational a, Rational b) {
-            return new Rational(a.numer * b.numer, a.denom * b.denom);
+            if (!a.isBig() && !b.isBig()) {
+                // 先に約分しておくと結果は既約になり、桁あふれもしにくい
+                var g1 = gcd(Math.abs(a.numer), b.denom);
+                var g2 = gcd(Math.abs(b.numer), a.denom);
+                try {
+                    var n = Math.multiplyExact(a.numer / g1, b.numer / g2);
+                    var d = Math.multiplyExact(a.denom / g2, b.denom / g1);
+                    if (n != Long.MIN_VALUE) {
+                        return new Rational(n, d, true);
+                    }
+                } catch (ArithmeticException e) {
+                    // 桁あふれした場合はBigIntegerで計算し直す
+                }
+            }
+            return new Rational(a.numerator().multiply(b.numerator()), a.denominator().multiply(b.denominator()));
         }
 
         @Override
         public Rational addInverse(Rational a) {
-            return new Rational(-a.numer, a.denom);
+            if (!a.isBig()) {
+                return new Rational(-a.numer, a.denom, true);
+            }
+            return new Rational(a.bigNumer.negate(), a.bigDenom);
         }
 
         @Override
         public Rational mulInverse(Rational a) throws ArithmeticException {
-            return new Rational(a.denom, a.numer);
+            if (!a.isBig()) {
+                if (a.numer == 0) {
+                    throw new ArithmeticException("denom 0 cannot be zero. (%d/0)".formatted(a.denom));
+                }
+                return a.numer > 0 ? new Rational(a.denom, a.numer, true) : new Rational(-a.denom, -a.numer, true);
+            }
+            return new Rational(a.bigDenom, a.bigNumer);
         }
     };
 
@@ -61,14 +218,26 @@ public class Rational {
         @Override
         public Rational calc(Rational a, Rational b) {
             var d = field.minus(a, b);
-            return new Rational(Math.abs(d.numer), d.denom);
+            return d.signum() < 0 ? field.addInverse(d) : d;
         }
     };
 
     public static Comparator<Rational> comparator = new Comparator<Rational>() {
         @Override
         public int compare(Rational o1, Rational o2) {
-            return Long.compare(o1.numer * o2.denom, o2.numer * o1.denom);
+            if (!o1.isBig() && !o2.isBig()) {
+                if (o1.denom == o2.denom) {
+                    return Long.compare(o1.numer, o2.numer);
+                }
+                var hi1 = Math.multiplyHigh(o1.numer, o2.denom);
+                var hi2 = Math.multiplyHigh(o2.numer, o1.denom);
+                if (hi1 != hi2) {
+                    return Long.compare(hi1, hi2);
+                }
+                // 上位64bitが等しければ下位64bitを符号なしで比較する
+                return Long.compareUnsigned(o1.numer * o2.denom, o2.numer * o1.denom);
+            }
+            return o1.numerator().multiply(o2.denominator()).compareTo(o2.numerator().multiply(o1.denominator()));
         }
     };
 
@@ -77,19 +246,22 @@ public class Rational {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Rational rational = (Rational) o;
+        if (isBig() || rational.isBig()) {
+            return Objects.equals(bigNumer, rational.bigNumer) && Objects.equals(bigDenom, rational.bigDenom);
+        }
         return numer == rational.numer && denom == rational.denom;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(numer, denom);
+        return isBig() ? Objects.hash(bigNumer, bigDenom) : Objects.hash(numer, denom);
     }
 
     @Override
     public String toString() {
         return "Rational{" +
-                "numer=" + numer +
-                ", denom=" + denom +
+                "numer=" + (isBig() ? bigNumer : numer) +
+                ", denom=" + (isBig() ? bigDenom : denom) +
                 '}';
     }
 }
@@ -0,0 +1,26 @@
+package math.numbers;
+
+/** 可換環。乗法の逆元を持たない */
+public interface Ring<T> {
+
+    T addZero();
+    T mulZero();
+
+    T add(T a, T b);
+    T multiply(T a, T b);
+
+    T addInverse(T a);
+
+    default T minus(T a, T b) {
+        return add(a, addInverse(b));
+    }
+
+    /**
+     * 演算が丸めを伴わず正確かどうか。正確であれば、演算の順序を入れ替えるアルゴリズム(Strassenの方法など)でも結果は変わらない。
+     * 浮動小数点数のように丸めを伴う実装を誤って正確として扱わないよう、既定ではfalseを返す。
+     */
+    default boolean isExact() {
+        return false;
+    }
+
+}
@@ -0,0 +1,118 @@
+package math.matrix;
+
+import math.numbers.BigIntegerInstances;
+import math.numbers.Rational;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BareissTest {
+
+    @Test
+    void calcDeterminant() {
+        var matrix = Matrix.of(new double[][] {
+                {1, 1, 1, 1, 1},
+                {1, 2, 2, 2, 2},
+                {1, 2, 3, 3, 3},
+                {1, 2, 3, 4, 4},
+                {1, 2, 3, 4, 5}
+        });
+        assertEquals(1.0, Bareiss.calcDeterminant(matrix));
+    }
+
+    @Test
+    void calcDeterminant_signedZero() {
+        // -0.0のピボットは0として扱い、行を入れ替える。入れ替えないと次の段で-0.0で割ってNaNになる
+        var matrix = Matrix.of(new double[][] {
+                {-0.0, 2, 1},
+                {3, 1, 0},
+                {1, 0, 1},
+        });
+        assertEquals(-7.0, Bareiss.calcDeterminant(matrix));
+    }
+
+    @Test
+    void calcDeterminant_empty() {
+        assertEquals(BigInteger.ONE, Bareiss.calcDeterminant(new long[0][]));
+        assertEquals(BigInteger.ONE, Bareiss.calcDeterminant(new BigInteger[0][], BigIntegerInstances.domain));
+    }
+
+    @Test
+    void calcDeterminant_long() {
+        assertEquals(BigInteger.valueOf(16), Bareiss.calcDeterminant(new long[][] {
+                {2, 3, 0, 1},
+                {0, 7, 1, 0},
+                {0, 0, 3, 1},
+                {0, 1, 5, 2},
+        }));
+        // 先頭のピボットが0の場合は行を入れ替える
+        assertEquals(BigInteger.ONE, Bareiss.calcDeterminant(new long[][] {
+                {0, 1},
+                {-1, 0}
+        }));
+        assertEquals(BigInteger.ZERO, Bareiss.calcDeterminant(new long[][] {
+                {1, 2, 3},
+                {2, 4, 6},
+                {7, 8, 9},
+        }));
+    }
+
+    @Test
+    void calcDeterminant_large() {
+        // 対角成分が既知の単位下三角行列Lと上三角行列Uの積 LU の行を入れ替えた行列は、行列式が±(Uの対角成分の積)になる
+        var random = new Random(1);
+        var n = 60;
+        var l = new long[n][n];
+        var u = new long[n][n];
+        var expected = BigInteger.ONE;
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                if (i > j) {
+                    l[i][j] = random.nextInt(7) - 3;
+                } else {
+                    u[i][j] = random.nextInt(7) - 3;
+                }
+            }
+            l[i][i] = 1;
+            u[i][i] = random.nextInt(3) + 2;
+            expected = expected.multiply(BigInteger.valueOf(u[i][i]));
+        }
+        var a = new long[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                for (var k = 0; k < n; k++) {
+                    a[i][j] += l[i][k] * u[k][j];
+                }
+            }
+        }
+        var t = a[0];
+        a[0] = a[n - 1];
+        a[n - 1] = t;
+        assertEquals(expected.negate(), Bareiss.calcDeterminant(a));
+    }
+
+    @Test
+    void calcDeterminant_domain() {
+        var elems = new BigInteger[][] {
+                {BigInteger.valueOf(3), BigInteger.valueOf(1)},
+                {BigInteger.valueOf(2), BigInteger.valueOf(5)},
+        };
+        assertEquals(BigInteger.valueOf(13), Bareiss.calcDeterminant(elems, BigIntegerInstances.domain));
+        // 引数の行列は書き換えない
+        assertEquals(BigInteger.valueOf(5), elems[1][1]);
+    }
+
+    @Test
+    void calcDeterminantExact() {
+        var matrix = new Matrix<>(new Rational[][] {
+                {new Rational(1, 2), new Rational(1, 3)},
+                {new Rational(1, 4), new Rational(1, 5)},
+        }, Rational.field, Rational.distance, Rational.comparator);
+        // 1/10 - 1/12 = 1/60
+        assertEquals(new Rational(1, 60), Bareiss.calcDeterminantExact(matrix));
+    }
+
+}
@@ -0,0 +1,57 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CscMatrixTest {
+
+    private static final DoubleMatrix A = DoubleMatrix.of(new double[][] {
+            {2, 0, 3},
+            {0, 0, 0},
+            {5, 1, 0},
+    });
+
+    @Test
+    void createFromDense() {
+        var csc = CscMatrix.of(A);
+        assertArrayEquals(new int[] {0, 2, 3, 4}, csc.colPtr);
+        assertArrayEquals(new int[] {0, 2, 2, 0}, csc.rowIdx);
+        assertArrayEquals(new double[] {2, 5, 1, 3}, csc.values);
+        assertEquals(5, csc.get(2, 0));
+        assertEquals(0, csc.get(1, 2));
+        assertEquals(A, csc.toDoubleMatrix());
+    }
+
+    @Test
+    void multiplyDense() {
+        var b = DoubleMatrix.of(new double[][] {
+                {7, 6, 4, 1},
+                {1, 2, 2, 0},
+                {5, 3, 1, 9},
+        });
+        assertEquals(A.multiply(b), CscMatrix.of(A).multiply(b));
+
+        var pool = new ForkJoinPool(4);
+        try {
+            assertEquals(A.multiply(b), CscMatrix.of(A).multiply(b, Parallelism.of(pool, 1)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void multiplySparse() {
+        var b = DoubleMatrix.of(new double[][] {
+                {0, 6, 0, 1},
+                {1, 0, 0, 0},
+                {0, 3, 0, 2},
+        });
+        var product = CscMatrix.of(A).multiply(CscMatrix.of(b));
+        assertEquals(CscMatrix.of(A.multiply(b)), product);
+        assertEquals(product.toCsr(), CsrMatrix.of(A).multiply(CsrMatrix.of(b)));
+    }
+
+}
@@ -0,0 +1,74 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsrMatrixTest {
+
+    private static final DoubleMatrix A = DoubleMatrix.of(new double[][] {
+            {2, 0, 3},
+            {0, 0, 0},
+            {5, 1, 0},
+    });
+
+    @Test
+    void createFromDense() {
+        var csr = CsrMatrix.of(A);
+        assertArrayEquals(new int[] {0, 2, 2, 4}, csr.rowPtr);
+        assertArrayEquals(new int[] {0, 2, 0, 1}, csr.colIdx);
+        assertArrayEquals(new double[] {2, 3, 5, 1}, csr.values);
+        assertEquals(4, csr.nonZeros());
+        assertEquals(3, csr.get(0, 2));
+        assertEquals(0, csr.get(1, 1));
+        assertEquals(A, csr.toDoubleMatrix());
+    }
+
+    @Test
+    void cannotCreateUnsortedRow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CsrMatrix(1, 3, new int[] {0, 2}, new int[] {2, 0}, new double[] {1, 1}));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CsrMatrix(1, 3, new int[] {0, 1}, new int[] {3}, new double[] {1}));
+    }
+
+    @Test
+    void convertToCsc() {
+        var csr = CsrMatrix.of(A);
+        assertEquals(CscMatrix.of(A), csr.toCsc());
+        assertEquals(csr, csr.toCsc().toCsr());
+    }
+
+    @Test
+    void multiplyDense() {
+        var b = DoubleMatrix.of(new double[][] {
+                {7, 6, 4},
+                {1, 2, 2},
+                {5, 3, 1},
+        });
+        assertEquals(A.multiply(b), CsrMatrix.of(A).multiply(b));
+
+        var pool = new ForkJoinPool(4);
+        try {
+            assertEquals(A.multiply(b), CsrMatrix.of(A).multiply(b, Parallelism.of(pool, 1)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void multiplySparse() {
+        var b = DoubleMatrix.of(new double[][] {
+                {0, 6, 0, 1},
+                {1, 0, 0, 0},
+                {0, 3, 0, 2},
+        });
+        var product = CsrMatrix.of(A).multiply(CsrMatrix.of(b));
+        assertEquals(A.multiply(b), product.toDoubleMatrix());
+        // 0になる列(2列目)は現れない
+        assertEquals(CsrMatrix.of(A.multiply(b)), product);
+    }
+
+}
@@ -0,0 +1,96 @@
+package math.matrix;
+
+import math.numbers.BigIntegerInstances;
+import math.numbers.Ring;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DivisionFreeDeterminantTest {
+
+    /** 零因子を持つ Z/12Z。除算が定義されない */
+    private static final Ring<Integer> mod12 = new Ring<>() {
+        @Override
+        public Integer addZero() {
+            return 0;
+        }
+
+        @Override
+        public Integer mulZero() {
+            return 1;
+        }
+
+        @Override
+        public Integer add(Integer a, Integer b) {
+            return (a + b) % 12;
+        }
+
+        @Override
+        public Integer multiply(Integer a, Integer b) {
+            return a * b % 12;
+        }
+
+        @Override
+        public Integer addInverse(Integer a) {
+            return (12 - a) % 12;
+        }
+    };
+
+    private static BigInteger[][] random(int n, Random random) {
+        var a = new BigInteger[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                a[i][j] = BigInteger.valueOf(random.nextInt(41) - 20);
+            }
+        }
+        return a;
+    }
+
+    @Test
+    void calcDeterminant() {
+        var matrix = Matrix.of(new double[][] {
+                {2, 3, 0, 1},
+                {0, 7, 1, 0},
+                {0, 0, 3, 1},
+                {0, 1, 5, 2},
+        });
+        assertEquals(16.0, DivisionFreeDeterminant.calcDeterminant(matrix));
+        assertEquals(16.0, DivisionFreeDeterminant.calcDeterminantBerkowitz(matrix.elems, matrix.field));
+        assertEquals(16.0, DivisionFreeDeterminant.calcDeterminantBitmask(matrix.elems, matrix.field));
+    }
+
+    @Test
+    void matchesBareiss() {
+        var random = new Random(1);
+        for (var n = 1; n <= 12; n++) {
+            var a = random(n, random);
+            var expected = Bareiss.calcDeterminant(a, BigIntegerInstances.domain);
+            assertEquals(expected, DivisionFreeDeterminant.calcDeterminantBitmask(a, BigIntegerInstances.domain));
+            assertEquals(expected, DivisionFreeDeterminant.calcDeterminantBerkowitz(a, BigIntegerInstances.domain));
+        }
+        var a = random(30, random);
+        assertEquals(Bareiss.calcDeterminant(a, BigIntegerInstances.domain),
+                DivisionFreeDeterminant.calcDeterminant(a, BigIntegerInstances.domain));
+    }
+
+    @Test
+    void ringWithZeroDivisors() {
+        var random = new Random(2);
+        for (var t = 0; t < 20; t++) {
+            var n = 1 + random.nextInt(6);
+            var a = new Integer[n][n];
+            for (var i = 0; i < n; i++) {
+                for (var j = 0; j < n; j++) {
+                    a[i][j] = random.nextInt(12);
+                }
+            }
+            var expected = PrimitiveDeterminant.calcDeterminant(a, mod12);
+            assertEquals(expected, DivisionFreeDeterminant.calcDeterminantBitmask(a, mod12));
+            assertEquals(expected, DivisionFreeDeterminant.calcDeterminantBerkowitz(a, mod12));
+        }
+    }
+
+}
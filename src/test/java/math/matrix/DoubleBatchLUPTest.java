@@ -0,0 +1,112 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DoubleBatchLUPTest {
+
+    /** count個のn*n行列を成分ごとにまとめた配列に並べる */
+    private static double[] pack(DoubleMatrix[] matrices, int n) {
+        var count = matrices.length;
+        var a = new double[n * n * count];
+        for (var t = 0; t < count; t++) {
+            for (var i = 0; i < n; i++) {
+                for (var j = 0; j < n; j++) {
+                    a[(i * n + j) * count + t] = matrices[t].get(i, j);
+                }
+            }
+        }
+        return a;
+    }
+
+    private static DoubleMatrix[] random(int n, int count, Random random) {
+        var matrices = new DoubleMatrix[count];
+        for (var t = 0; t < count; t++) {
+            matrices[t] = TestMatrices.random(n, n, random);
+        }
+        return matrices;
+    }
+
+    @Test
+    void matchesDoublePackedLUP() {
+        var random = new Random(1);
+        // CHUNKの倍数にならない個数にして、端のチャンクも確かめる
+        var count = 2 * DoubleBatchLUP.CHUNK + 17;
+        var parallel = Parallelism.of(ForkJoinPool.commonPool(), 1);
+        for (var n = 1; n <= 8; n++) {
+            var matrices = random(n, count, random);
+            // 正則でない行列を混ぜる
+            for (var j = 0; j < n; j++) {
+                matrices[5].set(n - 1, j, 2 * matrices[5].get(0, j));
+            }
+            var a = pack(matrices, n);
+            var b = new double[n * count];
+            for (var i = 0; i < b.length; i++) {
+                b[i] = random.nextDouble();
+            }
+
+            var det = new double[count];
+            DoubleBatchLUP.determinants(n, count, a, det, parallel);
+            var lu = a.clone();
+            var pivot = new int[n * count];
+            var det2 = new double[count];
+            DoubleBatchLUP.decomposeInPlace(n, count, lu, pivot, det2, Parallelism.SERIAL);
+            assertArrayEquals(det, det2);
+            var x = new double[n * count];
+            DoubleBatchLUP.solve(n, count, lu, pivot, b, x, parallel);
+
+            for (var t = 0; t < count; t++) {
+                var expected = DoublePackedLUP.decompose(matrices[t]);
+                if (t == 5 && n > 1) {
+                    assertEquals(0.0, det[t], 1e-12);
+                    continue;
+                }
+                var lup = expected.get();
+                assertEquals(lup.determinant(), det[t], Math.abs(lup.determinant()) * 1e-10);
+                var bt = new double[n];
+                for (var i = 0; i < n; i++) {
+                    bt[i] = b[i * count + t];
+                }
+                var xt = lup.solve(bt);
+                for (var i = 0; i < n; i++) {
+                    assertEquals(xt[i], x[i * count + t], 1e-8 * (1 + Math.abs(xt[i])));
+                }
+            }
+        }
+    }
+
+    @Test
+    void solveInPlace() {
+        var count = 3;
+        var n = 2;
+        // [[2, 0], [0, 4]], [[0, 1], [1, 0]], [[1, 2], [3, 4]]
+        var matrices = new DoubleMatrix[] {
+                DoubleMatrix.of(new double[][] {{2, 0}, {0, 4}}),
+                DoubleMatrix.of(new double[][] {{0, 1}, {1, 0}}),
+                DoubleMatrix.of(new double[][] {{1, 2}, {3, 4}}),
+        };
+        var lu = pack(matrices, n);
+        var pivot = new int[n * count];
+        var det = new double[count];
+        DoubleBatchLUP.decomposeInPlace(n, count, lu, pivot, det);
+        assertArrayEquals(new double[] {8, -1, -2}, det, 1e-15);
+
+        // b[i * count + t]
+        var b = new double[] {2, 1, 5, 4, 2, 11};
+        DoubleBatchLUP.solve(n, count, lu, pivot, b, b);
+        assertArrayEquals(new double[] {1, 2, 1, 1, 1, 2}, b, 1e-12);
+    }
+
+    @Test
+    void rejectsWrongLength() {
+        assertThrows(IllegalArgumentException.class,
+                () -> DoubleBatchLUP.determinants(3, 4, new double[35], new double[4]));
+        assertThrows(IllegalArgumentException.class,
+                () -> DoubleBatchLUP.decomposeInPlace(3, 4, new double[36], new int[11], new double[4]));
+    }
+
+}
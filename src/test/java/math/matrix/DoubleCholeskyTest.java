@@ -0,0 +1,118 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DoubleCholeskyTest {
+
+    private static DoubleMatrix transpose(DoubleMatrix matrix) {
+        return DoubleMatrixView.of(matrix).transpose().toDoubleMatrix();
+    }
+
+    @Test
+    void blockedMatchesUnblocked() {
+        var matrix = TestMatrices.positiveDefinite(150, new Random(1));
+        var unblocked = DoubleCholesky.decomposeInPlace(matrix.clone(), 150, Parallelism.SERIAL).orElseThrow();
+        // 端数の出るブロック幅で分解する
+        var blocked = DoubleCholesky.decomposeInPlace(matrix.clone(), 16, Parallelism.SERIAL).orElseThrow();
+
+        assertTrue(TestMatrices.maxDifference(unblocked.l(), blocked.l()) < 1e-12);
+        assertTrue(TestMatrices.maxDifference(matrix, blocked.l().multiply(transpose(blocked.l()))) < 1e-12);
+        var det = DoublePackedLUP.decompose(matrix).orElseThrow().determinant();
+        assertEquals(det, blocked.determinant(), det * 1e-10);
+    }
+
+    @Test
+    void parallelIsBitwiseIdentical() {
+        var matrix = TestMatrices.positiveDefinite(130, new Random(2));
+        var pool = new ForkJoinPool(4);
+        try {
+            var serial = DoubleCholesky.decomposeInPlace(matrix.clone(), 24, Parallelism.SERIAL).orElseThrow();
+            var parallel = DoubleCholesky.decomposeInPlace(matrix.clone(), 24, Parallelism.of(pool, 256)).orElseThrow();
+            assertEquals(serial.l, parallel.l);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void readsLowerTriangleOnly() {
+        var matrix = TestMatrices.positiveDefinite(40, new Random(3));
+        var lower = matrix.clone();
+        for (var i = 0; i < 40; i++) {
+            for (var j = i + 1; j < 40; j++) {
+                lower.set(i, j, Double.NaN);
+            }
+        }
+        var expected = DoubleCholesky.decomposeInPlace(matrix.clone(), 8, Parallelism.SERIAL).orElseThrow();
+        var actual = DoubleCholesky.decomposeInPlace(lower, 8, Parallelism.SERIAL).orElseThrow();
+        assertEquals(expected.l(), actual.l());
+        // 上三角は書き換えない
+        assertTrue(Double.isNaN(lower.get(0, 39)));
+    }
+
+    @Test
+    void solve() {
+        var random = new Random(4);
+        var matrix = TestMatrices.positiveDefinite(70, random);
+        var cholesky = DoubleCholesky.decompose(matrix).orElseThrow();
+        var lup = DoublePackedLUP.decompose(matrix).orElseThrow();
+        var b = new double[70];
+        var bs = new DoubleMatrix(70, 3);
+        for (var i = 0; i < 70; i++) {
+            b[i] = random.nextDouble();
+            for (var j = 0; j < 3; j++) {
+                bs.set(i, j, random.nextDouble());
+            }
+        }
+        assertArrayEquals(lup.solve(b), cholesky.solve(b), 1e-12);
+        assertArrayEquals(cholesky.solve(b), DoubleLUP.solve(matrix, b).orElseThrow());
+        assertTrue(TestMatrices.maxDifference(lup.solve(bs), cholesky.solve(bs, Parallelism.of(ForkJoinPool.commonPool(), 1))) < 1e-12);
+        assertTrue(TestMatrices.maxDifference(lup.inverse(), cholesky.inverse()) < 1e-12);
+    }
+
+    @Test
+    void notPositiveDefinite() {
+        // 2つ目のブロックで対角成分が負になる
+        var matrix = new DoubleMatrix(10, 10);
+        for (var i = 0; i < 10; i++) {
+            matrix.set(i, i, i == 7 ? -1.0 : 2.0);
+        }
+        matrix.set(7, 2, 1.0);
+        matrix.set(2, 7, 1.0);
+        assertTrue(DoubleCholesky.isSymmetric(matrix));
+        assertTrue(DoubleCholesky.decomposeInPlace(matrix.clone(), 4, Parallelism.SERIAL).isEmpty());
+        // LUP分解で求め直す
+        var expected = DoublePackedLUP.decompose(matrix).orElseThrow().determinant();
+        assertEquals(expected, DoubleLUP.calcDeterminant(matrix));
+        assertEquals(expected, matrix.determinant());
+
+        var semidefinite = new DoubleMatrix(5, 5);
+        assertTrue(DoubleCholesky.decompose(semidefinite).isEmpty());
+        assertEquals(0.0, DoubleLUP.calcDeterminant(semidefinite, true));
+        assertTrue(DoubleLUP.solve(semidefinite, new double[5]).isEmpty());
+    }
+
+    @Test
+    void isSymmetric() {
+        var matrix = TestMatrices.positiveDefinite(6, new Random(5));
+        assertTrue(DoubleCholesky.isSymmetric(matrix));
+        assertEquals(DoubleCholesky.decompose(matrix).orElseThrow().determinant(), DoubleLUP.calcDeterminant(matrix));
+        matrix.set(1, 4, matrix.get(1, 4) + 1e-9);
+        assertFalse(DoubleCholesky.isSymmetric(matrix));
+        assertFalse(DoubleCholesky.isSymmetric(new DoubleMatrix(2, 3)));
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> DoubleCholesky.decompose(new DoubleMatrix(2, 3)));
+        assertThrows(IllegalArgumentException.class, () -> DoubleCholesky.decomposeInPlace(new DoubleMatrix(2, 2), 0, Parallelism.SERIAL));
+        var cholesky = DoubleCholesky.decompose(TestMatrices.positiveDefinite(5, new Random(6))).orElseThrow();
+        assertThrows(IllegalArgumentException.class, () -> cholesky.solve(new double[4]));
+    }
+
+}
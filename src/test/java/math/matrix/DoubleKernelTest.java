@@ -0,0 +1,112 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DoubleKernelTest {
+
+    private static final double TOLERANCE = 1e-12;
+
+    private static DoubleKernel vector() {
+        var vector = DoubleKernel.vector();
+        assumeTrue(vector != null, "jdk.incubator.vectorが有効でない");
+        return vector;
+    }
+
+    @Test
+    void defaultKernel() {
+        // surefireでは --add-modules jdk.incubator.vector を指定しているため、対応するCPUであればVector API版が選ばれる
+        assertTrue(DoubleKernel.DEFAULT == DoubleKernel.SCALAR || DoubleKernel.DEFAULT == DoubleKernel.vector());
+    }
+
+    @Test
+    void elementwise() {
+        var vector = vector();
+        var random = new Random(1);
+        // ベクトル長の倍数にならない長さとオフセットで比較する
+        var length = 37;
+        var x = TestMatrices.array(length + 3, random);
+        var y = TestMatrices.array(length + 5, random);
+
+        var expected = y.clone();
+        var actual = y.clone();
+        DoubleKernel.SCALAR.axpy(length, 0.7, x, 3, expected, 5);
+        vector.axpy(length, 0.7, x, 3, actual, 5);
+        assertArrayEquals(expected, actual, TOLERANCE);
+
+        expected = new double[length];
+        actual = new double[length];
+        DoubleKernel.SCALAR.add(length, x, 3, y, 5, expected, 0);
+        vector.add(length, x, 3, y, 5, actual, 0);
+        assertArrayEquals(expected, actual);
+
+        DoubleKernel.SCALAR.scale(length, -1.5, x, 1, expected, 0);
+        vector.scale(length, -1.5, x, 1, actual, 0);
+        assertArrayEquals(expected, actual);
+
+        var z = TestMatrices.array(length + 2, random);
+        expected = z.clone();
+        actual = z.clone();
+        DoubleKernel.SCALAR.subtractProduct(length, x, 3, y, 5, expected, 2);
+        vector.subtractProduct(length, x, 3, y, 5, actual, 2);
+        assertArrayEquals(expected, actual, TOLERANCE);
+    }
+
+    @Test
+    void microKernel() {
+        var vector = vector();
+        var random = new Random(2);
+        var kb = 29;
+        var a = TestMatrices.array(kb * Gemm.MR, random);
+        var b = TestMatrices.array(kb * Gemm.NR, random);
+        var c = TestMatrices.array(6 * 6, random);
+        // 6*6のCの(1, 1)から4*4のタイルと、(2, 3)から端の3*2のタイルに足し込む
+        for (var tile : new int[][] {{1, 1, 4, 4}, {2, 3, 3, 2}}) {
+            var cOff = tile[0] * 6 + tile[1];
+            var expected = c.clone();
+            var actual = c.clone();
+            DoubleKernel.SCALAR.microKernel(kb, a, 0, b, 0, expected, cOff, 6, tile[2], tile[3]);
+            vector.microKernel(kb, a, 0, b, 0, actual, cOff, 6, tile[2], tile[3]);
+            assertArrayEquals(expected, actual, TOLERANCE);
+        }
+    }
+
+    @Test
+    void microKernelEdgeTiles() {
+        var random = new Random(3);
+        var kb = 7;
+        var a = TestMatrices.array(kb * Gemm.MR, random);
+        var b = TestMatrices.array(kb * Gemm.NR, random);
+        for (var kernel : new DoubleKernel[] {DoubleKernel.SCALAR, DoubleKernel.vector()}) {
+            if (kernel == null) {
+                // jdk.incubator.vectorが有効でない
+                continue;
+            }
+            for (var rows = 1; rows <= Gemm.MR; rows++) {
+                for (var cols = 1; cols <= Gemm.NR; cols++) {
+                    // タイルをCの配列の末尾に置き、範囲外を読み書きしないことも確かめる
+                    var ldc = 5;
+                    var c = TestMatrices.array(rows * ldc, random);
+                    var cOff = ldc - cols;
+                    var expected = c.clone();
+                    for (var r = 0; r < rows; r++) {
+                        for (var col = 0; col < cols; col++) {
+                            var acc = 0.0;
+                            for (var p = 0; p < kb; p++) {
+                                acc += a[p * Gemm.MR + r] * b[p * Gemm.NR + col];
+                            }
+                            expected[cOff + r * ldc + col] += acc;
+                        }
+                    }
+                    kernel.microKernel(kb, a, 0, b, 0, c, cOff, ldc, rows, cols);
+                    assertArrayEquals(expected, c, TOLERANCE);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DoubleLUPTest {
+
+    @Test
+    void lupDecomposition() {
+        var matrix = DoubleMatrix.of(new double[][] {
+                {2, 3, 0, 1},
+                {0, 7, 1 ,0},
+                {0, 0, 3, 1},
+                {0, 1, 5, 2},
+        });
+        var lup = DoubleLUP.lupDecomposition(matrix).get();
+        var expected = LUP.lupDecomposition(matrix.toMatrix()).get();
+
+        assertEquals(expected.l(), lup.l().toMatrix());
+        assertEquals(expected.u(), lup.u().toMatrix());
+        assertEquals(expected.p(), lup.p().toMatrix());
+        assertEquals(-1.0, lup.pSign());
+        assertEquals(16.000000000000004, lup.determinant()); // 誤差あり
+        assertEquals(lup.p().multiply(matrix), lup.l().multiply(lup.u()));
+    }
+
+    @Test
+    void calcDeterminant() {
+        var matrix = DoubleMatrix.of(new double[][] {
+                {1, 0, 3},
+                {2, 1, 5},
+                {7, 6, 4},
+        });
+        assertEquals(-11.0, DoubleLUP.calcDeterminant(matrix));
+        assertEquals(-11.0, matrix.determinant());
+    }
+
+    @Test
+    void calcDeterminant_singular() {
+        var matrix = DoubleMatrix.of(new double[][] {
+                {1, 2},
+                {2, 4},
+        });
+        assertTrue(DoubleLUP.lupDecomposition(matrix).isEmpty());
+        assertEquals(0.0, DoubleLUP.calcDeterminant(matrix));
+    }
+
+}
@@ -0,0 +1,101 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DoubleMatrixTest {
+
+    @Test
+    void createMatrix() {
+        var matrix = DoubleMatrix.of(new double[][] {
+                {1, 2, 3},
+                {4, 5, 6}
+        });
+        assertEquals("DoubleMatrix{m=2, n=3, elems=[1.0, 2.0, 3.0], [4.0, 5.0, 6.0]}", matrix.toString());
+        assertEquals(6, matrix.get(1, 2));
+    }
+
+    @Test
+    void cannotCreateIllegalMatrix() {
+        var elems = new double[][] {
+                {1, 2, 3},
+                {4, 5}
+        };
+        assertThrows(IllegalArgumentException.class, () -> DoubleMatrix.of(elems));
+    }
+
+    @Test
+    void stride() {
+        // 3*4の配列の左上2*2を行列とみなす
+        var elems = new double[] {
+                1, 2, 9, 9,
+                3, 4, 9, 9,
+                9, 9, 9, 9,
+        };
+        var matrix = new DoubleMatrix(2, 2, elems, 0, 4);
+        assertEquals(DoubleMatrix.of(new double[][] {{1, 2}, {3, 4}}), matrix);
+        assertEquals(DoubleMatrix.of(new double[][] {{2, 4}, {6, 8}}), matrix.add(matrix));
+        assertEquals(DoubleMatrix.of(new double[][] {{1, 2}, {3, 4}}).hashCode(), matrix.hashCode());
+    }
+
+    @Test
+    void convertMatrix() {
+        var elems = new double[][] {
+                {1, 2, 3},
+                {4, 5, 6}
+        };
+        var matrix = Matrix.of(elems);
+        assertEquals(matrix, DoubleMatrix.of(elems).toMatrix());
+        assertEquals(DoubleMatrix.of(elems), DoubleMatrix.from(matrix));
+    }
+
+    @Test
+    void add() {
+        var matrix1 = DoubleMatrix.of(new double[][] {
+                {1, 2, 3, 4, 5},
+                {10, 20, 30, 40, 50},
+                {100, 200, 300, 400, 500},
+        });
+        var matrix2 = DoubleMatrix.of(new double[][] {
+                {10, 20, 30, 40, 50},
+                {100, 200, 300, 400, 500},
+                {1000, 2000, 3000, 4000, 5000},
+        });
+        var expected = DoubleMatrix.of(new double[][] {
+                {11, 22, 33, 44, 55},
+                {110, 220, 330, 440, 550},
+                {1100, 2200, 3300, 4400, 5500},
+        });
+        assertEquals(expected, matrix1.add(matrix2));
+    }
+
+    @Test
+    void multiply() {
+        var matrix1 = DoubleMatrix.of(new double[][] {
+                {2, 0, 3},
+                {5, 1, 4},
+        });
+        var matrix2 = DoubleMatrix.of(new double[][] {
+                {7, 6, 4},
+                {1, 2, 2},
+                {5, 3, 1},
+        });
+        var expected = DoubleMatrix.of(new double[][] {
+                {29, 21, 11},
+                {56, 44, 26},
+        });
+        assertEquals(expected, matrix1.multiply(matrix2));
+        assertEquals(DoubleMatrix.of(new double[][] {{4, 0, 6}, {10, 2, 8}}), matrix1.multiply(2.0));
+    }
+
+    @Test
+    void cloneIsIndependent() {
+        var matrix = DoubleMatrix.of(new double[][] {{1, 2}, {3, 4}});
+        var clone = matrix.clone();
+        clone.set(0, 0, 100);
+        assertEquals(1, matrix.get(0, 0));
+        assertNotEquals(matrix, clone);
+    }
+
+}
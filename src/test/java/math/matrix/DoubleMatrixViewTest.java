@@ -0,0 +1,118 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DoubleMatrixViewTest {
+
+    private static DoubleMatrix transpose(DoubleMatrix a) {
+        var result = new DoubleMatrix(a.n, a.m);
+        for (var i = 0; i < a.m; i++) {
+            for (var j = 0; j < a.n; j++) {
+                result.set(j, i, a.get(i, j));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void viewsShareStorage() {
+        var matrix = DoubleMatrix.of(new double[][] {
+                {1, 2, 3},
+                {4, 5, 6},
+        });
+        var view = matrix.view();
+        var t = view.transpose();
+        assertEquals(3, t.m);
+        assertEquals(2, t.n);
+        assertEquals(transpose(matrix), t.toDoubleMatrix());
+        assertEquals(DoubleMatrix.of(new double[][] {{5, 6}}), view.subMatrix(1, 2, 1, 3).toDoubleMatrix());
+        assertEquals(DoubleMatrix.of(new double[][] {{2}, {5}}), view.column(1).toDoubleMatrix());
+        assertEquals(DoubleMatrix.of(new double[][] {{3, 6}}), t.row(2).toDoubleMatrix());
+        assertSame(matrix.elems, t.subMatrix(1, 3, 0, 2).elems);
+
+        // 共有するビューへの書き込みは元の行列に反映される
+        t.set(2, 0, 30);
+        assertEquals(30, matrix.get(0, 2));
+        assertThrows(IllegalArgumentException.class, () -> view.subMatrix(0, 3, 0, 1));
+    }
+
+    @Test
+    void readOnlyAndCopyOnWrite() {
+        var matrix = DoubleMatrix.of(new double[][] {
+                {1, 2},
+                {3, 4},
+        });
+        var readOnly = matrix.view().readOnly();
+        assertThrows(UnsupportedOperationException.class, () -> readOnly.set(0, 0, 5));
+        assertThrows(UnsupportedOperationException.class, () -> readOnly.transpose().set(0, 0, 5));
+        assertThrows(UnsupportedOperationException.class, readOnly::shared);
+
+        var cow = matrix.view().transpose().copyOnWrite();
+        assertSame(matrix.elems, cow.elems);
+        cow.set(0, 1, 10);
+        assertNotSame(matrix.elems, cow.elems);
+        assertEquals(3, matrix.get(1, 0));
+        assertEquals(DoubleMatrix.of(new double[][] {{1, 10}, {2, 4}}), cow.toDoubleMatrix());
+    }
+
+    @Test
+    void multiplyTransposedWithoutCopy() {
+        var random = new Random(1);
+        var parallel = Parallelism.of(ForkJoinPool.commonPool(), 1);
+        // 小さな積のループとパッキングを行うループの両方を確かめる
+        for (var size : new int[] {5, 70}) {
+            var a = TestMatrices.random(size + 3, size, random);
+            var b = TestMatrices.random(size + 1, size, random);
+            var expected = a.multiply(transpose(b), Parallelism.SERIAL);
+            var actual = a.view().multiply(b.view().transpose(), parallel);
+            for (var i = 0; i < expected.m; i++) {
+                for (var j = 0; j < expected.n; j++) {
+                    assertEquals(expected.get(i, j), actual.get(i, j), 1e-12);
+                }
+            }
+            // AᵀA
+            var gram = a.view().transpose().multiply(a.view());
+            var gramExpected = transpose(a).multiply(a);
+            for (var i = 0; i < size; i++) {
+                for (var j = 0; j < size; j++) {
+                    assertEquals(gramExpected.get(i, j), gram.get(i, j), 1e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    void decomposeViews() {
+        var random = new Random(2);
+        var matrix = TestMatrices.random(10, 10, random);
+        var view = matrix.view();
+
+        // det(Aᵀ) = det(A)
+        var expected = DoubleLUP.calcDeterminant(matrix);
+        assertEquals(expected, DoubleLUP.calcDeterminant(view.transpose()), Math.abs(expected) * 1e-10);
+        var small = view.subMatrix(2, 5, 3, 6);
+        assertEquals(DoubleLUP.calcDeterminant(small.toDoubleMatrix()), DoubleLUP.calcDeterminant(small.transpose()), 1e-12);
+        assertEquals(DoubleLUP.lupDecomposition(matrix), DoubleLUP.lupDecomposition(view));
+
+        // 左上の部分行列をその場で分解し、それ以外の成分は変えない
+        var block = view.subMatrix(0, 6, 0, 6);
+        var before = matrix.clone();
+        var lup = DoublePackedLUP.decomposeInPlace(block).get();
+        var reference = DoublePackedLUP.decompose(before.view().subMatrix(0, 6, 0, 6)).get();
+        assertEquals(reference.lu, lup.lu);
+        assertSame(matrix.elems, lup.lu.elems);
+        for (var i = 0; i < 10; i++) {
+            for (var j = 0; j < 10; j++) {
+                if (i >= 6 || j >= 6) {
+                    assertEquals(before.get(i, j), matrix.get(i, j));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DoublePackedLUPTest {
+
+    @Test
+    void blockedMatchesUnblocked() {
+        var matrix = TestMatrices.random(150, 150, new Random(1));
+        var unblocked = DoublePackedLUP.decomposeInPlace(matrix.clone(), 150, Parallelism.SERIAL).get();
+        // 端数の出るブロック幅で分解する
+        var blocked = DoublePackedLUP.decomposeInPlace(matrix.clone(), 16, Parallelism.SERIAL).get();
+
+        assertArrayEquals(unblocked.pivot, blocked.pivot);
+        assertEquals(unblocked.pSign, blocked.pSign);
+        assertTrue(TestMatrices.maxDifference(unblocked.lu, blocked.lu) < 1e-10);
+        assertEquals(unblocked.determinant(), blocked.determinant(), Math.abs(unblocked.determinant()) * 1e-10);
+        assertTrue(TestMatrices.maxDifference(blocked.p().multiply(matrix), blocked.l().multiply(blocked.u())) < 1e-10);
+    }
+
+    @Test
+    void parallelIsBitwiseIdentical() {
+        var matrix = TestMatrices.random(130, 130, new Random(2));
+        var pool = new ForkJoinPool(4);
+        try {
+            var serial = DoublePackedLUP.decomposeInPlace(matrix.clone(), 24, Parallelism.SERIAL).get();
+            var parallel = DoublePackedLUP.decomposeInPlace(matrix.clone(), 24, Parallelism.of(pool, 256)).get();
+            assertArrayEquals(serial.pivot, parallel.pivot);
+            assertEquals(serial.lu, parallel.lu);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void singularInLaterBlock() {
+        // 7列目が全て0なので、消去の途中でも0のままで、2つ目のブロックでピボットが見つからなくなる
+        var matrix = TestMatrices.random(10, 10, new Random(3));
+        for (var i = 0; i < 10; i++) {
+            matrix.set(i, 7, 0.0);
+        }
+        assertTrue(DoublePackedLUP.decomposeInPlace(matrix, 4, Parallelism.SERIAL).isEmpty());
+    }
+
+    @Test
+    void solveVector() {
+        var matrix = DoubleMatrix.of(new double[][] {
+                {1, 0, 3},
+                {2, 1, 5},
+                {7, 6, 4},
+        });
+        var lup = DoublePackedLUP.decompose(matrix).get();
+        // x = (1, 2, 3)
+        assertArrayEquals(new double[] {1, 2, 3}, lup.solve(new double[] {10, 19, 31}), 1e-12);
+    }
+
+    @Test
+    void solveMatrix() {
+        var random = new Random(4);
+        var matrix = TestMatrices.random(100, 100, random);
+        var lup = DoublePackedLUP.decompose(matrix).get();
+        var x = new DoubleMatrix(100, 7);
+        for (var i = 0; i < x.elems.length; i++) {
+            x.elems[i] = random.nextDouble();
+        }
+        var b = matrix.multiply(x);
+        assertTrue(TestMatrices.maxDifference(x, lup.solve(b)) < 1e-9);
+        // 右辺を1本ずつ解いた結果と一致する
+        var column = new double[100];
+        for (var i = 0; i < 100; i++) {
+            column[i] = b.get(i, 3);
+        }
+        var solved = lup.solve(column);
+        var all = lup.solve(b);
+        for (var i = 0; i < 100; i++) {
+            assertEquals(solved[i], all.get(i, 3), 1e-9);
+        }
+    }
+
+    @Test
+    void inverse() {
+        var matrix = TestMatrices.random(80, 80, new Random(5));
+        var inverse = DoublePackedLUP.decompose(matrix).get().inverse();
+        var identity = new DoubleMatrix(80, 80);
+        for (var i = 0; i < 80; i++) {
+            identity.set(i, i, 1.0);
+        }
+        assertTrue(TestMatrices.maxDifference(identity, matrix.multiply(inverse)) < 1e-9);
+    }
+
+}
@@ -0,0 +1,72 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FloatKernelTest {
+
+    private static final float TOLERANCE = 1e-5f;
+
+    @Test
+    void defaultKernel() {
+        assertTrue(FloatKernel.DEFAULT == FloatKernel.SCALAR || FloatKernel.DEFAULT == FloatKernel.vector());
+    }
+
+    @Test
+    void axpy() {
+        var random = new Random(1);
+        // ベクトル長の倍数にならない長さとオフセットで比較する
+        var length = 77;
+        var x = TestMatrices.floatArray(length + 3, random);
+        var y = TestMatrices.floatArray(length + 5, random);
+        for (var kernel : new FloatKernel[] {FloatKernel.SCALAR, FloatKernel.vector()}) {
+            if (kernel == null) {
+                // jdk.incubator.vectorが有効でない
+                continue;
+            }
+            var actual = y.clone();
+            kernel.axpy(length, 0.7f, x, 3, actual, 5);
+            for (var i = 0; i < y.length; i++) {
+                var expected = i < 5 ? y[i] : y[i] + 0.7f * x[i - 2];
+                assertEquals(expected, actual[i], TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    void microKernelEdgeTiles() {
+        var random = new Random(2);
+        var kb = 7;
+        var a = TestMatrices.floatArray(kb * Gemm.MR, random);
+        var b = TestMatrices.floatArray(kb * Gemm.FLOAT_NR, random);
+        for (var kernel : new FloatKernel[] {FloatKernel.SCALAR, FloatKernel.vector()}) {
+            if (kernel == null) {
+                continue;
+            }
+            for (var rows = 1; rows <= Gemm.MR; rows++) {
+                for (var cols = 1; cols <= Gemm.FLOAT_NR; cols++) {
+                    // タイルをCの配列の末尾に置き、範囲外を読み書きしないことも確かめる
+                    var ldc = 9;
+                    var c = TestMatrices.floatArray(rows * ldc, random);
+                    var cOff = ldc - cols;
+                    var expected = c.clone();
+                    for (var r = 0; r < rows; r++) {
+                        for (var col = 0; col < cols; col++) {
+                            var acc = 0.0f;
+                            for (var p = 0; p < kb; p++) {
+                                acc += a[p * Gemm.MR + r] * b[p * Gemm.FLOAT_NR + col];
+                            }
+                            expected[cOff + r * ldc + col] += acc;
+                        }
+                    }
+                    kernel.microKernel(kb, a, 0, b, 0, c, cOff, ldc, rows, cols);
+                    assertArrayEquals(expected, c, TOLERANCE);
+                }
+            }
+        }
+    }
+
+}
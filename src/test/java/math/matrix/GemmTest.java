@@ -0,0 +1,185 @@
+package math.matrix;
+
+import math.numbers.Rational;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GemmTest {
+
+    private static double[] naive(int m, int n, int k, double[] a, double[] b) {
+        var c = new double[m * n];
+        for (var i = 0; i < m; i++) {
+            for (var j = 0; j < n; j++) {
+                var acc = 0.0;
+                for (var p = 0; p < k; p++) {
+                    acc += a[i * k + p] * b[p * n + j];
+                }
+                c[i * n + j] = acc;
+            }
+        }
+        return c;
+    }
+
+    @Test
+    void multiplyBlocked() {
+        var random = new Random(1);
+        // ブロックの端数とレジスタタイルの端数が出るサイズと小さなブロックで計算する
+        int m = 67, n = 53, k = 71;
+        var a = TestMatrices.array(m * k, random);
+        var b = TestMatrices.array(k * n, random);
+        var expected = naive(m, n, k, a, b);
+        var c = new double[m * n];
+        Gemm.multiply(m, n, k, 1.0, a, 0, k, b, 0, n, c, 0, n, new Gemm.Blocking(8, 16, 12));
+        assertArrayEquals(expected, c, 1e-12);
+    }
+
+    @Test
+    void multiplyAccumulatesWithAlpha() {
+        var random = new Random(2);
+        int m = 40, n = 40, k = 40;
+        var a = TestMatrices.array(m * k, random);
+        var b = TestMatrices.array(k * n, random);
+        var product = naive(m, n, k, a, b);
+        var c = new double[m * n];
+        Arrays.fill(c, 1.0);
+        Gemm.multiply(m, n, k, -2.0, a, 0, k, b, 0, n, c, 0, n);
+        for (var i = 0; i < m * n; i++) {
+            assertEquals(1.0 - 2.0 * product[i], c[i], 1e-12);
+        }
+    }
+
+    @Test
+    void multiplyWithStride() {
+        // 5*5の配列の右下3*3とその左の3*3の積を、5*5の配列の中央に足し込む
+        var a = new double[25];
+        for (var i = 0; i < 25; i++) {
+            a[i] = i;
+        }
+        var c = new double[25];
+        Gemm.multiply(3, 3, 3, 1.0, a, 12, 5, a, 10, 5, c, 6, 5);
+        var expected = DoubleMatrix.of(new double[][] {
+                {12, 13, 14},
+                {17, 18, 19},
+                {22, 23, 24},
+        }).multiply(DoubleMatrix.of(new double[][] {
+                {10, 11, 12},
+                {15, 16, 17},
+                {20, 21, 22},
+        }));
+        assertEquals(expected, new DoubleMatrix(3, 3, c, 6, 5));
+        assertEquals(0.0, c[0]);
+        assertEquals(0.0, c[24]);
+    }
+
+    @Test
+    void parallelIsBitwiseIdentical() {
+        var random = new Random(4);
+        // マクロタイルの端数が出る大きさと小さなブロックで、細かく分割されるようにする
+        int m = 150, n = 130, k = 90;
+        var blocking = new Gemm.Blocking(16, 32, 40);
+        var a = TestMatrices.array(m * k, random);
+        var b = TestMatrices.array(k * n, random);
+        var serial = new double[m * n];
+        Gemm.multiply(m, n, k, 1.5, a, 0, k, b, 0, n, serial, 0, n, blocking, Parallelism.SERIAL);
+        var pool = new ForkJoinPool(4);
+        try {
+            var parallel = new double[m * n];
+            Gemm.multiply(m, n, k, 1.5, a, 0, k, b, 0, n, parallel, 0, n, blocking, Parallelism.of(pool, 1));
+            assertArrayEquals(serial, parallel);
+            assertArrayEquals(naive(m, n, k, a, b), Arrays.stream(serial).map(x -> x / 1.5).toArray(), 1e-12);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void multiplyFloat() {
+        var random = new Random(6);
+        // ブロックの端数と、FLOAT_NR列のタイルの端数が出るサイズで計算する
+        int m = 67, n = 53, k = 71;
+        var blocking = new Gemm.Blocking(8, 16, 12);
+        var a = TestMatrices.array(m * k, random);
+        var b = TestMatrices.array(k * n, random);
+        var expected = naive(m, n, k, a, b);
+        var af = new float[m * k];
+        var bf = new float[k * n];
+        for (var i = 0; i < a.length; i++) {
+            af[i] = (float) a[i];
+        }
+        for (var i = 0; i < b.length; i++) {
+            bf[i] = (float) b[i];
+        }
+        var serial = new float[m * n];
+        Gemm.multiply(m, n, k, 2.0f, af, 0, k, bf, 0, n, serial, 0, n, blocking, Parallelism.SERIAL);
+        for (var i = 0; i < m * n; i++) {
+            assertEquals(2.0 * expected[i], serial[i], 1e-4);
+        }
+        var pool = new ForkJoinPool(4);
+        try {
+            var parallel = new float[m * n];
+            Gemm.multiply(m, n, k, 2.0f, af, 0, k, bf, 0, n, parallel, 0, n, blocking, Parallelism.of(pool, 1));
+            assertArrayEquals(serial, parallel);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void multiplyField() {
+        var random = new Random(3);
+        int m = 9, n = 7, k = 11;
+        var a = TestMatrices.rationals(m, k, random);
+        var b = TestMatrices.rationals(k, n, random);
+        var c = new Rational[m][n];
+        Gemm.multiply(Rational.field, a, b, c, 0, m, 0, n, 3);
+        for (var i = 0; i < m; i++) {
+            for (var j = 0; j < n; j++) {
+                var acc = Rational.field.addZero();
+                for (var p = 0; p < k; p++) {
+                    acc = Rational.field.add(acc, Rational.field.multiply(a[i][p], b[p][j]));
+                }
+                assertEquals(acc, c[i][j]);
+            }
+        }
+    }
+
+    @Test
+    void multiplyFieldAccumulate() {
+        var random = new Random(4);
+        int m = 9, n = 7, k = 11;
+        var field = Rational.field;
+        var a = TestMatrices.rationals(m, k, random);
+        var b = TestMatrices.rationals(k, n, random);
+        var c0 = TestMatrices.rationals(m, n, random);
+        var product = new Rational[m][n];
+        Gemm.multiply(field, a, b, product, 0, m, 0, n, 3);
+        var alpha = new Rational(-2, 3);
+        var beta = new Rational(5, 2);
+        var c = new Rational[m][];
+        for (var i = 0; i < m; i++) {
+            c[i] = c0[i].clone();
+        }
+        // 端数の出る範囲とブロックで、範囲の外のCは変えない
+        Gemm.multiply(field, alpha, a, b, beta, c, 1, 8, 2, 7, 3);
+        for (var i = 0; i < m; i++) {
+            for (var j = 0; j < n; j++) {
+                var inside = i >= 1 && i < 8 && j >= 2;
+                var expected = inside
+                        ? field.add(field.multiply(c0[i][j], beta), field.multiply(product[i][j], alpha))
+                        : c0[i][j];
+                assertEquals(expected, c[i][j]);
+            }
+        }
+        // betaがmulZeroであればそのまま足し込み、nullであれば上書きする
+        Gemm.multiply(field, null, a, b, field.mulZero(), c, 0, m, 0, n, 4);
+        assertEquals(field.add(c0[0][0], product[0][0]), c[0][0]);
+        Gemm.multiply(field, alpha, a, b, null, c, 0, m, 0, n, 4);
+        assertEquals(field.multiply(product[m - 1][n - 1], alpha), c[m - 1][n - 1]);
+    }
+
+}
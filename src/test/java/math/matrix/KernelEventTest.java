@@ -0,0 +1,91 @@
+package math.matrix;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KernelEventTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsMultiplyAndDecompose() throws IOException {
+        var random = new Random(1);
+        var a = TestMatrices.random(6, 4, random);
+        var b = TestMatrices.random(4, 5, random);
+        var square = TestMatrices.random(7, 7, random);
+
+        List<RecordedEvent> events;
+        try (var recording = new Recording()) {
+            recording.enable(KernelEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+            a.multiply(b, Parallelism.SERIAL);
+            a.toMatrix().multiply(b.toMatrix(), Parallelism.SERIAL);
+            LUP.calcDeterminant(square.toMatrix());
+            DoublePackedLUP.decompose(square);
+            recording.stop();
+            var file = dir.resolve("kernel.jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals(KernelEvent.NAME))
+                    .toList();
+        }
+        assertEquals(4, events.size());
+
+        var doubleMultiply = events.get(0);
+        assertEquals("Gemm.multiply", doubleMultiply.getString("kernel"));
+        assertEquals("double", doubleMultiply.getString("elementType"));
+        assertEquals(6, doubleMultiply.getInt("m"));
+        assertEquals(5, doubleMultiply.getInt("n"));
+        assertEquals(4, doubleMultiply.getInt("k"));
+        assertEquals(2L * 6 * 5 * 4, doubleMultiply.getLong("flops"));
+
+        var fieldMultiply = events.get(1);
+        assertEquals("Gemm.multiply", fieldMultiply.getString("kernel"));
+        assertEquals("Double", fieldMultiply.getString("elementType"));
+
+        var lup = events.get(2);
+        assertEquals("PackedLUP.decompose", lup.getString("kernel"));
+        assertEquals(7, lup.getInt("n"));
+        assertEquals(2L * 7 * 7 * 7 / 3, lup.getLong("flops"));
+        assertFalse(lup.getDuration().isNegative());
+
+        assertEquals("DoublePackedLUP.decompose", events.get(3).getString("kernel"));
+    }
+
+    @Test
+    void recordsSmallMultiply() throws IOException {
+        var a = TestMatrices.random(3, 3, new Random(2));
+
+        List<RecordedEvent> events;
+        try (var recording = new Recording()) {
+            recording.enable(KernelEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+            a.multiply(a, Parallelism.SERIAL);
+            a.toMatrix().multiply(a.toMatrix(), Parallelism.SERIAL);
+            recording.stop();
+            var file = dir.resolve("small.jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals(KernelEvent.NAME))
+                    .toList();
+        }
+        assertEquals(2, events.size());
+        for (var event : events) {
+            assertEquals("SmallMatrix.multiply", event.getString("kernel"));
+            assertEquals(2L * 3 * 3 * 3, event.getLong("flops"));
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package math.matrix;
 
+import math.numbers.DoubleInstances;
+import math.numbers.OperationCounts;
 import math.numbers.Rational;
 import org.junit.jupiter.api.Test;
 
@@ -235,4 +237,27 @@ class LUPTest {
         assertEquals(1.0, determinant);
     }
 
-}
\ No newline at end of file
+    @Test
+    void countOperations() {
+        var counts = new OperationCounts();
+        var elems = Matrix.of(new double[][] {
+                {1, 1, 1, 1, 1},
+                {1, 2, 2, 2, 2},
+                {1, 2, 3, 3, 3},
+                {1, 2, 3, 4, 4},
+                {1, 2, 3, 4, 5},
+        }).elems;
+        var matrix = new Matrix<>(elems, counts.field(DoubleInstances.field),
+                counts.distance(DoubleInstances.distance), counts.comparator(DoubleInstances.comparator));
+        assertTrue(PackedLUP.decompose(matrix).isPresent());
+
+        // ピボットの探索はk列目でn-k回、消去はk列目で(n-k-1)個の行に対して1回の除算と(n-k-1)回の積和を行う
+        assertEquals(15, counts.count(OperationCounts.Operation.DISTANCE));
+        assertEquals(15, counts.count(OperationCounts.Operation.COMPARE));
+        assertEquals(10, counts.count(OperationCounts.Operation.DIV));
+        assertEquals(30, counts.count(OperationCounts.Operation.MULTIPLY));
+        assertEquals(30, counts.count(OperationCounts.Operation.MINUS));
+        assertEquals(0, counts.count(OperationCounts.Operation.ADD));
+    }
+
+}
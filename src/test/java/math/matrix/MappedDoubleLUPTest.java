@@ -0,0 +1,72 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedDoubleLUPTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void matchesBlockedLU() throws IOException {
+        var matrix = TestMatrices.random(50, 50, new Random(1));
+        // タイルの大きさとブロックの幅を揃えると、DoublePackedLUPと同じピボットが選ばれる
+        var expected = DoublePackedLUP.decomposeInPlace(matrix.clone(), 16, Parallelism.SERIAL).get();
+        try (var mapped = MappedDoubleMatrix.of(dir.resolve("a.bin"), matrix, 16)) {
+            var lup = MappedDoubleLUP.decomposeInPlace(mapped, Parallelism.SERIAL).get();
+            assertArrayEquals(expected.pivot, lup.pivot);
+            assertEquals(expected.pSign, lup.pSign);
+            var lu = lup.lu.toDoubleMatrix();
+            for (var i = 0; i < 50; i++) {
+                for (var j = 0; j < 50; j++) {
+                    assertEquals(expected.lu.get(i, j), lu.get(i, j), 1e-10);
+                }
+            }
+            assertEquals(expected.determinant(), lup.determinant(), Math.abs(expected.determinant()) * 1e-10);
+        }
+    }
+
+    @Test
+    void solve() throws IOException {
+        var random = new Random(2);
+        var matrix = TestMatrices.random(45, 45, random);
+        var b = new double[45];
+        for (var i = 0; i < b.length; i++) {
+            b[i] = random.nextDouble();
+        }
+        var pool = new ForkJoinPool(4);
+        try (var mapped = MappedDoubleMatrix.of(dir.resolve("a.bin"), matrix, 8)) {
+            var lup = MappedDoubleLUP.decomposeInPlace(mapped, Parallelism.of(pool, 1)).get();
+            var x = lup.solve(b);
+            for (var i = 0; i < 45; i++) {
+                var acc = 0.0;
+                for (var j = 0; j < 45; j++) {
+                    acc += matrix.get(i, j) * x[j];
+                }
+                assertEquals(b[i], acc, 1e-10);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void singular() throws IOException {
+        var matrix = TestMatrices.random(20, 20, new Random(3));
+        for (var i = 0; i < 20; i++) {
+            matrix.set(i, 13, 0.0);
+        }
+        try (var mapped = MappedDoubleMatrix.of(dir.resolve("a.bin"), matrix, 8)) {
+            assertTrue(MappedDoubleLUP.decomposeInPlace(mapped).isEmpty());
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedDoubleMatrixTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tiledLayout() throws IOException {
+        var matrix = DoubleMatrix.of(new double[][] {
+                {1, 2, 3},
+                {4, 5, 6},
+                {7, 8, 9},
+        });
+        var path = dir.resolve("a.bin");
+        try (var mapped = MappedDoubleMatrix.of(path, matrix, 2)) {
+            assertEquals(2, mapped.tileRows);
+            assertEquals(2, mapped.tileCols);
+            assertEquals(6, mapped.get(1, 2));
+            assertEquals(matrix, mapped.toDoubleMatrix());
+        }
+        // 端のタイルも2*2で格納する
+        assertEquals(4 * 2 * 2 * Double.BYTES, Files.size(path));
+        try (var reopened = MappedDoubleMatrix.open(path, 3, 3, 2)) {
+            assertEquals(matrix, reopened.toDoubleMatrix());
+        }
+        assertThrows(IllegalArgumentException.class, () -> MappedDoubleMatrix.open(path, 5, 5, 2));
+    }
+
+    @Test
+    void tilesShareRegions() throws IOException {
+        var matrix = TestMatrices.random(37, 23, new Random(2));
+        try (var mapped = MappedDoubleMatrix.of(dir.resolve("a.bin"), matrix, 8)) {
+            assertEquals(1, mapped.regions());
+        }
+        // 15枚のタイルを3枚ずつの領域に分ける。領域の境界をまたいで読み書きできる
+        var tileBytes = 8 * 8 * Double.BYTES;
+        var path = dir.resolve("b.bin");
+        try (var mapped = MappedDoubleMatrix.create(path, 37, 23, 8, 3 * tileBytes)) {
+            assertEquals(5, mapped.regions());
+            for (var i = 0; i < matrix.m; i++) {
+                for (var j = 0; j < matrix.n; j++) {
+                    mapped.set(i, j, matrix.get(i, j));
+                }
+            }
+        }
+        try (var reopened = MappedDoubleMatrix.open(path, 37, 23, 8)) {
+            assertEquals(matrix, reopened.toDoubleMatrix());
+        }
+        // 領域がタイルより小さければ、タイルを1枚ずつ対応付ける
+        try (var mapped = MappedDoubleMatrix.create(dir.resolve("c.bin"), 37, 23, 8, tileBytes - 1)) {
+            assertEquals(15, mapped.regions());
+        }
+    }
+
+    @Test
+    void multiply() throws IOException {
+        var random = new Random(1);
+        var a = TestMatrices.random(37, 23, random);
+        var b = TestMatrices.random(23, 41, random);
+        var expected = a.multiply(b);
+        try (var mappedA = MappedDoubleMatrix.of(dir.resolve("a.bin"), a, 8);
+             var mappedB = MappedDoubleMatrix.of(dir.resolve("b.bin"), b, 8);
+             var product = mappedA.multiply(mappedB, dir.resolve("c.bin"), Parallelism.SERIAL)) {
+            var actual = product.toDoubleMatrix();
+            for (var i = 0; i < expected.m; i++) {
+                for (var j = 0; j < expected.n; j++) {
+                    assertEquals(expected.get(i, j), actual.get(i, j), 1e-12);
+                }
+            }
+            var pool = new ForkJoinPool(4);
+            try (var parallel = mappedA.multiply(mappedB, dir.resolve("d.bin"), Parallelism.of(pool, 1))) {
+                assertEquals(actual, parallel.toDoubleMatrix());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+}
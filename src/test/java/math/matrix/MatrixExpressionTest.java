@@ -0,0 +1,81 @@
+package math.matrix;
+
+import math.numbers.DoubleInstances;
+import math.numbers.OperationCounts;
+import math.numbers.Rational;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatrixExpressionTest {
+
+    private static Matrix<Rational> random(int m, int n, Random random) {
+        return new Matrix<>(TestMatrices.rationals(m, n, random), Rational.field, Rational.distance, Rational.comparator);
+    }
+
+    @Test
+    void fusedMatchesEager() {
+        var random = new Random(1);
+        var a = random(5, 4, random);
+        var b = random(4, 6, random);
+        var c = random(5, 6, random);
+        var k = new Rational(3, 7);
+
+        var expected = a.multiply(b).add(c.multiply(k));
+        assertEquals(expected, a.lazy().multiply(b).add(c.lazy().multiply(k)).evaluate(Parallelism.SERIAL));
+        assertEquals(expected, a.lazy().multiply(b).add(c.lazy().multiply(k)).evaluate(Parallelism.of(ForkJoinPool.commonPool(), 1)));
+        // 積の両辺のスカラー倍は積の外に出す
+        var l = new Rational(-2, 5);
+        assertEquals(a.multiply(l).multiply(b.multiply(k)),
+                a.lazy().multiply(l).multiply(b.lazy().multiply(k)).evaluate());
+        // 積の積は内側の積を行列にしてから計算する
+        var d = random(6, 3, random);
+        assertEquals(a.multiply(b).multiply(d), a.lazy().multiply(b).multiply(d).evaluate());
+
+        // doubleでも積とスカラー倍と加算が1つずつであれば、演算の順序は同じである
+        var x = TestMatrices.random(7, 5, random).toMatrix();
+        var y = TestMatrices.random(5, 7, random).toMatrix();
+        var z = TestMatrices.random(7, 7, random).toMatrix();
+        assertEquals(x.multiply(y).add(z.multiply(0.25)), x.lazy().multiply(y).add(z.lazy().multiply(0.25)).evaluate());
+    }
+
+    @Test
+    void sharedSubexpressionIsEvaluatedOnce() {
+        var counts = new OperationCounts();
+        var field = counts.field(DoubleInstances.field);
+        var random = new Random(2);
+        var a = new Matrix<>(TestMatrices.random(4, 3, random).toMatrix().elems, field, DoubleInstances.distance, DoubleInstances.comparator);
+        var b = new Matrix<>(TestMatrices.random(3, 5, random).toMatrix().elems, field, DoubleInstances.distance, DoubleInstances.comparator);
+
+        var product = a.lazy().multiply(b);
+        var result = product.add(product).evaluate(Parallelism.SERIAL);
+        // 積の4*5*3回と、共有した積どうしの加算の4*5回
+        assertEquals(4 * 5 * 3, counts.count(OperationCounts.Operation.MULTIPLY));
+        assertEquals(4 * 5 * 3 + 4 * 5, counts.count(OperationCounts.Operation.ADD));
+        var ab = a.multiply(b);
+        assertEquals(ab.add(ab), result);
+    }
+
+    @Test
+    void strassenResultIsReusedAsOutput() {
+        var random = new Random(3);
+        var n = Strassen.CROSSOVER + 1;
+        var a = random(n, n, random);
+        var b = random(n, n, random);
+        var c = random(n, n, random);
+        assertEquals(a.multiply(b).add(c), a.lazy().multiply(b).add(c).evaluate());
+    }
+
+    @Test
+    void leafAndErrors() {
+        var random = new Random(4);
+        var a = random(2, 3, random);
+        assertSame(a, a.lazy().evaluate());
+        assertThrows(IllegalArgumentException.class, () -> a.lazy().add(random(3, 2, random)));
+        assertThrows(IllegalArgumentException.class, () -> a.lazy().multiply(random(2, 3, random)));
+    }
+
+}
@@ -0,0 +1,146 @@
+package math.matrix;
+
+import math.numbers.Rational;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatrixFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void doubleRoundTrip() throws IOException {
+        var matrix = DoubleMatrix.of(new double[][] {
+                {1, 2, 3},
+                {4, 5, 6},
+        });
+        var path = dir.resolve("a.matx");
+        MatrixFile.write(path, matrix);
+        assertEquals(MatrixFile.HEADER_BYTES + 6 * Double.BYTES, Files.size(path));
+
+        // ヘッダーはリトルエンディアンで、先頭は"MATX"
+        var bytes = Files.readAllBytes(path);
+        assertEquals("MATX", new String(bytes, 0, 4));
+        assertEquals(3, ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt(12));
+
+        try (var file = MatrixFile.open(path)) {
+            assertEquals(MatrixFile.ElementType.DOUBLE, file.header.type());
+            assertEquals(MatrixFile.Layout.ROW_MAJOR, file.header.layout());
+            assertTrue(file.verify());
+            assertEquals(5.0, file.doubles().get(4));
+            assertEquals(matrix, file.toDoubleMatrix());
+            assertThrows(IllegalStateException.class, file::longs);
+        }
+    }
+
+    @Test
+    void longRoundTrip() throws IOException {
+        var elems = new long[][] {
+                {Long.MIN_VALUE, -1},
+                {0, Long.MAX_VALUE},
+        };
+        var path = dir.resolve("a.matx");
+        MatrixFile.write(path, elems);
+        try (var file = MatrixFile.open(path)) {
+            assertEquals(MatrixFile.ElementType.LONG, file.header.type());
+            assertTrue(file.verify());
+            assertArrayEquals(elems[0], file.toLongs()[0]);
+            assertArrayEquals(elems[1], file.toLongs()[1]);
+        }
+    }
+
+    @Test
+    void rationalRoundTrip() throws IOException {
+        var small = new Matrix<>(new Rational[][] {
+                {new Rational(1, 2), new Rational(-3, 4)},
+                {new Rational(0, 1), new Rational(7, 1)},
+        }, Rational.field, Rational.distance, Rational.comparator);
+        var path = dir.resolve("small.matx");
+        MatrixFile.write(path, small);
+        try (var file = MatrixFile.open(path)) {
+            assertEquals(MatrixFile.ElementType.RATIONAL, file.header.type());
+            assertEquals(-3, file.longs().get(2));
+            assertEquals(4, file.longs().get(3));
+            assertEquals(small, file.toRationalMatrix());
+        }
+
+        var huge = BigInteger.TWO.pow(100);
+        var big = new Matrix<>(new Rational[][] {
+                {new Rational(huge, BigInteger.valueOf(3)), new Rational(-1, 2)},
+        }, Rational.field, Rational.distance, Rational.comparator);
+        var bigPath = dir.resolve("big.matx");
+        MatrixFile.write(bigPath, big);
+        try (var file = MatrixFile.open(bigPath)) {
+            assertEquals(MatrixFile.ElementType.BIG_RATIONAL, file.header.type());
+            assertTrue(file.verify());
+            assertEquals(big, file.toRationalMatrix());
+        }
+    }
+
+    @Test
+    void tiledRoundTrip() throws IOException {
+        var matrix = TestMatrices.random(7, 5, new Random(1));
+        var path = dir.resolve("a.matx");
+        try (var mapped = MappedDoubleMatrix.of(dir.resolve("tiles.bin"), matrix, 4)) {
+            MatrixFile.write(path, mapped);
+        }
+        try (var file = MatrixFile.open(path)) {
+            assertEquals(MatrixFile.Layout.TILED, file.header.layout());
+            assertEquals(4, file.header.tile());
+            assertTrue(file.verify());
+            assertEquals(matrix, file.toDoubleMatrix());
+        }
+        try (var mapped = MatrixFile.openTiled(path)) {
+            assertEquals(matrix, mapped.toDoubleMatrix());
+        }
+    }
+
+    @Test
+    void tiledPaddingIsZero() throws IOException {
+        // 3x3を2x2のタイルに分けると、右端と下端のタイルに行列の外側の成分ができる
+        var matrix = DoubleMatrix.of(new double[][] {{1, 2, 3}, {4, 5, 6}, {7, 8, 9}});
+        var path = dir.resolve("a.matx");
+        try (var mapped = MappedDoubleMatrix.of(dir.resolve("tiles.bin"), matrix, 2)) {
+            MatrixFile.write(path, mapped);
+        }
+        var payload = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN)
+                .position(MatrixFile.HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        var values = new double[payload.remaining()];
+        payload.get(values);
+        assertArrayEquals(new double[] {
+                1, 2, 4, 5,
+                3, 0, 6, 0,
+                7, 8, 0, 0,
+                9, 0, 0, 0}, values);
+    }
+
+    @Test
+    void detectCorruption() throws IOException {
+        var path = dir.resolve("a.matx");
+        MatrixFile.write(path, DoubleMatrix.of(new double[][] {{1, 2}, {3, 4}}));
+        try (var channel = Files.newByteChannel(path, StandardOpenOption.WRITE)) {
+            channel.position(MatrixFile.HEADER_BYTES).write(ByteBuffer.wrap(new byte[] {1}));
+        }
+        try (var file = MatrixFile.open(path)) {
+            assertFalse(file.verify());
+        }
+
+        try (var channel = Files.newByteChannel(path, StandardOpenOption.WRITE)) {
+            channel.position(8).write(ByteBuffer.wrap(new byte[] {9}));
+        }
+        assertThrows(IllegalArgumentException.class, () -> MatrixFile.open(path));
+    }
+
+}
@@ -0,0 +1,186 @@
+package math.matrix;
+
+import math.numbers.Rational;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatrixReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content);
+    }
+
+    @Test
+    void readCsv() throws IOException {
+        var path = write("a.csv", "1, 2.5, -3e2\r\n\n0.001,-0,1E-3\n7,8,9");
+        var matrix = MatrixReader.readCsv(path, Parallelism.SERIAL);
+        assertEquals(DoubleMatrix.of(new double[][] {
+                {1, 2.5, -300},
+                {0.001, -0.0, 0.001},
+                {7, 8, 9},
+        }), matrix);
+    }
+
+    @Test
+    void parseDoubleExactly() throws IOException {
+        // 高速な変換の範囲外の値も、Double.parseDoubleと同じ値になる
+        var values = new String[] {"0.1", "123456789012345678", "1.7976931348623157e308", "4.9e-324", "NaN", "-Infinity", "2.2250738585072014E-308"};
+        var path = write("a.csv", String.join(",", values));
+        var matrix = MatrixReader.readCsv(path, Parallelism.SERIAL);
+        for (var j = 0; j < values.length; j++) {
+            assertEquals(Double.parseDouble(values[j]), matrix.get(0, j));
+        }
+    }
+
+    @Test
+    void readCsvInParallelChunks() throws IOException {
+        var random = new Random(1);
+        var expected = new DoubleMatrix(20000, 7);
+        var text = new StringBuilder();
+        for (var i = 0; i < expected.m; i++) {
+            for (var j = 0; j < expected.n; j++) {
+                var value = random.nextDouble() * 2000 - 1000;
+                expected.set(i, j, value);
+                text.append(j == 0 ? "" : ",").append(value);
+            }
+            text.append('\n');
+        }
+        var path = write("a.csv", text.toString());
+        // 複数のチャンクに分かれる大きさにする
+        assertTrue(Files.size(path) > 2 * MatrixReader.CHUNK);
+        var pool = new ForkJoinPool(4);
+        try {
+            assertEquals(expected, MatrixReader.readCsv(path, Parallelism.of(pool, 1)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void readCsvRational() throws IOException {
+        var path = write("a.csv", "1/2, -3/6\n4, 123456789012345678901234567890/7\n");
+        var matrix = MatrixReader.readCsvRational(path, Parallelism.SERIAL);
+        assertEquals(new Rational(1, 2), matrix.get(0, 0));
+        assertEquals(new Rational(-1, 2), matrix.get(0, 1));
+        assertEquals(new Rational(4, 1), matrix.get(1, 0));
+        assertEquals(new Rational(new BigInteger("123456789012345678901234567890"), BigInteger.valueOf(7)), matrix.get(1, 1));
+    }
+
+    @Test
+    void invalidCsv() throws IOException {
+        var ragged = write("a.csv", "1,2\n3\n");
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.readCsv(ragged));
+        var extra = write("b.csv", "1,2\n3,4,5\n");
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.readCsv(extra));
+        var text = write("c.csv", "1,x\n");
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.readCsv(text));
+    }
+
+    @Test
+    void readMatrixMarketCoordinate() throws IOException {
+        var path = write("a.mtx", """
+                %%MatrixMarket matrix coordinate real general
+                % comment
+                3 4 4
+                1 1 1.5
+                2 3 -2
+                3 4 7
+
+                3 1 1e1
+                """);
+        var expected = DoubleMatrix.of(new double[][] {
+                {1.5, 0, 0, 0},
+                {0, 0, -2, 0},
+                {10, 0, 0, 7},
+        });
+        assertEquals(expected, MatrixReader.readMatrixMarket(path, Parallelism.SERIAL));
+        var sparse = MatrixReader.readMatrixMarketSparse(path, Parallelism.SERIAL);
+        assertEquals(CscMatrix.of(expected), sparse);
+    }
+
+    @Test
+    void readMatrixMarketSymmetric() throws IOException {
+        var path = write("a.mtx", """
+                %%MatrixMarket matrix coordinate integer symmetric
+                3 3 4
+                1 1 2
+                2 1 5
+                3 2 -1
+                3 3 4
+                """);
+        var expected = DoubleMatrix.of(new double[][] {
+                {2, 5, 0},
+                {5, 0, -1},
+                {0, -1, 4},
+        });
+        assertEquals(expected, MatrixReader.readMatrixMarket(path));
+        assertEquals(CscMatrix.of(expected), MatrixReader.readMatrixMarketSparse(path));
+
+        var pattern = write("b.mtx", """
+                %%MatrixMarket matrix coordinate pattern skew-symmetric
+                2 2 1
+                2 1
+                """);
+        assertEquals(DoubleMatrix.of(new double[][] {{0, -1}, {1, 0}}), MatrixReader.readMatrixMarket(pattern));
+    }
+
+    @Test
+    void readMatrixMarketArray() throws IOException {
+        var general = write("a.mtx", """
+                %%MatrixMarket matrix array real general
+                2 3
+                1
+                4
+                2
+                5
+                3
+                6
+                """);
+        assertEquals(DoubleMatrix.of(new double[][] {{1, 2, 3}, {4, 5, 6}}), MatrixReader.readMatrixMarket(general));
+
+        var symmetric = write("b.mtx", """
+                %%MatrixMarket matrix array real symmetric
+                2 2
+                1
+                2
+                3
+                """);
+        assertEquals(DoubleMatrix.of(new double[][] {{1, 2}, {2, 3}}), MatrixReader.readMatrixMarket(symmetric));
+    }
+
+    @Test
+    void invalidMatrixMarket() throws IOException {
+        var missing = write("a.mtx", """
+                %%MatrixMarket matrix coordinate real general
+                2 2 3
+                1 1 1
+                2 2 1
+                """);
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.readMatrixMarket(missing));
+        var outOfRange = write("b.mtx", """
+                %%MatrixMarket matrix coordinate real general
+                2 2 1
+                3 1 1
+                """);
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.readMatrixMarketSparse(outOfRange));
+        var complex = write("c.mtx", """
+                %%MatrixMarket matrix coordinate complex general
+                1 1 1
+                1 1 1 0
+                """);
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.readMatrixMarket(complex));
+    }
+
+}
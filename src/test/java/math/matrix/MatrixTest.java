@@ -79,4 +79,23 @@ class MatrixTest {
         assertEquals(result, expected);
     }
 
+    @Test
+    void multiplyNonSquare() {
+        var matrix1 = Matrix.of(new double[][] {
+                {2, 0, 3},
+                {5, 1, 4},
+        });
+        var matrix2 = Matrix.of(new double[][] {
+                {7},
+                {1},
+                {5},
+        });
+        var result = matrix1.multiply(matrix2);
+        var expected = Matrix.of(new double[][] {
+                {29},
+                {56},
+        });
+        assertEquals(result, expected);
+    }
+
 }
\ No newline at end of file
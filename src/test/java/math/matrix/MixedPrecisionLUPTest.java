@@ -0,0 +1,146 @@
+package math.matrix;
+
+import math.numbers.Rational;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MixedPrecisionLUPTest {
+
+    /** 対角成分を大きくした、条件数の小さい行列 */
+    private static DoubleMatrix wellConditioned(int n, Random random) {
+        var a = TestMatrices.random(n, n, random);
+        for (var i = 0; i < n; i++) {
+            a.set(i, i, a.get(i, i) + n);
+        }
+        return a;
+    }
+
+    @Test
+    void refinesToDoublePrecision() {
+        var random = new Random(1);
+        for (var n : new int[]{1, 3, 17, 100}) {
+            var a = wellConditioned(n, random);
+            var b = TestMatrices.array(n, random);
+            var expected = DoublePackedLUP.decompose(a).orElseThrow().solve(b);
+            for (var residual : MixedPrecisionLUP.Residual.values()) {
+                var solution = MixedPrecisionLUP.solve(a, b, residual).orElseThrow();
+                assertFalse(solution.fallback());
+                assertTrue(solution.iterations() <= MixedPrecisionLUP.MAX_ITERATIONS);
+                assertArrayEquals(expected, solution.x(), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void blockedFactorization() {
+        var random = new Random(3);
+        var a = wellConditioned(150, random);
+        var b = TestMatrices.array(150, random);
+        var expected = DoublePackedLUP.decompose(a).orElseThrow().solve(b);
+        // 端数の出るブロック幅でも、ブロック化しない分解と同じく PA = LU をfloatの精度で満たす
+        for (var block : new int[]{16, 150}) {
+            var lu = MixedPrecisionLUP.decompose(a, block, Parallelism.SERIAL).orElseThrow();
+            var max = 0.0;
+            for (var i = 0; i < 150; i++) {
+                for (var j = 0; j < 150; j++) {
+                    var acc = i <= j ? (double) lu.lu[i * 150 + j] : 0.0;
+                    for (var p = 0; p < Math.min(i, j + 1); p++) {
+                        acc += (double) lu.lu[i * 150 + p] * lu.lu[p * 150 + j];
+                    }
+                    max = Math.max(max, Math.abs(acc - a.get(lu.pivot[i], j)));
+                }
+            }
+            assertTrue(max < 1e-3, "block: %d, max: %s".formatted(block, max));
+        }
+        var pool = new ForkJoinPool(4);
+        try {
+            var serial = MixedPrecisionLUP.decompose(a, 16, Parallelism.SERIAL).orElseThrow();
+            var parallel = MixedPrecisionLUP.decompose(a, 16, Parallelism.of(pool, 1)).orElseThrow();
+            assertArrayEquals(serial.lu, parallel.lu);
+            assertArrayEquals(serial.pivot, parallel.pivot);
+        } finally {
+            pool.shutdown();
+        }
+        assertArrayEquals(expected, MixedPrecisionLUP.solve(a, b).orElseThrow().x(), 1e-12);
+    }
+
+    @Test
+    void doesNotModifyArguments() {
+        var random = new Random(2);
+        var a = wellConditioned(10, random);
+        var b = TestMatrices.array(10, random);
+        var aCopy = a.clone();
+        var bCopy = b.clone();
+        MixedPrecisionLUP.solve(a, b).orElseThrow();
+        assertEquals(aCopy, a);
+        assertArrayEquals(bCopy, b);
+    }
+
+    @Test
+    void fallsBackWhenIllConditioned() {
+        // 条件数が1e16程度で、floatの分解では残差が減らない
+        var a = TestMatrices.hilbert(12);
+        var b = new double[12];
+        b[0] = 1.0;
+        var solution = MixedPrecisionLUP.solve(a, b).orElseThrow();
+        assertTrue(solution.fallback());
+        assertArrayEquals(DoublePackedLUP.decompose(a).orElseThrow().solve(b), solution.x());
+    }
+
+    @Test
+    void fallsBackOutsideFloatRange() {
+        var a = DoubleMatrix.of(new double[][]{{1e300, 1.0}, {1.0, 2.0}});
+        assertTrue(MixedPrecisionLUP.decompose(a).isEmpty());
+        var solution = MixedPrecisionLUP.solve(a, new double[]{1.0, 1.0}).orElseThrow();
+        assertTrue(solution.fallback());
+        assertEquals(0, solution.iterations());
+    }
+
+    @Test
+    void singular() {
+        var a = DoubleMatrix.of(new double[][]{{1.0, 2.0}, {2.0, 4.0}});
+        assertTrue(MixedPrecisionLUP.decompose(a).isEmpty());
+        assertTrue(MixedPrecisionLUP.solve(a, new double[]{1.0, 1.0}).isEmpty());
+    }
+
+    @Test
+    void rationalConversion() {
+        for (var x : new double[]{0.0, 1.0, -0.1, 1e-300, Double.MIN_VALUE, Double.MAX_VALUE, 3.0 / 7.0}) {
+            assertEquals(x, MixedPrecisionLUP.toDouble(MixedPrecisionLUP.toRational(x)));
+        }
+        var tenth = MixedPrecisionLUP.toRational(0.1);
+        assertEquals(BigInteger.valueOf(3602879701896397L), tenth.numerator());
+        assertEquals(BigInteger.ONE.shiftLeft(55), tenth.denominator());
+        assertEquals(new Rational(BigInteger.ONE, BigInteger.ONE.shiftLeft(1074)), MixedPrecisionLUP.toRational(Double.MIN_VALUE));
+        assertEquals(new Rational(BigInteger.ONE.shiftLeft(70).negate(), BigInteger.ONE), MixedPrecisionLUP.toRational(-0x1p70));
+        assertEquals(new Rational(-3, 1L << 40), MixedPrecisionLUP.toRational(-3 * 0x1p-40));
+        assertEquals(new Rational(0, 1), MixedPrecisionLUP.toRational(-0.0));
+        // 10進数の展開を経由した値と一致する
+        var random = new Random(4);
+        for (var i = 0; i < 1000; i++) {
+            var x = Double.longBitsToDouble(random.nextLong());
+            if (Double.isFinite(x)) {
+                var decimal = new BigDecimal(x);
+                var expected = decimal.scale() <= 0
+                        ? new Rational(decimal.toBigIntegerExact(), BigInteger.ONE)
+                        : new Rational(decimal.unscaledValue(), BigInteger.TEN.pow(decimal.scale()));
+                assertEquals(expected, MixedPrecisionLUP.toRational(x));
+            }
+        }
+        assertThrows(ArithmeticException.class, () -> MixedPrecisionLUP.toRational(Double.NaN));
+    }
+
+    @Test
+    void invalidSize() {
+        var a = new DoubleMatrix(2, 2);
+        assertThrows(IllegalArgumentException.class, () -> MixedPrecisionLUP.solve(a, new double[3]));
+        assertThrows(IllegalArgumentException.class, () -> MixedPrecisionLUP.solve(new DoubleMatrix(2, 3), new double[2]));
+    }
+
+}
@@ -0,0 +1,69 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiModularDeterminantTest {
+
+    private static long[][] random(int n, long bound, Random random) {
+        var a = new long[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                a[i][j] = random.nextLong() % bound;
+            }
+        }
+        return a;
+    }
+
+    @Test
+    void calcDeterminant() {
+        assertEquals(BigInteger.valueOf(16), MultiModularDeterminant.calcDeterminant(new long[][] {
+                {2, 3, 0, 1},
+                {0, 7, 1, 0},
+                {0, 0, 3, 1},
+                {0, 1, 5, 2},
+        }));
+        assertEquals(BigInteger.valueOf(-11), MultiModularDeterminant.calcDeterminant(new long[][] {
+                {1, 0, 3},
+                {2, 1, 5},
+                {7, 6, 4},
+        }));
+        assertEquals(BigInteger.ZERO, MultiModularDeterminant.calcDeterminant(new long[][] {
+                {1, 2},
+                {2, 4},
+        }));
+    }
+
+    @Test
+    void matchesBareiss() {
+        var random = new Random(1);
+        // 成分が大きいと複数の素数が必要になる
+        for (var bound : new long[] {10, 1L << 40, Long.MAX_VALUE}) {
+            var a = random(25, bound, random);
+            assertEquals(Bareiss.calcDeterminant(a), MultiModularDeterminant.calcDeterminant(a));
+        }
+    }
+
+    @Test
+    void parallel() {
+        var a = random(20, 1L << 50, new Random(2));
+        var elems = new BigInteger[20][20];
+        for (var i = 0; i < 20; i++) {
+            for (var j = 0; j < 20; j++) {
+                elems[i][j] = BigInteger.valueOf(a[i][j]);
+            }
+        }
+        var pool = new ForkJoinPool(4);
+        try {
+            assertEquals(Bareiss.calcDeterminant(a), MultiModularDeterminant.calcDeterminant(elems, Parallelism.of(pool, 1)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package math.matrix;
+
+import math.numbers.Rational;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedLDLTest {
+
+    private static Matrix<Rational> rational(Rational[][] elems) {
+        return new Matrix<>(elems, Rational.field, Rational.distance, Rational.comparator);
+    }
+
+    /** 正定値なヒルベルト行列 */
+    private static Matrix<Rational> hilbert(int n) {
+        var elems = new Rational[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                elems[i][j] = new Rational(1, i + j + 1);
+            }
+        }
+        return rational(elems);
+    }
+
+    private static Matrix<Rational> transpose(Matrix<Rational> matrix) {
+        var elems = new Rational[matrix.n][matrix.m];
+        for (var i = 0; i < matrix.m; i++) {
+            for (var j = 0; j < matrix.n; j++) {
+                elems[j][i] = matrix.get(i, j);
+            }
+        }
+        return rational(elems);
+    }
+
+    @Test
+    void decompose() {
+        var matrix = hilbert(7);
+        var ldl = PackedLDL.decompose(matrix).orElseThrow();
+
+        assertEquals(matrix, ldl.l().multiply(ldl.d()).multiply(transpose(ldl.l())));
+        assertEquals(PackedLUP.decompose(matrix).orElseThrow().determinant(), ldl.determinant());
+        // 元の行列は書き換えない
+        assertEquals(hilbert(7), matrix);
+    }
+
+    @Test
+    void readsLowerTriangleOnly() {
+        var matrix = hilbert(6);
+        for (var i = 0; i < 6; i++) {
+            for (var j = i + 1; j < 6; j++) {
+                matrix.elems[i][j] = new Rational(0, 1);
+            }
+        }
+        var ldl = PackedLDL.decompose(matrix).orElseThrow();
+        assertEquals(hilbert(6), ldl.l().multiply(ldl.d()).multiply(transpose(ldl.l())));
+    }
+
+    @Test
+    void solve() {
+        var matrix = hilbert(8);
+        var ldl = PackedLDL.decompose(matrix).orElseThrow();
+        var b = new ArrayList<Rational>();
+        var bs = new Rational[8][2];
+        for (var i = 0; i < 8; i++) {
+            b.add(new Rational(i - 3, 1));
+            bs[i][0] = b.get(i);
+            bs[i][1] = new Rational(1, 1);
+        }
+        var lup = PackedLUP.decompose(matrix).orElseThrow();
+        assertEquals(lup.solve(b), ldl.solve(b));
+        assertEquals(lup.solve(rational(bs)), ldl.solve(rational(bs)));
+        assertEquals(lup.solve(b), LUP.solve(matrix, b).orElseThrow());
+    }
+
+    @Test
+    void parallelIsIdentical() {
+        var matrix = hilbert(30);
+        var pool = new ForkJoinPool(4);
+        try {
+            var serial = PackedLDL.decompose(matrix, Parallelism.SERIAL).orElseThrow();
+            var parallel = PackedLDL.decompose(matrix, Parallelism.of(pool, 1)).orElseThrow();
+            assertArrayEquals(serial.ld, parallel.ld);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void notPositiveDefinite() {
+        // 対称だが固有値に負の値を含む
+        var matrix = hilbert(6);
+        matrix.elems[4][4] = new Rational(-1, 1);
+        assertTrue(PackedLDL.isSymmetric(matrix));
+        assertTrue(PackedLDL.decompose(matrix).isEmpty());
+        // LUP分解で求め直す
+        var expected = PackedLUP.decompose(matrix).orElseThrow().determinant();
+        assertEquals(expected, LUP.calcDeterminant(matrix));
+        assertEquals(expected, LUP.calcDeterminant(matrix, true));
+    }
+
+    @Test
+    void isSymmetric() {
+        var matrix = hilbert(5);
+        assertTrue(PackedLDL.isSymmetric(matrix));
+        matrix.elems[0][3] = new Rational(2, 1);
+        assertFalse(PackedLDL.isSymmetric(matrix));
+        assertFalse(PackedLDL.isSymmetric(rational(new Rational[][]{{new Rational(1, 1), new Rational(2, 1)}})));
+        assertEquals(PackedLUP.decompose(matrix).orElseThrow().determinant(), LUP.calcDeterminant(matrix));
+    }
+
+}
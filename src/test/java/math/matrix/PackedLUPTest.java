@@ -0,0 +1,131 @@
+package math.matrix;
+
+import math.numbers.Rational;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedLUPTest {
+
+    private static Matrix<Rational> rational(long[][] elems) {
+        var result = new Rational[elems.length][elems[0].length];
+        for (var i = 0; i < elems.length; i++) {
+            for (var j = 0; j < elems[0].length; j++) {
+                result[i][j] = new Rational(elems[i][j], 1);
+            }
+        }
+        return new Matrix<>(result, Rational.field, Rational.distance, Rational.comparator);
+    }
+
+    @Test
+    void decompose() {
+        var matrix = rational(new long[][] {
+                {2, 3, 0, 1},
+                {0, 7, 1, 0},
+                {0, 0, 3, 1},
+                {0, 1, 5, 2},
+        });
+        var lup = PackedLUP.decompose(matrix).get();
+
+        assertArrayEquals(new int[] {0, 1, 3, 2}, lup.pivot);
+        assertEquals(new Rational(-1, 1), lup.pSign);
+        assertEquals(new Rational(21, 34), lup.l().get(3, 2));
+        assertEquals(new Rational(-4, 17), lup.u().get(3, 3));
+        assertEquals(new Rational(16, 1), lup.determinant());
+        assertEquals(lup.p().multiply(matrix), lup.l().multiply(lup.u()));
+        // 元の行列は書き換えない
+        assertEquals(rational(new long[][] {
+                {2, 3, 0, 1},
+                {0, 7, 1, 0},
+                {0, 0, 3, 1},
+                {0, 1, 5, 2},
+        }), matrix);
+    }
+
+    @Test
+    void decomposeInPlace() {
+        var matrix = Matrix.of(new double[][] {
+                {1, 0, 3},
+                {2, 1, 5},
+                {7, 6, 4},
+        });
+        var original = matrix.clone();
+        var lup = PackedLUP.decomposeInPlace(matrix).get();
+
+        assertSame(matrix.elems, lup.lu);
+        assertEquals(-11.0, lup.determinant());
+        assertEquals(lup.p().multiply(original), lup.l().multiply(lup.u()));
+    }
+
+    @Test
+    void singular() {
+        var matrix = rational(new long[][] {
+                {1, 2, 3},
+                {2, 4, 6},
+                {1, 1, 1},
+        });
+        assertTrue(PackedLUP.decompose(matrix).isEmpty());
+        assertEquals(new Rational(0, 1), LUP.calcDeterminant(matrix));
+    }
+
+    @Test
+    void decomposeDoubleInPlace() {
+        // 4*4の配列の右下3*3を行列とみなして、その場で分解する
+        var elems = new double[] {
+                9, 9, 9, 9,
+                9, 1, 0, 3,
+                9, 2, 1, 5,
+                9, 7, 6, 4,
+        };
+        var matrix = new DoubleMatrix(3, 3, elems, 5, 4);
+        var original = matrix.clone();
+        var lup = DoublePackedLUP.decomposeInPlace(matrix).get();
+
+        assertSame(elems, lup.lu.elems);
+        assertEquals(7.0, elems[5]);
+        assertEquals(9.0, elems[4]);
+        assertArrayEquals(new int[] {2, 0, 1}, lup.pivot);
+        assertEquals(-11.0, lup.determinant(), 1e-12);
+        assertEquals(lup.p().multiply(original).toMatrix(), lup.l().multiply(lup.u()).toMatrix());
+    }
+
+    @Test
+    void solve() {
+        var matrix = rational(new long[][] {
+                {2, 3, 0, 1},
+                {0, 7, 1, 0},
+                {0, 0, 3, 1},
+                {0, 1, 5, 2},
+        });
+        var lup = PackedLUP.decompose(matrix).get();
+        var x = new Rational[][] {{new Rational(1, 2)}, {new Rational(-1, 3)}, {new Rational(2, 1)}, {new Rational(0, 1)}};
+        var expected = new Matrix<>(x, Rational.field, Rational.distance, Rational.comparator);
+        var b = matrix.multiply(expected);
+
+        var solved = lup.solve(List.of(b.get(0, 0), b.get(1, 0), b.get(2, 0), b.get(3, 0)));
+        for (var i = 0; i < 4; i++) {
+            assertEquals(x[i][0], solved.get(i));
+        }
+        assertEquals(expected, lup.solve(b));
+    }
+
+    @Test
+    void inverse() {
+        var matrix = rational(new long[][] {
+                {2, 1},
+                {7, 4},
+        });
+        var inverse = PackedLUP.decompose(matrix).get().inverse();
+        assertEquals(rational(new long[][] {
+                {4, -1},
+                {-7, 2},
+        }), inverse);
+        assertEquals(rational(new long[][] {
+                {1, 0},
+                {0, 1},
+        }), matrix.multiply(inverse));
+    }
+
+}
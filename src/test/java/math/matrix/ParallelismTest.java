@@ -0,0 +1,81 @@
+package math.matrix;
+
+import math.numbers.Rational;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelismTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+    // 小さな行列でも分割されるようにcutoffを小さくする
+    private static final Parallelism parallelism = Parallelism.of(pool, 64);
+
+    @AfterAll
+    static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void smallStaysOnCallingThread() {
+        var calls = new AtomicInteger();
+        var caller = Thread.currentThread();
+        Parallelism.DEFAULT.forEachBlock(4, 4, 4, (rowFrom, rowTo, colFrom, colTo) -> {
+            assertSame(caller, Thread.currentThread());
+            assertEquals(0, rowFrom);
+            assertEquals(4, rowTo);
+            calls.incrementAndGet();
+        });
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void coversEveryElementOnce() {
+        var counts = new int[37][23];
+        parallelism.forEachBlock(37, 23, 1, (rowFrom, rowTo, colFrom, colTo) -> {
+            for (var i = rowFrom; i < rowTo; i++) {
+                for (var j = colFrom; j < colTo; j++) {
+                    counts[i][j]++;
+                }
+            }
+        });
+        for (var row : counts) {
+            for (var count : row) {
+                assertEquals(1, count);
+            }
+        }
+    }
+
+    @Test
+    void doubleMatrixIsBitwiseIdentical() {
+        var random = new Random(1);
+        var a = TestMatrices.random(70, 90, random);
+        var b = TestMatrices.random(90, 50, random);
+        var c = TestMatrices.random(70, 90, random);
+        assertEquals(a.multiply(b, Parallelism.SERIAL), a.multiply(b, parallelism));
+        assertEquals(a.add(c, Parallelism.SERIAL), a.add(c, parallelism));
+        assertEquals(a.multiply(0.3, Parallelism.SERIAL), a.multiply(0.3, parallelism));
+    }
+
+    @Test
+    void matrixIsIdentical() {
+        var random = new Random(2);
+        var elems = new Rational[12][12];
+        for (var i = 0; i < 12; i++) {
+            for (var j = 0; j < 12; j++) {
+                elems[i][j] = new Rational(random.nextInt(19) - 9, random.nextInt(4) + 1);
+            }
+        }
+        var matrix = new Matrix<>(elems, Rational.field, Rational.distance, Rational.comparator);
+        assertEquals(matrix.multiply(matrix, Parallelism.SERIAL), matrix.multiply(matrix, parallelism));
+        assertEquals(matrix.add(matrix, Parallelism.SERIAL), matrix.add(matrix, parallelism));
+        var half = new Rational(1, 2);
+        assertEquals(matrix.multiply(half, Parallelism.SERIAL), matrix.multiply(half, parallelism));
+    }
+
+}
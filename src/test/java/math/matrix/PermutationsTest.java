@@ -0,0 +1,91 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermutationsTest {
+
+    private static boolean isOdd(int[] perm) {
+        var inversions = 0;
+        for (var i = 0; i < perm.length; i++) {
+            for (var j = i + 1; j < perm.length; j++) {
+                if (perm[i] > perm[j]) {
+                    inversions++;
+                }
+            }
+        }
+        return inversions % 2 == 1;
+    }
+
+    private static List<int[]> collect(Spliterator<Permutations.Cursor> spliterator) {
+        var result = new ArrayList<int[]>();
+        spliterator.forEachRemaining(c -> {
+            assertEquals(isOdd(c.toArray()), c.isOdd());
+            result.add(c.toArray());
+        });
+        return result;
+    }
+
+    @Test
+    void lexicographicWithSign() {
+        var perms = collect(new Permutations(6));
+        assertEquals(720, perms.size());
+        assertEquals(720, perms.stream().map(Arrays::toString).distinct().count());
+        for (var i = 1; i < perms.size(); i++) {
+            assertTrue(Arrays.compare(perms.get(i - 1), perms.get(i)) < 0);
+        }
+    }
+
+    @Test
+    void unrank() {
+        var perms = collect(new Permutations(5));
+        for (var rank = 0; rank < perms.size(); rank++) {
+            assertArrayEquals(perms.get(rank), Permutations.unrank(5, rank).toArray());
+        }
+    }
+
+    @Test
+    void splitCoversAllInOrder() {
+        var spliterator = new Permutations(6);
+        // 途中まで進めてから分割しても、残りの置換が漏れなく重複なく順に現れる
+        var head = new ArrayList<int[]>();
+        for (var i = 0; i < 10; i++) {
+            spliterator.tryAdvance(c -> head.add(c.toArray()));
+        }
+        var prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(710, prefix.estimateSize() + spliterator.estimateSize());
+        var all = new ArrayList<>(head);
+        all.addAll(collect(prefix));
+        all.addAll(collect(spliterator));
+
+        var expected = collect(new Permutations(6));
+        assertEquals(expected.size(), all.size());
+        for (var i = 0; i < all.size(); i++) {
+            assertArrayEquals(expected.get(i), all.get(i));
+        }
+    }
+
+    @Test
+    void parallelStream() {
+        var perms = StreamSupport.stream(new Permutations(7), true)
+                .map(c -> Arrays.toString(c.toArray()))
+                .toList();
+        assertEquals(5040, perms.size());
+        assertEquals(5040, new HashSet<>(perms).size());
+    }
+
+    @Test
+    void tooLarge() {
+        assertThrows(IllegalArgumentException.class, () -> new Permutations(21));
+    }
+
+}
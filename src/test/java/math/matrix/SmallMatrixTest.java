@@ -0,0 +1,189 @@
+package math.matrix;
+
+import math.numbers.Rational;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmallMatrixTest {
+
+    private static Rational[][] identity(int n) {
+        var a = new Rational[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                a[i][j] = i == j ? Rational.field.mulZero() : Rational.field.addZero();
+            }
+        }
+        return a;
+    }
+
+    private static List<Rational> apply(Rational[][] a, List<Rational> x) {
+        var field = Rational.field;
+        var result = new ArrayList<Rational>();
+        for (var row : a) {
+            var acc = field.addZero();
+            for (var j = 0; j < row.length; j++) {
+                acc = field.add(acc, field.multiply(row[j], x.get(j)));
+            }
+            result.add(acc);
+        }
+        return result;
+    }
+
+    private static double maxResidual(DoubleMatrix a, double[] x, double[] b) {
+        var max = 0.0;
+        for (var i = 0; i < a.m; i++) {
+            var acc = -b[i];
+            for (var j = 0; j < a.n; j++) {
+                acc += a.get(i, j) * x[j];
+            }
+            max = Math.max(max, Math.abs(acc));
+        }
+        return max;
+    }
+
+    @Test
+    void determinantMatchesLUP() {
+        var random = new Random(1);
+        for (var n = 1; n <= SmallMatrix.MAX; n++) {
+            for (var t = 0; t < 50; t++) {
+                var matrix = TestMatrices.random(n, n, random);
+                var expected = DoublePackedLUP.decompose(matrix).get().determinant();
+                assertEquals(expected, SmallMatrix.determinant(n, matrix.elems, 0, n), 1e-12);
+
+                var a = TestMatrices.rationals(n, n, random);
+                assertEquals(PrimitiveDeterminant.calcDeterminant(a, Rational.field), SmallMatrix.determinant(Rational.field, a));
+            }
+        }
+    }
+
+    @Test
+    void inverseAndSolve() {
+        var random = new Random(2);
+        for (var n = 1; n <= SmallMatrix.MAX; n++) {
+            var matrix = TestMatrices.random(n, n, random);
+            // 行列の一部をオフセットと行の間隔で指定する
+            var ld = n + 2;
+            var a = new double[1 + n * ld];
+            for (var i = 0; i < n; i++) {
+                System.arraycopy(matrix.elems, i * n, a, 1 + i * ld, n);
+            }
+            var inverse = new DoubleMatrix(n, n);
+            var det = SmallMatrix.inverse(n, a, 1, ld, inverse.elems, 0, n);
+            assertEquals(SmallMatrix.determinant(n, a, 1, ld), det, 1e-12);
+            var product = matrix.multiply(inverse);
+            for (var i = 0; i < n; i++) {
+                for (var j = 0; j < n; j++) {
+                    assertEquals(i == j ? 1.0 : 0.0, product.get(i, j), 1e-10);
+                }
+            }
+
+            var b = new double[n];
+            for (var i = 0; i < n; i++) {
+                b[i] = random.nextDouble();
+            }
+            var expected = DoublePackedLUP.decompose(matrix).get().solve(b);
+            SmallMatrix.solve(n, a, 1, ld, b, b);
+            assertArrayEquals(expected, b, 1e-10);
+
+            var r = TestMatrices.rationals(n, n, random);
+            var rInverse = new Rational[n][n];
+            SmallMatrix.inverse(Rational.field, r, rInverse);
+            var rProduct = new Rational[n][n];
+            SmallMatrix.multiply(Rational.field, r, rInverse, rProduct);
+            assertArrayEquals(identity(n), rProduct);
+            var rMatrix = new Matrix<>(r, Rational.field, Rational.distance, Rational.comparator);
+
+            var rb = List.of(new Rational(1, 2), new Rational(-3, 1), new Rational(2, 7), new Rational(5, 3)).subList(0, n);
+            var x = SmallMatrix.solve(Rational.field, r, rb).orElseThrow();
+            assertEquals(rb, apply(r, x));
+            assertEquals(x, LUP.solve(rMatrix, rb).orElseThrow());
+        }
+    }
+
+    @Test
+    void solveUsesClosedForm() {
+        var random = new Random(4);
+        for (var n = 1; n <= SmallMatrix.MAX; n++) {
+            var matrix = TestMatrices.random(n, n, random);
+            var b = new double[n];
+            for (var i = 0; i < n; i++) {
+                b[i] = random.nextDouble();
+            }
+            var expected = new double[n];
+            SmallMatrix.solve(n, matrix.elems, 0, n, b, expected);
+            assertArrayEquals(expected, DoubleLUP.solve(matrix, b).orElseThrow());
+            // 分解を再利用する場合はピボット付きの代入で解く
+            var lup = DoublePackedLUP.decompose(matrix).orElseThrow();
+            assertTrue(maxResidual(matrix, lup.solve(b), b) < 1e-10);
+            assertArrayEquals(expected, lup.solve(b), 1e-10);
+
+            var r = TestMatrices.rationals(n, n, random);
+            var rMatrix = new Matrix<>(r, Rational.field, Rational.distance, Rational.comparator);
+            var rb = List.of(new Rational(1, 2), new Rational(-3, 1), new Rational(2, 7), new Rational(5, 3)).subList(0, n);
+            var rx = SmallMatrix.solve(Rational.field, r, rb).orElseThrow();
+            assertEquals(rx, LUP.solve(rMatrix, rb).orElseThrow());
+            var rLup = PackedLUP.decompose(rMatrix).orElseThrow();
+            assertEquals(rx, rLup.solve(rb));
+            var rInverse = new Rational[n][n];
+            SmallMatrix.inverse(Rational.field, r, rInverse);
+            assertArrayEquals(rInverse, rLup.inverse().elems);
+        }
+    }
+
+    @Test
+    void fallsBackWhenDeterminantUnderflows() {
+        // 行列式は0に丸められるが、ピボットは0でないため分解では解ける
+        var matrix = DoubleMatrix.of(new double[][] {{1e-200, 0}, {0, 1e-200}});
+        var b = new double[] {1e-200, 2e-200};
+        assertArrayEquals(new double[] {1.0, 2.0}, DoubleLUP.solve(matrix, b).orElseThrow());
+        var lup = DoublePackedLUP.decompose(matrix).orElseThrow();
+        assertArrayEquals(new double[] {1.0, 2.0}, lup.solve(b));
+        assertEquals(DoubleMatrix.of(new double[][] {{1e200, 0}, {0, 1e200}}), lup.inverse());
+    }
+
+    @Test
+    void singular() {
+        var a = new double[] {1, 2, 3, 2, 4, 6, 0, 1, 5};
+        var inverse = new double[9];
+        assertEquals(0.0, SmallMatrix.inverse(3, a, 0, 3, inverse, 0, 3));
+        assertTrue(Double.isNaN(inverse[0]) || Double.isInfinite(inverse[0]));
+
+        var r = new Rational[][] {
+                {new Rational(1, 1), new Rational(2, 1)},
+                {new Rational(1, 2), new Rational(1, 1)},
+        };
+        assertEquals(Rational.field.addZero(), SmallMatrix.determinant(Rational.field, r));
+        assertThrows(ArithmeticException.class, () -> SmallMatrix.inverse(Rational.field, r, new Rational[2][2]));
+        var rb = List.of(new Rational(1, 1), new Rational(1, 1));
+        assertTrue(SmallMatrix.solve(Rational.field, r, rb).isEmpty());
+        assertTrue(LUP.solve(new Matrix<>(r, Rational.field, Rational.distance, Rational.comparator), rb).isEmpty());
+        assertTrue(DoubleLUP.solve(DoubleMatrix.of(new double[][] {{1, 2, 3}, {2, 4, 6}, {0, 1, 5}}), new double[3]).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> SmallMatrix.determinant(5, new double[25], 0, 5));
+    }
+
+    @Test
+    void multiplyMatchesGemm() {
+        var random = new Random(3);
+        for (var n = 1; n <= SmallMatrix.MAX; n++) {
+            var a = TestMatrices.rationals(n, n, random);
+            var b = TestMatrices.rationals(n, n, random);
+            var expected = new Rational[n][n];
+            Gemm.multiply(Rational.field, a, b, expected);
+            var actual = new Rational[n][n];
+            SmallMatrix.multiply(Rational.field, a, b, actual);
+            assertArrayEquals(expected, actual);
+
+            var x = TestMatrices.random(n, n, random);
+            var y = TestMatrices.random(n, n, random);
+            var c = new DoubleMatrix(n, n);
+            SmallMatrix.multiply(n, x.elems, 0, n, y.elems, 0, n, c.elems, 0, n);
+            assertEquals(x.toMatrix().multiply(y.toMatrix()), c.toMatrix());
+        }
+    }
+
+}
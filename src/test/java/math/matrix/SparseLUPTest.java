@@ -0,0 +1,128 @@
+package math.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseLUPTest {
+
+    /** 対角成分が大きく、各行に数個の非零成分を持つ行列 */
+    private static DoubleMatrix randomSparse(int n, int perRow, Random random) {
+        var matrix = new DoubleMatrix(n, n);
+        for (var i = 0; i < n; i++) {
+            matrix.set(i, i, 1 + random.nextDouble());
+            for (var t = 0; t < perRow; t++) {
+                matrix.set(i, random.nextInt(n), random.nextDouble() * 2 - 1);
+            }
+        }
+        return matrix;
+    }
+
+    /** 1行目と1列目が全て非零で、他は対角成分だけの行列。そのまま消去すると全体が埋まる */
+    private static DoubleMatrix arrow(int n) {
+        var matrix = new DoubleMatrix(n, n);
+        for (var i = 0; i < n; i++) {
+            matrix.set(0, i, 1);
+            matrix.set(i, 0, 1);
+            matrix.set(i, i, n);
+        }
+        return matrix;
+    }
+
+    private static DoubleMatrix column(double[] x) {
+        var result = new DoubleMatrix(x.length, 1);
+        for (var i = 0; i < x.length; i++) {
+            result.set(i, 0, x[i]);
+        }
+        return result;
+    }
+
+    @Test
+    void decompose() {
+        var matrix = DoubleMatrix.of(new double[][] {
+                {2, 3, 0, 1},
+                {0, 7, 1, 0},
+                {0, 0, 3, 1},
+                {0, 1, 5, 2},
+        });
+        var lup = SparseLUP.decompose(CscMatrix.of(matrix)).get();
+        assertEquals(16, lup.determinant(), 1e-12);
+
+        // PAQ = LU
+        var lu = lup.l().multiply(lup.u().toDoubleMatrix());
+        for (var i = 0; i < 4; i++) {
+            for (var k = 0; k < 4; k++) {
+                assertEquals(matrix.get(i, lup.q[k]), lu.get(lup.pinv[i], k), 1e-12);
+            }
+        }
+        assertArrayEquals(new double[] {1, 2, 3, 4}, lup.solve(new double[] {12, 17, 13, 25}), 1e-12);
+    }
+
+    @Test
+    void matchesDense() {
+        var random = new Random(1);
+        for (var n : new int[] {1, 5, 40, 120}) {
+            var matrix = randomSparse(n, 3, random);
+            var lup = SparseLUP.decompose(CscMatrix.of(matrix)).get();
+            var det = matrix.determinant();
+            assertEquals(det, lup.determinant(), Math.abs(det) * 1e-10);
+
+            var b = new double[n];
+            for (var i = 0; i < n; i++) {
+                b[i] = random.nextDouble();
+            }
+            var ax = matrix.multiply(column(lup.solve(b)));
+            for (var i = 0; i < n; i++) {
+                assertEquals(b[i], ax.get(i, 0), 1e-10);
+            }
+        }
+    }
+
+    @Test
+    void orderingReducesFill() {
+        var n = 100;
+        var lup = SparseLUP.decompose(CscMatrix.of(arrow(n))).get();
+        // 密な1列目を最初に消去すると n * n 程度の成分ができる
+        assertTrue(lup.l().nonZeros() + lup.u().nonZeros() <= 4 * n);
+        var q = lup.q.clone();
+        Arrays.sort(q);
+        for (var k = 0; k < n; k++) {
+            assertEquals(k, q[k]);
+        }
+    }
+
+    @Test
+    void reuseSymbolic() {
+        var random = new Random(2);
+        var matrix = CscMatrix.of(randomSparse(60, 2, random));
+        var symbolic = SparseLUP.analyze(matrix);
+
+        // 同じパターンで値だけが異なる行列
+        var values = matrix.values.clone();
+        for (var p = 0; p < values.length; p++) {
+            values[p] *= 1 + random.nextDouble();
+        }
+        var other = new CscMatrix(matrix.m, matrix.n, matrix.colPtr.clone(), matrix.rowIdx.clone(), values);
+        var lup = SparseLUP.factor(symbolic, other).get();
+        assertSame(symbolic.q, lup.q);
+        var det = other.toDoubleMatrix().determinant();
+        assertEquals(det, lup.determinant(), Math.abs(det) * 1e-10);
+
+        var differentPattern = CscMatrix.of(randomSparse(60, 2, random));
+        assertThrows(IllegalArgumentException.class, () -> SparseLUP.factor(symbolic, differentPattern));
+    }
+
+    @Test
+    void singular() {
+        var matrix = DoubleMatrix.of(new double[][] {
+                {1, 2, 0},
+                {2, 4, 0},
+                {0, 0, 1},
+        });
+        assertTrue(SparseLUP.decompose(CscMatrix.of(matrix)).isEmpty());
+    }
+
+}
@@ -0,0 +1,76 @@
+package math.matrix;
+
+import math.numbers.DoubleInstances;
+import math.numbers.ModularField;
+import math.numbers.Rational;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StrassenTest {
+
+    private static Rational[][] gemm(Rational[][] a, Rational[][] b) {
+        var c = new Rational[a.length][a.length];
+        Gemm.multiply(Rational.field, a, b, c);
+        return c;
+    }
+
+    @Test
+    void multiplyIsExact() {
+        var random = new Random(1);
+        // 奇数の大きさでは0の補填が複数段で起きる
+        for (var n : new int[] {8, 13, 21}) {
+            var a = TestMatrices.rationals(n, n, random);
+            var b = TestMatrices.rationals(n, n, random);
+            assertArrayEquals(gemm(a, b), Strassen.multiply(Rational.field, a, b, 2, Parallelism.SERIAL));
+        }
+    }
+
+    @Test
+    void multiplyParallel() {
+        var random = new Random(2);
+        var a = TestMatrices.rationals(17, 17, random);
+        var b = TestMatrices.rationals(17, 17, random);
+        var pool = new ForkJoinPool(4);
+        try {
+            assertArrayEquals(gemm(a, b), Strassen.multiply(Rational.field, a, b, 3, Parallelism.of(pool, 1)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void applies() {
+        assertTrue(Strassen.applies(200, 200, 200, 128));
+        assertFalse(Strassen.applies(128, 128, 128, 128));
+        assertFalse(Strassen.applies(200, 200, 199, 128));
+        // 自動的に選ぶのは演算が正確な場合に限る
+        var n = Strassen.CROSSOVER + 1;
+        assertTrue(Strassen.applies(Rational.field, n, n, n));
+        assertTrue(Strassen.applies(new ModularField(1_000_000_007L), n, n, n));
+        assertFalse(Strassen.applies(DoubleInstances.field, n, n, n));
+    }
+
+    @Test
+    void doubleMatrixKeepsGemm() {
+        var random = new Random(3);
+        var n = Strassen.CROSSOVER + 1;
+        var a = new double[n][n];
+        var b = new double[n][n];
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                a[i][j] = random.nextDouble();
+                b[i][j] = random.nextDouble();
+            }
+        }
+        var ma = Matrix.of(a);
+        var mb = Matrix.of(b);
+        var expected = new Double[n][n];
+        Gemm.multiply(DoubleInstances.field, ma.elems, mb.elems, expected);
+        assertArrayEquals(expected, ma.multiply(mb).elems);
+    }
+
+}
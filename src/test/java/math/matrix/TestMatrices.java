@@ -0,0 +1,85 @@
+package math.matrix;
+
+import math.numbers.Rational;
+
+import java.util.Random;
+
+/** テストで使う行列と配列を作る。乱数の成分は全て-1以上1未満である */
+final class TestMatrices {
+
+    private TestMatrices() {}
+
+    static DoubleMatrix random(int m, int n, Random random) {
+        var matrix = new DoubleMatrix(m, n);
+        for (var i = 0; i < m * n; i++) {
+            matrix.elems[i] = random.nextDouble() * 2 - 1;
+        }
+        return matrix;
+    }
+
+    static double[] array(int size, Random random) {
+        var a = new double[size];
+        for (var i = 0; i < size; i++) {
+            a[i] = random.nextDouble() * 2 - 1;
+        }
+        return a;
+    }
+
+    static float[] floatArray(int size, Random random) {
+        var a = new float[size];
+        for (var i = 0; i < size; i++) {
+            a[i] = random.nextFloat() * 2 - 1;
+        }
+        return a;
+    }
+
+    /** 分子が-10以上10以下、分母が1以上6以下の有理数を成分とする行列 */
+    static Rational[][] rationals(int m, int n, Random random) {
+        var elems = new Rational[m][n];
+        for (var i = 0; i < m; i++) {
+            for (var j = 0; j < n; j++) {
+                elems[i][j] = new Rational(random.nextInt(21) - 10, random.nextInt(6) + 1);
+            }
+        }
+        return elems;
+    }
+
+    /** B * B^T / n + I の形の対称正定値行列 */
+    static DoubleMatrix positiveDefinite(int n, Random random) {
+        var b = random(n, n, random);
+        var a = new DoubleMatrix(n, n);
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                var s = 0.0;
+                for (var p = 0; p < n; p++) {
+                    s += b.get(i, p) * b.get(j, p);
+                }
+                a.set(i, j, s / n + (i == j ? 1.0 : 0.0));
+            }
+        }
+        return a;
+    }
+
+    /** 条件数の大きいヒルベルト行列 */
+    static DoubleMatrix hilbert(int n) {
+        var a = new DoubleMatrix(n, n);
+        for (var i = 0; i < n; i++) {
+            for (var j = 0; j < n; j++) {
+                a.set(i, j, 1.0 / (i + j + 1));
+            }
+        }
+        return a;
+    }
+
+    /** 成分の差の絶対値の最大値 */
+    static double maxDifference(DoubleMatrix a, DoubleMatrix b) {
+        var max = 0.0;
+        for (var i = 0; i < a.m; i++) {
+            for (var j = 0; j < a.n; j++) {
+                max = Math.max(max, Math.abs(a.get(i, j) - b.get(i, j)));
+            }
+        }
+        return max;
+    }
+
+}
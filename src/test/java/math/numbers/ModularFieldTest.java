@@ -0,0 +1,65 @@
+package math.numbers;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModularFieldTest {
+
+    @Test
+    void mulModMatchesBigInteger() {
+        var random = new Random(1);
+        // 2^62未満の最大の素数と小さな素数
+        for (var p : new long[] {4611686018427387847L, 1_000_000_007L, 3}) {
+            var field = new ModularField(p);
+            var bigP = BigInteger.valueOf(p);
+            for (var t = 0; t < 1000; t++) {
+                var a = Math.floorMod(random.nextLong(), p);
+                var b = Math.floorMod(random.nextLong(), p);
+                var expected = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).mod(bigP).longValue();
+                assertEquals(expected, field.mulMod(a, b));
+                assertEquals(a, field.fromMontgomery(field.toMontgomery(a)));
+                assertEquals(BigInteger.valueOf(a).add(BigInteger.valueOf(b)).mod(bigP).longValue(), field.addMod(a, b));
+                assertEquals(BigInteger.valueOf(a).subtract(BigInteger.valueOf(b)).mod(bigP).longValue(), field.subMod(a, b));
+            }
+        }
+    }
+
+    @Test
+    void field() {
+        var field = new ModularField(1_000_000_007L);
+        var a = 123_456_789L;
+        assertEquals(1L, field.multiply(a, field.mulInverse(a)));
+        assertEquals(0L, field.add(a, field.addInverse(a)));
+        assertEquals(field.reduce(-5), field.minus(0L, 5L));
+        assertThrows(ArithmeticException.class, () -> field.mulInverse(0L));
+        assertThrows(IllegalArgumentException.class, () -> new ModularField(1L << 62));
+    }
+
+    @Test
+    void fieldReducesArguments() {
+        var p = 1_000_000_007L;
+        var field = new ModularField(p);
+        var bigP = BigInteger.valueOf(p);
+        var random = new Random(2);
+        for (var t = 0; t < 1000; t++) {
+            // 負の値やp以上の値もpで簡約してから計算する
+            long a = random.nextLong();
+            long b = t % 2 == 0 ? random.nextLong() : p + random.nextInt(10);
+            var bigA = BigInteger.valueOf(a);
+            var bigB = BigInteger.valueOf(b);
+            assertEquals(bigA.add(bigB).mod(bigP).longValue(), field.add(a, b));
+            assertEquals(bigA.subtract(bigB).mod(bigP).longValue(), field.minus(a, b));
+            assertEquals(bigA.multiply(bigB).mod(bigP).longValue(), field.multiply(a, b));
+            assertEquals(bigA.negate().mod(bigP).longValue(), field.addInverse(a));
+            if (bigA.mod(bigP).signum() != 0) {
+                assertEquals(bigA.modInverse(bigP).longValue(), field.mulInverse(a));
+            }
+        }
+        assertThrows(ArithmeticException.class, () -> field.mulInverse(p));
+    }
+
+}
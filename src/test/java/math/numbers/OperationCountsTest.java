@@ -0,0 +1,55 @@
+package math.numbers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationCountsTest {
+
+    @Test
+    void countsEachOperation() {
+        var counts = new OperationCounts();
+        var field = counts.field(Rational.field);
+        var a = new Rational(1, 2);
+        var b = new Rational(1, 3);
+        assertEquals(new Rational(5, 6), field.add(a, b));
+        assertEquals(new Rational(1, 6), field.minus(a, b));
+        assertEquals(new Rational(1, 6), field.multiply(a, b));
+        assertEquals(new Rational(3, 2), field.div(a, b));
+        assertEquals(new Rational(2, 1), field.mulInverse(a));
+        assertEquals(field.addZero(), field.add(a, field.addInverse(a)));
+
+        var distance = counts.distance(DoubleInstances.distance);
+        var comparator = counts.comparator(DoubleInstances.comparator);
+        assertEquals(2.0, distance.calc(1.0, 3.0));
+        assertTrue(comparator.compare(1.0, 3.0) < 0);
+
+        assertEquals(2, counts.count(OperationCounts.Operation.ADD));
+        assertEquals(1, counts.count(OperationCounts.Operation.MINUS));
+        assertEquals(1, counts.count(OperationCounts.Operation.MULTIPLY));
+        assertEquals(1, counts.count(OperationCounts.Operation.DIV));
+        assertEquals(1, counts.count(OperationCounts.Operation.MUL_INVERSE));
+        assertEquals(1, counts.count(OperationCounts.Operation.ADD_INVERSE));
+        assertEquals(0, counts.count(OperationCounts.Operation.EXACT_DIV));
+        assertEquals(1, counts.count(OperationCounts.Operation.DISTANCE));
+        assertEquals(1, counts.count(OperationCounts.Operation.COMPARE));
+        assertEquals(9, counts.total());
+        assertEquals(0, counts.nanos(OperationCounts.Operation.ADD));
+
+        counts.reset();
+        assertEquals(0, counts.total());
+    }
+
+    @Test
+    void countsFromManyThreads() {
+        var counts = OperationCounts.timed();
+        var field = counts.field(DoubleInstances.field);
+        IntStream.range(0, 100_000).parallel().forEach(i -> field.multiply((double) i, 2.0));
+        assertEquals(100_000, counts.count(OperationCounts.Operation.MULTIPLY));
+        assertEquals(100_000L, counts.snapshot().get(OperationCounts.Operation.MULTIPLY));
+        assertTrue(counts.nanos(OperationCounts.Operation.MULTIPLY) > 0);
+    }
+
+}
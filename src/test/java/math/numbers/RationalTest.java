@@ -0,0 +1,72 @@
+package math.numbers;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RationalTest {
+
+    @Test
+    void normalize() {
+        assertEquals(new Rational(-2, 3), new Rational(4, -6));
+        assertEquals(new Rational(0, 1), new Rational(0, -5));
+        assertEquals("Rational{numer=-2, denom=3}", new Rational(4, -6).toString());
+        assertThrows(ArithmeticException.class, () -> new Rational(1, 0));
+    }
+
+    @Test
+    void gcd() {
+        assertEquals(6, Rational.gcd(48, 18));
+        assertEquals(7, Rational.gcd(0, 7));
+        assertEquals(1, Rational.gcd(Long.MAX_VALUE, Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    void promoteOnOverflow() {
+        var big = new Rational(Long.MAX_VALUE, 1);
+        var sum = Rational.field.add(big, big);
+        assertTrue(sum.isBig());
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(1), sum.numerator());
+
+        var product = Rational.field.multiply(new Rational(1, Long.MAX_VALUE), new Rational(1, Long.MAX_VALUE - 1));
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(Long.MAX_VALUE - 1)), product.denominator());
+    }
+
+    @Test
+    void demoteWhenFits() {
+        var big = Rational.field.add(new Rational(Long.MAX_VALUE, 1), new Rational(Long.MAX_VALUE, 1));
+        var back = Rational.field.minus(big, new Rational(Long.MAX_VALUE, 1));
+        assertFalse(back.isBig());
+        assertEquals(new Rational(Long.MAX_VALUE, 1), back);
+        assertEquals(new Rational(Long.MIN_VALUE, 1), new Rational(BigInteger.valueOf(Long.MIN_VALUE), BigInteger.ONE));
+    }
+
+    @Test
+    void matchesBigInteger() {
+        var random = new Random(1);
+        for (var t = 0; t < 1000; t++) {
+            // 大きな値を混ぜて、桁あふれする場合としない場合の両方を通る
+            var a = new Rational(random.nextLong() >> random.nextInt(64), (random.nextLong() >>> random.nextInt(64)) | 1);
+            var b = new Rational(random.nextLong() >> random.nextInt(64), (random.nextLong() >>> random.nextInt(64)) | 1);
+            var an = a.numerator();
+            var ad = a.denominator();
+            var bn = b.numerator();
+            var bd = b.denominator();
+            assertEquals(new Rational(an.multiply(bd).add(bn.multiply(ad)), ad.multiply(bd)), Rational.field.add(a, b));
+            assertEquals(new Rational(an.multiply(bn), ad.multiply(bd)), Rational.field.multiply(a, b));
+            assertEquals(Integer.signum(an.multiply(bd).compareTo(bn.multiply(ad))),
+                    Integer.signum(Rational.comparator.compare(a, b)));
+        }
+    }
+
+    @Test
+    void mulInverse() {
+        assertEquals(new Rational(-3, 2), Rational.field.mulInverse(new Rational(-2, 3)));
+        assertThrows(ArithmeticException.class, () -> Rational.field.mulInverse(new Rational(0, 1)));
+        assertEquals(new Rational(2, 3), Rational.distance.calc(new Rational(1, 3), new Rational(1, 1)));
+    }
+
+}